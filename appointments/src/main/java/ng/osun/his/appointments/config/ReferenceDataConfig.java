@@ -0,0 +1,41 @@
+package ng.osun.his.appointments.config;
+
+import ng.osun.his.appointments.domain.Clinic;
+import ng.osun.his.appointments.domain.Provider;
+import ng.osun.his.appointments.repository.ClinicRepository;
+import ng.osun.his.appointments.repository.ProviderRepository;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.cache.ReferenceDataCaches;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Near-caches for the clinic and provider rows read on every booking.
+ */
+@Configuration
+public class ReferenceDataConfig {
+
+    @Bean
+    public ReferenceDataCache<String, Clinic> clinicCache(ReferenceDataCaches caches, ClinicRepository clinicRepository) {
+        return caches.<String, Clinic>builder("Clinic", clinicRepository::findWithScheduleById)
+            .preload(() -> clinicRepository.findAllWithSchedule().stream()
+                .collect(Collectors.toMap(Clinic::getId, Function.identity())))
+            .ttl(Duration.ofMinutes(15))
+            .maxEntries(2_000)
+            .build();
+    }
+
+    @Bean
+    public ReferenceDataCache<String, Provider> providerCache(ReferenceDataCaches caches, ProviderRepository providerRepository) {
+        return caches.<String, Provider>builder("Provider", providerRepository::findById)
+            .preload(() -> providerRepository.findByActiveTrue().stream()
+                .collect(Collectors.toMap(Provider::getId, Function.identity())))
+            .ttl(Duration.ofMinutes(15))
+            .maxEntries(5_000)
+            .build();
+    }
+}
@@ -4,12 +4,14 @@ package ng.osun.his.appointments.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.AvailableSlot;
 import ng.osun.his.appointments.repository.AppointmentRepository;
 import ng.osun.his.appointments.service.AppointmentService;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -32,7 +34,6 @@ public class AppointmentController {
      */
     @PostMapping
     @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN') or hasRole('CASHIER')")
-    @Transactional
     public ResponseEntity<Appointment> bookAppointment(@RequestBody Appointment appointment, Authentication authentication) {
         try {
             Appointment booked = appointmentService.bookAppointment(appointment, authentication);
@@ -42,6 +43,25 @@ public class AppointmentController {
         }
     }
 
+    /**
+     * Next free slots in a clinic, across one or more providers or in the clinic's unassigned
+     * pool when no provider is given. Defaults to searching from now.
+     */
+    @GetMapping("/availability")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN') or hasRole('CASHIER')")
+    public ResponseEntity<List<AvailableSlot>> getNextAvailableSlots(
+            @RequestParam String clinicId,
+            @RequestParam(required = false) List<String> providerIds,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(defaultValue = "10") int limit) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now(NigeriaContext.TIMEZONE);
+        try {
+            return ResponseEntity.ok(appointmentService.findNextAvailableSlots(clinicId, providerIds, start, limit));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     /**
      * Get appointment by ID.
      */
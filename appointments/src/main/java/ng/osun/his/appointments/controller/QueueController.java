@@ -3,13 +3,18 @@ package ng.osun.his.appointments.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.appointments.domain.VisitQueue;
-import ng.osun.his.appointments.repository.QueueRepository;
 import ng.osun.his.appointments.service.QueueService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * REST API for queue management.
@@ -20,7 +25,8 @@ import java.util.Map;
 @Slf4j
 public class QueueController {
 
-    private final QueueRepository queueRepository;
+    private static final Set<String> STAFF_ROLES = Set.of("ROLE_DOCTOR", "ROLE_NURSE", "ROLE_ADMIN");
+
     private final QueueService queueService;
 
     /**
@@ -29,11 +35,28 @@ public class QueueController {
     @GetMapping("/clinic/{clinicId}")
     @PreAuthorize("hasRole('NURSE') or hasRole('DOCTOR') or hasRole('ADMIN')")
     public ResponseEntity<VisitQueue> getQueue(@PathVariable String clinicId) {
-        return queueRepository.findByClinicId(clinicId)
+        return queueService.getQueue(clinicId)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Stream position/ETA changes for a clinic as Server-Sent Events.
+     * Pass patientId to receive only that patient's updates. Patients may only stream their own
+     * updates: patientId is required and must be the token's subject.
+     */
+    @GetMapping(path = "/clinic/{clinicId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('PATIENT', 'DOCTOR', 'NURSE', 'ADMIN')")
+    public SseEmitter streamQueue(
+            @PathVariable String clinicId,
+            @RequestParam(required = false) String patientId,
+            Authentication authentication) {
+        if (!isStaff(authentication) && (patientId == null || !patientId.equals(authentication.getName()))) {
+            throw new AccessDeniedException("Patients may only stream their own queue updates");
+        }
+        return queueService.subscribe(clinicId, patientId);
+    }
+
     /**
      * Get queue position for patient.
      */
@@ -50,10 +73,11 @@ public class QueueController {
         }
 
         // Get estimated wait time
-        queueService.updateQueueEstimates(clinicId);
+        int etaMinutes = queueService.getEtaMinutes(clinicId, position);
 
         return ResponseEntity.ok(Map.of(
             "position", position,
+            "etaMinutes", etaMinutes,
             "clinicId", clinicId,
             "patientId", patientId
         ));
@@ -64,8 +88,10 @@ public class QueueController {
      */
     @PostMapping("/{clinicId}/next")
     @PreAuthorize("hasRole('NURSE') or hasRole('DOCTOR')")
-    public ResponseEntity<Void> processNext(@PathVariable String clinicId) {
-        queueService.processNext(clinicId);
+    public ResponseEntity<Void> processNext(
+            @PathVariable String clinicId,
+            @RequestParam(required = false) String providerId) {
+        queueService.processNext(clinicId, providerId);
         return ResponseEntity.ok().build();
     }
 
@@ -90,5 +116,10 @@ public class QueueController {
         queueService.updateQueueEstimates(clinicId);
         return ResponseEntity.ok().build();
     }
-}
 
+    private static boolean isStaff(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+            .map(GrantedAuthority::getAuthority)
+            .anyMatch(STAFF_ROLES::contains);
+    }
+}
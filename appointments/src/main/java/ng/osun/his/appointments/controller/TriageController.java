@@ -6,10 +6,14 @@ import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.appointments.domain.TriageScore;
 import ng.osun.his.appointments.repository.TriageScoreRepository;
 import ng.osun.his.appointments.service.TriageService;
+import ng.osun.his.platform.events.VitalSignObservation;
+import ng.osun.his.platform.events.VitalSignObservationPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
+
 /**
  * REST API for triage scoring.
  */
@@ -21,6 +25,7 @@ public class TriageController {
 
     private final TriageScoreRepository triageScoreRepository;
     private final TriageService triageService;
+    private final VitalSignObservationPublisher observationPublisher;
 
     /**
      * Create triage score for appointment.
@@ -38,7 +43,9 @@ public class TriageController {
             calculated.getCalculatedScore(), calculated.getAppointmentId(), 
             calculated.getPriorityLevel(), queuePriority);
         
-        return ResponseEntity.ok(triageScoreRepository.save(calculated));
+        TriageScore saved = triageScoreRepository.save(calculated);
+        observationPublisher.publish(toObservation(saved));
+        return ResponseEntity.ok(saved);
     }
 
     /**
@@ -51,5 +58,22 @@ public class TriageController {
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
-}
 
+    /**
+     * Triage vitals also feed the continuous early-warning score in core-emr.
+     */
+    private static VitalSignObservation toObservation(TriageScore triage) {
+        VitalSignObservation observation = new VitalSignObservation();
+        observation.setObservationId(triage.getId());
+        observation.setPatientId(triage.getPatientId());
+        observation.setSource(VitalSignObservation.SOURCE_TRIAGE);
+        observation.setTakenAt(triage.getAssessedAt() != null ? triage.getAssessedAt() : Instant.now());
+        observation.setRespiratoryRate(triage.getRespiratoryRate());
+        observation.setSpo2(triage.getOxygenSaturation());
+        observation.setSystolicBp(triage.getSystolicBp());
+        observation.setHeartRate(triage.getHeartRate());
+        observation.setConsciousnessLevel(triage.getConsciousnessLevel());
+        observation.setTemperatureCelsius(triage.getTemperature());
+        return observation;
+    }
+}
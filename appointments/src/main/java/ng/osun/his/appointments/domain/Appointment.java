@@ -16,7 +16,8 @@ import ng.osun.his.platform.domain.BaseEntity;
     @Index(name = "idx_appointments_clinic", columnList = "clinic_id"),
     @Index(name = "idx_appointments_provider", columnList = "provider_id"),
     @Index(name = "idx_appointments_date", columnList = "appointment_date"),
-    @Index(name = "idx_appointments_status", columnList = "status")
+    @Index(name = "idx_appointments_status", columnList = "status"),
+    @Index(name = "idx_appointments_reminder_due", columnList = "status, appointment_date, sms_reminder_sent")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
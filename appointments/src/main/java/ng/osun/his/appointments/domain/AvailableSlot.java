@@ -0,0 +1,27 @@
+package ng.osun.his.appointments.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A free bookable slot returned by the availability search.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AvailableSlot {
+
+    private String clinicId;
+
+    /**
+     * Null for slots in the clinic's unassigned (no provider) pool.
+     */
+    private String providerId;
+
+    private LocalDateTime start;
+
+    private LocalDateTime end;
+}
@@ -7,8 +7,6 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import ng.osun.his.platform.domain.BaseEntity;
 
-import java.time.DayOfWeek;
-import java.time.LocalTime;
 import java.util.Set;
 
 /**
@@ -58,20 +56,3 @@ public class Clinic extends BaseEntity {
     @Column(name = "active")
     private Boolean active = true;
 }
-
-@Embeddable
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-class OperatingHours {
-    @Column(name = "day_of_week")
-    @Enumerated(EnumType.STRING)
-    private DayOfWeek dayOfWeek;
-
-    @Column(name = "start_time")
-    private LocalTime startTime;
-
-    @Column(name = "end_time")
-    private LocalTime endTime;
-}
-
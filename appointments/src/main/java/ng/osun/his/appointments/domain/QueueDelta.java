@@ -0,0 +1,25 @@
+package ng.osun.his.appointments.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Position/ETA change for one patient, pushed to queue stream subscribers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueDelta {
+
+    private String patientId;
+
+    /**
+     * 1-based waiting position, 0 while being seen, null once completed.
+     */
+    private Integer position;
+
+    private Integer etaMinutes;
+
+    private String status; // WAITING, IN_PROGRESS, COMPLETED
+}
@@ -0,0 +1,57 @@
+package ng.osun.his.appointments.domain;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import ng.osun.his.platform.domain.BaseEntity;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Append-only queue event. The in-memory clinic queue is the replay of these rows.
+ */
+@Entity
+@Table(name = "queue_events", indexes = {
+    @Index(name = "idx_queue_events_clinic_time", columnList = "clinic_id, occurred_at")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_queue_events_clinic_day_sequence", columnNames = {"clinic_id", "queue_date", "sequence"})
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueEvent extends BaseEntity {
+
+    @Column(name = "clinic_id", nullable = false, length = 36)
+    private String clinicId;
+
+    @Column(name = "queue_date")
+    private LocalDate queueDate;
+
+    @Column(name = "sequence", nullable = false)
+    private Long sequence; // per clinic-day, monotonic
+
+    @Column(name = "event_type", nullable = false, length = 20)
+    private String eventType; // QUEUED, CALLED, COMPLETED
+
+    @Column(name = "patient_id", nullable = false, length = 36)
+    private String patientId;
+
+    @Column(name = "appointment_id", length = 36)
+    private String appointmentId;
+
+    @Column(name = "provider_id", length = 36)
+    private String providerId;
+
+    @Column(name = "priority")
+    private Integer priority;
+
+    @Column(name = "eta_minutes")
+    private Integer etaMinutes;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+}
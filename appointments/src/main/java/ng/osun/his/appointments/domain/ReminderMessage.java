@@ -0,0 +1,24 @@
+package ng.osun.his.appointments.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One appointment reminder handed to a {@code ReminderGateway}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReminderMessage {
+
+    private String appointmentId;
+
+    private String appointmentNumber;
+
+    private String patientId;
+
+    private String channel; // SMS, WHATSAPP
+
+    private String text;
+}
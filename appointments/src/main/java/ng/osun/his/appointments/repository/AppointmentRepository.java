@@ -3,9 +3,11 @@ package ng.osun.his.appointments.repository;
 import ng.osun.his.appointments.domain.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,5 +19,19 @@ public interface AppointmentRepository extends JpaRepository<Appointment, String
     Optional<Appointment> findByAppointmentNumber(String appointmentNumber);
     List<Appointment> findByStatus(String status);
     long countByClinicIdAndAppointmentDateBetween(String clinicId, LocalDateTime start, LocalDateTime end);
+    List<Appointment> findByStatusInAndAppointmentDateBetweenAndSmsReminderSentFalse(
+        Collection<String> statuses, LocalDateTime start, LocalDateTime end);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.providerId = :providerId AND a.id <> :excludeId " +
+           "AND a.status NOT IN ('CANCELLED', 'NO_SHOW') " +
+           "AND a.appointmentDate < :end AND a.appointmentEndDate > :start")
+    long countActiveProviderOverlaps(@Param("providerId") String providerId, @Param("excludeId") String excludeId,
+                                     @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT COUNT(a) FROM Appointment a WHERE a.clinicId = :clinicId AND a.providerId IS NULL " +
+           "AND a.id <> :excludeId AND a.status NOT IN ('CANCELLED', 'NO_SHOW') " +
+           "AND a.appointmentDate < :end AND a.appointmentEndDate > :start")
+    long countActiveUnassignedOverlaps(@Param("clinicId") String clinicId, @Param("excludeId") String excludeId,
+                                       @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 }
 
@@ -2,6 +2,8 @@ package ng.osun.his.appointments.repository;
 
 import ng.osun.his.appointments.domain.Clinic;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,5 +13,12 @@ import java.util.Optional;
 public interface ClinicRepository extends JpaRepository<Clinic, String> {
     List<Clinic> findByActiveTrue();
     Optional<Clinic> findByCode(String code);
+
+    // Hours and blackout dates fetched up front so cached clinics are usable outside a session
+    @Query("SELECT DISTINCT c FROM Clinic c LEFT JOIN FETCH c.hours LEFT JOIN FETCH c.blackoutDates WHERE c.id = :id")
+    Optional<Clinic> findWithScheduleById(@Param("id") String id);
+
+    @Query("SELECT DISTINCT c FROM Clinic c LEFT JOIN FETCH c.hours LEFT JOIN FETCH c.blackoutDates")
+    List<Clinic> findAllWithSchedule();
 }
 
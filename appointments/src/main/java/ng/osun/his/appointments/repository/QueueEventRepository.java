@@ -0,0 +1,16 @@
+package ng.osun.his.appointments.repository;
+
+import ng.osun.his.appointments.domain.QueueEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface QueueEventRepository extends JpaRepository<QueueEvent, String> {
+    List<QueueEvent> findByClinicIdAndOccurredAtGreaterThanEqualOrderBySequenceAsc(String clinicId, Instant since);
+
+    List<QueueEvent> findByClinicIdAndOccurredAtGreaterThanEqualAndSequenceGreaterThanOrderBySequenceAsc(
+        String clinicId, Instant since, Long afterSequence);
+}
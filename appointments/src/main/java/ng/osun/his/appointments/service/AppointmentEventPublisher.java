@@ -0,0 +1,57 @@
+package ng.osun.his.appointments.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.Clinic;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * Publishes appointment status changes that other services act on (billing captures the
+ * consultation charge at check-in). Keyed by appointment id and sent after commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AppointmentEventPublisher {
+
+    public static final String APPOINTMENT_EVENTS_TOPIC = "appointment.events";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public void publish(Appointment appointment, Clinic clinic, String userId) {
+        String eventJson = String.format(
+            "{\"appointmentId\":\"%s\",\"appointmentNumber\":\"%s\",\"patientId\":\"%s\",\"clinicId\":\"%s\",\"clinicCode\":\"%s\",\"providerId\":\"%s\",\"status\":\"%s\",\"userId\":\"%s\",\"timestamp\":\"%s\"}",
+            appointment.getId(),
+            appointment.getAppointmentNumber(),
+            appointment.getPatientId(),
+            appointment.getClinicId(),
+            clinic != null ? clinic.getCode() : "",
+            appointment.getProviderId(),
+            appointment.getStatus(),
+            userId,
+            Instant.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(appointment.getId(), eventJson);
+                }
+            });
+        } else {
+            send(appointment.getId(), eventJson);
+        }
+    }
+
+    private void send(String appointmentId, String eventJson) {
+        kafkaTemplate.send(APPOINTMENT_EVENTS_TOPIC, appointmentId, eventJson).addCallback(
+            result -> log.debug("Published appointment event {}", eventJson),
+            e -> log.warn("Failed to publish appointment event for {}: {}", appointmentId, e.getMessage()));
+    }
+}
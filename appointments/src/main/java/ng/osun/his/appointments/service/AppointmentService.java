@@ -3,29 +3,45 @@ package ng.osun.his.appointments.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.AvailableSlot;
 import ng.osun.his.appointments.domain.Clinic;
+import ng.osun.his.appointments.domain.Provider;
 import ng.osun.his.appointments.repository.AppointmentRepository;
-import ng.osun.his.appointments.repository.ClinicRepository;
-import ng.osun.his.appointments.repository.ProviderRepository;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
+import ng.osun.his.platform.util.TimeOrderedIds;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Service for appointment booking with conflict prevention and overbooking logic.
+ * Conflicts are checked against the in-memory {@link SlotAvailabilityIndex} rather than by
+ * querying the clinic-day's appointments on every booking; provider bookings are additionally
+ * confirmed with one indexed overlap query, since a provider may be booked at other clinics.
+ * Check and insert run under the
+ * provider-day's {@link BookingLocks} lock, so concurrent bookings of one provider cannot both
+ * succeed while other providers book in parallel.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class AppointmentService {
 
+    static final String RESOURCE_TYPE = "Appointment";
+
     private final AppointmentRepository appointmentRepository;
-    private final ClinicRepository clinicRepository;
-    private final ProviderRepository providerRepository;
+    private final ReferenceDataCache<String, Clinic> clinicCache;
+    private final ReferenceDataCache<String, Provider> providerCache;
+    private final BusinessNumberAllocator numberAllocator;
+    private final SlotAvailabilityIndex availabilityIndex;
+    private final BookingLocks bookingLocks;
+    private final EntityChangePublisher changePublisher;
+    private final AppointmentEventPublisher eventPublisher;
 
     /**
      * Book appointment with double-booking and overlap prevention.
@@ -33,7 +49,7 @@ public class AppointmentService {
     @Transactional
     public Appointment bookAppointment(Appointment appointment, Authentication authentication) {
         // Validate clinic exists and is active
-        Clinic clinic = clinicRepository.findById(appointment.getClinicId())
+        Clinic clinic = clinicCache.get(appointment.getClinicId())
             .orElseThrow(() -> new IllegalStateException("Clinic not found"));
 
         if (!clinic.getActive()) {
@@ -47,7 +63,7 @@ public class AppointmentService {
 
         // Validate provider exists if specified
         if (appointment.getProviderId() != null) {
-            providerRepository.findById(appointment.getProviderId())
+            providerCache.get(appointment.getProviderId())
                 .ifPresentOrElse(
                     provider -> {
                         if (!provider.getActive()) {
@@ -60,12 +76,6 @@ public class AppointmentService {
                 );
         }
 
-        // Check for conflicts with existing appointments
-        checkForConflicts(appointment);
-
-        // Generate appointment number
-        appointment.setAppointmentNumber(generateAppointmentNumber(appointment));
-
         // Set end time
         if (appointment.getDurationMinutes() == null) {
             appointment.setDurationMinutes(clinic.getSlotDurationMinutes());
@@ -73,61 +83,80 @@ public class AppointmentService {
         appointment.setAppointmentEndDate(
             appointment.getAppointmentDate().plusMinutes(appointment.getDurationMinutes()));
 
+        // Check for conflicts with existing appointments; the index needs the id up front
+        if (appointment.getId() == null) {
+            appointment.setId(TimeOrderedIds.next());
+        }
+        checkForConflicts(clinic, appointment);
+
+        // Generate appointment number
+        appointment.setAppointmentNumber(generateAppointmentNumber(appointment));
+
         // Set status
         appointment.setStatus("SCHEDULED");
 
         log.info("Booking appointment: {} for patient: {} in clinic: {}", 
             appointment.getAppointmentNumber(), appointment.getPatientId(), appointment.getClinicId());
 
-        return appointmentRepository.save(appointment);
+        Appointment saved = appointmentRepository.save(appointment);
+        changePublisher.publish(RESOURCE_TYPE, saved.getId(), "CREATED");
+        return saved;
     }
 
     /**
-     * Check for conflicts with existing appointments.
+     * Next free slots in a clinic from the given time, across the given providers or in the
+     * clinic's unassigned pool when none are given.
      */
-    private void checkForConflicts(Appointment appointment) {
+    @Transactional(readOnly = true)
+    public List<AvailableSlot> findNextAvailableSlots(String clinicId, List<String> providerIds,
+                                                      LocalDateTime from, int limit) {
+        Clinic clinic = clinicCache.get(clinicId)
+            .orElseThrow(() -> new IllegalStateException("Clinic not found"));
+
+        if (!clinic.getActive()) {
+            return List.of();
+        }
+        return availabilityIndex.nextAvailable(clinic, providerIds, from, limit);
+    }
+
+    /**
+     * Check for conflicts with existing appointments and hold the slots if there are none.
+     * A provider's slots hold one appointment; appointments without a provider share each
+     * slot up to the clinic's overbooking threshold. The provider-day lock is held until the
+     * transaction completes.
+     */
+    private void checkForConflicts(Clinic clinic, Appointment appointment) {
         LocalDateTime start = appointment.getAppointmentDate();
         LocalDateTime end = appointment.getAppointmentEndDate();
 
-        // Check clinic availability - need to implement proper date range check
-        // For now, just count appointments for the clinic on that date
-        
-        // Calculate if we're at overbooking threshold
-        long existingCount = appointmentRepository
-            .countByClinicIdAndAppointmentDateBetween(
-                appointment.getClinicId(), 
-                start.toLocalDate().atStartOfDay(), 
-                start.toLocalDate().atTime(23, 59));
-
-        // Get clinic overbooking threshold
-        Optional<Clinic> clinic = clinicRepository.findById(appointment.getClinicId());
-        int threshold = clinic.map(Clinic::getOverbookingThreshold).orElse(2);
-
-        if (existingCount >= threshold) {
-            throw new IllegalStateException("Clinic is at overbooking threshold for this time slot");
-        }
+        bookingLocks.lockUntilCompletion(
+            BookingLocks.keyFor(clinic.getId(), appointment.getProviderId(), start.toLocalDate()));
 
-        // Check provider availability if provider is specified
-        if (appointment.getProviderId() != null) {
-            List<Appointment> providerAppointments = appointmentRepository
-                .findByProviderIdAndAppointmentDateBetween(appointment.getProviderId(), start, end);
+        // Fast path: rejects taken slots without touching the database
+        availabilityIndex.reserve(clinic, appointment);
 
-            if (!providerAppointments.isEmpty()) {
+        // The index only sees this clinic's day, so a provider's bookings at other clinics (or
+        // from another replica) are confirmed against the database under the provider-day lock
+        if (appointment.getProviderId() != null) {
+            if (appointmentRepository.countActiveProviderOverlaps(
+                    appointment.getProviderId(), appointment.getId(), start, end) > 0) {
                 throw new IllegalStateException("Provider is already booked at this time");
             }
+        } else if (bookingLocks.isClusterLock()) {
+            // Another replica may have filled the unassigned pool without this index hearing of it
+            int threshold = clinic.getOverbookingThreshold() != null ? clinic.getOverbookingThreshold() : 2;
+            if (appointmentRepository.countActiveUnassignedOverlaps(
+                    clinic.getId(), appointment.getId(), start, end) >= threshold) {
+                throw new IllegalStateException("Clinic is at overbooking threshold for this time slot");
+            }
         }
     }
 
     /**
-     * Generate unique appointment number.
+     * Generate unique appointment number, sequenced per appointment day.
      */
     private String generateAppointmentNumber(Appointment appointment) {
-        return "APT-" + 
-               appointment.getAppointmentDate().getYear() + 
-               String.format("%02d", appointment.getAppointmentDate().getMonthValue()) +
-               String.format("%02d", appointment.getAppointmentDate().getDayOfMonth()) +
-               "-" + 
-               System.currentTimeMillis() % 100000;
+        return numberAllocator.next("APT", appointment.getAppointmentDate().toLocalDate());
     }
 
     /**
@@ -142,6 +171,8 @@ public class AppointmentService {
         appointment.setCheckInTime(java.time.Instant.now());
 
         appointmentRepository.save(appointment);
+        eventPublisher.publish(appointment, clinicCache.get(appointment.getClinicId()).orElse(null),
+            authentication.getName());
 
         log.info("Checked in appointment: {} by user: {}", appointmentId, authentication.getName());
     }
@@ -159,9 +190,13 @@ public class AppointmentService {
         appointment.setAppointmentEndDate(newDateTime.plusMinutes(appointment.getDurationMinutes()));
 
         // Check for conflicts with new time
-        checkForConflicts(appointment);
+        Clinic clinic = clinicCache.get(appointment.getClinicId())
+            .orElseThrow(() -> new IllegalStateException("Clinic not found"));
+        checkForConflicts(clinic, appointment);
 
-        return appointmentRepository.save(appointment);
+        Appointment saved = appointmentRepository.save(appointment);
+        changePublisher.publish(RESOURCE_TYPE, saved.getId(), "UPDATED");
+        return saved;
     }
 
     /**
@@ -177,6 +212,8 @@ public class AppointmentService {
             "Cancelled: " + reason);
 
         appointmentRepository.save(appointment);
+        availabilityIndex.update(appointment);
+        changePublisher.publish(RESOURCE_TYPE, appointmentId, "CANCELLED");
 
         log.info("Cancelled appointment: {} by user: {} reason: {}", appointmentId, authentication.getName(), reason);
     }
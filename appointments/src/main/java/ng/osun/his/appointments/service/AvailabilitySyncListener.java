@@ -0,0 +1,48 @@
+package ng.osun.his.appointments.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Keeps this replica's {@link SlotAvailabilityIndex} in step with bookings made elsewhere.
+ * Each replica consumes in its own group, named after {@code platform.instance-id} so restarts
+ * rejoin it, starting from the latest offset the first time since resident days are built from
+ * the database and only need changes committed after that.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvailabilitySyncListener {
+
+    private final SlotAvailabilityIndex availabilityIndex;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = EntityChangePublisher.ENTITY_CHANGES_TOPIC,
+        groupId = "${appointments.availability.consumer-group:appointments-availability-${platform.instance-id}}",
+        properties = {"auto.offset.reset=latest"})
+    public void onChange(String eventJson) {
+        try {
+            JsonNode event = objectMapper.readTree(eventJson);
+            String resourceType = event.path("resourceType").asText();
+            String resourceId = event.path("resourceId").asText();
+            if (resourceId.isEmpty()) {
+                return;
+            }
+            if (AppointmentService.RESOURCE_TYPE.equals(resourceType)) {
+                availabilityIndex.reload(resourceId);
+            } else if ("Clinic".equals(resourceType)) {
+                availabilityIndex.invalidateClinic(resourceId);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable change event: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ng.osun.his.appointments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes bookings per provider-day (or per clinic-day for appointments without a
+ * provider) until the booking transaction completes, so check-and-insert is atomic without
+ * table locks. Bookings for other provider-days proceed in parallel.
+ * <p>
+ * In-process the lock is one of {@code appointments.booking.lock-stripes} ReentrantLocks picked
+ * by key hash; across replicas it is a Postgres transaction-scoped advisory lock on the same key,
+ * released by commit or rollback. The in-process stripe is taken first so at most one pooled
+ * connection per replica waits on any advisory lock.
+ */
+@Component
+@Slf4j
+public class BookingLocks {
+
+    private final ReentrantLock[] stripes;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean clusterLock;
+    private final long waitMillis;
+    private final Timer waitTimer;
+
+    public BookingLocks(JdbcTemplate jdbcTemplate,
+                        MeterRegistry meterRegistry,
+                        @Value("${appointments.booking.lock-stripes:256}") int stripeCount,
+                        @Value("${appointments.booking.cluster-lock:true}") boolean clusterLock,
+                        @Value("${appointments.booking.lock-wait-ms:5000}") long waitMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterLock = clusterLock;
+        this.waitMillis = waitMillis;
+        this.stripes = new ReentrantLock[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.waitTimer = Timer.builder("appointments.booking.lock.wait")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Whether bookings are also serialized across replicas, in which case callers must confirm
+     * against the database since another replica's bookings may not have reached this one's index.
+     */
+    public boolean isClusterLock() {
+        return clusterLock;
+    }
+
+    /**
+     * Key for a provider's day, or the clinic's unassigned pool when there is no provider.
+     */
+    public static String keyFor(String clinicId, String providerId, LocalDate date) {
+        return (providerId != null ? "provider:" + providerId : "clinic:" + clinicId) + '|' + date;
+    }
+
+    /**
+     * Hold the lock for the key until the current transaction completes.
+     * Must be called inside a transaction.
+     */
+    public void lockUntilCompletion(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Booking lock requires an active transaction");
+        }
+
+        ReentrantLock stripe = stripes[Math.floorMod(key.hashCode(), stripes.length)];
+        long start = System.nanoTime();
+        try {
+            if (!stripe.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Booking is busy for this provider, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for booking lock");
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.unlock();
+            }
+        });
+
+        if (clusterLock) {
+            try {
+                // Bound the wait so a stuck replica cannot hold up the front desk indefinitely
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '" + waitMillis + "ms'");
+                jdbcTemplate.queryForObject("SELECT pg_advisory_xact_lock(hashtextextended(?, 0))",
+                    (rs, row) -> Boolean.TRUE, key);
+            } catch (DataAccessException e) {
+                log.warn("Could not take booking lock {}: {}", key, e.getMessage());
+                throw new IllegalStateException("Booking is busy for this provider, please retry");
+            }
+        }
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Holding booking lock {}", key);
+    }
+}
@@ -0,0 +1,287 @@
+package ng.osun.his.appointments.service;
+
+import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.Clinic;
+import ng.osun.his.appointments.domain.OperatingHours;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Slot occupancy for one clinic on one day.
+ * The day is cut into slotDurationMinutes slots from the first session's opening time, and slots
+ * outside every session of that weekday are closed; each provider has a bitmap
+ * of occupied slots, and appointments booked without a provider are counted per slot against
+ * the clinic's overbooking threshold. Every placed appointment is remembered by id, so
+ * rescheduling or cancelling replaces or removes exactly what it occupied.
+ * Not thread-safe: callers synchronize on the instance.
+ */
+class ClinicDaySchedule {
+
+    private static final int DEFAULT_SLOT_MINUTES = 30;
+    private static final int DEFAULT_OVERBOOKING_THRESHOLD = 2;
+
+    private final String clinicId;
+    private final LocalDate date;
+    private final LocalTime opensAt;
+    private final int slotMinutes;
+    private final int slotCount;
+    private final int overbookingThreshold;
+    private final long[] open;
+    private final Map<String, long[]> providerSlots = new HashMap<>();
+    private final int[] unassigned;
+    private final Map<String, Placement> placements = new HashMap<>();
+
+    private volatile long lastAccess = System.nanoTime();
+
+    ClinicDaySchedule(Clinic clinic, LocalDate date) {
+        this.clinicId = clinic.getId();
+        this.date = date;
+        this.slotMinutes = positiveOr(clinic.getSlotDurationMinutes(), DEFAULT_SLOT_MINUTES);
+        this.overbookingThreshold = positiveOr(clinic.getOverbookingThreshold(), DEFAULT_OVERBOOKING_THRESHOLD);
+
+        List<OperatingHours> sessions = new ArrayList<>();
+        boolean blackout = clinic.getBlackoutDates() != null && clinic.getBlackoutDates().contains(date);
+        if (!blackout) {
+            if (clinic.getHours() == null || clinic.getHours().isEmpty()) {
+                // No hours configured: the whole day is bookable
+                sessions.add(new OperatingHours(date.getDayOfWeek(), LocalTime.MIDNIGHT, null));
+            } else {
+                for (OperatingHours hours : clinic.getHours()) {
+                    if (hours.getDayOfWeek() == date.getDayOfWeek()
+                            && hours.getStartTime() != null && hours.getEndTime() != null
+                            && hours.getStartTime().isBefore(hours.getEndTime())) {
+                        sessions.add(hours);
+                    }
+                }
+            }
+        }
+
+        // Slots run from the first session's opening to the last one's closing; only slots lying
+        // wholly inside a session (e.g. a morning and an afternoon clinic) are open
+        LocalTime opens = null;
+        long closeMinutes = 0;
+        for (OperatingHours session : sessions) {
+            if (opens == null || session.getStartTime().isBefore(opens)) {
+                opens = session.getStartTime();
+            }
+        }
+        for (OperatingHours session : sessions) {
+            closeMinutes = Math.max(closeMinutes, minutesFrom(opens, session.getEndTime()));
+        }
+        this.opensAt = opens;
+        this.slotCount = opens == null ? 0 : (int) (closeMinutes / slotMinutes);
+        this.open = new long[(slotCount + 63) >>> 6];
+        for (OperatingHours session : sessions) {
+            long start = minutesFrom(opens, session.getStartTime());
+            long end = minutesFrom(opens, session.getEndTime());
+            for (int slot = (int) ((start + slotMinutes - 1) / slotMinutes);
+                    slot < slotCount && (long) (slot + 1) * slotMinutes <= end; slot++) {
+                open[slot >>> 6] |= 1L << slot;
+            }
+        }
+        this.unassigned = new int[slotCount];
+    }
+
+    String getClinicId() {
+        return clinicId;
+    }
+
+    LocalDate getDate() {
+        return date;
+    }
+
+    int getSlotCount() {
+        return slotCount;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    Iterable<String> appointmentIds() {
+        return placements.keySet();
+    }
+
+    /**
+     * Slots the appointment would occupy, or null if it falls outside opening hours.
+     */
+    Placement placementFor(Appointment appointment) {
+        if (slotCount == 0 || !appointment.getAppointmentDate().toLocalDate().equals(date)) {
+            return null;
+        }
+        long offset = Duration.between(opensAt, appointment.getAppointmentDate().toLocalTime()).toMinutes();
+        if (offset < 0) {
+            return null;
+        }
+        int duration = positiveOr(appointment.getDurationMinutes(), slotMinutes);
+        int first = (int) (offset / slotMinutes);
+        int count = (int) ((offset % slotMinutes + duration + slotMinutes - 1) / slotMinutes);
+        if (first + count > slotCount) {
+            return null;
+        }
+        for (int slot = first; slot < first + count; slot++) {
+            if (!isOpen(slot)) {
+                return null;
+            }
+        }
+        return new Placement(appointment.getId(), appointment.getProviderId(), first, count);
+    }
+
+    /**
+     * Reason the placement cannot be booked, ignoring whatever the same appointment already
+     * occupies here; null if it fits.
+     */
+    String conflictFor(Placement placement) {
+        Placement own = placements.get(placement.appointmentId);
+        if (own != null) {
+            clear(own);
+        }
+        try {
+            for (int slot = placement.first; slot < placement.first + placement.count; slot++) {
+                if (placement.providerId != null) {
+                    if (!isProviderFree(placement.providerId, slot)) {
+                        return "Provider is already booked at this time";
+                    }
+                } else if (!isUnassignedFree(slot)) {
+                    return "Clinic is at overbooking threshold for this time slot";
+                }
+            }
+            return null;
+        } finally {
+            if (own != null) {
+                mark(own);
+            }
+        }
+    }
+
+    /**
+     * Occupy the placement's slots, replacing any earlier placement of the same appointment.
+     */
+    void place(Placement placement) {
+        remove(placement.appointmentId);
+        placements.put(placement.appointmentId, placement);
+        mark(placement);
+    }
+
+    boolean remove(String appointmentId) {
+        Placement placement = placements.remove(appointmentId);
+        if (placement == null) {
+            return false;
+        }
+        clear(placement);
+        return true;
+    }
+
+    boolean isOpen(int slot) {
+        return (open[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    boolean isProviderFree(String providerId, int slot) {
+        if (!isOpen(slot)) {
+            return false;
+        }
+        long[] bits = providerSlots.get(providerId);
+        return bits == null || (bits[slot >>> 6] & (1L << slot)) == 0;
+    }
+
+    boolean isUnassignedFree(int slot) {
+        return isOpen(slot) && unassigned[slot] < overbookingThreshold;
+    }
+
+    /**
+     * First slot starting at or after the given time of day.
+     */
+    int firstSlotFrom(LocalTime time) {
+        if (slotCount == 0) {
+            return 0;
+        }
+        long offset = Duration.between(opensAt, time).toMinutes();
+        if (offset <= 0) {
+            return 0;
+        }
+        return (int) Math.min(slotCount, (offset + slotMinutes - 1) / slotMinutes);
+    }
+
+    LocalDateTime startOf(int slot) {
+        return date.atTime(opensAt).plusMinutes((long) slot * slotMinutes);
+    }
+
+    LocalDateTime endOf(int slot) {
+        return startOf(slot).plusMinutes(slotMinutes);
+    }
+
+    private void mark(Placement placement) {
+        if (placement.providerId == null) {
+            for (int slot = placement.first; slot < placement.first + placement.count; slot++) {
+                unassigned[slot]++;
+            }
+            return;
+        }
+        long[] bits = providerSlots.computeIfAbsent(placement.providerId, id -> new long[(slotCount + 63) >>> 6]);
+        for (int slot = placement.first; slot < placement.first + placement.count; slot++) {
+            bits[slot >>> 6] |= 1L << slot;
+        }
+    }
+
+    private void clear(Placement placement) {
+        if (placement.providerId == null) {
+            for (int slot = placement.first; slot < placement.first + placement.count; slot++) {
+                unassigned[slot]--;
+            }
+            return;
+        }
+        long[] bits = providerSlots.get(placement.providerId);
+        for (int slot = placement.first; slot < placement.first + placement.count; slot++) {
+            bits[slot >>> 6] &= ~(1L << slot);
+        }
+        // Provider bitmaps can overlap when loaded from existing double bookings,
+        // so re-mark whatever the remaining placements still hold
+        for (Placement other : placements.values()) {
+            if (other != placement && placement.providerId.equals(other.providerId)
+                    && other.first < placement.first + placement.count
+                    && placement.first < other.first + other.count) {
+                for (int slot = other.first; slot < other.first + other.count; slot++) {
+                    bits[slot >>> 6] |= 1L << slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Minutes from opening to the given time of day; a null time means midnight at the day's end.
+     */
+    private static long minutesFrom(LocalTime opens, LocalTime time) {
+        return time == null
+            ? Duration.between(opens, LocalTime.MIDNIGHT).plusDays(1).toMinutes()
+            : Duration.between(opens, time).toMinutes();
+    }
+
+    private static int positiveOr(Integer value, int fallback) {
+        return value == null || value <= 0 ? fallback : value;
+    }
+
+    static final class Placement {
+        private final String appointmentId;
+        private final String providerId;
+        private final int first;
+        private final int count;
+
+        Placement(String appointmentId, String providerId, int first, int count) {
+            this.appointmentId = appointmentId;
+            this.providerId = providerId;
+            this.first = first;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package ng.osun.his.appointments.service;
+
+import ng.osun.his.appointments.domain.QueueDelta;
+import ng.osun.his.appointments.domain.QueueEvent;
+import ng.osun.his.appointments.domain.QueueItem;
+import ng.osun.his.appointments.domain.VisitQueue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resident priority queue for a single clinic on one day.
+ * Waiting patients sit in an indexed binary min-heap keyed on (priority, arrival sequence)
+ * with a patientId to heap-slot index, so enqueue, next-patient and removal are O(log n).
+ * A Fenwick tree per priority level over arrival sequences answers queue position in O(log n).
+ * ETAs come from a {@link WaitTimeEstimator} fed by the same events.
+ * Not thread-safe: callers synchronize on the instance.
+ */
+public class ClinicQueue {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String CALLED = "CALLED";
+    public static final String COMPLETED = "COMPLETED";
+
+    static final int PRIORITY_LEVELS = 5;
+
+    private static final Comparator<Entry> ORDER = Comparator
+        .comparingInt((Entry e) -> e.priority)
+        .thenComparingLong(e -> e.sequence);
+
+    private final String clinicId;
+    private final LocalDate date;
+    private final Map<String, Entry> waiting = new HashMap<>();
+    private final Map<String, Entry> inProgress = new LinkedHashMap<>();
+    private final RankIndex[] lanes = new RankIndex[PRIORITY_LEVELS + 1];
+    private final WaitTimeEstimator estimator = new WaitTimeEstimator();
+
+    private Entry[] heap = new Entry[64];
+    private int size;
+    private long lastSequence;
+    private int currentPosition;
+    private Instant lastUpdated;
+
+    public ClinicQueue(String clinicId, LocalDate date) {
+        this.clinicId = clinicId;
+        this.date = date;
+        for (int p = 1; p <= PRIORITY_LEVELS; p++) {
+            lanes[p] = new RankIndex();
+        }
+    }
+
+    /**
+     * Apply a persisted event. Used both for live changes and for replay at startup.
+     */
+    public void apply(QueueEvent event) {
+        lastSequence = Math.max(lastSequence, event.getSequence());
+        switch (event.getEventType()) {
+            case QUEUED:
+                enqueue(event);
+                break;
+            case CALLED:
+                call(event.getPatientId(), event.getProviderId(), event.getOccurredAt());
+                break;
+            case COMPLETED:
+                complete(event.getPatientId(), event.getOccurredAt());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown queue event type: " + event.getEventType());
+        }
+        lastUpdated = event.getOccurredAt();
+    }
+
+    public long nextSequence() {
+        return lastSequence + 1;
+    }
+
+    public boolean contains(String patientId) {
+        return waiting.containsKey(patientId) || inProgress.containsKey(patientId);
+    }
+
+    public boolean isInProgress(String patientId) {
+        return inProgress.containsKey(patientId);
+    }
+
+    /**
+     * Highest-priority waiting item, or null when nobody is waiting.
+     */
+    public QueueItem peekNext() {
+        return size == 0 ? null : heap[0].item;
+    }
+
+    /**
+     * 1-based position among waiting patients, 0 if already being seen, null if not queued.
+     */
+    public Integer position(String patientId) {
+        Entry entry = waiting.get(patientId);
+        if (entry == null) {
+            return inProgress.containsKey(patientId) ? 0 : null;
+        }
+        int ahead = 0;
+        for (int p = 1; p < entry.priority; p++) {
+            ahead += lanes[p].total;
+        }
+        return ahead + lanes[entry.priority].prefix(entry.sequence);
+    }
+
+    /**
+     * Position a new arrival with the given priority would take.
+     */
+    public int projectedPosition(Integer priority) {
+        int ahead = 0;
+        for (int p = 1; p <= normalizePriority(priority); p++) {
+            ahead += lanes[p].total;
+        }
+        return ahead + 1;
+    }
+
+    /**
+     * ETA in minutes for a 1-based waiting position.
+     */
+    public int etaFor(int position, Instant now) {
+        return estimator.etaMinutes(position, estimator.throughputPerMinute(now));
+    }
+
+    /**
+     * Recompute ETAs from the wait-time model. Only items whose ETA changed are updated,
+     * and only patients whose position or ETA moved are returned as deltas.
+     */
+    public List<QueueDelta> refreshEstimates(Instant now) {
+        double throughput = estimator.throughputPerMinute(now);
+        List<QueueDelta> changed = new ArrayList<>();
+        int position = 0;
+        for (Entry entry : orderedEntries()) {
+            QueueItem item = entry.item;
+            int eta = estimator.etaMinutes(++position, throughput);
+            boolean etaChanged = item.getEtaMinutes() == null || item.getEtaMinutes() != eta;
+            if (etaChanged) {
+                item.setEtaMinutes(eta);
+                item.setEstimatedStartTime(now.plus(eta, ChronoUnit.MINUTES));
+            }
+            if (etaChanged || entry.position != position) {
+                entry.position = position;
+                changed.add(new QueueDelta(item.getPatientId(), position, eta, item.getStatus()));
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Current position and ETA of everyone in the queue, for a new stream subscriber.
+     */
+    public List<QueueDelta> currentDeltas() {
+        List<QueueDelta> deltas = new ArrayList<>(inProgress.size() + size);
+        for (Entry entry : inProgress.values()) {
+            deltas.add(new QueueDelta(entry.item.getPatientId(), 0, 0, entry.item.getStatus()));
+        }
+        int position = 0;
+        for (Entry entry : orderedEntries()) {
+            deltas.add(new QueueDelta(entry.item.getPatientId(), ++position,
+                entry.item.getEtaMinutes(), entry.item.getStatus()));
+        }
+        return deltas;
+    }
+
+    /**
+     * Waiting items in service order.
+     */
+    public List<QueueItem> waitingItems() {
+        List<QueueItem> items = new ArrayList<>(size);
+        for (Entry entry : orderedEntries()) {
+            items.add(entry.item);
+        }
+        return items;
+    }
+
+    /**
+     * Detached VisitQueue view for API responses.
+     */
+    public VisitQueue toVisitQueue() {
+        List<QueueItem> items = new ArrayList<>(inProgress.size() + size);
+        for (Entry entry : inProgress.values()) {
+            items.add(copy(entry.item));
+        }
+        for (QueueItem item : waitingItems()) {
+            items.add(copy(item));
+        }
+
+        VisitQueue view = new VisitQueue();
+        view.setClinicId(clinicId);
+        view.setItems(items);
+        view.setCurrentPosition(currentPosition);
+        view.setTotalWaiting(size);
+        view.setAverageWaitTimeMinutes(estimator.averageWaitMinutes());
+        view.setLastUpdated(lastUpdated);
+        return view;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
+    public int getTotalWaiting() {
+        return size;
+    }
+
+    public int getAverageWaitTimeMinutes() {
+        return estimator.averageWaitMinutes();
+    }
+
+    public int getActiveProviders() {
+        return estimator.activeProviders(Instant.now());
+    }
+
+    public Instant getLastUpdated() {
+        return lastUpdated;
+    }
+
+    public void touch() {
+        lastUpdated = Instant.now();
+    }
+
+    static int normalizePriority(Integer priority) {
+        if (priority == null) {
+            return PRIORITY_LEVELS;
+        }
+        return Math.max(1, Math.min(PRIORITY_LEVELS, priority));
+    }
+
+    private void enqueue(QueueEvent event) {
+        if (contains(event.getPatientId())) {
+            return;
+        }
+        int eta = event.getEtaMinutes() != null ? event.getEtaMinutes() : 0;
+        QueueItem item = new QueueItem(
+            event.getPatientId(),
+            event.getAppointmentId(),
+            event.getPriority(),
+            eta,
+            "WAITING",
+            event.getOccurredAt(),
+            event.getOccurredAt().plus(eta, ChronoUnit.MINUTES));
+
+        Entry entry = new Entry(item, event.getSequence(), normalizePriority(event.getPriority()));
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        entry.slot = size;
+        heap[size++] = entry;
+        siftUp(entry.slot);
+
+        waiting.put(item.getPatientId(), entry);
+        lanes[entry.priority].add(entry.sequence, 1);
+    }
+
+    private void call(String patientId, String providerId, Instant calledAt) {
+        Entry entry = waiting.remove(patientId);
+        if (entry == null) {
+            return;
+        }
+        removeAt(entry.slot);
+        lanes[entry.priority].add(entry.sequence, -1);
+
+        entry.providerId = providerId;
+        entry.calledAt = calledAt;
+        estimator.recordCall(providerId, minutesBetween(entry.item.getQueuedAt(), calledAt), calledAt);
+
+        entry.item.setStatus("IN_PROGRESS");
+        inProgress.put(patientId, entry);
+        currentPosition++;
+    }
+
+    private void complete(String patientId, Instant completedAt) {
+        Entry entry = inProgress.remove(patientId);
+        if (entry == null) {
+            return;
+        }
+        estimator.recordService(entry.providerId, minutesBetween(entry.calledAt, completedAt), completedAt);
+        entry.item.setStatus("COMPLETED");
+    }
+
+    private static double minutesBetween(Instant from, Instant to) {
+        return Duration.between(from, to).toMillis() / 60_000.0;
+    }
+
+    private Entry[] orderedEntries() {
+        Entry[] ordered = Arrays.copyOf(heap, size);
+        Arrays.sort(ordered, ORDER);
+        return ordered;
+    }
+
+    private void removeAt(int slot) {
+        Entry last = heap[--size];
+        heap[size] = null;
+        if (slot == size) {
+            return;
+        }
+        heap[slot] = last;
+        last.slot = slot;
+        siftDown(slot);
+        siftUp(last.slot);
+    }
+
+    private void siftUp(int slot) {
+        Entry entry = heap[slot];
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (ORDER.compare(entry, heap[parent]) >= 0) {
+                break;
+            }
+            place(heap[parent], slot);
+            slot = parent;
+        }
+        place(entry, slot);
+    }
+
+    private void siftDown(int slot) {
+        Entry entry = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && ORDER.compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (ORDER.compare(entry, heap[child]) <= 0) {
+                break;
+            }
+            place(heap[child], slot);
+            slot = child;
+        }
+        place(entry, slot);
+    }
+
+    private void place(Entry entry, int slot) {
+        heap[slot] = entry;
+        entry.slot = slot;
+    }
+
+    private static QueueItem copy(QueueItem item) {
+        return new QueueItem(item.getPatientId(), item.getAppointmentId(), item.getPriority(),
+            item.getEtaMinutes(), item.getStatus(), item.getQueuedAt(), item.getEstimatedStartTime());
+    }
+
+    private static final class Entry {
+        private final QueueItem item;
+        private final long sequence;
+        private final int priority;
+        private int slot;
+        private int position;
+        private String providerId;
+        private Instant calledAt;
+
+        private Entry(QueueItem item, long sequence, int priority) {
+            this.item = item;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+    }
+
+    /**
+     * Fenwick tree counting waiting arrivals of one priority level by sequence number.
+     * Capacity is a power of two, so doubling only needs the new root set to the running total.
+     */
+    private static final class RankIndex {
+        private int[] tree = new int[65];
+        private int capacity = 64;
+        private int total;
+
+        void add(long sequence, int delta) {
+            int i = Math.toIntExact(sequence);
+            while (i > capacity) {
+                grow();
+            }
+            total += delta;
+            for (; i <= capacity; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        int prefix(long sequence) {
+            int sum = 0;
+            for (int i = Math.min(Math.toIntExact(sequence), capacity); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+
+        private void grow() {
+            int newCapacity = capacity * 2;
+            tree = Arrays.copyOf(tree, newCapacity + 1);
+            tree[newCapacity] = total;
+            capacity = newCapacity;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ng.osun.his.appointments.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.ReminderMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local stand-in gateway that logs reminders and accepts them all. Used unless
+ * {@code appointments.reminders.gateway} names a real provider.
+ */
+@Component
+@ConditionalOnProperty(name = "appointments.reminders.gateway", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class LoggingReminderGateway implements ReminderGateway {
+
+    @Override
+    public Set<String> sendBatch(List<ReminderMessage> batch) {
+        Set<String> accepted = new HashSet<>();
+        for (ReminderMessage message : batch) {
+            log.info("{} reminder sent to patient {} for appointment {}",
+                message.getChannel(), message.getPatientId(), message.getAppointmentNumber());
+            accepted.add(message.getAppointmentId());
+        }
+        return accepted;
+    }
+}
@@ -3,42 +3,59 @@ package ng.osun.his.appointments.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.ReminderMessage;
 import ng.osun.his.appointments.repository.AppointmentRepository;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Notification service for appointment reminders via SMS/WhatsApp.
+ * Scheduled reminders are sent in bulk by {@link ReminderScheduler}; this service covers
+ * one-off sends.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
 
+    private static final List<String> REMINDABLE_STATUSES = List.of("SCHEDULED", "CONFIRMED");
+
     private final AppointmentRepository appointmentRepository;
-    
-    // TODO: Integrate with SMS/WhatsApp gateway (e.g., Twilio, Vonage)
+    private final ReminderDispatcher reminderDispatcher;
+
+    @Value("${appointments.reminders.lead-hours:24}")
+    private long reminderLeadHours;
 
     /**
-     * Send SMS reminder for appointments.
+     * Text of the SMS reminder for an appointment at the given time.
      */
-    public void sendReminder(Appointment appointment) {
-        // TODO: Implement SMS sending
-        // For now, just log the reminder
-        
-        String message = String.format(
+    static String reminderText(LocalDateTime appointmentDate) {
+        return String.format(
             "Reminder: Your appointment at Osun State Teaching Hospital is on %s. " +
             "Call %s to reschedule.",
-            appointment.getAppointmentDate(),
+            appointmentDate,
             "0800-OSUTH" // Placeholder
         );
+    }
+
+    /**
+     * Send SMS reminder for appointments.
+     */
+    public void sendReminder(Appointment appointment) {
+        ReminderMessage message = new ReminderMessage(appointment.getId(), appointment.getAppointmentNumber(),
+            appointment.getPatientId(), "SMS", reminderText(appointment.getAppointmentDate()));
 
-        log.info("SMS reminder sent to patient {} for appointment {}", 
-            appointment.getPatientId(), appointment.getAppointmentNumber());
+        Set<String> delivered = reminderDispatcher.dispatch(List.of(message));
+        if (!delivered.contains(appointment.getId())) {
+            log.warn("SMS reminder for appointment {} was not accepted", appointment.getAppointmentNumber());
+            return;
+        }
 
         appointment.setSmsReminderSent(true);
         appointment.setReminderSentAt(Instant.now());
@@ -63,16 +80,12 @@ public class NotificationService {
     }
 
     /**
-     * Find appointments needing reminders (24 hours before).
+     * Find appointments needing reminders (within the reminder lead time).
      */
     public List<Appointment> findAppointmentsNeedingReminders() {
-        // TODO: Implement proper date range query
-        // For now, get all scheduled appointments
-        List<Appointment> all = appointmentRepository.findAll();
-        return all.stream()
-            .filter(apt -> !Boolean.TRUE.equals(apt.getSmsReminderSent()))
-            .filter(apt -> "SCHEDULED".equals(apt.getStatus()) || "CONFIRMED".equals(apt.getStatus()))
-            .collect(java.util.stream.Collectors.toList());
+        LocalDateTime now = LocalDateTime.now(NigeriaContext.TIMEZONE);
+        return appointmentRepository.findByStatusInAndAppointmentDateBetweenAndSmsReminderSentFalse(
+            REMINDABLE_STATUSES, now, now.plusHours(reminderLeadHours));
     }
 
     /**
@@ -0,0 +1,158 @@
+package ng.osun.his.appointments.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.QueueEvent;
+import ng.osun.his.appointments.repository.QueueEventRepository;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Holds one resident ClinicQueue per clinic for the current day and keeps it in step with the
+ * queue_events log. A clinic's queue is rebuilt from the day's events the first time it is
+ * touched each day, replacing the previous day's queue.
+ * <p>
+ * Replicas share the log, not memory: sequences are unique per clinic-day in the database, so a
+ * replica that appends behind another one fails its insert, catches up from the log and re-runs
+ * the change (see {@link #update}). Appends are announced on {@code entity.changes} so idle
+ * replicas catch up too (see {@link #catchUp}).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueueEngine {
+
+    static final String RESOURCE_TYPE = "ClinicQueue";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final QueueEventRepository queueEventRepository;
+    private final EntityChangePublisher changePublisher;
+
+    private final ConcurrentMap<String, ClinicQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Get today's resident queue for a clinic, replaying the day's events on first access.
+     */
+    public ClinicQueue forClinic(String clinicId) {
+        LocalDate today = LocalDate.now(NigeriaContext.TIMEZONE);
+        ClinicQueue queue = queues.get(clinicId);
+        if (queue != null && queue.getDate().equals(today)) {
+            return queue;
+        }
+        // Replay outside the map so the bin lock is not held for the query; first to publish wins
+        ClinicQueue replayed = replay(clinicId, today);
+        return queues.merge(clinicId, replayed,
+            (current, fresh) -> current.getDate().equals(today) ? current : fresh);
+    }
+
+    /**
+     * Today's queue for a clinic if it is resident, otherwise null.
+     */
+    public ClinicQueue resident(String clinicId) {
+        ClinicQueue queue = queues.get(clinicId);
+        return queue != null && queue.getDate().equals(LocalDate.now(NigeriaContext.TIMEZONE)) ? queue : null;
+    }
+
+    /**
+     * Run a change against the clinic's queue under its monitor. If another replica appended to
+     * the clinic's log first, the change is re-run against the caught-up queue.
+     */
+    public void update(String clinicId, Consumer<ClinicQueue> change) {
+        for (int attempt = 1; ; attempt++) {
+            ClinicQueue queue = forClinic(clinicId);
+            synchronized (queue) {
+                try {
+                    change.accept(queue);
+                    return;
+                } catch (StaleQueueException e) {
+                    log.debug("Queue for clinic {} was behind the log (attempt {})", clinicId, attempt);
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw new IllegalStateException("Queue is busy, please retry");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Persist a single event row and apply it to the resident queue.
+     * Caller must hold the queue's monitor so the log and memory advance together.
+     *
+     * @throws StaleQueueException if another replica already used the sequence; the queue has
+     *                             caught up by the time this is thrown
+     */
+    public QueueEvent record(ClinicQueue queue, QueueEvent event) {
+        event.setClinicId(queue.getClinicId());
+        event.setQueueDate(queue.getDate());
+        event.setSequence(queue.nextSequence());
+        if (event.getOccurredAt() == null) {
+            event.setOccurredAt(Instant.now());
+        }
+
+        QueueEvent saved;
+        try {
+            saved = queueEventRepository.saveAndFlush(event);
+        } catch (DataIntegrityViolationException e) {
+            if (catchUp(queue) == 0) {
+                throw e;
+            }
+            throw new StaleQueueException();
+        }
+        queue.apply(saved);
+        changePublisher.publish(RESOURCE_TYPE, queue.getClinicId(), saved.getEventType());
+        return saved;
+    }
+
+    /**
+     * Apply events appended by other replicas since the queue's last sequence.
+     * Caller must hold the queue's monitor.
+     *
+     * @return number of events applied
+     */
+    public int catchUp(ClinicQueue queue) {
+        List<QueueEvent> events = queueEventRepository
+            .findByClinicIdAndOccurredAtGreaterThanEqualAndSequenceGreaterThanOrderBySequenceAsc(
+                queue.getClinicId(), startOf(queue.getDate()), queue.getLastSequence());
+        events.forEach(queue::apply);
+        if (!events.isEmpty()) {
+            log.debug("Caught up queue for clinic {} by {} events", queue.getClinicId(), events.size());
+        }
+        return events.size();
+    }
+
+    private ClinicQueue replay(String clinicId, LocalDate date) {
+        List<QueueEvent> events = queueEventRepository
+            .findByClinicIdAndOccurredAtGreaterThanEqualOrderBySequenceAsc(clinicId, startOf(date));
+
+        ClinicQueue queue = new ClinicQueue(clinicId, date);
+        events.forEach(queue::apply);
+        queue.refreshEstimates(Instant.now());
+
+        log.info("Rebuilt queue for clinic {} on {} from {} events ({} waiting)",
+            clinicId, date, events.size(), queue.getTotalWaiting());
+        return queue;
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(NigeriaContext.TIMEZONE).toInstant();
+    }
+
+    /**
+     * The resident queue was behind the log when an event was recorded.
+     */
+    static final class StaleQueueException extends RuntimeException {
+        StaleQueueException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -2,214 +2,201 @@ package ng.osun.his.appointments.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.QueueDelta;
+import ng.osun.his.appointments.domain.QueueEvent;
 import ng.osun.his.appointments.domain.QueueItem;
 import ng.osun.his.appointments.domain.VisitQueue;
-import ng.osun.his.appointments.repository.AppointmentRepository;
-import ng.osun.his.appointments.repository.QueueRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 /**
  * Smart queue service with ETA predictions and priority management.
+ * Queue state is held in memory by {@link QueueEngine}; each change appends one queue_events row
+ * and pushes position/ETA deltas to stream subscribers. Changes run through
+ * {@link QueueEngine#update}, which re-runs them if another replica appended first.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class QueueService {
 
-    private final QueueRepository queueRepository;
-    private final AppointmentRepository appointmentRepository;
+    private final QueueEngine queueEngine;
+    private final QueueStreamBroadcaster queueStreamBroadcaster;
     private final TriageService triageService;
 
     /**
      * Add patient to queue with ETA prediction.
      */
-    @Transactional
     public void addToQueue(String clinicId, String appointmentId, String patientId, String priorityLevel) {
-        VisitQueue queue = queueRepository.findByClinicId(clinicId)
-            .orElse(createNewQueue(clinicId));
-
         int queuePriority = triageService.getQueuePriority(priorityLevel);
-        
-        // Calculate ETA based on average wait time and position in queue
-        int eta = calculateETA(queue, queuePriority);
-
-        QueueItem newItem = new QueueItem();
-        newItem.setPatientId(patientId);
-        newItem.setAppointmentId(appointmentId);
-        newItem.setPriority(queuePriority);
-        newItem.setEtaMinutes(eta);
-        newItem.setStatus("WAITING");
-        newItem.setQueuedAt(Instant.now());
-        newItem.setEstimatedStartTime(Instant.now().plus(eta, ChronoUnit.MINUTES));
-
-        // Add to queue and sort by priority
-        List<QueueItem> updatedItems = queue.getItems();
-        updatedItems.add(newItem);
-        updatedItems.sort(Comparator.comparingInt(QueueItem::getPriority));
-        
-        queue.setItems(updatedItems);
-        queue.setTotalWaiting(updatedItems.size());
-        queue.setLastUpdated(Instant.now());
-
-        queueRepository.save(queue);
-
-        log.info("Added patient {} to queue at clinic {} with ETA: {} minutes, priority: {}", 
-            patientId, clinicId, eta, queuePriority);
+
+        queueEngine.update(clinicId, queue -> {
+            if (queue.contains(patientId)) {
+                log.info("Patient {} is already queued at clinic {}", patientId, clinicId);
+                return;
+            }
+
+            // ETA from the clinic's wait-time model at the position this patient will take
+            int eta = queue.etaFor(queue.projectedPosition(queuePriority), Instant.now());
+
+            QueueEvent event = new QueueEvent();
+            event.setEventType(ClinicQueue.QUEUED);
+            event.setPatientId(patientId);
+            event.setAppointmentId(appointmentId);
+            event.setPriority(queuePriority);
+            event.setEtaMinutes(eta);
+            queueEngine.record(queue, event);
+            publish(queue, refreshEstimates(queue));
+
+            log.info("Added patient {} to queue at clinic {} with ETA: {} minutes, priority: {}",
+                patientId, clinicId, eta, queuePriority);
+        });
     }
 
     /**
-     * Calculate ETA based on queue position, priority, and historical data.
+     * Update queue position and ETA for all waiting patients.
+     * ETAs are derived data and are refreshed in memory only.
      */
-    private int calculateETA(VisitQueue queue, int priority) {
-        int waitingCount = queue.getTotalWaiting();
-        int baseWait = queue.getAverageWaitTimeMinutes();
-
-        // High priority patients get shorter ETA
-        int priorityAdjustment = priority <= 2 ? -5 : 0;
-
-        // Calculate based on position and average time
-        int estimatedTime = (waitingCount * baseWait) / 2 + priorityAdjustment;
+    public void updateQueueEstimates(String clinicId) {
+        ClinicQueue queue = queueEngine.forClinic(clinicId);
 
-        // Ensure minimum wait time
-        return Math.max(estimatedTime, 5);
+        synchronized (queue) {
+            publish(queue, refreshEstimates(queue));
+            queue.touch();
+        }
     }
 
     /**
-     * Update queue position and ETA for all waiting patients.
+     * Recompute ETAs from position and active-provider throughput; only changed items are touched.
+     * Caller must hold the queue's monitor.
      */
-    @Transactional
-    public void updateQueueEstimates(String clinicId) {
-        VisitQueue queue = queueRepository.findByClinicId(clinicId)
-            .orElse(null);
-
-        if (queue == null) return;
-
-        List<QueueItem> waitingItems = queue.getItems().stream()
-            .filter(item -> "WAITING".equals(item.getStatus()))
-            .collect(Collectors.toList());
-
-        for (int i = 0; i < waitingItems.size(); i++) {
-            QueueItem item = waitingItems.get(i);
-            int position = i + 1;
-            
-            // Recalculate ETA based on new position
-            int priority = item.getPriority() != null ? item.getPriority() : 5;
-            int newETA = calculateETA(queue, priority);
-            
-            item.setEtaMinutes(newETA);
-            item.setEstimatedStartTime(Instant.now().plus(newETA, ChronoUnit.MINUTES));
+    private List<QueueDelta> refreshEstimates(ClinicQueue queue) {
+        List<QueueDelta> changed = queue.refreshEstimates(Instant.now());
+        if (!changed.isEmpty()) {
+            log.debug("Updated ETA for {} patients at clinic {}", changed.size(), queue.getClinicId());
         }
+        return changed;
+    }
+
+    /**
+     * Caller must hold the queue's monitor so deltas are published in event order.
+     */
+    private void publish(ClinicQueue queue, List<QueueDelta> deltas) {
+        queueStreamBroadcaster.publish(queue.getClinicId(), deltas);
+    }
 
-        queue.setItems(waitingItems);
-        queue.setTotalWaiting(waitingItems.size());
-        queue.setLastUpdated(Instant.now());
+    /**
+     * Subscribe to position/ETA deltas for a clinic, optionally for a single patient.
+     */
+    public SseEmitter subscribe(String clinicId, String patientId) {
+        ClinicQueue queue = queueEngine.forClinic(clinicId);
 
-        queueRepository.save(queue);
+        // Snapshot and registration under the same monitor so no delta falls in between
+        synchronized (queue) {
+            return queueStreamBroadcaster.subscribe(clinicId, patientId, queue.currentDeltas());
+        }
     }
 
     /**
      * Get queue position for patient.
      */
     public Integer getQueuePosition(String clinicId, String patientId) {
-        VisitQueue queue = queueRepository.findByClinicId(clinicId)
-            .orElse(null);
-
-        if (queue == null) return null;
+        ClinicQueue queue = queueEngine.forClinic(clinicId);
 
-        for (int i = 0; i < queue.getItems().size(); i++) {
-            if (patientId.equals(queue.getItems().get(i).getPatientId())) {
-                return i + 1;
-            }
+        synchronized (queue) {
+            return queue.position(patientId);
         }
-
-        return null;
     }
 
     /**
-     * Move next patient from queue to in-progress.
+     * Estimated wait in minutes for a patient at the given queue position.
      */
-    @Transactional
-    public void processNext(String clinicId) {
-        VisitQueue queue = queueRepository.findByClinicId(clinicId)
-            .orElse(null);
+    public int getEtaMinutes(String clinicId, int position) {
+        if (position <= 0) {
+            return 0;
+        }
+        ClinicQueue queue = queueEngine.forClinic(clinicId);
 
-        if (queue == null || queue.getItems().isEmpty()) return;
+        synchronized (queue) {
+            return queue.etaFor(position, Instant.now());
+        }
+    }
 
-        // Get highest priority waiting item
-        QueueItem nextItem = queue.getItems().stream()
-            .filter(item -> "WAITING".equals(item.getStatus()))
-            .min(Comparator.comparingInt((QueueItem item) -> item.getPriority() != null ? item.getPriority() : Integer.MAX_VALUE))
-            .orElse(null);
+    /**
+     * Get a snapshot of the clinic queue.
+     */
+    public Optional<VisitQueue> getQueue(String clinicId) {
+        ClinicQueue queue = queueEngine.forClinic(clinicId);
 
-        if (nextItem != null) {
-            nextItem.setStatus("IN_PROGRESS");
-            queue.setCurrentPosition(queue.getCurrentPosition() + 1);
-            queue.setLastUpdated(Instant.now());
+        synchronized (queue) {
+            return queue.getLastUpdated() == null ? Optional.empty() : Optional.of(queue.toVisitQueue());
+        }
+    }
 
-            queueRepository.save(queue);
+    /**
+     * Move next patient from queue to in-progress.
+     */
+    public void processNext(String clinicId, String providerId) {
+        queueEngine.update(clinicId, queue -> {
+            // Get highest priority waiting item
+            QueueItem nextItem = queue.peekNext();
+            if (nextItem == null) return;
+
+            QueueEvent event = new QueueEvent();
+            event.setEventType(ClinicQueue.CALLED);
+            event.setPatientId(nextItem.getPatientId());
+            event.setAppointmentId(nextItem.getAppointmentId());
+            event.setProviderId(providerId);
+            event.setPriority(nextItem.getPriority());
+            queueEngine.record(queue, event);
+
+            List<QueueDelta> deltas = new ArrayList<>();
+            deltas.add(new QueueDelta(nextItem.getPatientId(), 0, 0, "IN_PROGRESS"));
+            deltas.addAll(refreshEstimates(queue));
+            publish(queue, deltas);
 
             log.info("Processing next patient in queue at clinic {}", clinicId);
-        }
+        });
     }
 
     /**
      * Mark patient as completed and update queue statistics.
      */
-    @Transactional
     public void completePatient(String clinicId, String patientId) {
-        VisitQueue queue = queueRepository.findByClinicId(clinicId)
-            .orElse(null);
-
-        if (queue == null) return;
-
-        queue.getItems().stream()
-            .filter(item -> patientId.equals(item.getPatientId()))
-            .forEach(item -> {
-                if ("IN_PROGRESS".equals(item.getStatus())) {
-                    long actualWaitTime = ChronoUnit.MINUTES.between(item.getQueuedAt(), Instant.now());
-                    
-                    // Update average wait time
-                    int currentAvg = queue.getAverageWaitTimeMinutes();
-                    int newAvg = (int) ((currentAvg + actualWaitTime) / 2);
-                    queue.setAverageWaitTimeMinutes(newAvg);
-
-                    item.setStatus("COMPLETED");
-                }
-            });
-
-        // Remove completed items
-        List<QueueItem> filtered = queue.getItems().stream()
-            .filter(item -> !"COMPLETED".equals(item.getStatus()))
-            .collect(Collectors.toList());
-        queue.setItems(filtered);
-
-        queue.setTotalWaiting(queue.getItems().size());
-        queue.setLastUpdated(Instant.now());
-
-        queueRepository.save(queue);
+        queueEngine.update(clinicId, queue -> {
+            if (!queue.isInProgress(patientId)) return;
+
+            QueueEvent event = new QueueEvent();
+            event.setEventType(ClinicQueue.COMPLETED);
+            event.setPatientId(patientId);
+            queueEngine.record(queue, event);
+
+            List<QueueDelta> deltas = new ArrayList<>();
+            deltas.add(new QueueDelta(patientId, null, null, "COMPLETED"));
+            deltas.addAll(refreshEstimates(queue));
+            publish(queue, deltas);
+        });
     }
 
     /**
-     * Create new queue for clinic.
+     * Apply changes another replica appended to a clinic's log, if this replica holds the
+     * clinic's queue, and push the resulting deltas to local subscribers.
      */
-    private VisitQueue createNewQueue(String clinicId) {
-        VisitQueue queue = new VisitQueue();
-        queue.setClinicId(clinicId);
-        queue.setItems(new ArrayList<>());
-        queue.setCurrentPosition(0);
-        queue.setTotalWaiting(0);
-        queue.setAverageWaitTimeMinutes(15);
-        queue.setCreatedAt(Instant.now());
-        queue.setUpdatedAt(Instant.now());
-        return queue;
+    public void syncFromLog(String clinicId) {
+        ClinicQueue queue = queueEngine.resident(clinicId);
+        if (queue == null) {
+            return;
+        }
+
+        synchronized (queue) {
+            if (queueEngine.catchUp(queue) > 0) {
+                publish(queue, refreshEstimates(queue));
+            }
+        }
     }
 }
-
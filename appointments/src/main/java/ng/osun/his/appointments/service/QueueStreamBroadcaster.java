@@ -0,0 +1,170 @@
+package ng.osun.his.appointments.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.QueueDelta;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory fan-out of queue deltas to Server-Sent Events subscribers.
+ * Publishing never blocks on a client: each subscriber has a bounded buffer that coalesces
+ * deltas per patient, drained by a small shared sender pool. A subscriber that falls more
+ * than {@code queue.stream.max-pending} patients behind gets a single "resync" event instead.
+ */
+@Component
+@Slf4j
+public class QueueStreamBroadcaster {
+
+    private final ConcurrentMap<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+    private final long emitterTimeoutMs;
+    private final int maxPending;
+
+    public QueueStreamBroadcaster(
+            @Value("${queue.stream.sender-threads:4}") int senderThreads,
+            @Value("${queue.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+            @Value("${queue.stream.max-pending:512}") int maxPending) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "queue-stream-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Register a subscriber for a clinic, optionally filtered to one patient.
+     * The snapshot is queued as the first message.
+     */
+    public SseEmitter subscribe(String clinicId, String patientId, List<QueueDelta> snapshot) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(clinicId, patientId, emitter);
+
+        subscribers.computeIfAbsent(clinicId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscriber.offer(snapshot);
+        return emitter;
+    }
+
+    /**
+     * Fan deltas out to every subscriber of the clinic. Non-blocking.
+     */
+    public void publish(String clinicId, List<QueueDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Set<Subscriber> clinicSubscribers = subscribers.get(clinicId);
+        if (clinicSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : clinicSubscribers) {
+            subscriber.offer(deltas);
+        }
+    }
+
+    public int subscriberCount(String clinicId) {
+        Set<Subscriber> clinicSubscribers = subscribers.get(clinicId);
+        return clinicSubscribers == null ? 0 : clinicSubscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        Set<Subscriber> clinicSubscribers = subscribers.get(subscriber.clinicId);
+        if (clinicSubscribers != null) {
+            clinicSubscribers.remove(subscriber);
+        }
+    }
+
+    private final class Subscriber {
+        private final String clinicId;
+        private final String patientId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // Guarded by this
+        private final Map<String, QueueDelta> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+
+        private Subscriber(String clinicId, String patientId, SseEmitter emitter) {
+            this.clinicId = clinicId;
+            this.patientId = patientId;
+            this.emitter = emitter;
+        }
+
+        private void offer(List<QueueDelta> deltas) {
+            synchronized (this) {
+                for (QueueDelta delta : deltas) {
+                    if (patientId != null && !patientId.equals(delta.getPatientId())) {
+                        continue;
+                    }
+                    // Latest delta per patient wins; a slow client only ever sees current state
+                    pending.remove(delta.getPatientId());
+                    pending.put(delta.getPatientId(), delta);
+                }
+                if (pending.size() > maxPending) {
+                    pending.clear();
+                    overflowed = true;
+                }
+                if (pending.isEmpty() && !overflowed) {
+                    return;
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                sender.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    List<QueueDelta> batch;
+                    boolean resync;
+                    synchronized (this) {
+                        if (pending.isEmpty() && !overflowed) {
+                            draining.set(false);
+                            return;
+                        }
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                        resync = overflowed;
+                        overflowed = false;
+                    }
+
+                    if (resync) {
+                        emitter.send(SseEmitter.event().name("resync").data(clinicId));
+                    } else {
+                        emitter.send(SseEmitter.event().name("queue").data(batch));
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping queue stream subscriber for clinic {}: {}", clinicId, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ng.osun.his.appointments.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Keeps this replica's resident clinic queues in step with queue events appended elsewhere.
+ * Each replica consumes in its own group, named after {@code platform.instance-id} so restarts
+ * rejoin it, starting from the latest offset the first time since queues are replayed from the
+ * log and only need appends made after that.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueueSyncListener {
+
+    private final QueueService queueService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = EntityChangePublisher.ENTITY_CHANGES_TOPIC,
+        groupId = "${appointments.queue.consumer-group:appointments-queue-${platform.instance-id}}",
+        properties = {"auto.offset.reset=latest"})
+    public void onChange(String eventJson) {
+        try {
+            JsonNode event = objectMapper.readTree(eventJson);
+            String resourceId = event.path("resourceId").asText();
+            if (QueueEngine.RESOURCE_TYPE.equals(event.path("resourceType").asText()) && !resourceId.isEmpty()) {
+                queueService.syncFromLog(resourceId);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable change event: {}", e.getMessage());
+        }
+    }
+}
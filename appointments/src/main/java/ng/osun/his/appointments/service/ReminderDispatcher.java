@@ -0,0 +1,85 @@
+package ng.osun.his.appointments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.ReminderMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends reminders to the {@link ReminderGateway} in batches of
+ * {@code appointments.reminders.batch-size}, paced to {@code appointments.reminders.max-per-second}
+ * so a large window does not trip the provider's throughput limits.
+ */
+@Component
+@Slf4j
+public class ReminderDispatcher {
+
+    private final ReminderGateway gateway;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final double maxPerSecond;
+
+    private long nextSendNanos = System.nanoTime();
+
+    public ReminderDispatcher(ReminderGateway gateway,
+                              MeterRegistry meterRegistry,
+                              @Value("${appointments.reminders.batch-size:50}") int batchSize,
+                              @Value("${appointments.reminders.max-per-second:20}") double maxPerSecond) {
+        this.gateway = gateway;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * Dispatch the messages and return the ids of the appointments the gateway accepted.
+     * A failed batch is logged and left for the next run.
+     */
+    public Set<String> dispatch(List<ReminderMessage> messages) {
+        Set<String> delivered = new HashSet<>();
+        for (int from = 0; from < messages.size(); from += batchSize) {
+            List<ReminderMessage> batch = messages.subList(from, Math.min(from + batchSize, messages.size()));
+            if (!pace(batch.size())) {
+                break;
+            }
+            try {
+                Set<String> accepted = gateway.sendBatch(batch);
+                delivered.addAll(accepted);
+                meterRegistry.counter("appointments.reminders.sent", "outcome", "accepted").increment(accepted.size());
+                meterRegistry.counter("appointments.reminders.sent", "outcome", "rejected")
+                    .increment(batch.size() - accepted.size());
+            } catch (RuntimeException e) {
+                meterRegistry.counter("appointments.reminders.sent", "outcome", "failed").increment(batch.size());
+                log.warn("Reminder gateway failed for a batch of {}: {}", batch.size(), e.getMessage());
+            }
+        }
+        return delivered;
+    }
+
+    /**
+     * Wait for the batch's turn; false if interrupted.
+     */
+    private synchronized boolean pace(int messages) {
+        if (maxPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        long wait = nextSendNanos - now;
+        nextSendNanos = Math.max(now, nextSendNanos) + (long) (messages * 1_000_000_000L / maxPerSecond);
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+}
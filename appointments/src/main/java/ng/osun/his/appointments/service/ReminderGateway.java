@@ -0,0 +1,19 @@
+package ng.osun.his.appointments.service;
+
+import ng.osun.his.appointments.domain.ReminderMessage;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Delivery channel for appointment reminders (SMS aggregator, WhatsApp Business API, ...).
+ */
+public interface ReminderGateway {
+
+    /**
+     * Send a batch of reminders.
+     *
+     * @return ids of the appointments whose reminder the gateway accepted; the rest are retried
+     */
+    Set<String> sendBatch(List<ReminderMessage> batch);
+}
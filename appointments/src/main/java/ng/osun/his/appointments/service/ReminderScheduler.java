@@ -0,0 +1,250 @@
+package ng.osun.his.appointments.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.ReminderMessage;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends SMS reminders for appointments starting within the next
+ * {@code appointments.reminders.lead-hours}, every {@code appointments.reminders.interval-seconds}.
+ * <p>
+ * Each run walks only that window, in keyset pages on (appointment_date, id) served by
+ * idx_appointments_reminder_due. A page is claimed with one UPDATE ... FOR UPDATE SKIP LOCKED
+ * that stamps this node and a lease on the rows, so replicas share the work and never send the
+ * same reminder; rows whose lease expired (node died mid-run) are picked up again. Claimed
+ * reminders go through the {@link ReminderDispatcher}; accepted ones are marked sent and the
+ * rest released with one bulk UPDATE each. Delivery is at-least-once across node failures.
+ */
+@Component
+@Slf4j
+public class ReminderScheduler {
+
+    private static final String CLAIM_SQL =
+        "UPDATE appointments SET reminder_claimed_by = ?, reminder_claimed_until = ?"
+        + " WHERE id IN ("
+        + "   SELECT id FROM appointments"
+        + "    WHERE status IN ('SCHEDULED', 'CONFIRMED')"
+        + "      AND appointment_date >= ? AND appointment_date < ?"
+        + "      AND sms_reminder_sent = false"
+        + "      AND (appointment_date, id) > (?, ?)"
+        + "      AND (reminder_claimed_until IS NULL OR reminder_claimed_until < ?)"
+        + "    ORDER BY appointment_date, id"
+        + "    LIMIT ?"
+        + "    FOR UPDATE SKIP LOCKED)"
+        + " RETURNING id, appointment_number, patient_id, appointment_date";
+
+    private static final String MARK_SENT_SQL =
+        "UPDATE appointments SET sms_reminder_sent = true, reminder_sent_at = ?,"
+        + " reminder_claimed_by = NULL, reminder_claimed_until = NULL"
+        + " WHERE id = ANY (?) AND reminder_claimed_by = ?";
+
+    private static final String RELEASE_SQL =
+        "UPDATE appointments SET reminder_claimed_by = NULL, reminder_claimed_until = NULL"
+        + " WHERE id = ANY (?) AND reminder_claimed_by = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReminderDispatcher dispatcher;
+    private final boolean enabled;
+    private final Duration leadTime;
+    private final long intervalNanos;
+    private final Duration claimLease;
+    private final int pageSize;
+    private final String nodeId;
+    private final Timer runTimer;
+
+    private volatile boolean running;
+    private Thread schedulerThread;
+
+    public ReminderScheduler(JdbcTemplate jdbcTemplate,
+                             ReminderDispatcher dispatcher,
+                             MeterRegistry meterRegistry,
+                             @Value("${appointments.reminders.enabled:true}") boolean enabled,
+                             @Value("${appointments.reminders.lead-hours:24}") long leadHours,
+                             @Value("${appointments.reminders.interval-seconds:300}") long intervalSeconds,
+                             @Value("${appointments.reminders.claim-seconds:600}") long claimSeconds,
+                             @Value("${appointments.reminders.page-size:200}") int pageSize,
+                             @Value("${spring.application.name:appointments}") String applicationName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dispatcher = dispatcher;
+        this.enabled = enabled;
+        this.leadTime = Duration.ofHours(leadHours);
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(intervalSeconds);
+        this.claimLease = Duration.ofSeconds(claimSeconds);
+        this.pageSize = pageSize;
+        this.nodeId = applicationName + "@" + hostName() + "/" + ProcessHandle.current().pid();
+        this.runTimer = meterRegistry.timer("appointments.reminders.run");
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Appointment reminders disabled");
+            return;
+        }
+        running = true;
+        schedulerThread = new Thread(this::runLoop, "appointment-reminders");
+        schedulerThread.setDaemon(true);
+        schedulerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (schedulerThread != null) {
+            schedulerThread.interrupt();
+            schedulerThread.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    /**
+     * Send every due reminder in the current window.
+     *
+     * @return number of reminders accepted by the gateway
+     */
+    public int runOnce() {
+        long start = System.nanoTime();
+        LocalDateTime windowStart = LocalDateTime.now(NigeriaContext.TIMEZONE);
+        LocalDateTime windowEnd = windowStart.plus(leadTime);
+
+        LocalDateTime afterDate = windowStart.minusSeconds(1);
+        String afterId = "";
+        int sent = 0;
+        int claimed;
+        do {
+            List<Claimed> page = claimPage(windowStart, windowEnd, afterDate, afterId);
+            claimed = page.size();
+            if (claimed == 0) {
+                break;
+            }
+
+            List<ReminderMessage> messages = new ArrayList<>(claimed);
+            for (Claimed row : page) {
+                messages.add(new ReminderMessage(row.id, row.appointmentNumber, row.patientId, "SMS",
+                    NotificationService.reminderText(row.appointmentDate)));
+                // RETURNING order is unspecified, so track the page's last key explicitly
+                if (row.appointmentDate.isAfter(afterDate)
+                        || (row.appointmentDate.isEqual(afterDate) && row.id.compareTo(afterId) > 0)) {
+                    afterDate = row.appointmentDate;
+                    afterId = row.id;
+                }
+            }
+
+            Set<String> delivered = dispatcher.dispatch(messages);
+            List<String> undelivered = new ArrayList<>();
+            for (Claimed row : page) {
+                if (!delivered.contains(row.id)) {
+                    undelivered.add(row.id);
+                }
+            }
+            update(MARK_SENT_SQL, Timestamp.from(Instant.now()), delivered);
+            update(RELEASE_SQL, null, undelivered);
+            sent += delivered.size();
+        } while (claimed == pageSize && !Thread.currentThread().isInterrupted());
+
+        runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (sent > 0) {
+            log.info("Sent {} appointment reminders for {} to {}", sent, windowStart, windowEnd);
+        }
+        return sent;
+    }
+
+    private List<Claimed> claimPage(LocalDateTime windowStart, LocalDateTime windowEnd,
+                                    LocalDateTime afterDate, String afterId) {
+        Instant now = Instant.now();
+        return jdbcTemplate.query(CLAIM_SQL,
+            (rs, row) -> new Claimed(
+                rs.getString("id"),
+                rs.getString("appointment_number"),
+                rs.getString("patient_id"),
+                rs.getTimestamp("appointment_date").toLocalDateTime()),
+            nodeId,
+            Timestamp.from(now.plus(claimLease)),
+            Timestamp.valueOf(windowStart),
+            Timestamp.valueOf(windowEnd),
+            Timestamp.valueOf(afterDate),
+            afterId,
+            Timestamp.from(now),
+            pageSize);
+    }
+
+    private void update(String sql, Timestamp sentAt, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            int index = 1;
+            if (sentAt != null) {
+                statement.setTimestamp(index++, sentAt);
+            }
+            statement.setArray(index++, idArray(connection, ids));
+            statement.setString(index, nodeId);
+            return statement;
+        });
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                runOnce();
+            } catch (RuntimeException e) {
+                log.warn("Reminder run failed: {}", e.getMessage());
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(intervalNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static Array idArray(Connection connection, Collection<String> ids) throws SQLException {
+        return connection.createArrayOf("varchar", ids.toArray());
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "local";
+        }
+    }
+
+    private static final class Claimed {
+        private final String id;
+        private final String appointmentNumber;
+        private final String patientId;
+        private final LocalDateTime appointmentDate;
+
+        private Claimed(String id, String appointmentNumber, String patientId, LocalDateTime appointmentDate) {
+            this.id = id;
+            this.appointmentNumber = appointmentNumber;
+            this.patientId = patientId;
+            this.appointmentDate = appointmentDate;
+        }
+    }
+}
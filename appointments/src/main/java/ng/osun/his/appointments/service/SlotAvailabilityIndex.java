@@ -0,0 +1,293 @@
+package ng.osun.his.appointments.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.appointments.domain.Appointment;
+import ng.osun.his.appointments.domain.AvailableSlot;
+import ng.osun.his.appointments.domain.Clinic;
+import ng.osun.his.appointments.repository.AppointmentRepository;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory slot availability per clinic-day, used for booking conflict checks and the
+ * next-available-slots search.
+ * <p>
+ * A clinic-day is built from the clinic's hours, slot duration and blackout dates plus its
+ * non-cancelled appointments the first time it is touched, then kept current by the booking
+ * paths: {@link #reserve} checks and occupies slots in one step under the day's monitor, and
+ * {@link #update} follows cancellations. If the surrounding transaction rolls back, the
+ * appointment is re-read so the index matches what was committed. Changes made on other
+ * replicas arrive through {@link #reload}.
+ */
+@Component
+@Slf4j
+public class SlotAvailabilityIndex {
+
+    static final int MAX_RESULTS = 100;
+
+    private static final Set<String> FREED_STATUSES = Set.of("CANCELLED", "NO_SHOW");
+
+    private final AppointmentRepository appointmentRepository;
+    private final int maxDays;
+    private final int searchDays;
+
+    private final ConcurrentMap<String, ClinicDaySchedule> days = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, String> dayOfAppointment = new ConcurrentHashMap<>();
+
+    public SlotAvailabilityIndex(AppointmentRepository appointmentRepository,
+                                 @Value("${appointments.availability.max-days:5000}") int maxDays,
+                                 @Value("${appointments.availability.search-days:30}") int searchDays) {
+        this.appointmentRepository = appointmentRepository;
+        this.maxDays = maxDays;
+        this.searchDays = searchDays;
+    }
+
+    /**
+     * Occupy the appointment's slots, or throw if they are outside opening hours or taken.
+     * The appointment must already carry its id; a previous placement of the same id is replaced.
+     */
+    public void reserve(Clinic clinic, Appointment appointment) {
+        ClinicDaySchedule day = forDay(clinic, appointment.getAppointmentDate().toLocalDate());
+        synchronized (day) {
+            ClinicDaySchedule.Placement placement = day.placementFor(appointment);
+            if (placement == null) {
+                throw new IllegalStateException("Clinic is not open at this time");
+            }
+            String conflict = day.conflictFor(placement);
+            if (conflict != null) {
+                throw new IllegalStateException(conflict);
+            }
+            day.place(placement);
+        }
+        moveTo(appointment.getId(), day);
+        reloadOnRollback(appointment.getId());
+    }
+
+    /**
+     * Reflect a status change such as a cancellation, which only ever frees slots.
+     */
+    public void update(Appointment appointment) {
+        apply(appointment);
+        reloadOnRollback(appointment.getId());
+    }
+
+    /**
+     * Re-read an appointment and apply its committed state to whichever days are resident.
+     */
+    public void reload(String appointmentId) {
+        appointmentRepository.findById(appointmentId)
+            .ifPresentOrElse(this::apply, () -> release(appointmentId));
+    }
+
+    /**
+     * Drop a clinic's resident days, e.g. after its hours or slot duration change.
+     */
+    public void invalidateClinic(String clinicId) {
+        days.values().removeIf(day -> {
+            if (!day.getClinicId().equals(clinicId)) {
+                return false;
+            }
+            forget(day);
+            return true;
+        });
+    }
+
+    /**
+     * Next free slots from the given time, earliest first, across the given providers, or in
+     * the clinic's unassigned pool when no providers are given. Searches up to
+     * {@code appointments.availability.search-days} days ahead.
+     */
+    public List<AvailableSlot> nextAvailable(Clinic clinic, List<String> providerIds, LocalDateTime from, int limit) {
+        int wanted = Math.max(1, Math.min(limit, MAX_RESULTS));
+        List<AvailableSlot> slots = new ArrayList<>(wanted);
+        LocalDate date = from.toLocalDate();
+
+        for (int d = 0; d < searchDays && slots.size() < wanted; d++, date = date.plusDays(1)) {
+            ClinicDaySchedule day = forDay(clinic, date);
+            synchronized (day) {
+                int first = d == 0 ? day.firstSlotFrom(from.toLocalTime()) : 0;
+                for (int slot = first; slot < day.getSlotCount() && slots.size() < wanted; slot++) {
+                    if (providerIds == null || providerIds.isEmpty()) {
+                        if (day.isUnassignedFree(slot)) {
+                            slots.add(new AvailableSlot(clinic.getId(), null, day.startOf(slot), day.endOf(slot)));
+                        }
+                        continue;
+                    }
+                    for (String providerId : providerIds) {
+                        if (slots.size() < wanted && day.isProviderFree(providerId, slot)) {
+                            slots.add(new AvailableSlot(clinic.getId(), providerId, day.startOf(slot), day.endOf(slot)));
+                        }
+                    }
+                }
+            }
+        }
+        return slots;
+    }
+
+    public int residentDays() {
+        return days.size();
+    }
+
+    private ClinicDaySchedule forDay(Clinic clinic, LocalDate date) {
+        String key = key(clinic.getId(), date);
+        ClinicDaySchedule day = days.get(key);
+        if (day == null) {
+            evictIfFull();
+            // Load outside the map: computeIfAbsent would hold the bin lock for the whole query.
+            // Concurrent builders of one day each load it and the first to publish wins.
+            ClinicDaySchedule built = build(clinic, date);
+            day = days.putIfAbsent(key, built);
+            if (day == null) {
+                day = built;
+                synchronized (day) {
+                    for (String appointmentId : day.appointmentIds()) {
+                        dayOfAppointment.put(appointmentId, key);
+                    }
+                }
+            }
+        }
+        day.touch();
+        return day;
+    }
+
+    private ClinicDaySchedule build(Clinic clinic, LocalDate date) {
+        ClinicDaySchedule day = new ClinicDaySchedule(clinic, date);
+        List<Appointment> appointments = appointmentRepository.findByClinicIdAndAppointmentDateBetween(
+            clinic.getId(), date.atStartOfDay(), date.atTime(LocalTime.MAX));
+
+        int placed = 0;
+        for (Appointment appointment : appointments) {
+            if (!isActive(appointment)) {
+                continue;
+            }
+            ClinicDaySchedule.Placement placement = day.placementFor(appointment);
+            if (placement == null) {
+                log.debug("Appointment {} lies outside clinic {} hours on {}", appointment.getId(), clinic.getId(), date);
+                continue;
+            }
+            day.place(placement);
+            placed++;
+        }
+
+        log.debug("Indexed clinic {} on {}: {} slots, {} appointments", clinic.getId(), date, day.getSlotCount(), placed);
+        return day;
+    }
+
+    /**
+     * Apply persisted state without conflict checks: the database is the authority here.
+     * Days that are not resident pick the appointment up when they are built.
+     */
+    private void apply(Appointment appointment) {
+        if (!isActive(appointment)) {
+            release(appointment.getId());
+            return;
+        }
+        ClinicDaySchedule day = days.get(key(appointment.getClinicId(), appointment.getAppointmentDate().toLocalDate()));
+        if (day == null) {
+            release(appointment.getId());
+            return;
+        }
+        synchronized (day) {
+            ClinicDaySchedule.Placement placement = day.placementFor(appointment);
+            if (placement == null) {
+                day.remove(appointment.getId());
+            } else {
+                day.place(placement);
+            }
+        }
+        moveTo(appointment.getId(), day);
+    }
+
+    private void release(String appointmentId) {
+        String key = dayOfAppointment.remove(appointmentId);
+        ClinicDaySchedule day = key == null ? null : days.get(key);
+        if (day != null) {
+            synchronized (day) {
+                day.remove(appointmentId);
+            }
+        }
+    }
+
+    private void moveTo(String appointmentId, ClinicDaySchedule day) {
+        String key = key(day.getClinicId(), day.getDate());
+        String previous = dayOfAppointment.put(appointmentId, key);
+        if (previous != null && !previous.equals(key)) {
+            ClinicDaySchedule old = days.get(previous);
+            if (old != null) {
+                synchronized (old) {
+                    old.remove(appointmentId);
+                }
+            }
+        }
+    }
+
+    private void reloadOnRollback(String appointmentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reload(appointmentId);
+                }
+            }
+        });
+    }
+
+    private void evictIfFull() {
+        if (days.size() < maxDays) {
+            return;
+        }
+        LocalDate today = LocalDate.now(NigeriaContext.TIMEZONE);
+        days.values().removeIf(day -> {
+            if (!day.getDate().isBefore(today)) {
+                return false;
+            }
+            forget(day);
+            return true;
+        });
+        // Still full: drop the least recently used tenth
+        int excess = days.size() - maxDays + Math.max(1, maxDays / 10);
+        if (excess > 0) {
+            days.values().stream()
+                .sorted(Comparator.comparingLong(ClinicDaySchedule::getLastAccess))
+                .limit(excess)
+                .forEach(day -> {
+                    if (days.remove(key(day.getClinicId(), day.getDate()), day)) {
+                        forget(day);
+                    }
+                });
+        }
+    }
+
+    private void forget(ClinicDaySchedule day) {
+        synchronized (day) {
+            String key = key(day.getClinicId(), day.getDate());
+            for (String appointmentId : day.appointmentIds()) {
+                dayOfAppointment.remove(appointmentId, key);
+            }
+        }
+    }
+
+    private static boolean isActive(Appointment appointment) {
+        return appointment.getAppointmentDate() != null && !FREED_STATUSES.contains(appointment.getStatus());
+    }
+
+    private static String key(String clinicId, LocalDate date) {
+        return clinicId + '|' + date;
+    }
+}
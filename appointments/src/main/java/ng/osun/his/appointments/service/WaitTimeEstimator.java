@@ -0,0 +1,112 @@
+package ng.osun.his.appointments.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Streaming wait-time model for one clinic.
+ * Keeps exponentially weighted moving averages of consultation length (clinic-wide and per
+ * provider) and of queue wait, and turns a queue position into an ETA using the combined
+ * service rate of the providers currently active in the clinic.
+ * Not thread-safe: owned by a ClinicQueue and guarded by its monitor.
+ */
+public class WaitTimeEstimator {
+
+    static final double ALPHA = 0.2;
+    static final double DEFAULT_SERVICE_MINUTES = 15.0;
+    static final Duration ACTIVE_WINDOW = Duration.ofMinutes(60);
+    static final String UNASSIGNED = "UNASSIGNED";
+
+    private final Ewma clinicService = new Ewma(DEFAULT_SERVICE_MINUTES);
+    private final Ewma queueWait = new Ewma(DEFAULT_SERVICE_MINUTES);
+    private final Map<String, Ewma> providerService = new HashMap<>();
+    private final Map<String, Instant> providerLastActive = new HashMap<>();
+
+    /**
+     * Record that a provider called a patient after the given queue wait.
+     */
+    public void recordCall(String providerId, double waitMinutes, Instant at) {
+        queueWait.add(waitMinutes);
+        providerLastActive.put(key(providerId), at);
+    }
+
+    /**
+     * Record a completed consultation.
+     */
+    public void recordService(String providerId, double serviceMinutes, Instant at) {
+        String key = key(providerId);
+        clinicService.add(serviceMinutes);
+        providerService.computeIfAbsent(key, k -> new Ewma(clinicService.value)).add(serviceMinutes);
+        providerLastActive.put(key, at);
+    }
+
+    /**
+     * Patients served per minute by all providers active within the last hour.
+     */
+    public double throughputPerMinute(Instant now) {
+        Instant cutoff = now.minus(ACTIVE_WINDOW);
+        double rate = 0;
+        Iterator<Map.Entry<String, Instant>> it = providerLastActive.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Instant> entry = it.next();
+            if (entry.getValue().isBefore(cutoff)) {
+                it.remove();
+                continue;
+            }
+            Ewma service = providerService.get(entry.getKey());
+            rate += 1.0 / Math.max(1.0, service != null ? service.value : clinicService.value);
+        }
+        return rate > 0 ? rate : 1.0 / Math.max(1.0, clinicService.value);
+    }
+
+    /**
+     * ETA for the patient at a 1-based waiting position; on average half a
+     * consultation is already done when a patient reaches the front.
+     */
+    public int etaMinutes(int position, double throughputPerMinute) {
+        return (int) Math.round((position - 0.5) / throughputPerMinute);
+    }
+
+    public int activeProviders(Instant now) {
+        Instant cutoff = now.minus(ACTIVE_WINDOW);
+        int count = 0;
+        for (Instant lastActive : providerLastActive.values()) {
+            if (!lastActive.isBefore(cutoff)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int averageWaitMinutes() {
+        return (int) Math.round(queueWait.value);
+    }
+
+    public double averageServiceMinutes() {
+        return clinicService.value;
+    }
+
+    private static String key(String providerId) {
+        return providerId != null ? providerId : UNASSIGNED;
+    }
+
+    private static final class Ewma {
+        private double value;
+        private boolean seeded;
+
+        private Ewma(double initial) {
+            this.value = initial;
+        }
+
+        private void add(double sample) {
+            if (sample < 0) {
+                return;
+            }
+            value = seeded ? ALPHA * sample + (1 - ALPHA) * value : sample;
+            seeded = true;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+-- Append-only queue events (replaces whole-queue rewrites of queue_items)
+CREATE TABLE IF NOT EXISTS queue_events (
+    id VARCHAR(36) PRIMARY KEY,
+    clinic_id VARCHAR(36) NOT NULL,
+    sequence BIGINT NOT NULL,
+    event_type VARCHAR(20) NOT NULL,
+    patient_id VARCHAR(36) NOT NULL,
+    appointment_id VARCHAR(36),
+    priority INTEGER,
+    eta_minutes INTEGER,
+    occurred_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX idx_queue_events_clinic_time ON queue_events(clinic_id, occurred_at);
@@ -0,0 +1,2 @@
+-- Provider that called the patient, used by the per-provider wait-time model
+ALTER TABLE queue_events ADD COLUMN IF NOT EXISTS provider_id VARCHAR(36);
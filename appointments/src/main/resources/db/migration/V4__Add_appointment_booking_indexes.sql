@@ -0,0 +1,9 @@
+-- Booking conflict checks look up a provider's (or a clinic's unassigned) active appointments
+-- overlapping a time range while holding the provider-day advisory lock
+CREATE INDEX IF NOT EXISTS idx_appointments_provider_date
+    ON appointments(provider_id, appointment_date)
+    WHERE status NOT IN ('CANCELLED', 'NO_SHOW');
+
+CREATE INDEX IF NOT EXISTS idx_appointments_unassigned_date
+    ON appointments(clinic_id, appointment_date)
+    WHERE provider_id IS NULL AND status NOT IN ('CANCELLED', 'NO_SHOW');
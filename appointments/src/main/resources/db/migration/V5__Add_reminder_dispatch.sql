@@ -0,0 +1,7 @@
+-- Reminder runs scan only the upcoming window of remindable appointments
+CREATE INDEX IF NOT EXISTS idx_appointments_reminder_due
+    ON appointments(status, appointment_date, sms_reminder_sent);
+
+-- Lease on a reminder claimed by one replica, so only that node sends it
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS reminder_claimed_by VARCHAR(100);
+ALTER TABLE appointments ADD COLUMN IF NOT EXISTS reminder_claimed_until TIMESTAMP;
@@ -0,0 +1,5 @@
+-- A clinic may hold several sessions on one weekday (e.g. morning and afternoon clinics),
+-- so hours are keyed by session start as well
+ALTER TABLE clinic_hours DROP CONSTRAINT IF EXISTS clinic_hours_pkey;
+ALTER TABLE clinic_hours ALTER COLUMN start_time SET NOT NULL;
+ALTER TABLE clinic_hours ADD CONSTRAINT clinic_hours_pkey PRIMARY KEY (clinic_id, day_of_week, start_time);
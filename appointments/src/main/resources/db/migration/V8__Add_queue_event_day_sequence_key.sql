@@ -0,0 +1,7 @@
+-- Queue sequences restart each clinic-day, so the day is stored with the event and a sequence
+-- is unique within it: two replicas appending the same next sequence cannot both commit.
+-- Rows written before this migration keep a NULL day and are not constrained.
+ALTER TABLE queue_events ADD COLUMN IF NOT EXISTS queue_date DATE;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_queue_events_clinic_day_sequence
+    ON queue_events(clinic_id, queue_date, sequence);
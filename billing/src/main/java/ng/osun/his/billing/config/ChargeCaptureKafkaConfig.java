@@ -0,0 +1,47 @@
+package ng.osun.his.billing.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+
+/**
+ * Batch listener container for charge capture. Offsets are committed per batch after the
+ * listener returns. When the listener names the record that failed, the records before it are
+ * committed and that record is retried with exponential backoff; once the retries are used up it
+ * is published to {@code <topic>.DLT} and capture moves on. A dead-lettered record is a charge
+ * to replay (re-publishing it to its topic is harmless), not one that is lost.
+ */
+@Configuration
+public class ChargeCaptureKafkaConfig {
+
+    public static final String CONTAINER_FACTORY = "chargeCaptureContainerFactory";
+
+    @Bean(name = CONTAINER_FACTORY)
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> chargeCaptureContainerFactory(
+            ConsumerFactory<Object, Object> consumerFactory,
+            KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${billing.charge-capture.concurrency:3}") int concurrency,
+            @Value("${billing.charge-capture.retry-interval-ms:1000}") long retryIntervalMs,
+            @Value("${billing.charge-capture.max-retry-interval-ms:30000}") long maxRetryIntervalMs,
+            @Value("${billing.charge-capture.max-retries:6}") int maxRetries) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxRetries);
+        backOff.setInitialInterval(retryIntervalMs);
+        backOff.setMultiplier(2.0);
+        backOff.setMaxInterval(maxRetryIntervalMs);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new DeadLetterPublishingRecoverer(kafkaTemplate), backOff));
+        return factory;
+    }
+}
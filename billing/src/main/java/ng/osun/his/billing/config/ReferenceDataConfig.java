@@ -0,0 +1,29 @@
+package ng.osun.his.billing.config;
+
+import ng.osun.his.billing.domain.Payer;
+import ng.osun.his.billing.repository.PayerRepository;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.cache.ReferenceDataCaches;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Near-cache for the payer rows read on every invoice.
+ */
+@Configuration
+public class ReferenceDataConfig {
+
+    @Bean
+    public ReferenceDataCache<String, Payer> payerCache(ReferenceDataCaches caches, PayerRepository payerRepository) {
+        return caches.<String, Payer>builder("Payer", payerRepository::findById)
+            .preload(() -> payerRepository.findByActiveTrue().stream()
+                .collect(Collectors.toMap(Payer::getId, Function.identity())))
+            .ttl(Duration.ofMinutes(30))
+            .maxEntries(1_000)
+            .build();
+    }
+}
@@ -0,0 +1,94 @@
+package ng.osun.his.billing.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.InvoiceLedgerEntry;
+import ng.osun.his.billing.domain.Payment;
+import ng.osun.his.billing.invoicing.BulkInvoicingJob;
+import ng.osun.his.billing.invoicing.BulkInvoicingStatus;
+import ng.osun.his.billing.ledger.InvoiceProjection;
+import ng.osun.his.billing.ledger.InvoiceProjectionRebuildJob;
+import ng.osun.his.billing.repository.InvoiceLedgerEntryRepository;
+import ng.osun.his.billing.service.BillingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Invoice payments and adjustments, posted through the invoice ledger, and bulk invoicing runs.
+ */
+@RestController
+@RequestMapping("/api/billing/invoices")
+@RequiredArgsConstructor
+@Slf4j
+public class InvoiceController {
+
+    private final BillingService billingService;
+    private final InvoiceLedgerEntryRepository ledgerEntryRepository;
+    private final InvoiceProjectionRebuildJob rebuildJob;
+    private final BulkInvoicingJob bulkInvoicingJob;
+
+    @PostMapping("/{invoiceId}/payments")
+    @PreAuthorize("hasRole('CASHIER') or hasRole('ADMIN')")
+    public ResponseEntity<Payment> recordPayment(@PathVariable String invoiceId,
+                                                 @RequestParam BigDecimal amount,
+                                                 @RequestParam String method,
+                                                 @RequestParam(required = false) String reference,
+                                                 Authentication authentication) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .body(billingService.processPayment(invoiceId, amount, method, reference, authentication));
+    }
+
+    @PostMapping("/{invoiceId}/adjustments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<InvoiceProjection> adjust(@PathVariable String invoiceId,
+                                                    @RequestParam BigDecimal amount,
+                                                    @RequestParam String reason,
+                                                    Authentication authentication) {
+        return ResponseEntity.ok(billingService.adjustInvoice(invoiceId, amount, reason, authentication));
+    }
+
+    @GetMapping("/{invoiceId}/ledger")
+    @PreAuthorize("hasRole('CASHIER') or hasRole('ADMIN')")
+    public ResponseEntity<List<InvoiceLedgerEntry>> ledger(@PathVariable String invoiceId) {
+        return ResponseEntity.ok(ledgerEntryRepository.findByInvoiceIdOrderByCreatedAt(invoiceId));
+    }
+
+    /**
+     * Start recomputing every invoice's balance from the ledger in the background.
+     */
+    @PostMapping("/projections/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildProjections(Authentication authentication) {
+        log.info("Invoice projection rebuild requested by user={}", authentication.getName());
+        if (!rebuildJob.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Start (or resume) invoicing all unbilled events, optionally for one payer type only.
+     */
+    @PostMapping("/bulk-run")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkInvoicingStatus> startBulkRun(@RequestParam(required = false) String payerType,
+                                                            Authentication authentication) {
+        log.info("Bulk invoicing run requested by user={} for payerType={}", authentication.getName(), payerType);
+        if (!bulkInvoicingJob.start(payerType, authentication.getName())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(bulkInvoicingJob.status());
+        }
+        return ResponseEntity.accepted().body(bulkInvoicingJob.status());
+    }
+
+    @GetMapping("/bulk-run")
+    @PreAuthorize("hasRole('CASHIER') or hasRole('ADMIN')")
+    public ResponseEntity<BulkInvoicingStatus> bulkRunStatus() {
+        return ResponseEntity.ok(bulkInvoicingJob.status());
+    }
+}
@@ -0,0 +1,56 @@
+package ng.osun.his.billing.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.Payer;
+import ng.osun.his.billing.pricing.PatientPayers;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Which payer covers a patient; invoicing prices the patient's charges at that payer's tariff.
+ */
+@RestController
+@RequestMapping("/api/billing/patients/{patientId}/payer")
+@RequiredArgsConstructor
+@Slf4j
+public class PatientPayerController {
+
+    private final PatientPayers patientPayers;
+    private final ReferenceDataCache<String, Payer> payerCache;
+
+    @GetMapping
+    @PreAuthorize("hasRole('CASHIER') or hasRole('HMO_OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<Payer> get(@PathVariable String patientId) {
+        return patientPayers.payerOf(patientId)
+            .flatMap(payerCache::get)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PutMapping
+    @PreAuthorize("hasRole('HMO_OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<Map<String, String>> assign(@PathVariable String patientId,
+                                                      @RequestParam String payerId,
+                                                      @RequestParam(required = false) String membershipNumber,
+                                                      Authentication authentication) {
+        if (payerCache.get(payerId).isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Payer not found"));
+        }
+        patientPayers.assign(patientId, payerId, membershipNumber, authentication.getName());
+        return ResponseEntity.ok(Map.of("patientId", patientId, "payerId", payerId));
+    }
+
+    @DeleteMapping
+    @PreAuthorize("hasRole('HMO_OFFICER') or hasRole('ADMIN')")
+    public ResponseEntity<Void> remove(@PathVariable String patientId, Authentication authentication) {
+        return patientPayers.remove(patientId, authentication.getName())
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,74 @@
+package ng.osun.his.billing.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.BillableEvent;
+import ng.osun.his.billing.pricing.PriceIndex;
+import ng.osun.his.billing.pricing.PriceResolver;
+import ng.osun.his.billing.pricing.PriceVersion;
+import ng.osun.his.billing.service.BillingService;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Charge-capture pricing from the in-memory price index.
+ */
+@RestController
+@RequestMapping("/api/billing/pricing")
+@RequiredArgsConstructor
+@Slf4j
+public class PricingController {
+
+    private final PriceResolver priceResolver;
+    private final BillingService billingService;
+
+    /**
+     * Prices for several service codes for a payer type on a date (today by default).
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('CASHIER') or hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public ResponseEntity<List<PriceVersion>> quote(
+            @RequestParam List<String> serviceCodes,
+            @RequestParam(required = false) String payerType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(priceResolver.quote(serviceCodes, payerType, dateOrToday(date)));
+    }
+
+    /**
+     * Price every unbilled event of an encounter in one call, each on its own service date.
+     */
+    @PostMapping("/encounter/{encounterId}")
+    @PreAuthorize("hasRole('CASHIER') or hasRole('ADMIN')")
+    public ResponseEntity<List<BillableEvent>> priceEncounter(
+            @PathVariable String encounterId,
+            @RequestParam(required = false) String payerId,
+            Authentication authentication) {
+        log.info("Pricing encounter {} by user={}", encounterId, authentication.getName());
+        return ResponseEntity.ok(billingService.priceEncounter(encounterId, payerId));
+    }
+
+    /**
+     * Rebuild the price index now, e.g. after a tariff import that bypassed change events.
+     */
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Integer>> reload(Authentication authentication) {
+        log.info("Price index reload requested by user={}", authentication.getName());
+        PriceIndex index = priceResolver.reload();
+        return ResponseEntity.ok(Map.of(
+            "services", index.serviceCount(),
+            "versions", index.versionCount()));
+    }
+
+    private static LocalDate dateOrToday(LocalDate date) {
+        return date != null ? date : LocalDate.now(NigeriaContext.TIMEZONE);
+    }
+}
@@ -16,7 +16,10 @@ import java.math.BigDecimal;
 @Table(name = "billable_events", indexes = {
     @Index(name = "idx_billable_patient", columnList = "patient_id"),
     @Index(name = "idx_billable_source", columnList = "source_module"),
-    @Index(name = "idx_billable_invoiced", columnList = "invoice_id")
+    @Index(name = "idx_billable_invoiced", columnList = "invoice_id"),
+    @Index(name = "idx_billable_encounter_unbilled", columnList = "encounter_id, billed")
+}, uniqueConstraints = {
+    @UniqueConstraint(name = "uk_billable_source", columnNames = {"source_module", "source_ref_id"})
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -66,6 +69,12 @@ public class BillableEvent extends BaseEntity {
     @Column(name = "payer_id", length = 36)
     private String payerId; // null for self-pay
 
+    @Column(name = "service_date", nullable = false)
+    private java.time.LocalDate serviceDate; // prices are resolved for this day
+
+    @Column(name = "payer_type", length = 50)
+    private String payerType; // tariff the event was priced at; null until priced for a payer
+
     @Column(name = "invoice_id", length = 36)
     private String invoiceId;
 
@@ -0,0 +1,46 @@
+package ng.osun.his.billing.domain;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import ng.osun.his.platform.domain.BaseEntity;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+
+/**
+ * Append-only record of everything that changes what an invoice is owed or has been paid.
+ * The invoice's total, paid and balance amounts are a projection of its entries.
+ */
+@Entity
+@Immutable
+@Table(name = "invoice_ledger_entries", indexes = {
+    @Index(name = "idx_ledger_invoice", columnList = "invoice_id, created_at")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceLedgerEntry extends BaseEntity {
+
+    public static final String CHARGE = "CHARGE";
+    public static final String ADJUSTMENT = "ADJUSTMENT";
+    public static final String PAYMENT = "PAYMENT";
+
+    @Column(name = "invoice_id", nullable = false, length = 36)
+    private String invoiceId;
+
+    @Column(name = "entry_type", nullable = false, length = 20)
+    private String entryType; // CHARGE, ADJUSTMENT (change total owed); PAYMENT (change paid)
+
+    @Column(name = "amount_ngn", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amountNGN; // signed; negative adjustments are discounts or waivers
+
+    @Column(name = "payment_id", length = 36)
+    private String paymentId;
+
+    @Column(name = "reason", length = 500)
+    private String reason;
+}
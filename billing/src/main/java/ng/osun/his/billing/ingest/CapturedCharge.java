@@ -0,0 +1,25 @@
+package ng.osun.his.billing.ingest;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * One chargeable clinical activity read from a Kafka topic, before pricing.
+ * (sourceModule, sourceRefId) identifies it across redeliveries and replays.
+ */
+@Value
+public class CapturedCharge {
+    String sourceModule; // CONSULTATION, LAB, RADIOLOGY, PHARMACY
+    String sourceRefId;
+    String patientId;
+    String encounterId;
+    String serviceCode;
+    String description;
+    int quantity;
+    Instant occurredAt;
+
+    String key() {
+        return sourceModule + '|' + sourceRefId;
+    }
+}
@@ -0,0 +1,225 @@
+package ng.osun.his.billing.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.config.ChargeCaptureKafkaConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns clinical activity on Kafka into billable events:
+ * <ul>
+ *   <li>{@code order.events}: each test on a lab or radiology order once it is placed or started
+ *       ({@code LAB-<testCode>} / {@code RAD-<testCode>}, ref {@code orderId:testCode})</li>
+ *   <li>{@code appointment.events}: the consultation at check-in
+ *       ({@code CONSULT-<clinicCode>}, ref appointment id)</li>
+ *   <li>{@code pharmacy.dispenses}: each dispensed line
+ *       ({@code DRUG-<medicationCode>}, ref {@code dispenseId:medicationCode})</li>
+ * </ul>
+ * Records arrive in batches of up to {@code billing.charge-capture.max-poll-records}; the
+ * listener returns only after the batch's insert transaction has committed, and the container
+ * commits the batch's offsets after that. If the batch insert fails, the records are written one
+ * at a time to find the one that fails on its own, and only that record is retried and then
+ * dead-lettered (see {@link ChargeCaptureKafkaConfig}); the unique
+ * (source_module, source_ref_id) key makes the rewrites and any redelivery harmless.
+ * <p>
+ * Records that cannot be charged (unreadable JSON, no patient, a blank source id or code, or
+ * values too long for their columns) are skipped, logged with their offset and counted in
+ * {@code billing.charges.malformed}, instead of failing the batch.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ChargeCaptureListener {
+
+    public static final String ORDER_EVENTS_TOPIC = "order.events";
+    public static final String APPOINTMENT_EVENTS_TOPIC = "appointment.events";
+    public static final String DISPENSE_EVENTS_TOPIC = "pharmacy.dispenses";
+
+    private static final int ID_LENGTH = 36;
+    private static final int SOURCE_REF_LENGTH = 100;
+    private static final int SERVICE_CODE_LENGTH = 50;
+    private static final int DESCRIPTION_LENGTH = 500;
+
+    private final ChargeCaptureWriter writer;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @KafkaListener(
+        topics = {ORDER_EVENTS_TOPIC, APPOINTMENT_EVENTS_TOPIC, DISPENSE_EVENTS_TOPIC},
+        groupId = "${billing.charge-capture.consumer-group:billing-charge-capture}",
+        containerFactory = ChargeCaptureKafkaConfig.CONTAINER_FACTORY,
+        properties = {"max.poll.records=${billing.charge-capture.max-poll-records:1000}"})
+    public void onBatch(List<ConsumerRecord<String, String>> records) {
+        List<List<CapturedCharge>> byRecord = new ArrayList<>(records.size());
+        List<CapturedCharge> charges = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, String> record : records) {
+            List<CapturedCharge> fromRecord = read(record);
+            byRecord.add(fromRecord);
+            charges.addAll(fromRecord);
+        }
+
+        try {
+            writer.write(charges);
+        } catch (RuntimeException e) {
+            log.warn("Charge batch of {} records failed, writing them one at a time: {}", records.size(), e.getMessage());
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    writer.write(byRecord.get(i));
+                } catch (RuntimeException recordFailure) {
+                    // Records before this one are written; the container retries from here
+                    throw new BatchListenerFailedException("Charge capture failed", recordFailure, records.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Charges in one record; malformed records and charges are counted and left out.
+     */
+    private List<CapturedCharge> read(ConsumerRecord<String, String> record) {
+        List<CapturedCharge> charges = new ArrayList<>();
+        try {
+            JsonNode event = objectMapper.readTree(record.value());
+            Instant occurredAt = occurredAt(event, record);
+            switch (record.topic()) {
+                case ORDER_EVENTS_TOPIC:
+                    fromOrder(event, occurredAt, charges);
+                    break;
+                case APPOINTMENT_EVENTS_TOPIC:
+                    fromAppointment(event, occurredAt, charges);
+                    break;
+                case DISPENSE_EVENTS_TOPIC:
+                    fromDispense(event, occurredAt, charges);
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            malformed(record, e.getMessage());
+            return List.of();
+        }
+
+        List<CapturedCharge> valid = new ArrayList<>(charges.size());
+        for (CapturedCharge charge : charges) {
+            String problem = problem(charge);
+            if (problem == null) {
+                valid.add(charge);
+            } else {
+                malformed(record, problem + " for " + charge.getServiceCode());
+            }
+        }
+        return valid;
+    }
+
+    private void malformed(ConsumerRecord<String, String> record, String reason) {
+        meterRegistry.counter("billing.charges.malformed", "topic", record.topic()).increment();
+        log.warn("Skipping malformed {} record at partition {} offset {}: {}",
+            record.topic(), record.partition(), record.offset(), reason);
+    }
+
+    /**
+     * Why a charge cannot be written, or null if it can.
+     */
+    private static String problem(CapturedCharge charge) {
+        if (charge.getPatientId() == null) {
+            return "no patientId";
+        }
+        if (charge.getPatientId().length() > ID_LENGTH
+                || charge.getEncounterId() != null && charge.getEncounterId().length() > ID_LENGTH) {
+            return "patient or encounter id too long";
+        }
+        if (charge.getSourceRefId().length() > SOURCE_REF_LENGTH) {
+            return "source reference too long";
+        }
+        if (charge.getServiceCode().length() > SERVICE_CODE_LENGTH) {
+            return "service code too long";
+        }
+        return null;
+    }
+
+    private static void fromOrder(JsonNode event, Instant occurredAt, List<CapturedCharge> charges) {
+        String status = event.path("newStatus").asText();
+        if (!"PLACED".equals(status) && !"IN_PROGRESS".equals(status)) {
+            return;
+        }
+        String type = event.path("type").asText();
+        String module = "RAD".equals(type) ? "RADIOLOGY" : "LAB";
+        String orderId = required(event, "orderId");
+        for (JsonNode testCode : event.path("testCodes")) {
+            String code = testCode.asText("");
+            if (code.isEmpty() || "null".equals(code)) {
+                throw new IllegalArgumentException("blank test code on order " + orderId);
+            }
+            charges.add(new CapturedCharge(module, orderId + ":" + code,
+                text(event, "patientId"), text(event, "encounterId"),
+                type + "-" + code, null, 1, occurredAt));
+        }
+    }
+
+    private static void fromAppointment(JsonNode event, Instant occurredAt, List<CapturedCharge> charges) {
+        String clinicCode = text(event, "clinicCode");
+        if (!"CHECKED_IN".equals(event.path("status").asText()) || clinicCode == null) {
+            return;
+        }
+        charges.add(new CapturedCharge("CONSULTATION", required(event, "appointmentId"),
+            text(event, "patientId"), null, "CONSULT-" + clinicCode, null, 1, occurredAt));
+    }
+
+    private static void fromDispense(JsonNode event, Instant occurredAt, List<CapturedCharge> charges) {
+        String dispenseId = required(event, "dispenseId");
+        for (JsonNode line : event.path("lines")) {
+            String medicationCode = text(line, "medicationCode");
+            int quantity = line.path("quantityDispensed").asInt(0);
+            if (medicationCode == null || quantity <= 0) {
+                continue;
+            }
+            String description = text(line, "medicationName");
+            if (description != null && description.length() > DESCRIPTION_LENGTH) {
+                description = description.substring(0, DESCRIPTION_LENGTH);
+            }
+            charges.add(new CapturedCharge("PHARMACY", dispenseId + ":" + medicationCode,
+                text(event, "patientId"), text(event, "encounterId"),
+                "DRUG-" + medicationCode, description, quantity, occurredAt));
+        }
+    }
+
+    private static String required(JsonNode node, String field) {
+        String value = text(node, field);
+        if (value == null) {
+            throw new IllegalArgumentException("missing " + field);
+        }
+        return value;
+    }
+
+    /**
+     * Missing, blank and the producers' {@code "null"} placeholders all read as null.
+     */
+    private static String text(JsonNode node, String field) {
+        String value = node.path(field).asText(null);
+        return value == null || value.isEmpty() || "null".equals(value) ? null : value;
+    }
+
+    private static Instant occurredAt(JsonNode event, ConsumerRecord<String, String> record) {
+        String timestamp = text(event, "timestamp");
+        if (timestamp != null) {
+            try {
+                return Instant.parse(timestamp);
+            } catch (DateTimeParseException e) {
+                // fall through to the record timestamp
+            }
+        }
+        return Instant.ofEpochMilli(record.timestamp());
+    }
+}
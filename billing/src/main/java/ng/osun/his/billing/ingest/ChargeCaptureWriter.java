@@ -0,0 +1,191 @@
+package ng.osun.his.billing.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.pricing.PriceResolver;
+import ng.osun.his.billing.pricing.PriceVersion;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
+import ng.osun.his.platform.util.NigeriaContext;
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes captured charges as billable events, one transaction per consumer batch.
+ * <p>
+ * Charges are de-duplicated on (source_module, source_ref_id) twice: within the batch in
+ * memory, and against earlier batches by the unique index, with ON CONFLICT DO NOTHING, so
+ * redelivered or replayed records are absorbed without a lookup per event. Rows the index absorbs
+ * are counted as duplicates, not as captured. Each charge is
+ * priced from the in-memory price index at the cash tariff on its service date; the payer's
+ * tariff is applied when the encounter is priced, or otherwise by bulk invoicing at the tariff of
+ * the payer covering the patient. Charges with no price are still
+ * captured at zero so they are not lost, and invoicing refuses them until a price exists.
+ */
+@Component
+@Slf4j
+public class ChargeCaptureWriter {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO billable_events"
+        + " (id, event_number, patient_id, encounter_id, source_module, source_ref_id, service_code,"
+        + "  service_description, quantity, unit_price_ngn, total_amount_ngn, discount_amount_ngn,"
+        + "  net_amount_ngn, currency, service_date, billed, created_at, updated_at, created_by, version)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, 'NGN', ?, false, ?, ?, 'charge-capture', 0)"
+        + " ON CONFLICT (source_module, source_ref_id) DO NOTHING";
+
+    // Event numbers are leased per row, so the rows carrying this batch's numbers are the ones it inserted
+    private static final String COUNT_INSERTED_SQL =
+        "SELECT COUNT(*) FROM billable_events WHERE event_number = ANY(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceResolver priceResolver;
+    private final BusinessNumberAllocator numberAllocator;
+    private final int insertBatchSize;
+    private final Counter captured;
+    private final Counter duplicates;
+    private final Counter unpriced;
+    private final Timer batchTimer;
+
+    public ChargeCaptureWriter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               PriceResolver priceResolver,
+                               BusinessNumberAllocator numberAllocator,
+                               MeterRegistry meterRegistry,
+                               @Value("${billing.charge-capture.insert-batch-size:500}") int insertBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.priceResolver = priceResolver;
+        this.numberAllocator = numberAllocator;
+        this.insertBatchSize = insertBatchSize;
+        this.captured = meterRegistry.counter("billing.charges.captured");
+        this.duplicates = meterRegistry.counter("billing.charges.duplicates");
+        this.unpriced = meterRegistry.counter("billing.charges.unpriced");
+        this.batchTimer = meterRegistry.timer("billing.charges.batch");
+    }
+
+    /**
+     * Insert the charges in one transaction; returns once it has committed.
+     * @return number of charges inserted, excluding any already captured
+     */
+    public int write(List<CapturedCharge> charges) {
+        if (charges.isEmpty()) {
+            return 0;
+        }
+        long start = System.nanoTime();
+
+        Map<String, CapturedCharge> unique = new LinkedHashMap<>(charges.size() * 2);
+        for (CapturedCharge charge : charges) {
+            unique.putIfAbsent(charge.key(), charge);
+        }
+
+        List<Row> rows = price(unique.values());
+        Timestamp now = Timestamp.from(Instant.now());
+        int inserted = transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows, insertBatchSize, (ps, row) -> {
+                CapturedCharge charge = row.charge;
+                ps.setString(1, TimeOrderedIds.next());
+                ps.setString(2, row.eventNumber);
+                ps.setString(3, charge.getPatientId());
+                ps.setString(4, charge.getEncounterId());
+                ps.setString(5, charge.getSourceModule());
+                ps.setString(6, charge.getSourceRefId());
+                ps.setString(7, charge.getServiceCode());
+                ps.setString(8, row.description);
+                ps.setInt(9, charge.getQuantity());
+                ps.setBigDecimal(10, row.unitPrice);
+                ps.setBigDecimal(11, row.total);
+                ps.setBigDecimal(12, row.total);
+                ps.setDate(13, Date.valueOf(row.serviceDate));
+                ps.setTimestamp(14, now);
+                ps.setTimestamp(15, now);
+            });
+            return countInserted(rows);
+        });
+
+        captured.increment(inserted);
+        duplicates.increment(charges.size() - inserted);
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        log.debug("Captured {} charges ({} duplicates)", inserted, charges.size() - inserted);
+        return inserted;
+    }
+
+    /**
+     * Rows of this batch that the unique index let through. Batch update counts cannot tell,
+     * since reWriteBatchedInserts reports SUCCESS_NO_INFO.
+     */
+    private int countInserted(List<Row> rows) {
+        List<String> numbers = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            numbers.add(row.eventNumber);
+        }
+        Long count = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(COUNT_INSERTED_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", numbers.toArray()));
+            return statement;
+        }, rs -> rs.next() ? rs.getLong(1) : 0L);
+        return count == null ? 0 : count.intValue();
+    }
+
+    private List<Row> price(Collection<CapturedCharge> charges) {
+        List<Row> rows = new ArrayList<>(charges.size());
+        for (CapturedCharge charge : charges) {
+            LocalDate serviceDate = LocalDate.ofInstant(charge.getOccurredAt(), NigeriaContext.TIMEZONE);
+            PriceVersion version = priceResolver.resolve(charge.getServiceCode(), null, serviceDate);
+            BigDecimal unitPrice = BigDecimal.ZERO;
+            String description = charge.getDescription();
+            if (version != null) {
+                unitPrice = version.getPriceNGN();
+                if (description == null) {
+                    description = version.getServiceName();
+                }
+            } else {
+                unpriced.increment();
+                log.warn("No price for {} on {}; captured {} {} at zero",
+                    charge.getServiceCode(), serviceDate, charge.getSourceModule(), charge.getSourceRefId());
+            }
+            // Numbers are leased outside the insert transaction, so a rolled-back batch only leaves gaps
+            rows.add(new Row(charge, numberAllocator.next("BEV", serviceDate), serviceDate, description, unitPrice,
+                unitPrice.multiply(BigDecimal.valueOf(charge.getQuantity()))));
+        }
+        return rows;
+    }
+
+    private static final class Row {
+        private final CapturedCharge charge;
+        private final String eventNumber;
+        private final LocalDate serviceDate;
+        private final String description;
+        private final BigDecimal unitPrice;
+        private final BigDecimal total;
+
+        private Row(CapturedCharge charge, String eventNumber, LocalDate serviceDate, String description,
+                    BigDecimal unitPrice, BigDecimal total) {
+            this.charge = charge;
+            this.eventNumber = eventNumber;
+            this.serviceDate = serviceDate;
+            this.description = description;
+            this.unitPrice = unitPrice;
+            this.total = total;
+        }
+    }
+}
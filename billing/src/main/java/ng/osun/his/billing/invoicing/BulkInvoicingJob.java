@@ -0,0 +1,690 @@
+package ng.osun.his.billing.invoicing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.Payer;
+import ng.osun.his.billing.ledger.InvoiceLedger;
+import ng.osun.his.billing.ledger.InvoiceProjection;
+import ng.osun.his.billing.pricing.PriceResolver;
+import ng.osun.his.billing.pricing.PriceVersion;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
+import ng.osun.his.platform.util.NigeriaContext;
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Invoices every unbilled billable event captured up to the start of a run, one invoice per
+ * patient, encounter and payer, e.g. for end-of-day or discharge billing of admitted patients
+ * and HMO accounts.
+ * <p>
+ * Patients with unbilled events are walked in keyset pages of {@code billing.bulk-invoicing.page-size}
+ * on idx_billable_unbilled_patient; each page is invoiced on one of {@code billing.bulk-invoicing.workers}
+ * threads in a single transaction that locks the page's events, then writes invoices, line
+ * items, opening ledger charges and billed flags as JDBC batches. An event that was billed,
+ * re-priced or locked by someone else since it was read leaves its whole group for a later
+ * run, so nothing is invoiced twice and cashiers are never blocked. Groups with a zero-priced
+ * event whose service code still has no price are skipped the same way.
+ * <p>
+ * Events already priced for a payer by encounter pricing are invoiced under that payer. Events
+ * still at their captured cash price are priced here, each on its own service date, at the
+ * tariff of the payer covering the patient in patient_payers (self-pay when there is none);
+ * the price and payer are written with the billed flag. A group with a service that has no
+ * price at that tariff is skipped.
+ * <p>
+ * The run's cut-off and the patient below which every page has committed are checkpointed in
+ * bulk_invoicing_runs; starting again after a crash or restart resumes the unfinished run from
+ * there, and anything invoiced past the checkpoint is already marked billed. Two replicas
+ * resuming the same run only duplicate the walk; the page lock keeps them from double billing.
+ */
+@Service
+@Slf4j
+public class BulkInvoicingJob {
+
+    private static final String USER = "bulk-invoicing";
+
+    private static final String EVENT_COLUMNS =
+        "e.id, e.version, e.patient_id, e.encounter_id, e.payer_id, e.payer_type, e.service_code, e.service_description,"
+        + " e.quantity, e.unit_price_ngn, e.total_amount_ngn, e.discount_amount_ngn, e.net_amount_ngn, e.service_date,"
+        + " pp.payer_id AS coverage_payer_id";
+
+    private static final String COVERAGE_JOIN = " LEFT JOIN patient_payers pp ON pp.patient_id = e.patient_id";
+
+    private static final String LOCK_SQL =
+        "SELECT id, version FROM billable_events WHERE id = ANY (?) AND billed = false FOR UPDATE SKIP LOCKED";
+
+    private static final String INSERT_INVOICE_SQL =
+        "INSERT INTO invoices"
+        + " (id, invoice_number, patient_id, encounter_id, payer_id, payer_type, payer_name, invoice_date,"
+        + "  due_date, status, subtotal_ngn, discount_amount_ngn, tax_amount_ngn, total_amount_ngn,"
+        + "  paid_amount_ngn, balance_ngn, currency, created_at, updated_at, created_by, version)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 'PENDING', ?, ?, 0, ?, 0, ?, 'NGN', ?, ?, ?, 0)";
+
+    private static final String INSERT_LINE_SQL =
+        "INSERT INTO invoice_line_items"
+        + " (invoice_id, service_code, description, quantity, unit_price, total_amount, source_event_id)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Records the price invoiced, which for events priced here is new. Bumps the version so a
+    // stale BillableEvent entity saved later fails its optimistic check
+    private static final String MARK_BILLED_SQL =
+        "UPDATE billable_events SET billed = true, billed_at = ?, billed_by = ?, invoice_id = ?,"
+        + " payer_id = ?, payer_type = ?, unit_price_ngn = ?, total_amount_ngn = ?, net_amount_ngn = ?,"
+        + " updated_at = ?, version = version + 1"
+        + " WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InvoiceLedger invoiceLedger;
+    private final PriceResolver priceResolver;
+    private final ReferenceDataCache<String, Payer> payerCache;
+    private final BusinessNumberAllocator numberAllocator;
+    private final int pageSize;
+    private final int workers;
+
+    private final Counter invoiced;
+    private final Counter billed;
+    private final Counter skippedConflict;
+    private final Counter skippedUnpriced;
+    private final Counter skippedUnknownPayer;
+    private final Counter pricedAtCoveringPayer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong invoicesCreated = new AtomicLong();
+    private final AtomicLong eventsBilled = new AtomicLong();
+    private final AtomicLong groupsSkipped = new AtomicLong();
+    private final AtomicLong groupsPriced = new AtomicLong();
+    private volatile Run run;
+    private volatile String lastPatientId;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bulk-invoicing");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public BulkInvoicingJob(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            InvoiceLedger invoiceLedger,
+                            PriceResolver priceResolver,
+                            ReferenceDataCache<String, Payer> payerCache,
+                            BusinessNumberAllocator numberAllocator,
+                            MeterRegistry meterRegistry,
+                            @Value("${billing.bulk-invoicing.page-size:100}") int pageSize,
+                            @Value("${billing.bulk-invoicing.workers:4}") int workers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.invoiceLedger = invoiceLedger;
+        this.priceResolver = priceResolver;
+        this.payerCache = payerCache;
+        this.numberAllocator = numberAllocator;
+        this.pageSize = Math.max(1, pageSize);
+        this.workers = Math.max(1, workers);
+
+        this.invoiced = meterRegistry.counter("billing.bulk_invoicing.invoices");
+        this.billed = meterRegistry.counter("billing.bulk_invoicing.events");
+        this.skippedConflict = meterRegistry.counter("billing.bulk_invoicing.groups.skipped", "reason", "conflict");
+        this.skippedUnpriced = meterRegistry.counter("billing.bulk_invoicing.groups.skipped", "reason", "unpriced");
+        this.skippedUnknownPayer = meterRegistry.counter("billing.bulk_invoicing.groups.skipped", "reason", "payer");
+        this.pricedAtCoveringPayer = meterRegistry.counter("billing.bulk_invoicing.groups.priced");
+        Gauge.builder("billing.bulk_invoicing.events_per_second", this, BulkInvoicingJob::eventsPerSecond)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Resume the unfinished run if there is one, otherwise start a new run over events captured
+     * until now, limited to one payer type (SELF_PAY, NHIA, HMO) when given. Returns false if a
+     * run is already in progress on this node.
+     */
+    public boolean start(String payerType, String user) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        invoicesCreated.set(0);
+        eventsBilled.set(0);
+        groupsSkipped.set(0);
+        groupsPriced.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+
+        try {
+            run = loadUnfinishedRun().orElseGet(() -> createRun(payerType, user));
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+            finishedAt = Instant.now();
+            running.set(false);
+            throw e;
+        }
+        lastPatientId = run.lastPatientId;
+        if (!Objects.equals(run.payerType, payerType)) {
+            log.info("Resuming bulk invoicing run {} for payer type {}; requested {} ignored",
+                run.id, run.payerType, payerType);
+        }
+
+        launcher.execute(() -> {
+            try {
+                invoiceAll(run);
+                log.info("Bulk invoicing run {} finished: {} invoices, {} events, {} groups priced, {} groups skipped",
+                    run.id, invoicesCreated.get(), eventsBilled.get(), groupsPriced.get(), groupsSkipped.get());
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+                log.error("Bulk invoicing run {} failed", run.id, e);
+            } finally {
+                finishedAt = Instant.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public BulkInvoicingStatus status() {
+        Run current = run;
+        BulkInvoicingStatus status = new BulkInvoicingStatus();
+        status.setRunning(running.get());
+        if (current != null) {
+            status.setRunId(current.id);
+            status.setAsOf(current.asOf);
+            status.setPayerType(current.payerType);
+        }
+        status.setLastPatientId(lastPatientId);
+        status.setInvoicesCreated(invoicesCreated.get());
+        status.setEventsBilled(eventsBilled.get());
+        status.setGroupsSkipped(groupsSkipped.get());
+        status.setGroupsPriced(groupsPriced.get());
+        double seconds = elapsedSeconds();
+        status.setInvoicesPerSecond(seconds > 0 ? invoicesCreated.get() / seconds : 0);
+        status.setEventsPerSecond(seconds > 0 ? eventsBilled.get() / seconds : 0);
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        status.setError(error);
+        return status;
+    }
+
+    private double eventsPerSecond() {
+        double seconds = elapsedSeconds();
+        return seconds > 0 ? eventsBilled.get() / seconds : 0;
+    }
+
+    private double elapsedSeconds() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        return Math.max(0.001, (end.toEpochMilli() - start.toEpochMilli()) / 1000.0);
+    }
+
+    private void invoiceAll(Run run) {
+        log.info("Bulk invoicing run {} of events up to {} (payer type {}) from patient > '{}'",
+            run.id, run.asOf, run.payerType != null ? run.payerType : "any", run.lastPatientId);
+
+        String pageSql = "SELECT DISTINCT e.patient_id FROM billable_events e" + payerJoin(run)
+            + " WHERE e.billed = false AND e.created_at <= ? AND e.patient_id > ?" + payerFilter(run)
+            + " ORDER BY e.patient_id LIMIT ?";
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        Watermark watermark = new Watermark(run);
+
+        String afterPatientId = run.lastPatientId;
+        long page = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Object[] args = run.payerType != null
+                    ? new Object[]{Timestamp.from(run.asOf), afterPatientId, run.payerType, pageSize}
+                    : new Object[]{Timestamp.from(run.asOf), afterPatientId, pageSize};
+                List<String> patients = jdbcTemplate.queryForList(pageSql, String.class, args);
+                if (patients.isEmpty()) {
+                    break;
+                }
+
+                long pageNumber = page++;
+                String first = patients.get(0);
+                String last = patients.get(patients.size() - 1);
+                afterPatientId = last;
+                watermark.submitted(pageNumber, last);
+                pool.execute(() -> {
+                    try {
+                        PageResult result = invoicePage(run, first, last);
+                        watermark.completed(pageNumber, result);
+                    } catch (RuntimeException e) {
+                        // Left out of the watermark, so a resumed run retries this page
+                        log.warn("Bulk invoicing of patients {}..{} failed: {}", first, last, e.getMessage());
+                    }
+                });
+
+                if (patients.size() < pageSize) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+        watermark.finish();
+    }
+
+    /**
+     * Invoice every group of one page of patients in a single transaction.
+     */
+    private PageResult invoicePage(Run run, String firstPatientId, String lastPatientId) {
+        Object[] args = run.payerType != null
+            ? new Object[]{Timestamp.from(run.asOf), firstPatientId, lastPatientId, run.payerType}
+            : new Object[]{Timestamp.from(run.asOf), firstPatientId, lastPatientId};
+        String eventsSql = "SELECT " + EVENT_COLUMNS + " FROM billable_events e"
+            + (run.payerType != null ? payerJoin(run) : COVERAGE_JOIN)
+            + " WHERE e.billed = false AND e.created_at <= ? AND e.patient_id >= ? AND e.patient_id <= ?"
+            + payerFilter(run)
+            + " ORDER BY e.patient_id, e.encounter_id NULLS FIRST, e.payer_id NULLS FIRST, e.payer_type NULLS FIRST, e.id";
+        List<EventRow> events = jdbcTemplate.query(eventsSql, (rs, rowNum) -> {
+            EventRow row = new EventRow();
+            row.id = rs.getString("id");
+            row.version = rs.getObject("version", Integer.class);
+            row.patientId = rs.getString("patient_id");
+            row.encounterId = rs.getString("encounter_id");
+            row.payerId = rs.getString("payer_id");
+            row.pricedFor = rs.getString("payer_type");
+            row.coveragePayerId = rs.getString("coverage_payer_id");
+            row.serviceCode = rs.getString("service_code");
+            row.description = rs.getString("service_description");
+            row.quantity = rs.getInt("quantity");
+            row.unitPrice = rs.getBigDecimal("unit_price_ngn");
+            row.total = rs.getBigDecimal("total_amount_ngn");
+            row.discount = rs.getBigDecimal("discount_amount_ngn");
+            row.net = rs.getBigDecimal("net_amount_ngn");
+            row.serviceDate = rs.getDate("service_date").toLocalDate();
+            return row;
+        }, args);
+
+        PageResult result = new PageResult();
+        List<Group> groups = new ArrayList<>();
+        for (Group group : group(events)) {
+            boolean pricedHere = group.pricedFor == null;
+            if (!describePayer(group) || run.payerType != null && !run.payerType.equals(group.payerType)) {
+                result.skipped++;
+                skippedUnknownPayer.increment();
+                continue;
+            }
+            if (pricedHere ? !priceAtPayerTariff(group) : hasUnpricedEvent(group)) {
+                result.skipped++;
+                skippedUnpriced.increment();
+                continue;
+            }
+            if (pricedHere) {
+                result.priced++;
+                pricedAtCoveringPayer.increment();
+            }
+            // Numbers are leased outside the page transaction, so a rolled-back page only leaves gaps
+            group.invoiceNumber = numberAllocator.next("INV");
+            groups.add(group);
+        }
+        if (groups.isEmpty()) {
+            return result;
+        }
+
+        PageResult written = transactionTemplate.execute(status -> write(groups));
+        if (written != null) {
+            result.invoices += written.invoices;
+            result.events += written.events;
+            result.skipped += written.skipped;
+        }
+        return result;
+    }
+
+    private PageResult write(List<Group> groups) {
+        List<String> ids = new ArrayList<>();
+        for (Group group : groups) {
+            for (EventRow event : group.events) {
+                ids.add(event.id);
+            }
+        }
+        Map<String, Integer> locked = new HashMap<>(ids.size() * 2);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LOCK_SQL);
+            statement.setArray(1, connection.createArrayOf("varchar", ids.toArray()));
+            return statement;
+        }, rs -> {
+            locked.put(rs.getString("id"), rs.getObject("version", Integer.class));
+        });
+
+        PageResult result = new PageResult();
+        List<Group> invoiceable = new ArrayList<>(groups.size());
+        for (Group group : groups) {
+            boolean unchanged = true;
+            for (EventRow event : group.events) {
+                if (!locked.containsKey(event.id) || !Objects.equals(locked.get(event.id), event.version)) {
+                    unchanged = false;
+                    break;
+                }
+            }
+            if (unchanged) {
+                group.invoiceId = TimeOrderedIds.next();
+                invoiceable.add(group);
+                result.events += group.events.size();
+            } else {
+                result.skipped++;
+                skippedConflict.increment();
+            }
+        }
+        if (invoiceable.isEmpty()) {
+            return result;
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        LocalDate today = LocalDate.now(NigeriaContext.TIMEZONE);
+        List<Object[]> invoices = new ArrayList<>(invoiceable.size());
+        List<Object[]> lines = new ArrayList<>();
+        List<Object[]> marks = new ArrayList<>();
+        List<InvoiceProjection> openings = new ArrayList<>(invoiceable.size());
+        for (Group group : invoiceable) {
+            BigDecimal subtotal = BigDecimal.ZERO;
+            BigDecimal discount = BigDecimal.ZERO;
+            BigDecimal total = BigDecimal.ZERO;
+            for (EventRow event : group.events) {
+                subtotal = subtotal.add(event.total);
+                discount = discount.add(event.discount != null ? event.discount : BigDecimal.ZERO);
+                total = total.add(event.net);
+                lines.add(new Object[]{group.invoiceId, event.serviceCode, event.description, event.quantity,
+                    event.unitPrice, event.net, event.id});
+                marks.add(new Object[]{now, USER, group.invoiceId, group.payerId, group.payerType,
+                    event.unitPrice, event.total, event.net, now, event.id, event.version});
+            }
+            invoices.add(new Object[]{group.invoiceId, group.invoiceNumber, group.patientId, group.encounterId,
+                group.payerId, group.payerType, group.payerName, today, today.plusDays(group.termsDays),
+                subtotal, discount, total, total, now, now, USER});
+            openings.add(new InvoiceProjection(group.invoiceId, total, BigDecimal.ZERO, total, "PENDING"));
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_INVOICE_SQL, invoices);
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, lines);
+        invoiceLedger.openAll(openings, USER);
+        jdbcTemplate.batchUpdate(MARK_BILLED_SQL, marks);
+
+        result.invoices = invoiceable.size();
+        invoiced.increment(result.invoices);
+        billed.increment(result.events);
+        return result;
+    }
+
+    /**
+     * Split events ordered by patient, encounter, payer and priced payer type into one group per invoice.
+     */
+    private static List<Group> group(List<EventRow> events) {
+        List<Group> groups = new ArrayList<>();
+        Group current = null;
+        for (EventRow event : events) {
+            if (current == null
+                    || !current.patientId.equals(event.patientId)
+                    || !Objects.equals(current.encounterId, event.encounterId)
+                    || !Objects.equals(current.pricedPayerId, event.payerId)
+                    || !Objects.equals(current.pricedFor, event.pricedFor)) {
+                current = new Group(event);
+                groups.add(current);
+            }
+            current.events.add(event);
+        }
+        return groups;
+    }
+
+    /**
+     * Fill in the invoice's payer: the payer the events were priced for, or for events not yet
+     * priced, the payer covering the patient. Fails if the payer is gone or its type no longer
+     * matches the tariff the events were priced at.
+     */
+    private boolean describePayer(Group group) {
+        group.payerId = group.pricedFor != null ? group.pricedPayerId : group.coveragePayerId;
+        if (group.payerId == null) {
+            group.payerType = "SELF_PAY";
+            group.payerName = "Self Pay";
+            group.termsDays = 30;
+            return true;
+        }
+        Optional<Payer> payer = payerCache.get(group.payerId);
+        if (payer.isEmpty()) {
+            log.warn("Skipping invoice for patient {}: payer {} not found", group.patientId, group.payerId);
+            return false;
+        }
+        if (group.pricedFor != null && !group.pricedFor.equals(payer.get().getPayerType())) {
+            log.warn("Skipping invoice for patient {}: events priced at {} tariff but payer {} is now {}",
+                group.patientId, group.pricedFor, group.payerId, payer.get().getPayerType());
+            return false;
+        }
+        group.payerType = payer.get().getPayerType();
+        group.payerName = payer.get().getPayerName();
+        Integer terms = payer.get().getSettlementTermsDays();
+        group.termsDays = terms != null ? terms : 30;
+        return true;
+    }
+
+    /**
+     * Whether the group has a charge captured at zero because its service had no price, and
+     * the service still has none at the group's tariff.
+     */
+    private boolean hasUnpricedEvent(Group group) {
+        for (EventRow event : group.events) {
+            if (event.unitPrice.signum() == 0
+                    && priceResolver.resolve(event.serviceCode, group.payerType, event.serviceDate) == null) {
+                log.debug("Skipping invoice for patient {}: no price for {}", group.patientId, event.serviceCode);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Price a group captured at the cash price at its payer's tariff, each event on its own
+     * service date. Leaves the group unchanged and fails if any service has no price.
+     */
+    private boolean priceAtPayerTariff(Group group) {
+        List<PriceVersion> versions = new ArrayList<>(group.events.size());
+        for (EventRow event : group.events) {
+            PriceVersion version = priceResolver.resolve(event.serviceCode, group.payerType, event.serviceDate);
+            if (version == null) {
+                log.debug("Skipping invoice for patient {}: no {} price for {} on {}",
+                    group.patientId, group.payerType, event.serviceCode, event.serviceDate);
+                return false;
+            }
+            versions.add(version);
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            EventRow event = group.events.get(i);
+            event.unitPrice = versions.get(i).getPriceNGN();
+            event.total = event.unitPrice.multiply(BigDecimal.valueOf(event.quantity));
+            event.net = event.total.subtract(event.discount != null ? event.discount : BigDecimal.ZERO);
+        }
+        return true;
+    }
+
+    private Optional<Run> loadUnfinishedRun() {
+        List<Run> runs = jdbcTemplate.query(
+            "SELECT id, as_of, payer_type, last_patient_id FROM bulk_invoicing_runs"
+            + " WHERE completed = false ORDER BY started_at DESC LIMIT 1",
+            (rs, rowNum) -> new Run(rs.getString("id"), rs.getTimestamp("as_of").toInstant(),
+                rs.getString("payer_type"), rs.getString("last_patient_id")));
+        return runs.stream().findFirst();
+    }
+
+    private Run createRun(String payerType, String user) {
+        Run created = new Run(TimeOrderedIds.next(), Instant.now(), payerType, "");
+        Timestamp now = Timestamp.from(created.asOf);
+        jdbcTemplate.update(
+            "INSERT INTO bulk_invoicing_runs (id, as_of, payer_type, last_patient_id, started_by, started_at, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)",
+            created.id, now, payerType, created.lastPatientId, user, now, now);
+        return created;
+    }
+
+    private void saveCheckpoint(Run run, String lastPatientId, long invoices, long events, boolean completed) {
+        jdbcTemplate.update(
+            "UPDATE bulk_invoicing_runs SET last_patient_id = ?, invoices_created = invoices_created + ?,"
+            + " events_billed = events_billed + ?, completed = ?, updated_at = ? WHERE id = ?",
+            lastPatientId, invoices, events, completed, Timestamp.from(Instant.now()), run.id);
+    }
+
+    /**
+     * Joins a filtered run needs to match events not yet priced by the type of the covering payer.
+     */
+    private static String payerJoin(Run run) {
+        return run.payerType != null ? COVERAGE_JOIN + " LEFT JOIN payers p ON p.id = pp.payer_id" : "";
+    }
+
+    private static String payerFilter(Run run) {
+        return run.payerType != null ? " AND COALESCE(e.payer_type, p.payer_type, 'SELF_PAY') = ?" : "";
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Bulk invoicing still writing pages...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tracks out-of-order page completion and checkpoints the contiguous prefix.
+     */
+    private final class Watermark {
+        private final Run run;
+        private final Map<Long, String> endPatientIds = new HashMap<>();
+        private final Set<Long> done = new HashSet<>();
+        private long nextToCommit;
+        private long pendingInvoices;
+        private long pendingEvents;
+
+        private Watermark(Run run) {
+            this.run = run;
+        }
+
+        synchronized void submitted(long page, String endPatientId) {
+            endPatientIds.put(page, endPatientId);
+        }
+
+        synchronized void completed(long page, PageResult result) {
+            invoicesCreated.addAndGet(result.invoices);
+            eventsBilled.addAndGet(result.events);
+            groupsSkipped.addAndGet(result.skipped);
+            groupsPriced.addAndGet(result.priced);
+            done.add(page);
+            pendingInvoices += result.invoices;
+            pendingEvents += result.events;
+            String advancedTo = null;
+            while (done.remove(nextToCommit)) {
+                advancedTo = endPatientIds.remove(nextToCommit);
+                nextToCommit++;
+            }
+            if (advancedTo != null) {
+                lastPatientId = advancedTo;
+                saveCheckpoint(run, advancedTo, pendingInvoices, pendingEvents, false);
+                pendingInvoices = 0;
+                pendingEvents = 0;
+            }
+        }
+
+        synchronized void finish() {
+            if (!endPatientIds.isEmpty()) {
+                // Counts already written still need recording; the position stays at the last contiguous page
+                if (pendingInvoices > 0 || pendingEvents > 0) {
+                    saveCheckpoint(run, lastPatientId, pendingInvoices, pendingEvents, false);
+                }
+                throw new IllegalStateException("Bulk invoicing run " + run.id + " did not complete all pages");
+            }
+            saveCheckpoint(run, lastPatientId, pendingInvoices, pendingEvents, true);
+        }
+    }
+
+    private static final class Run {
+        private final String id;
+        private final Instant asOf;
+        private final String payerType;
+        private final String lastPatientId;
+
+        private Run(String id, Instant asOf, String payerType, String lastPatientId) {
+            this.id = id;
+            this.asOf = asOf;
+            this.payerType = payerType;
+            this.lastPatientId = lastPatientId;
+        }
+    }
+
+    private static final class Group {
+        private final String patientId;
+        private final String encounterId;
+        private final String pricedPayerId;
+        private final String pricedFor;
+        private final String coveragePayerId;
+        private final List<EventRow> events = new ArrayList<>();
+        private String payerId;
+        private String payerType;
+        private String payerName;
+        private int termsDays;
+        private String invoiceNumber;
+        private String invoiceId;
+
+        private Group(EventRow first) {
+            this.patientId = first.patientId;
+            this.encounterId = first.encounterId;
+            this.pricedPayerId = first.payerId;
+            this.pricedFor = first.pricedFor;
+            this.coveragePayerId = first.coveragePayerId;
+        }
+    }
+
+    private static final class EventRow {
+        private String id;
+        private Integer version;
+        private String patientId;
+        private String encounterId;
+        private String payerId;
+        private String pricedFor;
+        private String coveragePayerId;
+        private String serviceCode;
+        private String description;
+        private int quantity;
+        private BigDecimal unitPrice;
+        private BigDecimal total;
+        private BigDecimal discount;
+        private BigDecimal net;
+        private LocalDate serviceDate;
+    }
+
+    private static final class PageResult {
+        private long invoices;
+        private long events;
+        private long skipped;
+        private long priced;
+    }
+}
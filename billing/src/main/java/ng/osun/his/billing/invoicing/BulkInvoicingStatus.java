@@ -0,0 +1,28 @@
+package ng.osun.his.billing.invoicing;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Progress of the bulk invoicing job. Counters cover the current (or last) session of the run;
+ * totals across resumptions are kept on its bulk_invoicing_runs row.
+ */
+@Data
+public class BulkInvoicingStatus {
+
+    private boolean running;
+    private String runId;
+    private Instant asOf;
+    private String payerType;
+    private String lastPatientId;
+    private long invoicesCreated;
+    private long eventsBilled;
+    private long groupsSkipped;
+    private long groupsPriced;
+    private double invoicesPerSecond;
+    private double eventsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,149 @@
+package ng.osun.his.billing.ledger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.Invoice;
+import ng.osun.his.billing.domain.InvoiceLedgerEntry;
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Posts invoice ledger entries and keeps the invoice's total/paid/balance projection in step.
+ * <p>
+ * A posting appends one entry and applies its amount to the invoice row with a single
+ * relative UPDATE ... RETURNING, so concurrent cashiers on the same invoice serialize on that
+ * row's lock only for the statement and neither update can be lost; there is no read of the
+ * invoice in Java beforehand. The update also bumps the JPA version, so a stale Invoice entity
+ * saved later fails its optimistic check instead of overwriting the projection. Entry and
+ * projection change commit or roll back together with the caller's transaction.
+ */
+@Component
+@Slf4j
+public class InvoiceLedger {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO invoice_ledger_entries"
+        + " (id, invoice_id, entry_type, amount_ngn, payment_id, reason, created_at, updated_at, created_by, version)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // Postgres evaluates every SET expression against the old row, so balance_ngn is pre-update
+    private static final String APPLY_SQL =
+        "UPDATE invoices SET"
+        + "   total_amount_ngn = total_amount_ngn + ?,"
+        + "   paid_amount_ngn = COALESCE(paid_amount_ngn, 0) + ?,"
+        + "   balance_ngn = balance_ngn + ? - ?,"
+        + "   status = CASE WHEN balance_ngn + ? - ? <= 0 THEN 'PAID'"
+        + "                 WHEN COALESCE(paid_amount_ngn, 0) + ? > 0 THEN 'PARTIAL'"
+        + "                 ELSE 'PENDING' END,"
+        + "   updated_at = ?, version = version + 1"
+        + " WHERE id = ? AND status NOT IN ('DRAFT', 'CANCELLED')"
+        + " RETURNING id, total_amount_ngn, paid_amount_ngn, balance_ngn, status";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    public InvoiceLedger(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Open the ledger of a newly created invoice with its total as the initial charge. The
+     * invoice row must already be flushed, and its projection already equals the charge.
+     */
+    public void open(Invoice invoice, String user) {
+        requireTransaction();
+        insert(invoice.getId(), InvoiceLedgerEntry.CHARGE, invoice.getTotalAmountNGN(), null, null, user);
+    }
+
+    /**
+     * {@link #open} for invoices written in bulk, as one JDBC batch of opening charges.
+     */
+    public void openAll(List<InvoiceProjection> invoices, String user) {
+        requireTransaction();
+        if (invoices.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, invoices, invoices.size(), (ps, invoice) -> {
+            ps.setString(1, TimeOrderedIds.next());
+            ps.setString(2, invoice.getInvoiceId());
+            ps.setString(3, InvoiceLedgerEntry.CHARGE);
+            ps.setBigDecimal(4, invoice.getTotalAmountNGN());
+            ps.setString(5, null);
+            ps.setString(6, null);
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+            ps.setString(9, user);
+        });
+    }
+
+    public InvoiceProjection postPayment(String invoiceId, String paymentId, BigDecimal amount, String user) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new IllegalArgumentException("Payment amount must be positive");
+        }
+        return post(invoiceId, InvoiceLedgerEntry.PAYMENT, amount, paymentId, null, user);
+    }
+
+    /**
+     * Change what the invoice is owed: negative for discounts and waivers, positive for surcharges.
+     */
+    public InvoiceProjection postAdjustment(String invoiceId, BigDecimal amount, String reason, String user) {
+        if (amount == null || amount.signum() == 0) {
+            throw new IllegalArgumentException("Adjustment amount must not be zero");
+        }
+        if (reason == null || reason.isBlank()) {
+            throw new IllegalArgumentException("Adjustment reason is required");
+        }
+        return post(invoiceId, InvoiceLedgerEntry.ADJUSTMENT, amount, null, reason, user);
+    }
+
+    private InvoiceProjection post(String invoiceId, String entryType, BigDecimal amount,
+                                   String paymentId, String reason, String user) {
+        requireTransaction();
+        BigDecimal totalDelta = InvoiceLedgerEntry.PAYMENT.equals(entryType) ? BigDecimal.ZERO : amount;
+        BigDecimal paidDelta = InvoiceLedgerEntry.PAYMENT.equals(entryType) ? amount : BigDecimal.ZERO;
+
+        List<InvoiceProjection> updated = jdbcTemplate.query(APPLY_SQL,
+            (rs, row) -> new InvoiceProjection(
+                rs.getString("id"),
+                rs.getBigDecimal("total_amount_ngn"),
+                rs.getBigDecimal("paid_amount_ngn"),
+                rs.getBigDecimal("balance_ngn"),
+                rs.getString("status")),
+            totalDelta, paidDelta,
+            totalDelta, paidDelta,
+            totalDelta, paidDelta,
+            paidDelta,
+            Timestamp.from(Instant.now()),
+            invoiceId);
+        if (updated.isEmpty()) {
+            throw new IllegalStateException("Invoice not found or not open for posting");
+        }
+
+        insert(invoiceId, entryType, amount, paymentId, reason, user);
+        meterRegistry.counter("billing.ledger.postings", "type", entryType).increment();
+        log.debug("Posted {} {} to invoice {}", entryType, amount, invoiceId);
+        return updated.get(0);
+    }
+
+    private void insert(String invoiceId, String entryType, BigDecimal amount,
+                        String paymentId, String reason, String user) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update(INSERT_SQL, TimeOrderedIds.next(), invoiceId, entryType, amount,
+            paymentId, reason, now, now, user);
+    }
+
+    private static void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Ledger postings require an active transaction");
+        }
+    }
+}
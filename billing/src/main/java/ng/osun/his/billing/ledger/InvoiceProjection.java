@@ -0,0 +1,17 @@
+package ng.osun.his.billing.ledger;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * An invoice's amounts and status as left by a ledger posting.
+ */
+@Value
+public class InvoiceProjection {
+    String invoiceId;
+    BigDecimal totalAmountNGN;
+    BigDecimal paidAmountNGN;
+    BigDecimal balanceNGN;
+    String status;
+}
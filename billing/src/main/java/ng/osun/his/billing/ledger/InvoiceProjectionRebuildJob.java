@@ -0,0 +1,177 @@
+package ng.osun.his.billing.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recomputes every invoice's total, paid amount, balance and status from its ledger entries.
+ * <p>
+ * Invoices are split into keyset ranges of {@code billing.ledger.rebuild.range-size} ids, found
+ * by one walk of the primary key, and rebuilt on {@code billing.ledger.rebuild.workers} threads
+ * with one short transaction per range. Each range reads only its slice of the invoices primary
+ * key and of idx_ledger_invoice; the last range is open-ended, so invoices created during the
+ * walk are included. Each transaction first locks the range's invoices, so the following
+ * set-based UPDATE sees every posting committed before it and any posting still in flight is
+ * applied on top of the rebuilt value once the lock is released. Cashiers can keep posting while a rebuild runs; only
+ * invoices whose projection actually differs are written.
+ */
+@Service
+@Slf4j
+public class InvoiceProjectionRebuildJob {
+
+    private static final String BOUNDARY_SQL =
+        "SELECT id FROM invoices WHERE id > ? ORDER BY id OFFSET ? LIMIT 1";
+
+    private static final String LOCK_SQL = "SELECT id FROM invoices WHERE id > ? %s FOR UPDATE";
+
+    private static final String REBUILD_SQL =
+        "UPDATE invoices i SET"
+        + "   total_amount_ngn = l.total,"
+        + "   paid_amount_ngn = l.paid,"
+        + "   balance_ngn = l.total - l.paid,"
+        + "   status = CASE WHEN i.status IN ('DRAFT', 'CANCELLED') THEN i.status"
+        + "                 WHEN l.total - l.paid <= 0 THEN 'PAID'"
+        + "                 WHEN l.paid > 0 THEN 'PARTIAL'"
+        + "                 ELSE 'PENDING' END,"
+        + "   updated_at = ?, version = i.version + 1"
+        + " FROM (SELECT invoice_id,"
+        + "              SUM(CASE WHEN entry_type = 'PAYMENT' THEN 0 ELSE amount_ngn END) AS total,"
+        + "              SUM(CASE WHEN entry_type = 'PAYMENT' THEN amount_ngn ELSE 0 END) AS paid"
+        + "         FROM invoice_ledger_entries"
+        + "        WHERE invoice_id > ? %s"
+        + "        GROUP BY invoice_id) l"
+        + " WHERE i.id = l.invoice_id"
+        + "   AND (i.total_amount_ngn <> l.total OR i.paid_amount_ngn IS DISTINCT FROM l.paid"
+        + "        OR i.balance_ngn <> l.total - l.paid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int rangeSize;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "invoice-projection-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InvoiceProjectionRebuildJob(JdbcTemplate jdbcTemplate,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${billing.ledger.rebuild.workers:4}") int workers,
+                                       @Value("${billing.ledger.rebuild.range-size:1000}") int rangeSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = Math.max(1, workers);
+        this.rangeSize = Math.max(1, rangeSize);
+    }
+
+    /**
+     * Start a rebuild in the background. Returns false if one is already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        launcher.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException e) {
+                log.error("Invoice projection rebuild failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Rebuild all ranges on a worker pool and return the number of invoices whose projection
+     * was corrected.
+     */
+    public int run() {
+        long started = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "invoice-projection-rebuild-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int corrected = 0;
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            String from = "";
+            for (String to : boundaries()) {
+                String lower = from;
+                results.add(pool.submit(() -> rebuildRange(lower, to)));
+                from = to;
+            }
+            String last = from;
+            results.add(pool.submit(() -> rebuildRange(last, null)));
+            for (Future<Integer> result : results) {
+                corrected += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted rebuilding invoice projections");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Invoice projection rebuild failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        log.info("Invoice projection rebuild corrected {} invoices in {} ms",
+            corrected, System.currentTimeMillis() - started);
+        return corrected;
+    }
+
+    /**
+     * Upper bounds (inclusive) of each full range, in id order.
+     */
+    private List<String> boundaries() {
+        List<String> boundaries = new ArrayList<>();
+        String from = "";
+        while (true) {
+            List<String> next = jdbcTemplate.queryForList(BOUNDARY_SQL, String.class, from, rangeSize - 1);
+            if (next.isEmpty()) {
+                return boundaries;
+            }
+            from = next.get(0);
+            boundaries.add(from);
+        }
+    }
+
+    /**
+     * Rebuild invoices with from &lt; id &lt;= to, or every id above from when to is null.
+     */
+    private int rebuildRange(String from, String to) {
+        String lockSql = String.format(LOCK_SQL, to == null ? "" : "AND id <= ?");
+        String rebuildSql = String.format(REBUILD_SQL, to == null ? "" : "AND invoice_id <= ?");
+        Timestamp now = Timestamp.from(Instant.now());
+        Object[] lockArgs = to == null ? new Object[] {from} : new Object[] {from, to};
+        Object[] rebuildArgs = to == null ? new Object[] {now, from} : new Object[] {now, from, to};
+
+        Integer corrected = transactionTemplate.execute(status -> {
+            jdbcTemplate.query(lockSql, rs -> { }, lockArgs);
+            return jdbcTemplate.update(rebuildSql, rebuildArgs);
+        });
+        return corrected != null ? corrected : 0;
+    }
+}
@@ -0,0 +1,58 @@
+package ng.osun.his.billing.pricing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Which payer covers a patient's charges, from patient_payers. Charges are captured before
+ * anyone knows the payer; invoicing prices them at the covering payer's tariff, and a patient
+ * with no payer on record is self-pay.
+ */
+@Component
+@Slf4j
+public class PatientPayers {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO patient_payers (patient_id, payer_id, membership_number, updated_at, updated_by)"
+        + " VALUES (?, ?, ?, ?, ?)"
+        + " ON CONFLICT (patient_id) DO UPDATE SET payer_id = EXCLUDED.payer_id,"
+        + "   membership_number = EXCLUDED.membership_number,"
+        + "   updated_at = EXCLUDED.updated_at, updated_by = EXCLUDED.updated_by";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PatientPayers(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Covering payer id, or empty for self-pay.
+     */
+    public Optional<String> payerOf(String patientId) {
+        List<String> payers = jdbcTemplate.queryForList(
+            "SELECT payer_id FROM patient_payers WHERE patient_id = ?", String.class, patientId);
+        return payers.stream().findFirst();
+    }
+
+    public void assign(String patientId, String payerId, String membershipNumber, String user) {
+        jdbcTemplate.update(UPSERT_SQL, patientId, payerId, membershipNumber, Timestamp.from(Instant.now()), user);
+        log.info("Patient {} now covered by payer {} (by {})", patientId, payerId, user);
+    }
+
+    /**
+     * Make the patient self-pay again.
+     */
+    public boolean remove(String patientId, String user) {
+        boolean removed = jdbcTemplate.update("DELETE FROM patient_payers WHERE patient_id = ?", patientId) > 0;
+        if (removed) {
+            log.info("Patient {} is now self-pay (by {})", patientId, user);
+        }
+        return removed;
+    }
+}
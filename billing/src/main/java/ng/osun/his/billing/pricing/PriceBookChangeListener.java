@@ -0,0 +1,43 @@
+package ng.osun.his.billing.pricing;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Reloads this replica's price index when a price book row changes anywhere in the cluster.
+ * Each replica consumes in its own group, named after {@code platform.instance-id} so restarts
+ * rejoin it, starting from the latest offset the first time since the index is loaded from the
+ * database at startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PriceBookChangeListener {
+
+    public static final String RESOURCE_TYPE = "PriceBook";
+
+    private final PriceResolver priceResolver;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = EntityChangePublisher.ENTITY_CHANGES_TOPIC,
+        groupId = "${billing.pricing.consumer-group:billing-pricing-${platform.instance-id}}",
+        properties = {"auto.offset.reset=latest"})
+    public void onChange(String eventJson) {
+        try {
+            JsonNode event = objectMapper.readTree(eventJson);
+            if (RESOURCE_TYPE.equals(event.path("resourceType").asText())) {
+                priceResolver.requestReload();
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable change event: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package ng.osun.his.billing.pricing;
+
+import ng.osun.his.billing.domain.PriceBook;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Immutable snapshot of the active price book, keyed by service code and tariff, with each
+ * key's versions sorted by effective date.
+ * <p>
+ * A lookup is one hash probe plus a binary search over the versions' epoch-day bounds and
+ * returns a prebuilt {@link PriceVersion}, so pricing allocates nothing. Where versions overlap
+ * the later effective date wins while it is in force. Rows without an NHIA price have no NHIA
+ * version, and NHIA lookups for them fall back to the cash price.
+ */
+public final class PriceIndex {
+
+    public static final PriceIndex EMPTY = new PriceIndex(Map.of(), 0);
+
+    private final Map<String, Versions[]> byServiceCode;
+    private final int versionCount;
+
+    private PriceIndex(Map<String, Versions[]> byServiceCode, int versionCount) {
+        this.byServiceCode = byServiceCode;
+        this.versionCount = versionCount;
+    }
+
+    public static PriceIndex build(Collection<PriceBook> rows) {
+        Map<String, List<List<PriceVersion>>> grouped = new HashMap<>();
+        for (PriceBook row : rows) {
+            if (!Boolean.TRUE.equals(row.getActive()) || row.getEffectiveDate() == null) {
+                continue;
+            }
+            if (row.getExpiryDate() != null && row.getExpiryDate().isBefore(row.getEffectiveDate())) {
+                continue;
+            }
+            List<List<PriceVersion>> byTariff = grouped.computeIfAbsent(row.getServiceCode(), code -> {
+                List<List<PriceVersion>> lists = new ArrayList<>();
+                for (int i = 0; i < Tariff.values().length; i++) {
+                    lists.add(new ArrayList<>());
+                }
+                return lists;
+            });
+            add(byTariff, row, Tariff.CASH, row.getUnitPriceNGN());
+            add(byTariff, row, Tariff.NHIA, row.getNhiaPriceNGN());
+        }
+
+        Map<String, Versions[]> index = new HashMap<>(grouped.size() * 2);
+        int count = 0;
+        for (Map.Entry<String, List<List<PriceVersion>>> entry : grouped.entrySet()) {
+            Versions[] byTariff = new Versions[Tariff.values().length];
+            for (Tariff tariff : Tariff.values()) {
+                List<PriceVersion> versions = entry.getValue().get(tariff.ordinal());
+                if (!versions.isEmpty()) {
+                    byTariff[tariff.ordinal()] = Versions.of(versions);
+                    count += versions.size();
+                }
+            }
+            index.put(entry.getKey(), byTariff);
+        }
+        return new PriceIndex(index, count);
+    }
+
+    /**
+     * Price version in force for the service and tariff on the date, or null if there is none.
+     */
+    public PriceVersion find(String serviceCode, Tariff tariff, LocalDate date) {
+        Versions[] byTariff = byServiceCode.get(serviceCode);
+        if (byTariff == null) {
+            return null;
+        }
+        long day = date.toEpochDay();
+        Versions versions = byTariff[tariff.ordinal()];
+        PriceVersion found = versions != null ? versions.at(day) : null;
+        if (found == null && tariff != Tariff.CASH && byTariff[Tariff.CASH.ordinal()] != null) {
+            found = byTariff[Tariff.CASH.ordinal()].at(day);
+        }
+        return found;
+    }
+
+    public int serviceCount() {
+        return byServiceCode.size();
+    }
+
+    public int versionCount() {
+        return versionCount;
+    }
+
+    private static void add(List<List<PriceVersion>> byTariff, PriceBook row, Tariff tariff, BigDecimal price) {
+        if (price == null) {
+            return;
+        }
+        byTariff.get(tariff.ordinal()).add(new PriceVersion(row.getId(), row.getServiceCode(), row.getServiceName(),
+            tariff, price, Boolean.TRUE.equals(row.getRequiresAuthorization()),
+            row.getEffectiveDate(), row.getExpiryDate()));
+    }
+
+    /**
+     * One key's versions as disjoint segments: [from, to] in epoch days, inclusive.
+     */
+    private static final class Versions {
+        private final long[] from;
+        private final long[] to;
+        private final PriceVersion[] versions;
+
+        private Versions(long[] from, long[] to, PriceVersion[] versions) {
+            this.from = from;
+            this.to = to;
+            this.versions = versions;
+        }
+
+        /**
+         * Cut overlapping versions into disjoint segments; on each day the covering version
+         * with the latest effective date wins, and an earlier open-ended version resumes when
+         * a later bounded one expires.
+         */
+        static Versions of(List<PriceVersion> unsorted) {
+            List<PriceVersion> sorted = new ArrayList<>(unsorted);
+            sorted.sort(Comparator.comparing(PriceVersion::getEffectiveDate)
+                .thenComparing(PriceVersion::getPriceBookId));
+            int n = sorted.size();
+            long[] starts = new long[n];
+            long[] ends = new long[n];
+            TreeSet<Long> boundaries = new TreeSet<>();
+            for (int i = 0; i < n; i++) {
+                PriceVersion version = sorted.get(i);
+                starts[i] = version.getEffectiveDate().toEpochDay();
+                ends[i] = version.getExpiryDate() != null ? version.getExpiryDate().toEpochDay() : Long.MAX_VALUE;
+                boundaries.add(starts[i]);
+                if (ends[i] != Long.MAX_VALUE) {
+                    boundaries.add(ends[i] + 1);
+                }
+            }
+
+            List<long[]> bounds = new ArrayList<>();
+            List<PriceVersion> winners = new ArrayList<>();
+            Long[] points = boundaries.toArray(new Long[0]);
+            for (int p = 0; p < points.length; p++) {
+                long from = points[p];
+                long to = p + 1 < points.length ? points[p + 1] - 1 : Long.MAX_VALUE;
+                int winner = -1;
+                for (int i = 0; i < n; i++) {
+                    if (starts[i] <= from && from <= ends[i]) {
+                        winner = i;
+                    }
+                }
+                if (winner < 0) {
+                    continue;
+                }
+                int last = winners.size() - 1;
+                if (last >= 0 && winners.get(last) == sorted.get(winner) && bounds.get(last)[1] + 1 == from) {
+                    bounds.get(last)[1] = to;
+                } else {
+                    bounds.add(new long[] {from, to});
+                    winners.add(sorted.get(winner));
+                }
+            }
+
+            long[] from = new long[bounds.size()];
+            long[] to = new long[bounds.size()];
+            for (int i = 0; i < from.length; i++) {
+                from[i] = bounds.get(i)[0];
+                to[i] = bounds.get(i)[1];
+            }
+            return new Versions(from, to, winners.toArray(new PriceVersion[0]));
+        }
+
+        PriceVersion at(long day) {
+            // Last version starting on or before the day
+            int low = 0;
+            int high = from.length - 1;
+            int match = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (from[mid] <= day) {
+                    match = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return match >= 0 && day <= to[match] ? versions[match] : null;
+        }
+    }
+}
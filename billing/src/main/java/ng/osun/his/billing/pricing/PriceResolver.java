@@ -0,0 +1,157 @@
+package ng.osun.his.billing.pricing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.billing.domain.BillableEvent;
+import ng.osun.his.billing.repository.PriceBookRepository;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Resolves charge-capture prices from an in-memory {@link PriceIndex} of the active price book.
+ * <p>
+ * The index is immutable; {@link #reload()} builds a replacement from the database and swaps
+ * it in with one volatile write, so lookups never lock and never see a half-applied tariff
+ * update. Price book edits anywhere in the cluster request a reload; requests arriving while
+ * one is running are coalesced into a single follow-up reload, so a bulk tariff import does not
+ * rebuild the index once per row.
+ */
+@Component
+@Slf4j
+public class PriceResolver {
+
+    private final PriceBookRepository priceBookRepository;
+    private final ExecutorService reloader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-index-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean reloadPending = new AtomicBoolean();
+    private final Counter reloads;
+    private final Counter misses;
+
+    private volatile PriceIndex index = PriceIndex.EMPTY;
+
+    public PriceResolver(PriceBookRepository priceBookRepository, MeterRegistry meterRegistry) {
+        this.priceBookRepository = priceBookRepository;
+        this.reloads = meterRegistry.counter("billing.price_index.reloads");
+        this.misses = meterRegistry.counter("billing.price_index.misses");
+        Gauge.builder("billing.price_index.versions", this, resolver -> resolver.index.versionCount())
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @PreDestroy
+    public void stop() {
+        reloader.shutdownNow();
+    }
+
+    /**
+     * Rebuild the index from the active price book rows and swap it in.
+     */
+    public synchronized PriceIndex reload() {
+        long start = System.currentTimeMillis();
+        PriceIndex next = PriceIndex.build(priceBookRepository.findByActiveTrue());
+        index = next;
+        reloads.increment();
+        log.info("Price index loaded: {} services, {} price versions in {} ms",
+            next.serviceCount(), next.versionCount(), System.currentTimeMillis() - start);
+        return next;
+    }
+
+    /**
+     * Reload in the background, coalescing with any reload already waiting to run.
+     */
+    public void requestReload() {
+        if (!reloadPending.compareAndSet(false, true)) {
+            return;
+        }
+        reloader.execute(() -> {
+            reloadPending.set(false);
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                // Keep serving the current index
+                log.error("Price index reload failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    public PriceIndex current() {
+        return index;
+    }
+
+    /**
+     * Price version in force for the service for this payer type on the date, or null.
+     */
+    public PriceVersion resolve(String serviceCode, String payerType, LocalDate date) {
+        PriceVersion version = index.find(serviceCode, Tariff.forPayerType(payerType), date);
+        if (version == null) {
+            misses.increment();
+        }
+        return version;
+    }
+
+    /**
+     * Price a batch of events (typically one encounter's) against a single index snapshot, each
+     * at the price in force on its own service date: sets unit price, total and net amount on
+     * every event that has a price.
+     *
+     * @return service codes with no price on their event's date; events for them are left unchanged
+     */
+    public Set<String> price(List<BillableEvent> events, String payerType) {
+        PriceIndex snapshot = index;
+        Tariff tariff = Tariff.forPayerType(payerType);
+        Set<String> unpriced = new LinkedHashSet<>();
+        for (BillableEvent event : events) {
+            PriceVersion version = snapshot.find(event.getServiceCode(), tariff, event.getServiceDate());
+            if (version == null) {
+                misses.increment();
+                unpriced.add(event.getServiceCode() + " on " + event.getServiceDate());
+                continue;
+            }
+            BigDecimal total = version.getPriceNGN().multiply(BigDecimal.valueOf(event.getQuantity()));
+            BigDecimal discount = event.getDiscountAmountNGN() != null ? event.getDiscountAmountNGN() : BigDecimal.ZERO;
+            event.setUnitPriceNGN(version.getPriceNGN());
+            event.setTotalAmountNGN(total);
+            event.setNetAmountNGN(total.subtract(discount));
+            if (event.getServiceDescription() == null) {
+                event.setServiceDescription(version.getServiceName());
+            }
+        }
+        return unpriced;
+    }
+
+    /**
+     * Quotes for several service codes at once, in request order; codes without a price are omitted.
+     */
+    public List<PriceVersion> quote(List<String> serviceCodes, String payerType, LocalDate date) {
+        PriceIndex snapshot = index;
+        Tariff tariff = Tariff.forPayerType(payerType);
+        List<PriceVersion> quotes = new ArrayList<>(serviceCodes.size());
+        for (String serviceCode : serviceCodes) {
+            PriceVersion version = snapshot.find(serviceCode, tariff, date);
+            if (version != null) {
+                quotes.add(version);
+            }
+        }
+        return quotes;
+    }
+}
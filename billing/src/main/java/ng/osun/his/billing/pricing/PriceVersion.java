@@ -0,0 +1,21 @@
+package ng.osun.his.billing.pricing;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One tariff's price for a service over a date range, as held by the {@link PriceIndex}.
+ */
+@Value
+public class PriceVersion {
+    String priceBookId;
+    String serviceCode;
+    String serviceName;
+    Tariff tariff;
+    BigDecimal priceNGN;
+    boolean requiresAuthorization;
+    LocalDate effectiveDate;
+    LocalDate expiryDate; // inclusive, null for open-ended
+}
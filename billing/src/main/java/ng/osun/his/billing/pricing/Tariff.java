@@ -0,0 +1,13 @@
+package ng.osun.his.billing.pricing;
+
+/**
+ * Which PriceBook column a payer is charged from.
+ */
+public enum Tariff {
+    CASH,   // unit_price_ngn: self-pay and HMOs
+    NHIA;   // nhia_price_ngn
+
+    public static Tariff forPayerType(String payerType) {
+        return "NHIA".equals(payerType) ? NHIA : CASH;
+    }
+}
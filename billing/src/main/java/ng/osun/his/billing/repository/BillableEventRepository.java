@@ -10,5 +10,6 @@ import java.util.List;
 public interface BillableEventRepository extends JpaRepository<BillableEvent, String> {
     List<BillableEvent> findByPatientIdAndBilledFalse(String patientId);
     List<BillableEvent> findByInvoiceId(String invoiceId);
+    List<BillableEvent> findByEncounterIdAndBilledFalse(String encounterId);
 }
 
@@ -0,0 +1,12 @@
+package ng.osun.his.billing.repository;
+
+import ng.osun.his.billing.domain.InvoiceLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InvoiceLedgerEntryRepository extends JpaRepository<InvoiceLedgerEntry, String> {
+    List<InvoiceLedgerEntry> findByInvoiceIdOrderByCreatedAt(String invoiceId);
+}
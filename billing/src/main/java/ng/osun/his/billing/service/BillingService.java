@@ -3,7 +3,12 @@ package ng.osun.his.billing.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.billing.domain.*;
+import ng.osun.his.billing.ledger.InvoiceLedger;
+import ng.osun.his.billing.ledger.InvoiceProjection;
+import ng.osun.his.billing.pricing.PriceResolver;
 import ng.osun.his.billing.repository.*;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
 import java.util.Map;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
@@ -12,7 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -23,12 +28,14 @@ import java.util.stream.Collectors;
 @Slf4j
 public class BillingService {
 
-    private final PriceBookRepository priceBookRepository;
+    private final PriceResolver priceResolver;
     private final BillableEventRepository billableEventRepository;
     private final InvoiceRepository invoiceRepository;
-    private final PayerRepository payerRepository;
+    private final ReferenceDataCache<String, Payer> payerCache;
     private final PaymentRepository paymentRepository;
     private final ClaimRepository claimRepository;
+    private final BusinessNumberAllocator numberAllocator;
+    private final InvoiceLedger invoiceLedger;
 
     /**
      * Create invoice from billable events.
@@ -47,9 +54,9 @@ public class BillingService {
             throw new IllegalStateException("No billable events found");
         }
 
-        // Calculate totals
+        // Calculate totals; net amounts are already after discount
         BigDecimal subtotal = events.stream()
-            .map(BillableEvent::getNetAmountNGN)
+            .map(BillableEvent::getTotalAmountNGN)
             .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         BigDecimal discount = events.stream()
@@ -89,7 +96,7 @@ public class BillingService {
 
         // Payer info
         if (payerId != null) {
-            payerRepository.findById(payerId).ifPresent(p -> {
+            payerCache.get(payerId).ifPresent(p -> {
                 invoice.setPayerType(p.getPayerType());
                 invoice.setPayerName(p.getPayerName());
             });
@@ -100,7 +107,9 @@ public class BillingService {
 
         invoice.setCreatedBy(auth.getName());
 
-        Invoice saved = invoiceRepository.save(invoice);
+        // Flushed so the ledger's opening entry can reference the row
+        Invoice saved = invoiceRepository.saveAndFlush(invoice);
+        invoiceLedger.open(saved, auth.getName());
 
         // Mark events as billed
         events.forEach(e -> {
@@ -116,7 +125,42 @@ public class BillingService {
     }
 
     /**
-     * Process payment.
+     * Price all of an encounter's unbilled events in one pass, at the tariff of the given payer
+     * (self-pay when null), each event at the price in force on its own service date, so
+     * multi-day stays straddling a tariff change are priced per day. Fails without changes if
+     * any service code has no price on its event's date.
+     */
+    @Transactional
+    public List<BillableEvent> priceEncounter(String encounterId, String payerId) {
+        List<BillableEvent> events = billableEventRepository.findByEncounterIdAndBilledFalse(encounterId);
+        if (events.isEmpty()) {
+            return events;
+        }
+
+        String payerType = "SELF_PAY";
+        if (payerId != null) {
+            payerType = payerCache.get(payerId)
+                .map(Payer::getPayerType)
+                .orElseThrow(() -> new IllegalArgumentException("Payer not found"));
+        }
+
+        Set<String> unpriced = priceResolver.price(events, payerType);
+        if (!unpriced.isEmpty()) {
+            throw new IllegalStateException("No price for service codes " + unpriced);
+        }
+        String pricedFor = payerType;
+        events.forEach(e -> {
+            e.setPayerId(payerId);
+            e.setPayerType(pricedFor);
+        });
+
+        log.info("Priced {} events for encounter {} at {} tariff", events.size(), encounterId, payerType);
+        return billableEventRepository.saveAll(events);
+    }
+
+    /**
+     * Process payment. The payment is posted to the invoice ledger, which updates the invoice's
+     * paid amount, balance and status atomically in the database.
      */
     @Transactional
     public Payment processPayment(String invoiceId, BigDecimal amount, String method, 
@@ -137,24 +181,23 @@ public class BillingService {
         payment.setCashier(auth.getName());
 
         Payment saved = paymentRepository.save(payment);
+        InvoiceProjection projection = invoiceLedger.postPayment(invoiceId, saved.getId(), amount, auth.getName());
 
-        // Update invoice balance
-        BigDecimal newPaidAmount = invoice.getPaidAmountNGN().add(amount);
-        invoice.setPaidAmountNGN(newPaidAmount);
-        invoice.setBalanceNGN(invoice.getTotalAmountNGN().subtract(newPaidAmount));
-
-        if (invoice.getBalanceNGN().compareTo(BigDecimal.ZERO) <= 0) {
-            invoice.setStatus("PAID");
-        } else if (newPaidAmount.compareTo(BigDecimal.ZERO) > 0) {
-            invoice.setStatus("PARTIAL");
-        }
-
-        invoiceRepository.save(invoice);
-
-        log.info("Payment {} processed for invoice {}", saved.getPaymentNumber(), invoiceId);
+        log.info("Payment {} processed for invoice {}, balance now {} ({})",
+            saved.getPaymentNumber(), invoiceId, projection.getBalanceNGN(), projection.getStatus());
         return saved;
     }
 
+    /**
+     * Adjust what an invoice is owed (negative for discounts and waivers).
+     */
+    @Transactional
+    public InvoiceProjection adjustInvoice(String invoiceId, BigDecimal amount, String reason, Authentication auth) {
+        InvoiceProjection projection = invoiceLedger.postAdjustment(invoiceId, amount, reason, auth.getName());
+        log.info("Invoice {} adjusted by {} by user {}: {}", invoiceId, amount, auth.getName(), reason);
+        return projection;
+    }
+
     /**
      * Create claim for invoice.
      */
@@ -202,15 +245,15 @@ public class BillingService {
     }
 
     private String generateInvoiceNumber() {
-        return "INV-" + java.time.LocalDate.now().toString().replace("-", "") + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return numberAllocator.next("INV");
     }
 
     private String generatePaymentNumber() {
-        return "PAY-" + java.time.LocalDate.now().toString().replace("-", "") + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return numberAllocator.next("PAY");
     }
 
     private String generateClaimNumber() {
-        return "CLM-" + java.time.LocalDate.now().toString().replace("-", "") + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return numberAllocator.next("CLM");
     }
 }
 
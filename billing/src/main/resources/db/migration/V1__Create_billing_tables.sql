@@ -0,0 +1,195 @@
+-- Payers (NHIA, HMOs, self-pay)
+CREATE TABLE IF NOT EXISTS payers (
+    id VARCHAR(36) PRIMARY KEY,
+    payer_code VARCHAR(50) UNIQUE NOT NULL,
+    payer_name VARCHAR(200) NOT NULL,
+    payer_type VARCHAR(50) NOT NULL,
+    contact_person VARCHAR(100),
+    contact_email VARCHAR(100),
+    contact_phone VARCHAR(20),
+    address VARCHAR(500),
+    api_endpoint VARCHAR(500),
+    api_key VARCHAR(500),
+    settlement_terms_days INTEGER DEFAULT 30,
+    credit_limit_ngn DECIMAL(19,2),
+    active BOOLEAN NOT NULL DEFAULT true,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+-- Price book
+CREATE TABLE IF NOT EXISTS price_books (
+    id VARCHAR(36) PRIMARY KEY,
+    service_code VARCHAR(50) NOT NULL,
+    service_name VARCHAR(200) NOT NULL,
+    department VARCHAR(50) NOT NULL,
+    service_category VARCHAR(50),
+    unit_price_ngn DECIMAL(19,2) NOT NULL,
+    tariff_code VARCHAR(50),
+    nhia_price_ngn DECIMAL(19,2),
+    currency VARCHAR(3) NOT NULL DEFAULT 'NGN',
+    effective_date DATE NOT NULL,
+    expiry_date DATE,
+    active BOOLEAN NOT NULL DEFAULT true,
+    requires_authorization BOOLEAN DEFAULT false,
+    description VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_price_service ON price_books(service_code);
+CREATE INDEX IF NOT EXISTS idx_price_dept ON price_books(department);
+CREATE INDEX IF NOT EXISTS idx_price_effective ON price_books(effective_date);
+
+-- Billable events from clinical activity
+CREATE TABLE IF NOT EXISTS billable_events (
+    id VARCHAR(36) PRIMARY KEY,
+    event_number VARCHAR(50) UNIQUE,
+    patient_id VARCHAR(36) NOT NULL,
+    encounter_id VARCHAR(36),
+    source_module VARCHAR(50) NOT NULL,
+    source_ref_id VARCHAR(100) NOT NULL,
+    service_code VARCHAR(50) NOT NULL,
+    service_description VARCHAR(500),
+    quantity INTEGER NOT NULL DEFAULT 1,
+    unit_price_ngn DECIMAL(19,2) NOT NULL,
+    total_amount_ngn DECIMAL(19,2) NOT NULL,
+    discount_amount_ngn DECIMAL(19,2) DEFAULT 0,
+    net_amount_ngn DECIMAL(19,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL DEFAULT 'NGN',
+    payer_id VARCHAR(36),
+    invoice_id VARCHAR(36),
+    billed BOOLEAN NOT NULL DEFAULT false,
+    billed_at TIMESTAMP,
+    billed_by VARCHAR(100),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_billable_patient ON billable_events(patient_id);
+CREATE INDEX IF NOT EXISTS idx_billable_source ON billable_events(source_module);
+CREATE INDEX IF NOT EXISTS idx_billable_invoiced ON billable_events(invoice_id);
+
+-- Invoices
+CREATE TABLE IF NOT EXISTS invoices (
+    id VARCHAR(36) PRIMARY KEY,
+    invoice_number VARCHAR(50) UNIQUE NOT NULL,
+    patient_id VARCHAR(36) NOT NULL,
+    encounter_id VARCHAR(36),
+    payer_id VARCHAR(36),
+    payer_type VARCHAR(50),
+    payer_name VARCHAR(200),
+    invoice_date DATE NOT NULL,
+    due_date DATE,
+    status VARCHAR(50) NOT NULL,
+    subtotal_ngn DECIMAL(19,2) NOT NULL,
+    discount_amount_ngn DECIMAL(19,2) DEFAULT 0,
+    tax_amount_ngn DECIMAL(19,2) DEFAULT 0,
+    total_amount_ngn DECIMAL(19,2) NOT NULL,
+    paid_amount_ngn DECIMAL(19,2) DEFAULT 0,
+    balance_ngn DECIMAL(19,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL DEFAULT 'NGN',
+    payment_terms VARCHAR(100),
+    notes VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_invoice_patient ON invoices(patient_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_payer ON invoices(payer_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_status ON invoices(status);
+CREATE INDEX IF NOT EXISTS idx_invoice_date ON invoices(invoice_date);
+
+-- Invoice line items
+CREATE TABLE IF NOT EXISTS invoice_line_items (
+    invoice_id VARCHAR(36) NOT NULL REFERENCES invoices(id),
+    service_code VARCHAR(255),
+    description VARCHAR(255),
+    quantity INTEGER,
+    unit_price DECIMAL(19,2),
+    total_amount DECIMAL(19,2),
+    source_event_id VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_invoice_line_invoice ON invoice_line_items(invoice_id);
+
+-- Payments
+CREATE TABLE IF NOT EXISTS payments (
+    id VARCHAR(36) PRIMARY KEY,
+    payment_number VARCHAR(50) UNIQUE,
+    invoice_id VARCHAR(36) NOT NULL,
+    patient_id VARCHAR(36) NOT NULL,
+    payment_date DATE NOT NULL,
+    payment_method VARCHAR(50) NOT NULL,
+    amount_ngn DECIMAL(19,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL DEFAULT 'NGN',
+    reference VARCHAR(100),
+    bank_name VARCHAR(100),
+    account_number VARCHAR(50),
+    status VARCHAR(50) NOT NULL,
+    confirmed_at TIMESTAMP,
+    confirmed_by VARCHAR(100),
+    cashier VARCHAR(100),
+    notes VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_payment_invoice ON payments(invoice_id);
+CREATE INDEX IF NOT EXISTS idx_payment_patient ON payments(patient_id);
+CREATE INDEX IF NOT EXISTS idx_payment_date ON payments(payment_date);
+
+-- Insurance claims
+CREATE TABLE IF NOT EXISTS claims (
+    id VARCHAR(36) PRIMARY KEY,
+    claim_number VARCHAR(50) UNIQUE NOT NULL,
+    patient_id VARCHAR(36) NOT NULL,
+    payer_id VARCHAR(36) NOT NULL,
+    payer_name VARCHAR(200),
+    invoice_id VARCHAR(36) NOT NULL,
+    claim_date DATE NOT NULL,
+    submission_date TIMESTAMP,
+    status VARCHAR(50) NOT NULL,
+    total_amount_ngn DECIMAL(19,2) NOT NULL,
+    approved_amount_ngn DECIMAL(19,2),
+    currency VARCHAR(3) NOT NULL DEFAULT 'NGN',
+    review_notes TEXT,
+    rejection_reason VARCHAR(1000),
+    response_received_at TIMESTAMP,
+    submitted_by VARCHAR(100),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_claim_patient ON claims(patient_id);
+CREATE INDEX IF NOT EXISTS idx_claim_payer ON claims(payer_id);
+CREATE INDEX IF NOT EXISTS idx_claim_status ON claims(status);
+CREATE INDEX IF NOT EXISTS idx_claim_number ON claims(claim_number);
+
+-- Claim attachments
+CREATE TABLE IF NOT EXISTS claim_attachments (
+    claim_id VARCHAR(36) NOT NULL REFERENCES claims(id),
+    file_name VARCHAR(255),
+    file_type VARCHAR(255),
+    file_size BIGINT,
+    storage_path VARCHAR(255),
+    uploaded_at TIMESTAMP
+);
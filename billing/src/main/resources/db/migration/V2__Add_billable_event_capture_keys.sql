@@ -0,0 +1,5 @@
+-- Charge capture inserts with ON CONFLICT on the clinical source of each event
+CREATE UNIQUE INDEX IF NOT EXISTS uk_billable_source ON billable_events(source_module, source_ref_id);
+
+-- Encounter pricing reads an encounter's unbilled events
+CREATE INDEX IF NOT EXISTS idx_billable_encounter_unbilled ON billable_events(encounter_id, billed);
@@ -0,0 +1,28 @@
+-- Append-only ledger behind the invoice total/paid/balance projection
+CREATE TABLE IF NOT EXISTS invoice_ledger_entries (
+    id VARCHAR(36) PRIMARY KEY,
+    invoice_id VARCHAR(36) NOT NULL REFERENCES invoices(id),
+    entry_type VARCHAR(20) NOT NULL,
+    amount_ngn DECIMAL(19,2) NOT NULL,
+    payment_id VARCHAR(36),
+    reason VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0
+);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_invoice ON invoice_ledger_entries(invoice_id, created_at);
+
+-- Open the ledger for existing invoices from their current totals and non-reversed payments
+INSERT INTO invoice_ledger_entries (id, invoice_id, entry_type, amount_ngn, reason, created_at, updated_at, created_by, version)
+SELECT gen_random_uuid()::text, i.id, 'CHARGE', i.total_amount_ngn, 'Opening balance', i.created_at, i.created_at, 'ledger-migration', 0
+  FROM invoices i
+ WHERE NOT EXISTS (SELECT 1 FROM invoice_ledger_entries l WHERE l.invoice_id = i.id);
+
+INSERT INTO invoice_ledger_entries (id, invoice_id, entry_type, amount_ngn, payment_id, created_at, updated_at, created_by, version)
+SELECT gen_random_uuid()::text, p.invoice_id, 'PAYMENT', p.amount_ngn, p.id, p.created_at, p.created_at, 'ledger-migration', 0
+  FROM payments p
+ WHERE p.status <> 'REVERSED'
+   AND NOT EXISTS (SELECT 1 FROM invoice_ledger_entries l WHERE l.payment_id = p.id);
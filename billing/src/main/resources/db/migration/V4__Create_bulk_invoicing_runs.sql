@@ -0,0 +1,17 @@
+-- Resumable bulk invoicing runs; last_patient_id is the keyset position below which every patient is done
+CREATE TABLE IF NOT EXISTS bulk_invoicing_runs (
+    id VARCHAR(36) PRIMARY KEY,
+    as_of TIMESTAMP NOT NULL,
+    payer_type VARCHAR(50),
+    last_patient_id VARCHAR(36) NOT NULL DEFAULT '',
+    invoices_created BIGINT NOT NULL DEFAULT 0,
+    events_billed BIGINT NOT NULL DEFAULT 0,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    started_by VARCHAR(100),
+    started_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
+
+-- Keyset walk over patients with unbilled events
+CREATE INDEX IF NOT EXISTS idx_billable_unbilled_patient
+    ON billable_events(patient_id, encounter_id, payer_id, created_at) WHERE billed = false;
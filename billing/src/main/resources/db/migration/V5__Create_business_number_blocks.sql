@@ -0,0 +1,6 @@
+-- Hi/lo blocks leased by BusinessNumberAllocator, one row per prefix, facility and day
+CREATE TABLE IF NOT EXISTS business_number_blocks (
+    sequence_key VARCHAR(64) PRIMARY KEY,
+    high_value BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
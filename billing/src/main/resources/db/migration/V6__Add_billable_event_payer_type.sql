@@ -0,0 +1,17 @@
+-- Payer type whose tariff an event was priced at; NULL until the encounter is priced for a payer
+ALTER TABLE billable_events ADD COLUMN IF NOT EXISTS payer_type VARCHAR(50);
+
+-- Events already priced for a payer keep that payer's type
+UPDATE billable_events e SET payer_type = p.payer_type
+FROM payers p
+WHERE p.id = e.payer_id AND e.payer_type IS NULL;
+
+-- Billed events were priced at their invoice's payer type
+UPDATE billable_events e SET payer_type = i.payer_type
+FROM invoices i
+WHERE i.id = e.invoice_id AND e.payer_type IS NULL;
+
+-- Bulk invoicing walks and filters unbilled events by the payer type they were priced for
+DROP INDEX IF EXISTS idx_billable_unbilled_patient;
+CREATE INDEX IF NOT EXISTS idx_billable_unbilled_patient
+    ON billable_events(patient_id, encounter_id, payer_id, payer_type, created_at) WHERE billed = false;
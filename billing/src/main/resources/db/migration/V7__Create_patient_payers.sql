@@ -0,0 +1,10 @@
+-- Payer covering each patient's charges (HMO or NHIA enrolment); patients without a row are self-pay
+CREATE TABLE IF NOT EXISTS patient_payers (
+    patient_id VARCHAR(36) PRIMARY KEY,
+    payer_id VARCHAR(36) NOT NULL REFERENCES payers(id),
+    membership_number VARCHAR(50),
+    updated_at TIMESTAMP NOT NULL,
+    updated_by VARCHAR(100)
+);
+
+CREATE INDEX IF NOT EXISTS idx_patient_payers_payer ON patient_payers(payer_id);
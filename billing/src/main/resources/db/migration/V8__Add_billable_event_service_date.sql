@@ -0,0 +1,7 @@
+-- Day the service was given (Africa/Lagos); prices are resolved for this date, not the capture time
+ALTER TABLE billable_events ADD COLUMN IF NOT EXISTS service_date DATE;
+
+-- Existing events were captured as they happened, so their capture day stands in
+UPDATE billable_events SET service_date = CAST(created_at AS DATE) WHERE service_date IS NULL;
+
+ALTER TABLE billable_events ALTER COLUMN service_date SET NOT NULL;
@@ -0,0 +1,188 @@
+package ng.osun.his.billing.invoicing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ng.osun.his.billing.domain.Payer;
+import ng.osun.his.billing.domain.PriceBook;
+import ng.osun.his.billing.ingest.ChargeCaptureListener;
+import ng.osun.his.billing.ingest.ChargeCaptureWriter;
+import ng.osun.his.billing.ledger.InvoiceLedger;
+import ng.osun.his.billing.pricing.PatientPayers;
+import ng.osun.his.billing.pricing.PriceResolver;
+import ng.osun.his.billing.repository.PriceBookRepository;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.cache.ReferenceDataCaches;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Consultation charges captured from check-ins reach an invoice through the bulk invoicing run,
+ * priced at the covering payer's tariff without anyone pricing the encounter first.
+ */
+class BulkInvoicingJobTest {
+
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static final String NHIA_PAYER_ID = "payer-nhia";
+
+    private static DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private ChargeCaptureListener listener;
+    private BulkInvoicingJob job;
+    private PatientPayers patientPayers;
+
+    @BeforeAll
+    static void startDatabase() {
+        POSTGRES.start();
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        POSTGRES.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE invoice_ledger_entries, invoice_line_items, invoices, billable_events,"
+            + " patient_payers, payers, bulk_invoicing_runs CASCADE");
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.update("INSERT INTO payers (id, payer_code, payer_name, payer_type, settlement_terms_days,"
+            + " active, created_at, updated_at) VALUES (?, 'NHIA', 'NHIA', 'NHIA', 60, true, ?, ?)",
+            NHIA_PAYER_ID, now, now);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PriceBookRepository priceBooks = mock(PriceBookRepository.class);
+        when(priceBooks.findByActiveTrue()).thenReturn(List.of(consultationPrice()));
+        PriceResolver priceResolver = new PriceResolver(priceBooks, meterRegistry);
+        priceResolver.reload();
+
+        Payer nhia = new Payer();
+        nhia.setId(NHIA_PAYER_ID);
+        nhia.setPayerType("NHIA");
+        nhia.setPayerName("NHIA");
+        nhia.setSettlementTermsDays(60);
+        Map<String, Payer> payers = Map.of(NHIA_PAYER_ID, nhia);
+        ReferenceDataCache<String, Payer> payerCache = new ReferenceDataCaches(new MockEnvironment(), meterRegistry)
+            .<String, Payer>builder("Payer", id -> Optional.ofNullable(payers.get(id)))
+            .build();
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        BusinessNumberAllocator numberAllocator = new BusinessNumberAllocator(jdbcTemplate, "FAC001", 20);
+        ChargeCaptureWriter writer = new ChargeCaptureWriter(jdbcTemplate, transactionManager, priceResolver,
+            numberAllocator, meterRegistry, 500);
+        listener = new ChargeCaptureListener(writer, new ObjectMapper(), meterRegistry);
+        patientPayers = new PatientPayers(jdbcTemplate);
+        job = new BulkInvoicingJob(jdbcTemplate, transactionManager, new InvoiceLedger(jdbcTemplate, meterRegistry),
+            priceResolver, payerCache, numberAllocator, meterRegistry, 100, 2);
+    }
+
+    @Test
+    void invoicesCheckInConsultationAtCoveringPayerTariff() throws InterruptedException {
+        String patientId = UUID.randomUUID().toString();
+        patientPayers.assign(patientId, NHIA_PAYER_ID, "NHIS-0001", "test");
+        checkIn(patientId, "appt-1");
+
+        runBulkInvoicing(null);
+
+        Map<String, Object> invoice = jdbcTemplate.queryForMap(
+            "SELECT id, payer_id, payer_type, total_amount_ngn FROM invoices WHERE patient_id = ?", patientId);
+        assertThat(invoice.get("payer_id")).isEqualTo(NHIA_PAYER_ID);
+        assertThat(invoice.get("payer_type")).isEqualTo("NHIA");
+        assertThat((BigDecimal) invoice.get("total_amount_ngn")).isEqualByComparingTo("3000");
+
+        Map<String, Object> line = jdbcTemplate.queryForMap(
+            "SELECT service_code, total_amount FROM invoice_line_items WHERE invoice_id = ?", invoice.get("id"));
+        assertThat(line.get("service_code")).isEqualTo("CONSULT-GOPD");
+        assertThat((BigDecimal) line.get("total_amount")).isEqualByComparingTo("3000");
+
+        Map<String, Object> event = jdbcTemplate.queryForMap(
+            "SELECT billed, payer_type, net_amount_ngn FROM billable_events WHERE patient_id = ?", patientId);
+        assertThat(event.get("billed")).isEqualTo(true);
+        assertThat(event.get("payer_type")).isEqualTo("NHIA");
+        assertThat((BigDecimal) event.get("net_amount_ngn")).isEqualByComparingTo("3000");
+    }
+
+    @Test
+    void invoicesUncoveredPatientAsSelfPayAndFiltersByCoveringPayerType() throws InterruptedException {
+        String selfPay = UUID.randomUUID().toString();
+        String covered = UUID.randomUUID().toString();
+        patientPayers.assign(covered, NHIA_PAYER_ID, null, "test");
+        checkIn(selfPay, "appt-2");
+        checkIn(covered, "appt-3");
+
+        runBulkInvoicing("NHIA");
+
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM invoices WHERE patient_id = ?", Integer.class, selfPay)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT payer_type FROM invoices WHERE patient_id = ?", String.class, covered)).isEqualTo("NHIA");
+
+        runBulkInvoicing(null);
+
+        Map<String, Object> invoice = jdbcTemplate.queryForMap(
+            "SELECT payer_type, total_amount_ngn FROM invoices WHERE patient_id = ?", selfPay);
+        assertThat(invoice.get("payer_type")).isEqualTo("SELF_PAY");
+        assertThat((BigDecimal) invoice.get("total_amount_ngn")).isEqualByComparingTo("5000");
+    }
+
+    private void checkIn(String patientId, String appointmentId) {
+        String json = String.format(
+            "{\"appointmentId\":\"%s\",\"patientId\":\"%s\",\"clinicCode\":\"GOPD\",\"status\":\"CHECKED_IN\","
+            + "\"timestamp\":\"%s\"}", appointmentId, patientId, Instant.now());
+        listener.onBatch(List.of(new ConsumerRecord<>(ChargeCaptureListener.APPOINTMENT_EVENTS_TOPIC, 0, 0L,
+            appointmentId, json)));
+    }
+
+    private void runBulkInvoicing(String payerType) throws InterruptedException {
+        assertThat(job.start(payerType, "test")).isTrue();
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (job.status().isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        BulkInvoicingStatus status = job.status();
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getError()).isNull();
+    }
+
+    private static PriceBook consultationPrice() {
+        PriceBook price = new PriceBook();
+        price.setId("price-consult-gopd");
+        price.setServiceCode("CONSULT-GOPD");
+        price.setServiceName("General outpatient consultation");
+        price.setDepartment("CONSULTATION");
+        price.setUnitPriceNGN(new BigDecimal("5000.00"));
+        price.setNhiaPriceNGN(new BigDecimal("3000.00"));
+        price.setEffectiveDate(LocalDate.now(NigeriaContext.TIMEZONE).minusYears(1));
+        price.setActive(true);
+        return price;
+    }
+}
@@ -0,0 +1,48 @@
+package ng.osun.his.coreemr.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.audit.AuditEvent;
+import ng.osun.his.platform.audit.AuditService;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Appends audit events published by components without their own audit store, such as reads the
+ * gateway answered from its response cache. Replicas share one consumer group, so each event is
+ * logged once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AccessAuditListener {
+
+    private final AuditService auditService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = AuditService.ACCESS_TOPIC,
+        groupId = "${audit.access.consumer-group:core-emr-audit-access}")
+    public void onAccess(String eventJson) {
+        AuditEvent event;
+        try {
+            event = objectMapper.readValue(eventJson, AuditEvent.class);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable access audit event: {}", e.getMessage());
+            return;
+        }
+        if (event.getUserId() == null || event.getActionType() == null) {
+            log.warn("Ignoring access audit event without user or action");
+            return;
+        }
+        // Identity and chain position are assigned by this service's writer, never by the sender
+        event.setId(null);
+        event.setSignedHash(null);
+        event.setChainId(null);
+        event.setChainSeq(null);
+        auditService.logEvent(event);
+    }
+}
@@ -0,0 +1,40 @@
+package ng.osun.his.coreemr.config;
+
+import ng.osun.his.coreemr.CoreEmrApplication;
+import ng.osun.his.platform.audit.AuditArchiveStore;
+import ng.osun.his.platform.audit.AuditBatchWriter;
+import ng.osun.his.platform.audit.AuditEvent;
+import ng.osun.his.platform.audit.AuditPartitionManager;
+import ng.osun.his.platform.audit.AuditQueryService;
+import ng.osun.his.platform.audit.AuditService;
+import ng.osun.his.platform.audit.AuditVerificationService;
+import ng.osun.his.platform.governance.DataRetentionJob;
+import ng.osun.his.platform.governance.DataRetentionService;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Platform audit pipeline, hosted by this service since the audit tables live in its database.
+ * The audit entities, repositories and services sit in platform-lib outside the application's
+ * scan, so they are registered here alongside this service's own. Partition upkeep and
+ * archival run nightly from {@link DataRetentionJob}.
+ */
+@Configuration
+@EnableScheduling
+@EntityScan(basePackageClasses = {CoreEmrApplication.class, AuditEvent.class})
+@EnableJpaRepositories(basePackageClasses = {CoreEmrApplication.class, AuditEvent.class})
+@Import({
+    AuditBatchWriter.class,
+    AuditService.class,
+    AuditPartitionManager.class,
+    AuditArchiveStore.class,
+    AuditQueryService.class,
+    AuditVerificationService.class,
+    DataRetentionService.class,
+    DataRetentionJob.class
+})
+public class AuditConfig {
+}
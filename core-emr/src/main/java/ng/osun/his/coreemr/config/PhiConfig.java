@@ -0,0 +1,22 @@
+package ng.osun.his.coreemr.config;
+
+import ng.osun.his.platform.security.FileKeyManagementClient;
+import ng.osun.his.platform.security.PhiEncryptionService;
+import ng.osun.his.platform.security.PhiKeyRing;
+import ng.osun.his.platform.security.PhiReencryptionJob;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+/**
+ * PHI encryption for this service's records. The key ring is kept in this service's database
+ * (phi_data_keys); the components sit in platform-lib outside the application's scan.
+ */
+@Configuration
+@Import({
+    FileKeyManagementClient.class,
+    PhiKeyRing.class,
+    PhiEncryptionService.class,
+    PhiReencryptionJob.class
+})
+public class PhiConfig {
+}
@@ -0,0 +1,74 @@
+package ng.osun.his.coreemr.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.audit.AuditEvent;
+import ng.osun.his.platform.audit.AuditQueryService;
+import ng.osun.his.platform.audit.AuditVerificationResult;
+import ng.osun.his.platform.audit.AuditVerificationService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Audit trail queries and integrity checks, the latter intended for the nightly verification job.
+ */
+@RestController
+@RequestMapping("/api/emr/audit")
+@RequiredArgsConstructor
+@Slf4j
+public class AuditController {
+
+    private final AuditVerificationService auditVerificationService;
+    private final AuditQueryService auditQueryService;
+
+    /**
+     * Events by a user in [from, to), oldest first, including months already archived.
+     */
+    @GetMapping("/events")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AuditEvent>> findByUser(
+            @RequestParam String userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            Authentication authentication) {
+        log.info("Audit query for user {} {}..{} by user={}", userId, from, to, authentication.getName());
+
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(auditQueryService.findByUser(userId, from, to));
+    }
+
+    /**
+     * Verify the hash chain for every segment overlapping [from, to).
+     */
+    @GetMapping("/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AuditVerificationResult> verifyRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            Authentication authentication) {
+        log.info("Audit verification {}..{} by user={}", from, to, authentication.getName());
+
+        if (!from.isBefore(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(auditVerificationService.verifyRange(from, to));
+    }
+
+    /**
+     * Verify only segments added since the last successful verification.
+     */
+    @PostMapping("/verify/incremental")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<AuditVerificationResult> verifyIncremental(Authentication authentication) {
+        log.info("Incremental audit verification by user={}", authentication.getName());
+        return ResponseEntity.ok(auditVerificationService.verifyIncremental());
+    }
+}
@@ -3,13 +3,22 @@ package ng.osun.his.coreemr.controller;
 import org.springframework.validation.annotation.Validated;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.coreemr.dedup.DuplicateCandidate;
+import ng.osun.his.coreemr.dedup.DuplicateDetectionService;
+import ng.osun.his.coreemr.dedup.DuplicateScanJob;
 import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.domain.PatientMergeCandidate;
+import ng.osun.his.coreemr.repository.PatientMergeCandidateRepository;
 import ng.osun.his.coreemr.repository.PatientRepository;
+import ng.osun.his.coreemr.search.PatientSearchResult;
+import ng.osun.his.coreemr.search.PatientSearchService;
 import ng.osun.his.platform.audit.AuditEvent;
 import ng.osun.his.platform.audit.AuditService;
+import ng.osun.his.platform.events.EntityChangePublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,6 +40,11 @@ public class PatientController {
 
     private final PatientRepository patientRepository;
     private final AuditService auditService;
+    private final PatientSearchService patientSearchService;
+    private final DuplicateDetectionService duplicateDetectionService;
+    private final DuplicateScanJob duplicateScanJob;
+    private final PatientMergeCandidateRepository mergeCandidateRepository;
+    private final EntityChangePublisher entityChangePublisher;
 
     /**
      * Search patients with pagination and filters.
@@ -46,7 +60,7 @@ public class PatientController {
         
         Page<Patient> patients;
         if (query != null && !query.isEmpty()) {
-            patients = patientRepository.search(query, pageable);
+            patients = patientSearchService.searchPage(query, pageable);
         } else {
             patients = patientRepository.findAllActive(pageable);
         }
@@ -65,17 +79,90 @@ public class PatientController {
     }
 
     /**
-     * Get patient by ID.
+     * Ranked patient search (exact identifier, name prefix, fuzzy name) with keyset pagination.
+     */
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public ResponseEntity<PatientSearchResult> rankedSearch(
+            @RequestParam String query,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limit,
+            Authentication authentication) {
+
+        log.info("Ranked search patients query='{}' by user={}", query, authentication.getName());
+
+        if (query.trim().isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        PatientSearchResult result;
+        try {
+            result = patientSearchService.search(query, cursor, limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        // Audit
+        auditService.logEvent(AuditEvent.builder()
+            .userId(authentication.getName())
+            .userRole(extractRole(authentication))
+            .actionType(AuditEvent.ActionType.SEARCH)
+            .resourceType("Patient")
+            .eventDetails("Searched patients: query=" + query)
+            .eventTimestamp(Instant.now())
+            .build());
+
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * Likely duplicates of a patient being registered, best match first.
+     */
+    @PostMapping("/duplicates/check")
+    @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
+    public ResponseEntity<List<DuplicateCandidate>> checkDuplicates(@RequestBody Patient patient, Authentication authentication) {
+        log.info("Duplicate check by user={}", authentication.getName());
+        return ResponseEntity.ok(duplicateDetectionService.findLikelyDuplicates(patient));
+    }
+
+    /**
+     * Start a background scan of all patients that fills the merge worklist.
+     */
+    @PostMapping("/duplicates/scan")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> scanDuplicates(Authentication authentication) {
+        log.info("Duplicate scan requested by user={}", authentication.getName());
+
+        if (!duplicateScanJob.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.accepted().build();
+    }
+
+    /**
+     * Pending merge candidates, most likely duplicates first.
+     */
+    @GetMapping("/duplicates/worklist")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<PatientMergeCandidate>> duplicateWorklist(@PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(mergeCandidateRepository.findByStatusOrderByProbabilityDesc(
+            "PENDING", pageable));
+    }
+
+    /**
+     * Get patient by ID with ETag support, so the gateway cache can revalidate cheaply.
      */
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('DOCTOR') or hasRole('NURSE') or hasRole('ADMIN')")
-    public ResponseEntity<Patient> getPatient(@PathVariable String id, Authentication authentication) {
+    public ResponseEntity<Patient> getPatient(@PathVariable String id,
+                                              @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch,
+                                              Authentication authentication) {
         log.info("Get patient id={} by user={}", id, authentication.getName());
 
         return patientRepository.findById(id)
             .filter(p -> !p.getDeleted())
             .map(patient -> {
-                // Audit
+                // Audit (revalidations are reads too)
                 auditService.logEvent(AuditEvent.builder()
                     .userId(authentication.getName())
                     .userRole(extractRole(authentication))
@@ -84,8 +171,12 @@ public class PatientController {
                     .resourceId(id)
                     .eventTimestamp(Instant.now())
                     .build());
-                
-                return ResponseEntity.ok(patient);
+
+                String etag = "\"" + patient.getVersion() + "\"";
+                if (etag.equals(ifNoneMatch)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, etag).<Patient>build();
+                }
+                return ResponseEntity.ok().header(HttpHeaders.ETAG, etag).body(patient);
             })
             .orElse(ResponseEntity.notFound().build());
     }
@@ -100,13 +191,7 @@ public class PatientController {
         log.info("Create patient mrn={} by user={}", patient.getMrn(), authentication.getName());
 
         // Check for duplicates
-        if (patient.getMrn() != null && patientRepository.findByMrn(patient.getMrn()).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        }
-        if (patient.getNin() != null && patientRepository.findByNin(patient.getNin()).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        }
-        if (patient.getPrimaryPhone() != null && patientRepository.findByPrimaryPhone(patient.getPrimaryPhone()).isPresent()) {
+        if (duplicateDetectionService.hasIdentifierConflict(patient)) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
 
@@ -123,6 +208,7 @@ public class PatientController {
             .resourceId(saved.getId())
             .eventTimestamp(Instant.now())
             .build());
+        entityChangePublisher.publish("Patient", saved.getId(), "CREATE");
 
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
@@ -180,6 +266,7 @@ public class PatientController {
                     .resourceId(id)
                     .eventTimestamp(Instant.now())
                     .build());
+                entityChangePublisher.publish("Patient", id, "UPDATE");
 
                 return ResponseEntity.ok(saved);
             })
@@ -217,6 +304,7 @@ public class PatientController {
                     .eventDetails("Reason: " + reason)
                     .eventTimestamp(Instant.now())
                     .build());
+                entityChangePublisher.publish("Patient", id, "DELETE");
 
                 return ResponseEntity.ok().<Void>build();
             })
@@ -0,0 +1,59 @@
+package ng.osun.his.coreemr.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.security.PhiKeyRing;
+import ng.osun.his.platform.security.PhiReencryptionJob;
+import ng.osun.his.platform.security.PhiReencryptionStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * PHI data key rotation and background re-encryption.
+ */
+@RestController
+@RequestMapping("/api/emr/admin/phi-keys")
+@RequiredArgsConstructor
+@Slf4j
+public class PhiKeyController {
+
+    private final PhiKeyRing keyRing;
+    private final PhiReencryptionJob reencryptionJob;
+
+    /**
+     * Rotate to a new data key and start re-encrypting existing PHI under it.
+     */
+    @PostMapping("/rotate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PhiReencryptionStatus> rotate(Authentication authentication) {
+        if (reencryptionJob.status().isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reencryptionJob.status());
+        }
+        int version = keyRing.rotate();
+        log.info("PHI key rotated to version {} by user={}", version, authentication.getName());
+        reencryptionJob.start();
+        return ResponseEntity.accepted().body(reencryptionJob.status());
+    }
+
+    /**
+     * Start (or resume) re-encryption to the active key version without rotating.
+     */
+    @PostMapping("/reencrypt")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PhiReencryptionStatus> reencrypt(Authentication authentication) {
+        log.info("PHI re-encryption requested by user={}", authentication.getName());
+        if (!reencryptionJob.start()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reencryptionJob.status());
+        }
+        return ResponseEntity.accepted().body(reencryptionJob.status());
+    }
+
+    @GetMapping("/reencrypt")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PhiReencryptionStatus> status() {
+        return ResponseEntity.ok(reencryptionJob.status());
+    }
+}
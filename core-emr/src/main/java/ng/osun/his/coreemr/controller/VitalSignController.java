@@ -0,0 +1,102 @@
+package ng.osun.his.coreemr.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.coreemr.domain.Encounter;
+import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.domain.VitalSign;
+import ng.osun.his.coreemr.ews.EarlyWarningEngine;
+import ng.osun.his.coreemr.ews.News2Assessment;
+import ng.osun.his.coreemr.repository.EncounterRepository;
+import ng.osun.his.coreemr.repository.PatientRepository;
+import ng.osun.his.coreemr.repository.VitalSignRepository;
+import ng.osun.his.platform.events.VitalSignObservation;
+import ng.osun.his.platform.events.VitalSignObservationPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Bedside observations and the patient's current early-warning score.
+ */
+@RestController
+@RequestMapping("/api/emr/vitals")
+@RequiredArgsConstructor
+@Slf4j
+public class VitalSignController {
+
+    private final VitalSignRepository vitalSignRepository;
+    private final PatientRepository patientRepository;
+    private final EncounterRepository encounterRepository;
+    private final VitalSignObservationPublisher observationPublisher;
+    private final EarlyWarningEngine earlyWarningEngine;
+
+    /**
+     * Record a set of observations; they are scored asynchronously once committed.
+     */
+    @PostMapping("/patient/{patientId}")
+    @PreAuthorize("hasRole('NURSE') or hasRole('DOCTOR')")
+    @Transactional
+    public ResponseEntity<VitalSign> recordVitals(@PathVariable String patientId,
+                                                  @RequestParam(required = false) String encounterId,
+                                                  @RequestBody VitalSign vitalSign,
+                                                  Authentication authentication) {
+        Optional<Patient> patient = patientRepository.findById(patientId);
+        if (patient.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        vitalSign.setPatient(patient.get());
+        if (encounterId != null) {
+            Optional<Encounter> encounter = encounterRepository.findById(encounterId);
+            if (encounter.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            vitalSign.setEncounter(encounter.get());
+        }
+        if (vitalSign.getTakenAt() == null) {
+            vitalSign.setTakenAt(Instant.now());
+        }
+        vitalSign.setTakenBy(authentication.getName());
+
+        VitalSign saved = vitalSignRepository.save(vitalSign);
+        observationPublisher.publish(toObservation(saved, patientId, encounterId));
+        log.info("Recorded vital signs {} for patient {} by user={}", saved.getId(), patientId, authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    /**
+     * Current NEWS2 for the patient, as held by this replica's early-warning engine.
+     */
+    @GetMapping("/patient/{patientId}/early-warning")
+    @PreAuthorize("hasRole('NURSE') or hasRole('DOCTOR') or hasRole('ADMIN')")
+    public ResponseEntity<News2Assessment> getEarlyWarning(@PathVariable String patientId) {
+        return earlyWarningEngine.assessment(patientId)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static VitalSignObservation toObservation(VitalSign vitalSign, String patientId, String encounterId) {
+        VitalSignObservation observation = new VitalSignObservation();
+        observation.setObservationId(vitalSign.getId());
+        observation.setPatientId(patientId);
+        observation.setEncounterId(encounterId);
+        observation.setSource(VitalSignObservation.SOURCE_VITAL_SIGN);
+        observation.setTakenAt(vitalSign.getTakenAt());
+        observation.setRespiratoryRate(vitalSign.getRespiratoryRate());
+        observation.setSpo2(vitalSign.getSpo2());
+        observation.setSupplementalOxygen(vitalSign.getSupplementalOxygen());
+        observation.setSystolicBp(vitalSign.getSystolicBp());
+        observation.setHeartRate(vitalSign.getHeartRate());
+        observation.setConsciousnessLevel(vitalSign.getConsciousnessLevel());
+        if (vitalSign.getTemperatureCelsius() != null) {
+            observation.setTemperatureCelsius(vitalSign.getTemperatureCelsius().doubleValue());
+        }
+        return observation;
+    }
+}
@@ -0,0 +1,24 @@
+package ng.osun.his.coreemr.dedup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A likely duplicate of a patient, with match weight, probability and the fields that agreed.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DuplicateCandidate {
+
+    private String patientId;
+    private String mrn;
+    private String displayName;
+    private double score;
+    private double probability;
+    private boolean identifierMatch;
+    private List<String> reasons;
+}
@@ -0,0 +1,94 @@
+package ng.osun.his.coreemr.dedup;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.repository.PatientRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Registration-time duplicate detection: one indexed candidate query over identifier and
+ * phonetic blocking keys, then probabilistic scoring of each candidate.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DuplicateDetectionService {
+
+    static final int MAX_CANDIDATES = 50;
+
+    // Matches nothing: blocking keys are never "-"
+    private static final String NO_MATCH = "-";
+
+    private final PatientRepository patientRepository;
+
+    /**
+     * Ranked likely duplicates of a (possibly unsaved) patient, best match first.
+     */
+    public List<DuplicateCandidate> findLikelyDuplicates(Patient patient) {
+        PatientRecord probe = PatientRecord.from(patient);
+        List<DuplicateCandidate> result = new ArrayList<>();
+
+        for (Patient candidate : loadCandidates(probe)) {
+            if (candidate.getId() != null && candidate.getId().equals(probe.getId())) {
+                continue;
+            }
+            DuplicateScorer.Result score = DuplicateScorer.score(probe, PatientRecord.from(candidate));
+            if (score.isLikelyDuplicate()) {
+                result.add(new DuplicateCandidate(
+                    candidate.getId(),
+                    candidate.getMrn(),
+                    candidate.getFirstName() + " " + candidate.getLastName(),
+                    score.getScore(),
+                    score.getProbability(),
+                    score.isIdentifierMatch(),
+                    score.getReasons()));
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(DuplicateCandidate::getScore).reversed());
+        return result;
+    }
+
+    /**
+     * Whether another patient already holds this MRN, NIN or phone number.
+     */
+    public boolean hasIdentifierConflict(Patient patient) {
+        PatientRecord probe = PatientRecord.from(patient);
+        for (Patient candidate : loadCandidates(probe)) {
+            if (candidate.getId() != null && candidate.getId().equals(probe.getId())) {
+                continue;
+            }
+            if (equal(probe.getMrn(), candidate.getMrn())
+                    || equal(probe.getNin(), candidate.getNin())
+                    || equal(probe.getPhoneDigits(), candidate.getPhoneDigits())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Patient> loadCandidates(PatientRecord probe) {
+        return patientRepository.findDuplicateCandidates(
+            orNoMatch(probe.getMrn()),
+            orNoMatch(probe.getNin()),
+            orNoMatch(probe.getPhoneDigits()),
+            orNoMatch(probe.getPhoneticFirst()),
+            orNoMatch(probe.getPhoneticLast()),
+            probe.getDateOfBirth(),
+            PageRequest.of(0, MAX_CANDIDATES));
+    }
+
+    private static String orNoMatch(String value) {
+        return value == null || value.isEmpty() ? NO_MATCH : value;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a != null && !a.isEmpty() && a.equals(b);
+    }
+}
@@ -0,0 +1,260 @@
+package ng.osun.his.coreemr.dedup;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Whole-table duplicate scan that builds the patient merge worklist.
+ * For each blocking key the patients table is streamed once, sorted by that key, through a
+ * server-side cursor; each block of patients sharing a key is scored pairwise on a worker
+ * pool sized to the available cores. Likely duplicate pairs are inserted in JDBC batches,
+ * skipping pairs already on the worklist.
+ */
+@Service
+@Slf4j
+public class DuplicateScanJob {
+
+    private static final String[] BLOCKING_KEYS = {
+        "phonetic_last || '|' || phonetic_first",
+        "phone_digits",
+        "CAST(date_of_birth AS VARCHAR) || '|' || phonetic_last",
+        "CAST(date_of_birth AS VARCHAR) || '|' || phonetic_first"
+    };
+
+    private static final String INSERT_SQL =
+        "INSERT INTO patient_merge_candidates"
+        + " (id, patient_id_a, patient_id_b, score, probability, reasons, status,"
+        + "  created_at, updated_at, created_by, version)"
+        + " VALUES (?, ?, ?, ?, ?, ?, 'PENDING', ?, ?, 'duplicate-scan', 0)"
+        + " ON CONFLICT (patient_id_a, patient_id_b) DO NOTHING";
+
+    static final int FETCH_SIZE = 1000;
+    static final int INSERT_BATCH = 500;
+    // Blocks larger than this (very common surnames) are compared within a sliding window only
+    static final int MAX_BLOCK = 500;
+    static final int WINDOW = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "duplicate-scan");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DuplicateScanJob(DataSource dataSource,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${dedup.scan.workers:0}") int workers) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Start a scan in the background. Returns false if one is already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        launcher.execute(() -> {
+            try {
+                run();
+            } catch (RuntimeException e) {
+                log.error("Duplicate scan failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Run a full scan on the calling thread and return the number of likely duplicate pairs found.
+     */
+    public int run() {
+        long started = System.currentTimeMillis();
+        ConcurrentMap<String, Pair> found = new ConcurrentHashMap<>();
+        AtomicLong comparisons = new AtomicLong();
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            for (String blockingKey : BLOCKING_KEYS) {
+                long rows = streamBlocks(blockingKey,
+                    block -> pool.execute(() -> compareBlock(block, found, comparisons)));
+                log.info("Duplicate scan streamed {} patients for block key [{}]", rows, blockingKey);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        awaitTermination(pool);
+
+        insert(new ArrayList<>(found.values()));
+
+        log.info("Duplicate scan finished: {} comparisons, {} likely duplicate pairs in {} ms",
+            comparisons.get(), found.size(), System.currentTimeMillis() - started);
+        return found.size();
+    }
+
+    private long streamBlocks(String blockingKey, Consumer<List<PatientRecord>> sink) {
+        String sql = "SELECT id, mrn, nin, search_first, search_last, phonetic_first, phonetic_last,"
+            + " date_of_birth, gender, phone_digits, lga, " + blockingKey + " AS block_key"
+            + " FROM patients"
+            + " WHERE deleted = false AND " + blockingKey + " IS NOT NULL AND " + blockingKey + " <> ''"
+            + " ORDER BY block_key, id";
+
+        BlockCollector collector = new BlockCollector(sink);
+        readOnlyTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(sql, collector);
+            collector.flush();
+        });
+        return collector.rows;
+    }
+
+    private void compareBlock(List<PatientRecord> block, ConcurrentMap<String, Pair> found, AtomicLong comparisons) {
+        int window = block.size() > MAX_BLOCK ? WINDOW : block.size();
+        long compared = 0;
+        for (int i = 0; i < block.size(); i++) {
+            int end = Math.min(block.size(), i + 1 + window);
+            for (int j = i + 1; j < end; j++) {
+                PatientRecord a = block.get(i);
+                PatientRecord b = block.get(j);
+                compared++;
+
+                String pairKey = a.getId().compareTo(b.getId()) < 0
+                    ? a.getId() + "|" + b.getId()
+                    : b.getId() + "|" + a.getId();
+                if (found.containsKey(pairKey)) {
+                    continue;
+                }
+                DuplicateScorer.Result result = DuplicateScorer.score(a, b);
+                if (result.isLikelyDuplicate()) {
+                    found.putIfAbsent(pairKey, new Pair(pairKey, result));
+                }
+            }
+        }
+        comparisons.addAndGet(compared);
+    }
+
+    private void insert(List<Pair> pairs) {
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, pairs, INSERT_BATCH, (ps, pair) -> {
+            String[] ids = pair.key.split("\\|");
+            String reasons = String.join(",", pair.result.getReasons());
+            ps.setString(1, TimeOrderedIds.next());
+            ps.setString(2, ids[0]);
+            ps.setString(3, ids[1]);
+            ps.setBigDecimal(4, BigDecimal.valueOf(pair.result.getScore()).setScale(2, RoundingMode.HALF_UP));
+            ps.setBigDecimal(5, BigDecimal.valueOf(pair.result.getProbability()).setScale(4, RoundingMode.HALF_UP));
+            ps.setString(6, reasons.length() > 200 ? reasons.substring(0, 200) : reasons);
+            ps.setTimestamp(7, now);
+            ps.setTimestamp(8, now);
+        });
+    }
+
+    private static PatientRecord toRecord(ResultSet rs) throws SQLException {
+        Date dateOfBirth = rs.getDate("date_of_birth");
+        return new PatientRecord(
+            rs.getString("id"),
+            rs.getString("mrn"),
+            rs.getString("nin"),
+            rs.getString("search_first"),
+            null,
+            rs.getString("search_last"),
+            rs.getString("phonetic_first"),
+            rs.getString("phonetic_last"),
+            dateOfBirth != null ? dateOfBirth.toLocalDate() : null,
+            rs.getString("gender"),
+            rs.getString("phone_digits"),
+            rs.getString("lga"));
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("Duplicate scan still comparing blocks...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Groups consecutive rows with the same block key; rows arrive sorted by key.
+     */
+    private static final class BlockCollector implements RowCallbackHandler {
+        private final Consumer<List<PatientRecord>> sink;
+        private String currentKey;
+        private List<PatientRecord> block = new ArrayList<>();
+        private long rows;
+
+        private BlockCollector(Consumer<List<PatientRecord>> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String key = rs.getString("block_key");
+            if (!key.equals(currentKey)) {
+                flush();
+                currentKey = key;
+            }
+            block.add(toRecord(rs));
+            rows++;
+        }
+
+        private void flush() {
+            if (block.size() > 1) {
+                sink.accept(block);
+            }
+            block = new ArrayList<>();
+        }
+    }
+
+    private static final class Pair {
+        private final String key;
+        private final DuplicateScorer.Result result;
+
+        private Pair(String key, DuplicateScorer.Result result) {
+            this.key = key;
+            this.result = result;
+        }
+    }
+}
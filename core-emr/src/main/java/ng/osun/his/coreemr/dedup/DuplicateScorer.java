@@ -0,0 +1,148 @@
+package ng.osun.his.coreemr.dedup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Probabilistic (Fellegi-Sunter style) record-pair scorer.
+ * Each field adds its log2 likelihood ratio for agreement or disagreement; the sum is
+ * converted to a match probability against a prior of one duplicate per
+ * {@link #PRIOR_NON_MATCHES} random pairs within a block.
+ */
+public final class DuplicateScorer {
+
+    static final double PRIOR_NON_MATCHES = 1000.0;
+    static final double LIKELY_DUPLICATE = 0.5;
+
+    private DuplicateScorer() {
+        // Utility class
+    }
+
+    public static Result score(PatientRecord a, PatientRecord b) {
+        double score = 0;
+        List<String> reasons = new ArrayList<>();
+        boolean identifierMatch = false;
+
+        if (present(a.getNin()) && present(b.getNin())) {
+            if (a.getNin().equals(b.getNin())) {
+                score += 12;
+                identifierMatch = true;
+                reasons.add("NIN");
+            } else {
+                score -= 8;
+            }
+        }
+
+        if (present(a.getMrn()) && a.getMrn().equals(b.getMrn())) {
+            score += 12;
+            identifierMatch = true;
+            reasons.add("MRN");
+        }
+
+        if (present(a.getPhoneDigits()) && present(b.getPhoneDigits())) {
+            if (a.getPhoneDigits().equals(b.getPhoneDigits())) {
+                score += 8;
+                identifierMatch = true;
+                reasons.add("PHONE");
+            } else {
+                score -= 1;
+            }
+        }
+
+        if (a.getDateOfBirth() != null && b.getDateOfBirth() != null) {
+            if (a.getDateOfBirth().equals(b.getDateOfBirth())) {
+                score += 6;
+                reasons.add("DOB");
+            } else if (a.getDateOfBirth().getYear() == b.getDateOfBirth().getYear()) {
+                score += 1;
+                reasons.add("BIRTH_YEAR");
+            } else {
+                score -= 4;
+            }
+        }
+
+        double straight = name(a.getLastName(), b.getLastName(), a.getPhoneticLast(), b.getPhoneticLast())
+            + name(a.getFirstName(), b.getFirstName(), a.getPhoneticFirst(), b.getPhoneticFirst());
+        double swapped = name(a.getLastName(), b.getFirstName(), a.getPhoneticLast(), b.getPhoneticFirst())
+            + name(a.getFirstName(), b.getLastName(), a.getPhoneticFirst(), b.getPhoneticLast());
+        if (swapped > straight) {
+            score += swapped - 1;
+            reasons.add("NAME_SWAPPED");
+        } else {
+            score += straight;
+        }
+        if (Math.max(straight, swapped) >= 6) {
+            reasons.add("NAME");
+        }
+
+        if (present(a.getGender()) && present(b.getGender())) {
+            score += a.getGender().equalsIgnoreCase(b.getGender()) ? 1 : -4;
+        }
+
+        if (present(a.getLga()) && a.getLga().equalsIgnoreCase(b.getLga())) {
+            score += 1.5;
+            reasons.add("LGA");
+        }
+
+        double odds = Math.pow(2, score) / PRIOR_NON_MATCHES;
+        return new Result(score, odds / (1 + odds), identifierMatch, reasons);
+    }
+
+    /**
+     * Weight for one name field: close Jaro-Winkler or equal phonetic keys agree.
+     */
+    private static double name(String a, String b, String phoneticA, String phoneticB) {
+        if (!present(a) || !present(b)) {
+            return 0;
+        }
+        double similarity = JaroWinkler.similarity(a, b);
+        if (similarity >= 0.95) {
+            return 5;
+        }
+        if (similarity >= 0.88) {
+            return 3.5;
+        }
+        if (present(phoneticA) && phoneticA.equals(phoneticB)) {
+            return 2.5;
+        }
+        return similarity >= 0.75 ? 0 : -3;
+    }
+
+    private static boolean present(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    public static final class Result {
+        private final double score;
+        private final double probability;
+        private final boolean identifierMatch;
+        private final List<String> reasons;
+
+        Result(double score, double probability, boolean identifierMatch, List<String> reasons) {
+            this.score = score;
+            this.probability = probability;
+            this.identifierMatch = identifierMatch;
+            this.reasons = reasons;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public double getProbability() {
+            return probability;
+        }
+
+        public boolean isIdentifierMatch() {
+            return identifierMatch;
+        }
+
+        public List<String> getReasons() {
+            return reasons;
+        }
+
+        public boolean isLikelyDuplicate() {
+            return identifierMatch || probability >= LIKELY_DUPLICATE;
+        }
+    }
+}
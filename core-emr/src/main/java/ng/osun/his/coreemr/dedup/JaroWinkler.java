@@ -0,0 +1,69 @@
+package ng.osun.his.coreemr.dedup;
+
+/**
+ * Jaro-Winkler string similarity (0..1), favouring strings that share a prefix.
+ */
+public final class JaroWinkler {
+
+    private static final double PREFIX_SCALE = 0.1;
+    private static final int MAX_PREFIX = 4;
+
+    private JaroWinkler() {
+        // Utility class
+    }
+
+    public static double similarity(String a, String b) {
+        if (a == null || b == null || a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        if (a.equals(b)) {
+            return 1.0;
+        }
+
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            int from = Math.max(0, i - window);
+            int to = Math.min(b.length() - 1, i + window);
+            for (int j = from; j <= to; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < a.length(); i++) {
+            if (!aMatched[i]) {
+                continue;
+            }
+            while (!bMatched[k]) {
+                k++;
+            }
+            if (a.charAt(i) != b.charAt(k)) {
+                transpositions++;
+            }
+            k++;
+        }
+
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        int limit = Math.min(MAX_PREFIX, Math.min(a.length(), b.length()));
+        while (prefix < limit && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * PREFIX_SCALE * (1.0 - jaro);
+    }
+}
@@ -0,0 +1,47 @@
+package ng.osun.his.coreemr.dedup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.search.PatientSearchNormalizer;
+
+import java.time.LocalDate;
+
+/**
+ * Lightweight, pre-normalized view of a patient used for duplicate scoring.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientRecord {
+
+    private String id;
+    private String mrn;
+    private String nin;
+    private String firstName;  // normalized
+    private String middleName; // normalized
+    private String lastName;   // normalized
+    private String phoneticFirst;
+    private String phoneticLast;
+    private LocalDate dateOfBirth;
+    private String gender;
+    private String phoneDigits;
+    private String lga;
+
+    public static PatientRecord from(Patient patient) {
+        return new PatientRecord(
+            patient.getId(),
+            patient.getMrn(),
+            patient.getNin(),
+            PatientSearchNormalizer.normalizeName(patient.getFirstName()),
+            PatientSearchNormalizer.normalizeName(patient.getMiddleName()),
+            PatientSearchNormalizer.normalizeName(patient.getLastName()),
+            YorubaPhonetic.encode(patient.getFirstName()),
+            YorubaPhonetic.encode(patient.getLastName()),
+            patient.getDateOfBirth(),
+            patient.getGender(),
+            PatientSearchNormalizer.phoneDigits(patient.getPrimaryPhone()),
+            patient.getLga());
+    }
+}
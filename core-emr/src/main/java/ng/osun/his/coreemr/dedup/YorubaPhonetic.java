@@ -0,0 +1,56 @@
+package ng.osun.his.coreemr.dedup;
+
+import ng.osun.his.coreemr.search.PatientSearchNormalizer;
+
+/**
+ * Phonetic key for blocking duplicate-patient candidates, tuned for Yoruba names.
+ * Builds on the search normalizer (tone marks and under-dots stripped, "sh" folded to "s"),
+ * treats "Oluwa-" and "Olu-" as the same prefix, maps letters Yoruba orthography does not use
+ * (c, q, v, x, z) onto their nearest sounds, then keeps the first letter plus the consonant
+ * skeleton, since vowel spellings vary most between registrations.
+ */
+public final class YorubaPhonetic {
+
+    static final int MAX_LENGTH = 8;
+
+    private YorubaPhonetic() {
+        // Utility class
+    }
+
+    public static String encode(String name) {
+        String n = PatientSearchNormalizer.normalizeName(name).replace(" ", "");
+        if (n.isEmpty()) {
+            return "";
+        }
+        if (n.startsWith("oluwa")) {
+            n = "olu" + n.substring(5);
+        }
+        n = n.replace("ph", "f")
+            .replace("kp", "p")
+            .replace("ck", "k")
+            .replace("x", "ks")
+            .replace('c', 'k')
+            .replace('q', 'k')
+            .replace('v', 'f')
+            .replace('z', 's');
+
+        StringBuilder key = new StringBuilder(MAX_LENGTH);
+        key.append(n.charAt(0));
+        char last = n.charAt(0);
+        for (int i = 1; i < n.length() && key.length() < MAX_LENGTH; i++) {
+            char c = n.charAt(i);
+            if (isVowel(c) || c == 'h') {
+                continue;
+            }
+            if (c != last) {
+                key.append(c);
+                last = c;
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean isVowel(char c) {
+        return c == 'a' || c == 'e' || c == 'i' || c == 'o' || c == 'u';
+    }
+}
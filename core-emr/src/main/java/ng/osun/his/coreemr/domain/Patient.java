@@ -1,6 +1,9 @@
 package ng.osun.his.coreemr.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
+import ng.osun.his.coreemr.dedup.YorubaPhonetic;
+import ng.osun.his.coreemr.search.PatientSearchNormalizer;
 import ng.osun.his.platform.domain.BaseEntity;
 import ng.osun.his.platform.domain.FacilityContext;
 
@@ -128,6 +131,45 @@ public class Patient extends BaseEntity {
 
     @Column(name = "deletion_reason")
     private String deletionReason;
+
+    // Normalized search keys, maintained on every insert/update
+    @JsonIgnore
+    @Column(name = "search_first", length = 100)
+    private String searchFirst;
+
+    @JsonIgnore
+    @Column(name = "search_last", length = 100)
+    private String searchLast;
+
+    @JsonIgnore
+    @Column(name = "search_name", length = 300)
+    private String searchName;
+
+    @JsonIgnore
+    @Column(name = "phone_digits", length = 20)
+    private String phoneDigits;
+
+    @JsonIgnore
+    @Column(name = "phonetic_first", length = 20)
+    private String phoneticFirst;
+
+    @JsonIgnore
+    @Column(name = "phonetic_last", length = 20)
+    private String phoneticLast;
+
+    /**
+     * Recompute normalized search keys from the current name and phone.
+     */
+    @PrePersist
+    @PreUpdate
+    public void refreshSearchKeys() {
+        this.searchFirst = PatientSearchNormalizer.normalizeName(firstName);
+        this.searchLast = PatientSearchNormalizer.normalizeName(lastName);
+        this.searchName = PatientSearchNormalizer.fullName(firstName, middleName, lastName);
+        this.phoneDigits = PatientSearchNormalizer.phoneDigits(primaryPhone);
+        this.phoneticFirst = YorubaPhonetic.encode(firstName);
+        this.phoneticLast = YorubaPhonetic.encode(lastName);
+    }
     
     // Explicit getter/setter for Lombok compatibility
     public void setDeletedReason(String reason) {
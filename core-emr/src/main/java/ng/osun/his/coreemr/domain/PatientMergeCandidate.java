@@ -0,0 +1,48 @@
+package ng.osun.his.coreemr.domain;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import ng.osun.his.platform.domain.BaseEntity;
+
+import java.math.BigDecimal;
+
+/**
+ * Likely duplicate pair found by the batch duplicate scan, awaiting records-officer review.
+ */
+@Entity
+@Table(name = "patient_merge_candidates", indexes = {
+    @Index(name = "idx_merge_candidates_status", columnList = "status, probability")
+})
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientMergeCandidate extends BaseEntity {
+
+    @Column(name = "patient_id_a", nullable = false, length = 36)
+    private String patientIdA;
+
+    @Column(name = "patient_id_b", nullable = false, length = 36)
+    private String patientIdB;
+
+    @Column(name = "score", nullable = false, precision = 6, scale = 2)
+    private BigDecimal score;
+
+    @Column(name = "probability", nullable = false, precision = 5, scale = 4)
+    private BigDecimal probability;
+
+    @Column(name = "reasons", length = 200)
+    private String reasons; // comma-separated agreeing fields
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status; // PENDING, MERGED, NOT_DUPLICATE
+
+    @Column(name = "reviewed_by", length = 100)
+    private String reviewedBy;
+
+    @Column(name = "reviewed_at")
+    private java.time.Instant reviewedAt;
+}
@@ -15,7 +15,8 @@ import java.math.BigDecimal;
 @Entity
 @Table(name = "vital_signs", indexes = {
     @Index(name = "idx_vitals_encounter", columnList = "encounter_id"),
-    @Index(name = "idx_vitals_patient", columnList = "patient_id")
+    @Index(name = "idx_vitals_patient", columnList = "patient_id"),
+    @Index(name = "idx_vitals_taken_at_patient", columnList = "taken_at, patient_id")
 })
 @Data
 @EqualsAndHashCode(callSuper = true)
@@ -49,6 +50,12 @@ public class VitalSign extends BaseEntity {
     @Column(name = "spo2")
     private Integer spo2; // Oxygen saturation
 
+    @Column(name = "supplemental_oxygen")
+    private Boolean supplementalOxygen;
+
+    @Column(name = "consciousness_level", length = 20)
+    private String consciousnessLevel; // ALERT, CONFUSION, VOICE, PAIN, UNRESPONSIVE
+
     @Column(name = "weight_kg", precision = 5, scale = 2)
     private BigDecimal weightKg;
 
@@ -0,0 +1,198 @@
+package ng.osun.his.coreemr.ews;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.VitalSignObservation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Incremental NEWS2 over the observation stream. Each patient has a small
+ * {@link PatientWarningState}; an observation rescores only that patient, in constant time, so
+ * throughput is bounded by the consumer rather than the scoring (an inpatient observed every
+ * 15 minutes is ~100 observations a day).
+ * <p>
+ * A patient whose score enters a higher band than their previous one (from low-medium up), or
+ * rises by at least {@code ews.trend-escalation-delta} points in one observation, is escalated
+ * on {@code ews.escalations}. A patient's first observation is compared against a score of 0
+ * (band NONE), so a patient who is already deteriorating when first observed is escalated too.
+ * Patients with no observations for {@code ews.idle-evict-hours} (discharged, transferred) are
+ * dropped, as are patients whose stream partition moves to another replica.
+ */
+@Component
+@Slf4j
+public class EarlyWarningEngine {
+
+    public static final String ESCALATIONS_TOPIC = "ews.escalations";
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final ConcurrentMap<String, PatientWarningState> patients = new ConcurrentHashMap<>();
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final int historySize;
+    private final long maxAgeMillis;
+    private final int trendEscalationDelta;
+    private final long idleEvictNanos;
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime() + SWEEP_INTERVAL_NANOS);
+
+    private final MeterRegistry meterRegistry;
+    private final Counter observations;
+    private final Counter outOfOrder;
+    private final Timer scoreTimer;
+
+    public EarlyWarningEngine(KafkaTemplate<String, String> kafkaTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${ews.history-size:8}") int historySize,
+                              @Value("${ews.parameter-max-age-minutes:240}") long maxAgeMinutes,
+                              @Value("${ews.trend-escalation-delta:2}") int trendEscalationDelta,
+                              @Value("${ews.idle-evict-hours:72}") long idleEvictHours) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.historySize = Math.max(2, historySize);
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+        this.trendEscalationDelta = trendEscalationDelta;
+        this.idleEvictNanos = TimeUnit.HOURS.toNanos(idleEvictHours);
+        this.meterRegistry = meterRegistry;
+        this.observations = meterRegistry.counter("ews.observations");
+        this.outOfOrder = meterRegistry.counter("ews.observations.out_of_order");
+        this.scoreTimer = meterRegistry.timer("ews.score");
+        meterRegistry.gaugeMapSize("ews.patients", Tags.empty(), patients);
+    }
+
+    /**
+     * Fold one observation into the patient's state.
+     *
+     * @param escalate false while replaying history, so old deteriorations are not re-announced
+     * @return the patient's new assessment, empty if the observation was older than their latest
+     */
+    public Optional<News2Assessment> apply(VitalSignObservation observation, boolean escalate) {
+        if (observation.getPatientId() == null || observation.getTakenAt() == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        PatientWarningState state = patients.computeIfAbsent(observation.getPatientId(),
+            id -> new PatientWarningState(id, historySize));
+
+        News2Assessment previous;
+        News2Assessment current;
+        synchronized (state) {
+            previous = state.getAssessment();
+            current = state.apply(observation, maxAgeMillis);
+            state.touch(start);
+        }
+        observations.increment();
+        scoreTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (current == null) {
+            outOfOrder.increment();
+        } else if (escalate) {
+            escalateIfWorse(previous, current);
+        }
+        evictIdle(start);
+        return Optional.ofNullable(current);
+    }
+
+    public Optional<News2Assessment> assessment(String patientId) {
+        PatientWarningState state = patients.get(patientId);
+        if (state == null) {
+            return Optional.empty();
+        }
+        synchronized (state) {
+            return Optional.ofNullable(state.getAssessment());
+        }
+    }
+
+    public int patientCount() {
+        return patients.size();
+    }
+
+    /**
+     * Drop the state of matching patients, e.g. those whose partition this replica no longer owns.
+     */
+    public int evict(Predicate<String> patientId) {
+        int before = patients.size();
+        patients.keySet().removeIf(patientId);
+        return before - patients.size();
+    }
+
+    /**
+     * @param previous the patient's assessment before this observation, null on their first
+     */
+    private void escalateIfWorse(News2Assessment previous, News2Assessment current) {
+        int previousScore = previous != null ? previous.getScore() : 0;
+        String previousBand = previous != null ? previous.getBand() : News2Assessment.NONE;
+        String reason = null;
+        int rank = News2Scorer.rank(current.getBand());
+        if (rank > News2Scorer.rank(previousBand) && rank >= News2Scorer.rank(News2Assessment.LOW_MEDIUM)) {
+            reason = News2Escalation.REASON_BAND;
+        } else if (current.getScore() - previousScore >= trendEscalationDelta) {
+            reason = News2Escalation.REASON_RISE;
+        }
+        if (reason == null) {
+            return;
+        }
+
+        News2Escalation escalation = new News2Escalation();
+        escalation.setPatientId(current.getPatientId());
+        escalation.setEncounterId(current.getEncounterId());
+        escalation.setReason(reason);
+        escalation.setScore(current.getScore());
+        escalation.setPreviousScore(previousScore);
+        escalation.setBand(current.getBand());
+        escalation.setPreviousBand(previousBand);
+        escalation.setTrendPerHour(current.getTrendPerHour());
+        escalation.setComplete(current.isComplete());
+        escalation.setObservedAt(current.getObservedAt());
+
+        meterRegistry.counter("ews.escalations", "band", current.getBand(), "reason", reason).increment();
+        log.info("NEWS2 escalation for patient {}: {} ({}) -> {} ({}), reason {}",
+            current.getPatientId(), previousScore, previousBand,
+            current.getScore(), current.getBand(), reason);
+        publish(escalation);
+    }
+
+    private void publish(News2Escalation escalation) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(escalation);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize escalation for patient {}: {}", escalation.getPatientId(), e.getMessage());
+            return;
+        }
+        kafkaTemplate.send(ESCALATIONS_TOPIC, escalation.getPatientId(), json).addCallback(
+            result -> log.debug("Published escalation for patient {}", escalation.getPatientId()),
+            e -> log.error("Failed to publish escalation for patient {}: {}",
+                escalation.getPatientId(), e.getMessage()));
+    }
+
+    /**
+     * At most every few minutes, on whichever thread gets there first.
+     */
+    private void evictIdle(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        int before = patients.size();
+        patients.values().removeIf(state -> now - state.getLastTouched() > idleEvictNanos);
+        int evicted = before - patients.size();
+        if (evicted > 0) {
+            log.info("Evicted {} idle patients from early-warning state", evicted);
+        }
+    }
+}
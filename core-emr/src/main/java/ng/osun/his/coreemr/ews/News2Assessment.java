@@ -0,0 +1,38 @@
+package ng.osun.his.coreemr.ews;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Current NEWS2 view of one patient: aggregate score, risk band and recent trend.
+ */
+@Data
+@NoArgsConstructor
+public class News2Assessment {
+
+    public static final String NONE = "NONE";
+    public static final String LOW = "LOW";
+    public static final String LOW_MEDIUM = "LOW_MEDIUM";
+    public static final String MEDIUM = "MEDIUM";
+    public static final String HIGH = "HIGH";
+
+    private String patientId;
+    private String encounterId;
+    private int score;
+    private String band;
+
+    /**
+     * False when a parameter is missing or older than {@code ews.parameter-max-age-minutes}.
+     */
+    private boolean complete;
+
+    /**
+     * Least-squares slope of the recent scores, in points per hour.
+     */
+    private double trendPerHour;
+
+    private int[] recentScores;
+    private Instant observedAt;
+}
@@ -0,0 +1,29 @@
+package ng.osun.his.coreemr.ews;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Published on {@code ews.escalations} when a patient's NEWS2 moves into a higher risk band
+ * or jumps by {@code ews.trend-escalation-delta} points between observations.
+ */
+@Data
+@NoArgsConstructor
+public class News2Escalation {
+
+    public static final String REASON_BAND = "BAND";
+    public static final String REASON_RISE = "RISE";
+
+    private String patientId;
+    private String encounterId;
+    private String reason;
+    private int score;
+    private int previousScore;
+    private String band;
+    private String previousBand;
+    private double trendPerHour;
+    private boolean complete;
+    private Instant observedAt;
+}
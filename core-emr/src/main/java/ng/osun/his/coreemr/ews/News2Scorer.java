@@ -0,0 +1,93 @@
+package ng.osun.his.coreemr.ews;
+
+/**
+ * NEWS2 parameter scores (Royal College of Physicians, 2017), SpO2 scale 1.
+ * Each method scores one parameter; the aggregate is their sum.
+ */
+final class News2Scorer {
+
+    static final int RESPIRATION = 0;
+    static final int SPO2 = 1;
+    static final int AIR_OR_OXYGEN = 2;
+    static final int SYSTOLIC_BP = 3;
+    static final int PULSE = 4;
+    static final int CONSCIOUSNESS = 5;
+    static final int TEMPERATURE = 6;
+    static final int PARAMETERS = 7;
+
+    private News2Scorer() {
+    }
+
+    static int respiration(int rate) {
+        if (rate <= 8) return 3;
+        if (rate <= 11) return 1;
+        if (rate <= 20) return 0;
+        if (rate <= 24) return 2;
+        return 3;
+    }
+
+    static int spo2(int saturation) {
+        if (saturation <= 91) return 3;
+        if (saturation <= 93) return 2;
+        if (saturation <= 95) return 1;
+        return 0;
+    }
+
+    static int airOrOxygen(boolean supplementalOxygen) {
+        return supplementalOxygen ? 2 : 0;
+    }
+
+    static int systolicBp(int systolic) {
+        if (systolic <= 90) return 3;
+        if (systolic <= 100) return 2;
+        if (systolic <= 110) return 1;
+        if (systolic <= 219) return 0;
+        return 3;
+    }
+
+    static int pulse(int rate) {
+        if (rate <= 40) return 3;
+        if (rate <= 50) return 1;
+        if (rate <= 90) return 0;
+        if (rate <= 110) return 1;
+        if (rate <= 130) return 2;
+        return 3;
+    }
+
+    /**
+     * ACVPU: anything other than alert (new confusion, voice, pain, unresponsive) scores 3.
+     * Triage's RESPONDS_TO_* spellings are accepted too.
+     */
+    static int consciousness(String level) {
+        return "ALERT".equalsIgnoreCase(level) ? 0 : 3;
+    }
+
+    static int temperature(double celsius) {
+        if (celsius <= 35.0) return 3;
+        if (celsius <= 36.0) return 1;
+        if (celsius <= 38.0) return 0;
+        if (celsius <= 39.0) return 1;
+        return 2;
+    }
+
+    /**
+     * Clinical risk band for an aggregate score and whether any single parameter scored 3.
+     */
+    static String band(int total, boolean anyRedScore) {
+        if (total >= 7) return News2Assessment.HIGH;
+        if (total >= 5) return News2Assessment.MEDIUM;
+        if (anyRedScore) return News2Assessment.LOW_MEDIUM;
+        if (total >= 1) return News2Assessment.LOW;
+        return News2Assessment.NONE;
+    }
+
+    static int rank(String band) {
+        switch (band) {
+            case News2Assessment.HIGH: return 4;
+            case News2Assessment.MEDIUM: return 3;
+            case News2Assessment.LOW_MEDIUM: return 2;
+            case News2Assessment.LOW: return 1;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ng.osun.his.coreemr.ews;
+
+import ng.osun.his.platform.events.VitalSignObservation;
+
+import java.util.Arrays;
+
+/**
+ * Rolling NEWS2 state for one patient: the latest value of each parameter and its score, plus
+ * a ring of the last few aggregate scores for the trend.
+ * <p>
+ * Parameters are merged by observation time, so a late or replayed observation only fills in
+ * parameters it has newer values for, and only observations at or after the latest one extend
+ * the score history. Callers synchronize on the instance.
+ */
+final class PatientWarningState {
+
+    private final String patientId;
+    private final int[] subscores = new int[News2Scorer.PARAMETERS];
+    private final long[] observedAtMillis = new long[News2Scorer.PARAMETERS];
+    private final int[] recentScores;
+    private final long[] recentAtMillis;
+    private int recentCount;
+    private int recentHead;
+
+    private String encounterId;
+    private long latestMillis = Long.MIN_VALUE;
+    private News2Assessment assessment;
+    private volatile long lastTouched;
+
+    PatientWarningState(String patientId, int historySize) {
+        this.patientId = patientId;
+        this.recentScores = new int[historySize];
+        this.recentAtMillis = new long[historySize];
+        Arrays.fill(observedAtMillis, Long.MIN_VALUE);
+    }
+
+    /**
+     * Merge an observation and rescore.
+     *
+     * @param maxAgeMillis parameters older than this, relative to the observation, are left out
+     * @return the new assessment, or null if the observation was older than the latest one
+     */
+    News2Assessment apply(VitalSignObservation observation, long maxAgeMillis) {
+        long at = observation.getTakenAt().toEpochMilli();
+        if (observation.getRespiratoryRate() != null) {
+            merge(News2Scorer.RESPIRATION, at, News2Scorer.respiration(observation.getRespiratoryRate()));
+        }
+        if (observation.getSpo2() != null) {
+            merge(News2Scorer.SPO2, at, News2Scorer.spo2(observation.getSpo2()));
+        }
+        if (observation.getSupplementalOxygen() != null) {
+            merge(News2Scorer.AIR_OR_OXYGEN, at, News2Scorer.airOrOxygen(observation.getSupplementalOxygen()));
+        }
+        if (observation.getSystolicBp() != null) {
+            merge(News2Scorer.SYSTOLIC_BP, at, News2Scorer.systolicBp(observation.getSystolicBp()));
+        }
+        if (observation.getHeartRate() != null) {
+            merge(News2Scorer.PULSE, at, News2Scorer.pulse(observation.getHeartRate()));
+        }
+        if (observation.getConsciousnessLevel() != null) {
+            merge(News2Scorer.CONSCIOUSNESS, at, News2Scorer.consciousness(observation.getConsciousnessLevel()));
+        }
+        if (observation.getTemperatureCelsius() != null) {
+            merge(News2Scorer.TEMPERATURE, at, News2Scorer.temperature(observation.getTemperatureCelsius()));
+        }
+
+        if (at < latestMillis) {
+            return null;
+        }
+        latestMillis = at;
+        if (observation.getEncounterId() != null) {
+            encounterId = observation.getEncounterId();
+        }
+
+        int total = 0;
+        boolean anyRedScore = false;
+        boolean complete = true;
+        for (int i = 0; i < News2Scorer.PARAMETERS; i++) {
+            if (observedAtMillis[i] == Long.MIN_VALUE || at - observedAtMillis[i] > maxAgeMillis) {
+                complete = false;
+                continue;
+            }
+            total += subscores[i];
+            anyRedScore |= subscores[i] == 3;
+        }
+
+        recentScores[recentHead] = total;
+        recentAtMillis[recentHead] = at;
+        recentHead = (recentHead + 1) % recentScores.length;
+        recentCount = Math.min(recentCount + 1, recentScores.length);
+
+        News2Assessment next = new News2Assessment();
+        next.setPatientId(patientId);
+        next.setEncounterId(encounterId);
+        next.setScore(total);
+        next.setBand(News2Scorer.band(total, anyRedScore));
+        next.setComplete(complete);
+        next.setTrendPerHour(trendPerHour());
+        next.setRecentScores(recentScores());
+        next.setObservedAt(observation.getTakenAt());
+        assessment = next;
+        return next;
+    }
+
+    News2Assessment getAssessment() {
+        return assessment;
+    }
+
+    void touch(long now) {
+        lastTouched = now;
+    }
+
+    long getLastTouched() {
+        return lastTouched;
+    }
+
+    private void merge(int parameter, long at, int score) {
+        if (at >= observedAtMillis[parameter]) {
+            observedAtMillis[parameter] = at;
+            subscores[parameter] = score;
+        }
+    }
+
+    /**
+     * Oldest first.
+     */
+    private int[] recentScores() {
+        int[] scores = new int[recentCount];
+        int start = (recentHead - recentCount + recentScores.length) % recentScores.length;
+        for (int i = 0; i < recentCount; i++) {
+            scores[i] = recentScores[(start + i) % recentScores.length];
+        }
+        return scores;
+    }
+
+    /**
+     * Least-squares slope of score against time, in points per hour; zero until there are two
+     * observations at different times.
+     */
+    private double trendPerHour() {
+        if (recentCount < 2) {
+            return 0.0;
+        }
+        long origin = recentAtMillis[(recentHead - recentCount + recentScores.length) % recentScores.length];
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = 0; i < recentCount; i++) {
+            int slot = (recentHead - 1 - i + recentScores.length) % recentScores.length;
+            double hours = (recentAtMillis[slot] - origin) / 3_600_000.0;
+            sumX += hours;
+            sumY += recentScores[slot];
+            sumXY += hours * recentScores[slot];
+            sumXX += hours * hours;
+        }
+        double denominator = recentCount * sumXX - sumX * sumX;
+        return denominator == 0 ? 0.0 : (recentCount * sumXY - sumX * sumY) / denominator;
+    }
+}
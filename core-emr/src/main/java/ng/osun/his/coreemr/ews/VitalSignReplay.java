@@ -0,0 +1,219 @@
+package ng.osun.his.coreemr.ews;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.VitalSignObservation;
+import org.apache.kafka.common.utils.Utils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds early-warning state from the last {@code ews.replay.hours} of vital_signs for the
+ * stream partitions this replica is assigned, so trends survive restarts and partition moves.
+ * <p>
+ * Observations are keyed by patient id, so a patient's stream partition is known from the id
+ * alone. When partitions are newly assigned, the window is replayed for the patients that hash
+ * to them; partitions revoked and not assigned back by the same rebalance have their patients'
+ * state dropped, so a replica only ever holds state for the patients it scores. Replays run one
+ * after another on a background thread and skip rows of partitions revoked meanwhile.
+ * <p>
+ * Within a replay, patients are split into {@code ews.replay.threads} hash partitions, each
+ * streamed through its own server-side cursor in time order; a patient lives in exactly one
+ * partition, so their observations are still applied in order. Replayed observations never
+ * escalate. The live listener runs alongside, and the engine's per-parameter time ordering makes
+ * the overlap safe. Triage observations live in the appointments database and are not replayed.
+ */
+@Component
+@Slf4j
+public class VitalSignReplay {
+
+    private static final String REPLAY_SQL =
+        "SELECT id, patient_id, encounter_id, taken_at, respiratory_rate, spo2, supplemental_oxygen,"
+        + " systolic_bp, heart_rate, consciousness_level, temperature_celsius"
+        + " FROM vital_signs"
+        + " WHERE taken_at >= ? AND (hashtext(patient_id) & 2147483647) % ? = ?"
+        + " ORDER BY taken_at";
+
+    static final int FETCH_SIZE = 1000;
+
+    private final EarlyWarningEngine engine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final Duration window;
+    private final int threads;
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ews-replay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Set<Integer> owned = new HashSet<>();
+    private final Set<Integer> revoking = new HashSet<>();
+    private volatile Set<Integer> ownedSnapshot = Set.of();
+    private volatile int partitionCount;
+
+    public VitalSignReplay(EarlyWarningEngine engine,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${ews.replay.enabled:true}") boolean enabled,
+                           @Value("${ews.replay.hours:24}") long hours,
+                           @Value("${ews.replay.threads:4}") int threads) {
+        this.engine = engine;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.window = Duration.ofHours(hours);
+        this.threads = Math.max(1, threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        launcher.shutdownNow();
+    }
+
+    /**
+     * Stream partitions assigned by a rebalance. Partitions revoked by the same rebalance and not
+     * assigned back lose their patients' state; partitions new to this replica are replayed in
+     * the background; partitions kept keep their state.
+     *
+     * @param partitions total partitions of the observation topic
+     */
+    public synchronized void assigned(Collection<Integer> assigned, int partitions) {
+        Set<Integer> dropped = new HashSet<>(revoking);
+        dropped.removeAll(assigned);
+        Set<Integer> added = new HashSet<>(assigned);
+        added.removeAll(owned);
+        added.removeAll(revoking);
+        revoking.clear();
+        owned.addAll(assigned);
+        ownedSnapshot = Set.copyOf(owned);
+        partitionCount = partitions;
+
+        if (!dropped.isEmpty()) {
+            int evicted = engine.evict(patientId -> dropped.contains(partitionOf(patientId, partitions)));
+            log.info("Dropped early-warning state for {} patients on partitions {} now owned elsewhere",
+                evicted, dropped);
+        }
+        if (enabled && !added.isEmpty()) {
+            launcher.execute(() -> replay(added, partitions));
+        }
+    }
+
+    /**
+     * Stream partitions revoked at the start of a rebalance. Their state is kept until the
+     * rebalance's assignment shows whether they come back.
+     */
+    public synchronized void revoked(Collection<Integer> revoked) {
+        owned.removeAll(revoked);
+        revoking.addAll(revoked);
+        ownedSnapshot = Set.copyOf(owned);
+    }
+
+    /**
+     * Stream partition of a patient's observations: the producer's default partitioner on the
+     * patient id key.
+     */
+    static int partitionOf(String patientId, int partitions) {
+        return Utils.toPositive(Utils.murmur2(patientId.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    /**
+     * Replay the window for the patients on the given stream partitions, on the calling thread,
+     * and return the number of observations applied.
+     */
+    public long replay(Set<Integer> streamPartitions, int partitions) {
+        long started = System.currentTimeMillis();
+        Timestamp since = Timestamp.from(Instant.now().minus(window));
+        AtomicLong applied = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ews-replay-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int partition = 0; partition < threads; partition++) {
+                int p = partition;
+                pool.execute(() -> {
+                    try {
+                        applied.addAndGet(replayPartition(since, p, streamPartitions, partitions));
+                    } catch (RuntimeException e) {
+                        log.error("Early-warning replay of partition {} failed", p, e);
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            pool.awaitTermination(1, TimeUnit.HOURS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+
+        log.info("Early-warning replay of partitions {} applied {} observations, {} patients held, in {} ms",
+            streamPartitions, applied.get(), engine.patientCount(), System.currentTimeMillis() - started);
+        return applied.get();
+    }
+
+    private long replayPartition(Timestamp since, int partition, Set<Integer> streamPartitions, int partitions) {
+        AtomicLong rows = new AtomicLong();
+        readOnlyTransaction.executeWithoutResult(status ->
+            jdbcTemplate.query(REPLAY_SQL, rs -> {
+                int streamPartition = partitionOf(rs.getString("patient_id"), partitions);
+                // Skips patients of other replicas and of partitions revoked since the replay started
+                if (streamPartitions.contains(streamPartition) && ownedSnapshot.contains(streamPartition)) {
+                    engine.apply(toObservation(rs), false);
+                    rows.incrementAndGet();
+                }
+            }, since, threads, partition));
+        return rows.get();
+    }
+
+    private static VitalSignObservation toObservation(ResultSet rs) throws SQLException {
+        VitalSignObservation observation = new VitalSignObservation();
+        observation.setObservationId(rs.getString("id"));
+        observation.setPatientId(rs.getString("patient_id"));
+        observation.setEncounterId(rs.getString("encounter_id"));
+        observation.setSource(VitalSignObservation.SOURCE_VITAL_SIGN);
+        observation.setTakenAt(rs.getTimestamp("taken_at").toInstant());
+        observation.setRespiratoryRate(getInteger(rs, "respiratory_rate"));
+        observation.setSpo2(getInteger(rs, "spo2"));
+        boolean oxygen = rs.getBoolean("supplemental_oxygen");
+        observation.setSupplementalOxygen(rs.wasNull() ? null : oxygen);
+        observation.setSystolicBp(getInteger(rs, "systolic_bp"));
+        observation.setHeartRate(getInteger(rs, "heart_rate"));
+        observation.setConsciousnessLevel(rs.getString("consciousness_level"));
+        BigDecimal temperature = rs.getBigDecimal("temperature_celsius");
+        observation.setTemperatureCelsius(temperature != null ? temperature.doubleValue() : null);
+        return observation;
+    }
+
+    private static Integer getInteger(ResultSet rs, String column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+}
@@ -0,0 +1,63 @@
+package ng.osun.his.coreemr.ews;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.VitalSignObservation;
+import ng.osun.his.platform.events.VitalSignObservationPublisher;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Feeds recorded observations into the {@link EarlyWarningEngine}. Replicas share one consumer
+ * group, so each patient's partition is scored (and escalated) by exactly one replica; partition
+ * assignments drive {@link VitalSignReplay}, so each replica holds state only for its own.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VitalSignStreamListener implements ConsumerSeekAware {
+
+    private final EarlyWarningEngine engine;
+    private final VitalSignReplay replay;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = VitalSignObservationPublisher.VITALS_TOPIC,
+        groupId = "${ews.consumer-group:core-emr-ews}")
+    public void onObservation(String observationJson) {
+        try {
+            engine.apply(objectMapper.readValue(observationJson, VitalSignObservation.class), true);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable observation: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        int partitions = kafkaTemplate.partitionsFor(VitalSignObservationPublisher.VITALS_TOPIC).size();
+        replay.assigned(partitionNumbers(assignments.keySet()), partitions);
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        replay.revoked(partitionNumbers(partitions));
+    }
+
+    private static List<Integer> partitionNumbers(Collection<TopicPartition> partitions) {
+        return partitions.stream()
+            .filter(partition -> VitalSignObservationPublisher.VITALS_TOPIC.equals(partition.topic()))
+            .map(TopicPartition::partition)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,12 @@
+package ng.osun.his.coreemr.repository;
+
+import ng.osun.his.coreemr.domain.PatientMergeCandidate;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PatientMergeCandidateRepository extends JpaRepository<PatientMergeCandidate, String> {
+    Page<PatientMergeCandidate> findByStatusOrderByProbabilityDesc(String status, Pageable pageable);
+}
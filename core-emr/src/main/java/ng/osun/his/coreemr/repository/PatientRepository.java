@@ -1,6 +1,7 @@
 package ng.osun.his.coreemr.repository;
 
 import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.search.PatientSearchHit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +9,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,5 +30,59 @@ public interface PatientRepository extends JpaRepository<Patient, String> {
     Page<Patient> search(@Param("query") String query, Pageable pageable);
     
     List<Patient> findByDeletedFalseAndActiveTrue();
+
+    /**
+     * Ranked search over the normalized search keys (pg_trgm GIN + prefix btree indexes).
+     * Results are ordered by (tier, score desc, id) and paged by keyset after the given row.
+     */
+    @Query(value = "SELECT c.id AS id, c.tier AS tier, c.score AS score FROM ("
+        + " SELECT p.id,"
+        + "  CASE WHEN p.mrn = :raw OR p.nin = :raw OR p.phone_digits = :digits THEN 0"
+        + "       WHEN p.search_last LIKE :prefix OR p.search_first LIKE :prefix THEN 1"
+        + "       ELSE 2 END AS tier,"
+        + "  CAST(ROUND(CAST(similarity(p.search_name, :name) AS numeric), 4) AS numeric(5,4)) AS score"
+        + " FROM patients p"
+        + " WHERE p.deleted = false"
+        + "  AND (p.mrn = :raw OR p.nin = :raw OR p.phone_digits = :digits"
+        + "       OR p.search_last LIKE :prefix OR p.search_first LIKE :prefix"
+        + "       OR p.search_name % :name)"
+        + ") c"
+        + " WHERE c.tier > :afterTier"
+        + "  OR (c.tier = :afterTier AND (c.score < :afterScore OR (c.score = :afterScore AND c.id > :afterId)))"
+        + " ORDER BY c.tier, c.score DESC, c.id"
+        + " LIMIT :limit OFFSET :offset",
+        nativeQuery = true)
+    List<PatientSearchHit> searchRanked(
+        @Param("raw") String raw,
+        @Param("digits") String digits,
+        @Param("prefix") String prefix,
+        @Param("name") String name,
+        @Param("afterTier") int afterTier,
+        @Param("afterScore") BigDecimal afterScore,
+        @Param("afterId") String afterId,
+        @Param("limit") int limit,
+        @Param("offset") int offset);
+
+    List<Patient> findTop500BySearchNameIsNullOrPhoneticLastIsNull();
+
+    /**
+     * Duplicate candidates in one indexed query: exact identifiers, or phonetic name
+     * blocks (surname+DOB, surname+first name, swapped names, first name+DOB).
+     * Identifier matches sort first.
+     */
+    @Query("SELECT p FROM Patient p WHERE p.deleted = false AND ("
+        + " p.mrn = :mrn OR p.nin = :nin OR p.phoneDigits = :phoneDigits"
+        + " OR (p.phoneticLast = :phoneticLast AND (p.dateOfBirth = :dateOfBirth OR p.phoneticFirst = :phoneticFirst))"
+        + " OR (p.phoneticLast = :phoneticFirst AND p.phoneticFirst = :phoneticLast)"
+        + " OR (p.dateOfBirth = :dateOfBirth AND p.phoneticFirst = :phoneticFirst))"
+        + " ORDER BY CASE WHEN p.mrn = :mrn OR p.nin = :nin OR p.phoneDigits = :phoneDigits THEN 0 ELSE 1 END")
+    List<Patient> findDuplicateCandidates(
+        @Param("mrn") String mrn,
+        @Param("nin") String nin,
+        @Param("phoneDigits") String phoneDigits,
+        @Param("phoneticFirst") String phoneticFirst,
+        @Param("phoneticLast") String phoneticLast,
+        @Param("dateOfBirth") LocalDate dateOfBirth,
+        Pageable pageable);
 }
 
@@ -0,0 +1,13 @@
+package ng.osun.his.coreemr.search;
+
+import java.math.BigDecimal;
+
+/**
+ * Ranked row returned by the patient search index query.
+ * Tier 0 is an exact identifier match, 1 a name prefix match, 2 a fuzzy (trigram) match.
+ */
+public interface PatientSearchHit {
+    String getId();
+    Integer getTier();
+    BigDecimal getScore();
+}
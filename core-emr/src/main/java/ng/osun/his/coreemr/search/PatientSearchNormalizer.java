@@ -0,0 +1,70 @@
+package ng.osun.his.coreemr.search;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalizes names and phone numbers into the keys used by the patient search index.
+ * Yoruba names are written with and without tone marks and under-dots (Adéwálé, Adewale;
+ * Ṣeun, Sheun, Seun), so marks are stripped, "sh" folds to "s" and doubled letters collapse.
+ */
+public final class PatientSearchNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^a-z]+");
+    private static final Pattern REPEATED_LETTERS = Pattern.compile("([a-z])\\1+");
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D+");
+
+    private PatientSearchNormalizer() {
+        // Utility class
+    }
+
+    /**
+     * Normalize a single name or free-text query to lowercase ASCII words separated by one space.
+     */
+    public static String normalizeName(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        String letters = NON_LETTERS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        String folded = letters.replace("sh", "s");
+        return REPEATED_LETTERS.matcher(folded).replaceAll("$1");
+    }
+
+    /**
+     * Full name key: first, middle and last names normalized and joined.
+     */
+    public static String fullName(String firstName, String middleName, String lastName) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : new String[]{firstName, middleName, lastName}) {
+            String normalized = normalizeName(part);
+            if (!normalized.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(normalized);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * National significant digits of a Nigerian phone number (+2348031234567 and 08031234567
+     * both become 8031234567). Returns an empty string when there are fewer than 7 digits.
+     */
+    public static String phoneDigits(String value) {
+        if (value == null) {
+            return "";
+        }
+        String digits = NON_DIGITS.matcher(value).replaceAll("");
+        if (digits.startsWith("234") && digits.length() > 10) {
+            digits = digits.substring(3);
+        }
+        if (digits.startsWith("0")) {
+            digits = digits.substring(1);
+        }
+        return digits.length() >= 7 ? digits : "";
+    }
+}
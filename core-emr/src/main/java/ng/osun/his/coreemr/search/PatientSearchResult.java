@@ -0,0 +1,24 @@
+package ng.osun.his.coreemr.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ng.osun.his.coreemr.domain.Patient;
+
+import java.util.List;
+
+/**
+ * One page of ranked patient search results with an opaque keyset cursor for the next page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResult {
+
+    private List<Patient> patients;
+
+    /**
+     * Pass back as {@code cursor} to fetch the next page; null when there are no more results.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,197 @@
+package ng.osun.his.coreemr.search;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.coreemr.domain.Patient;
+import ng.osun.his.coreemr.repository.PatientRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Patient search backed by normalized search keys on the patients table.
+ * Matches are ranked: exact MRN/NIN/phone first, then first/last name prefix,
+ * then fuzzy trigram matches on the full name (catches Yoruba spelling variants).
+ */
+@Service
+@Slf4j
+public class PatientSearchService {
+
+    static final int MAX_LIMIT = 100;
+
+    // Matches nothing: search keys contain only letters/spaces, phone keys only digits
+    private static final String NO_MATCH = "-";
+
+    private static final int BACKFILL_BATCH = 500;
+
+    private static final String BACKFILL_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('patient_search_backfill'))";
+
+    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public PatientSearchService(PatientRepository patientRepository,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager) {
+        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Keyset-paginated ranked search.
+     * @param cursor nextCursor from the previous page, or null for the first page
+     */
+    public PatientSearchResult search(String query, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        Cursor after = cursor != null && !cursor.isEmpty() ? Cursor.decode(cursor) : Cursor.FIRST;
+
+        List<PatientSearchHit> hits = query(query, after, pageSize + 1, 0);
+        boolean hasMore = hits.size() > pageSize;
+        if (hasMore) {
+            hits = hits.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            PatientSearchHit last = hits.get(hits.size() - 1);
+            nextCursor = new Cursor(last.getTier(), last.getScore(), last.getId()).encode();
+        }
+        return new PatientSearchResult(load(hits), nextCursor);
+    }
+
+    /**
+     * Offset-paginated ranked search for the legacy Page-based endpoint.
+     */
+    public Page<Patient> searchPage(String query, Pageable pageable) {
+        int offset = (int) pageable.getOffset();
+        List<PatientSearchHit> hits = query(query, Cursor.FIRST, pageable.getPageSize() + 1, offset);
+        boolean hasMore = hits.size() > pageable.getPageSize();
+        if (hasMore) {
+            hits = hits.subList(0, pageable.getPageSize());
+        }
+        // Avoid a COUNT over all matches: report one more row than seen when another page exists
+        long total = offset + hits.size() + (hasMore ? 1 : 0);
+        return new PageImpl<>(load(hits), pageable, total);
+    }
+
+    /**
+     * Populate search and duplicate-detection keys for rows written before those columns existed.
+     * <p>
+     * Every replica runs this at startup, so each batch is its own transaction holding a Postgres
+     * advisory lock (pg_try_advisory_xact_lock). A replica that finds the lock taken leaves the
+     * backfill to the node holding it; the keys are computed in Java (names are PHI-encrypted),
+     * which is why this is not a Flyway migration.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSearchKeys() {
+        long updated = 0;
+        Integer written;
+        while ((written = transactionTemplate.execute(status -> backfillBatch())) != null && written > 0) {
+            updated += written;
+            if (written < BACKFILL_BATCH) {
+                break;
+            }
+        }
+        if (updated > 0) {
+            log.info("Backfilled patient search keys for {} patients", updated);
+        } else if (written == null) {
+            log.debug("Patient search key backfill running on another node, skipping");
+        }
+    }
+
+    /**
+     * @return rows updated, or null if another node holds the backfill lock
+     */
+    private Integer backfillBatch() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(BACKFILL_LOCK_SQL, Boolean.class))) {
+            return null;
+        }
+        List<Patient> batch = patientRepository.findTop500BySearchNameIsNullOrPhoneticLastIsNull();
+        batch.forEach(Patient::refreshSearchKeys);
+        patientRepository.saveAll(batch);
+        return batch.size();
+    }
+
+    private List<PatientSearchHit> query(String query, Cursor after, int limit, int offset) {
+        String raw = query.trim();
+        String name = PatientSearchNormalizer.normalizeName(raw);
+        String digits = PatientSearchNormalizer.phoneDigits(raw);
+
+        return patientRepository.searchRanked(
+            raw,
+            digits.isEmpty() ? NO_MATCH : digits,
+            name.isEmpty() ? NO_MATCH : name + "%",
+            name,
+            after.tier,
+            after.score,
+            after.id,
+            limit,
+            offset);
+    }
+
+    private List<Patient> load(List<PatientSearchHit> hits) {
+        if (hits.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<String> ids = hits.stream().map(PatientSearchHit::getId).collect(Collectors.toList());
+        Map<String, Patient> byId = patientRepository.findAllById(ids).stream()
+            .collect(Collectors.toMap(Patient::getId, Function.identity()));
+
+        List<Patient> ordered = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Patient patient = byId.get(id);
+            if (patient != null) {
+                ordered.add(patient);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Position after the last returned row: (tier, score, id).
+     */
+    static final class Cursor {
+        // Sorts before every real row: tiers start at 0
+        static final Cursor FIRST = new Cursor(-1, BigDecimal.ONE, "");
+
+        final int tier;
+        final BigDecimal score;
+        final String id;
+
+        Cursor(int tier, BigDecimal score, String id) {
+            this.tier = tier;
+            this.score = score;
+            this.id = id;
+        }
+
+        String encode() {
+            String raw = tier + ":" + score.toPlainString() + ":" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 3);
+                return new Cursor(Integer.parseInt(parts[0]), new BigDecimal(parts[1]), parts[2]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor", e);
+            }
+        }
+    }
+}
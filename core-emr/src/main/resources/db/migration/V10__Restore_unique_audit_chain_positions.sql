@@ -0,0 +1,20 @@
+-- A chain position belongs to exactly one event. Unique keys on the partitioned table must
+-- include the partition key, so the parent key is (chain_id, chain_seq, event_timestamp) and
+-- each partition additionally enforces (chain_id, chain_seq) on its own rows; AuditPartitionManager
+-- adds the same index to partitions it creates later
+DROP INDEX IF EXISTS idx_audit_events_chain;
+CREATE UNIQUE INDEX IF NOT EXISTS uk_audit_events_chain ON audit_events(chain_id, chain_seq, event_timestamp);
+
+DO $$
+DECLARE
+    partition_name TEXT;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'audit_events'::regclass
+    LOOP
+        EXECUTE format('CREATE UNIQUE INDEX IF NOT EXISTS %I ON %I (chain_id, chain_seq)',
+            partition_name || '_chain_key', partition_name);
+    END LOOP;
+END $$;
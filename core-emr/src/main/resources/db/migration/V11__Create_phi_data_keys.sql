@@ -0,0 +1,10 @@
+-- PHI data key ring shared by every replica: data keys wrapped by the KMS key, one active
+CREATE TABLE IF NOT EXISTS phi_data_keys (
+    version INTEGER PRIMARY KEY,
+    kek_id VARCHAR(100) NOT NULL,
+    wrapped_key VARCHAR(512) NOT NULL,
+    active BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_phi_data_keys_active ON phi_data_keys(active) WHERE active;
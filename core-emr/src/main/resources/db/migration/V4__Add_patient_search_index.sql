@@ -0,0 +1,12 @@
+-- Normalized search keys and trigram/prefix indexes for patient search
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS search_first VARCHAR(100);
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS search_last VARCHAR(100);
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS search_name VARCHAR(300);
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS phone_digits VARCHAR(20);
+
+CREATE INDEX IF NOT EXISTS idx_patients_search_name_trgm ON patients USING GIN (search_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_search_first ON patients(search_first text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_search_last ON patients(search_last text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_patients_phone_digits ON patients(phone_digits);
@@ -0,0 +1,27 @@
+-- Phonetic blocking keys for duplicate-patient detection
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS phonetic_first VARCHAR(20);
+ALTER TABLE patients ADD COLUMN IF NOT EXISTS phonetic_last VARCHAR(20);
+
+CREATE INDEX IF NOT EXISTS idx_patients_phonetic_last_first ON patients(phonetic_last, phonetic_first);
+CREATE INDEX IF NOT EXISTS idx_patients_dob_phonetic_first ON patients(date_of_birth, phonetic_first);
+
+-- Merge worklist produced by the batch duplicate scan
+CREATE TABLE IF NOT EXISTS patient_merge_candidates (
+    id VARCHAR(36) PRIMARY KEY,
+    patient_id_a VARCHAR(36) NOT NULL REFERENCES patients(id),
+    patient_id_b VARCHAR(36) NOT NULL REFERENCES patients(id),
+    score DECIMAL(6,2) NOT NULL,
+    probability DECIMAL(5,4) NOT NULL,
+    reasons VARCHAR(200),
+    status VARCHAR(20) NOT NULL,
+    reviewed_by VARCHAR(100),
+    reviewed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL,
+    created_by VARCHAR(100),
+    updated_by VARCHAR(100),
+    version INTEGER DEFAULT 0,
+    CONSTRAINT uk_merge_candidate_pair UNIQUE (patient_id_a, patient_id_b)
+);
+
+CREATE INDEX IF NOT EXISTS idx_merge_candidates_status ON patient_merge_candidates(status, probability);
@@ -0,0 +1,42 @@
+-- Audit trail written by platform-lib AuditBatchWriter
+CREATE TABLE IF NOT EXISTS audit_events (
+    id VARCHAR(36) PRIMARY KEY,
+    event_timestamp TIMESTAMP NOT NULL,
+    user_id VARCHAR(100) NOT NULL,
+    user_role VARCHAR(50),
+    action_type VARCHAR(50) NOT NULL,
+    resource_type VARCHAR(100),
+    resource_id VARCHAR(100),
+    purpose_of_use VARCHAR(100),
+    ip_address VARCHAR(45),
+    correlation_id VARCHAR(100),
+    event_details TEXT,
+    signed_hash VARCHAR(512)
+);
+
+-- Hash chain: one chain per audit writer, gap-free sequence within it
+ALTER TABLE audit_events ADD COLUMN IF NOT EXISTS chain_id VARCHAR(100);
+ALTER TABLE audit_events ADD COLUMN IF NOT EXISTS chain_seq BIGINT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_audit_events_chain ON audit_events(chain_id, chain_seq);
+CREATE INDEX IF NOT EXISTS idx_audit_events_user_time ON audit_events(user_id, event_timestamp);
+CREATE INDEX IF NOT EXISTS idx_audit_events_resource ON audit_events(resource_type, resource_id);
+
+-- Merkle-root checkpoints over closed chain segments
+CREATE TABLE IF NOT EXISTS audit_checkpoints (
+    id VARCHAR(36) PRIMARY KEY,
+    chain_id VARCHAR(100) NOT NULL,
+    start_seq BIGINT NOT NULL,
+    end_seq BIGINT NOT NULL,
+    start_prev_hash VARCHAR(64) NOT NULL,
+    end_hash VARCHAR(64) NOT NULL,
+    merkle_root VARCHAR(64) NOT NULL,
+    first_event_at TIMESTAMP NOT NULL,
+    last_event_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    verified_at TIMESTAMP,
+    CONSTRAINT uk_audit_checkpoint_segment UNIQUE (chain_id, start_seq)
+);
+
+CREATE INDEX IF NOT EXISTS idx_audit_checkpoints_time ON audit_checkpoints(last_event_at, first_event_at);
+CREATE INDEX IF NOT EXISTS idx_audit_checkpoints_unverified ON audit_checkpoints(chain_id, start_seq) WHERE verified_at IS NULL;
@@ -0,0 +1,64 @@
+-- Partition audit_events by month (Africa/Lagos) so retention detaches whole partitions
+-- instead of deleting rows, and each partition's indexes stay small
+ALTER TABLE audit_events RENAME TO audit_events_unpartitioned;
+ALTER TABLE audit_events_unpartitioned RENAME CONSTRAINT audit_events_pkey TO audit_events_unpartitioned_pkey;
+DROP INDEX IF EXISTS uk_audit_events_chain;
+DROP INDEX IF EXISTS idx_audit_events_user_time;
+DROP INDEX IF EXISTS idx_audit_events_resource;
+
+CREATE TABLE audit_events (
+    id VARCHAR(36) NOT NULL,
+    event_timestamp TIMESTAMPTZ NOT NULL,
+    user_id VARCHAR(100) NOT NULL,
+    user_role VARCHAR(50),
+    action_type VARCHAR(50) NOT NULL,
+    resource_type VARCHAR(100),
+    resource_id VARCHAR(100),
+    purpose_of_use VARCHAR(100),
+    ip_address VARCHAR(45),
+    correlation_id VARCHAR(100),
+    event_details TEXT,
+    signed_hash VARCHAR(512),
+    chain_id VARCHAR(100),
+    chain_seq BIGINT,
+    -- Unique keys on a partitioned table must include the partition key
+    PRIMARY KEY (id, event_timestamp)
+) PARTITION BY RANGE (event_timestamp);
+
+CREATE INDEX idx_audit_events_chain ON audit_events(chain_id, chain_seq);
+CREATE INDEX idx_audit_events_user_time ON audit_events(user_id, event_timestamp);
+CREATE INDEX idx_audit_events_resource ON audit_events(resource_type, resource_id);
+
+-- Catches rows outside every monthly partition; AuditPartitionManager creates months ahead
+CREATE TABLE audit_events_default PARTITION OF audit_events DEFAULT;
+
+-- Monthly partitions from the oldest existing event through three months ahead
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := date_trunc('month', (now() AT TIME ZONE 'Africa/Lagos') + INTERVAL '3 months')::date;
+BEGIN
+    SELECT date_trunc('month', COALESCE(MIN(event_timestamp), now() AT TIME ZONE 'Africa/Lagos'))::date
+      INTO month_start
+      FROM audit_events_unpartitioned;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF audit_events FOR VALUES FROM (%L) TO (%L)',
+            'audit_events_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM'),
+            month_start::timestamp AT TIME ZONE 'Africa/Lagos',
+            (month_start + INTERVAL '1 month')::timestamp AT TIME ZONE 'Africa/Lagos');
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+-- Existing rows were written as Africa/Lagos wall-clock time
+INSERT INTO audit_events (id, event_timestamp, user_id, user_role, action_type, resource_type, resource_id,
+                          purpose_of_use, ip_address, correlation_id, event_details, signed_hash, chain_id, chain_seq)
+SELECT id, event_timestamp AT TIME ZONE 'Africa/Lagos', user_id, user_role, action_type, resource_type, resource_id,
+       purpose_of_use, ip_address, correlation_id, event_details, signed_hash, chain_id, chain_seq
+FROM audit_events_unpartitioned;
+
+DROP TABLE audit_events_unpartitioned;
+
+ALTER TABLE audit_checkpoints ALTER COLUMN first_event_at TYPE TIMESTAMPTZ USING first_event_at AT TIME ZONE 'Africa/Lagos';
+ALTER TABLE audit_checkpoints ALTER COLUMN last_event_at TYPE TIMESTAMPTZ USING last_event_at AT TIME ZONE 'Africa/Lagos';
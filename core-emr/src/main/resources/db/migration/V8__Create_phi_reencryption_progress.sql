@@ -0,0 +1,10 @@
+-- Resumable checkpoints for the PHI re-encryption job, one row per table and target key version
+CREATE TABLE IF NOT EXISTS phi_reencryption_progress (
+    table_name VARCHAR(100) NOT NULL,
+    target_version INTEGER NOT NULL,
+    last_id VARCHAR(36) NOT NULL,
+    rows_processed BIGINT NOT NULL DEFAULT 0,
+    completed BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (table_name, target_version)
+);
@@ -0,0 +1,6 @@
+-- NEWS2 needs air/oxygen and ACVPU alongside the existing vital signs
+ALTER TABLE vital_signs ADD COLUMN IF NOT EXISTS supplemental_oxygen BOOLEAN;
+ALTER TABLE vital_signs ADD COLUMN IF NOT EXISTS consciousness_level VARCHAR(20);
+
+-- Early-warning replay reads the recent window in time order
+CREATE INDEX IF NOT EXISTS idx_vitals_taken_at_patient ON vital_signs(taken_at, patient_id);
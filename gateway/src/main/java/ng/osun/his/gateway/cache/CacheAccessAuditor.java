@@ -0,0 +1,115 @@
+package ng.osun.his.gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.audit.AuditEvent;
+import ng.osun.his.platform.audit.AuditService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.security.Principal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Audits reads answered by the gateway itself: response cache hits and coalesced followers
+ * replaying another request's response. Those requests never reach the backend, so each one is
+ * published to {@link AuditService#ACCESS_TOPIC} as a READ by the caller and appended to the
+ * audit log by core-emr. A response is only written once Kafka has acknowledged its event; if
+ * publishing fails the request goes to the backend, which audits it.
+ */
+@Component
+@Slf4j
+public class CacheAccessAuditor {
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Duration timeout;
+
+    public CacheAccessAuditor(KafkaTemplate<String, String> kafkaTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${gateway.cache.audit-timeout-ms:2000}") long timeoutMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.timeout = Duration.ofMillis(timeoutMs);
+    }
+
+    /**
+     * Publish the audit event for a response about to be served from the cache.
+     * @return true once the event is acknowledged, false if it could not be published
+     */
+    public Mono<Boolean> record(Principal principal, Route route, ServerHttpRequest request,
+                                CachedResponse entry, String outcome) {
+        return record(principal, route, request, entry.getResourceIds(), "Served from gateway cache (" + outcome + ")");
+    }
+
+    /**
+     * Publish the audit event for a coalesced follower about to replay its leader's response.
+     * @return true once the event is acknowledged, false if it could not be published
+     */
+    public Mono<Boolean> recordCoalesced(Principal principal, Route route, ServerHttpRequest request) {
+        return record(principal, route, request, ResponseCacheFilter.resourceIds(request),
+            "Served from coalesced upstream response");
+    }
+
+    private Mono<Boolean> record(Principal principal, Route route, ServerHttpRequest request,
+                                 Set<String> resourceIds, String source) {
+        String path = request.getURI().getRawPath()
+            + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery());
+        InetSocketAddress remote = request.getRemoteAddress();
+        AuditEvent event = AuditEvent.builder()
+            .eventTimestamp(Instant.now())
+            .userId(principal.getName())
+            .userRole(role(principal))
+            .actionType(AuditEvent.ActionType.READ)
+            .resourceType(route.getId())
+            .resourceId(resourceIds.isEmpty() ? null : new TreeSet<>(resourceIds).first())
+            .ipAddress(remote == null || remote.getAddress() == null ? null : remote.getAddress().getHostAddress())
+            .correlationId(request.getHeaders().getFirst("X-Correlation-ID"))
+            .eventDetails(source + ": GET " + path)
+            .build();
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialise cache access audit event: {}", e.getMessage());
+            meterRegistry.counter("gateway.cache.audit", "result", "error").increment();
+            return Mono.just(false);
+        }
+        return Mono.defer(() -> Mono.fromFuture(kafkaTemplate.send(AuditService.ACCESS_TOPIC, event.getUserId(), json).completable()))
+            .timeout(timeout)
+            .map(result -> {
+                meterRegistry.counter("gateway.cache.audit", "result", "published").increment();
+                return true;
+            })
+            .onErrorResume(e -> {
+                log.warn("Could not publish gateway access audit event, forwarding to backend: {}", e.toString());
+                meterRegistry.counter("gateway.cache.audit", "result", "error").increment();
+                return Mono.just(false);
+            });
+    }
+
+    private static String role(Principal principal) {
+        if (principal instanceof Authentication && ((Authentication) principal).getAuthorities() != null) {
+            return ((Authentication) principal).getAuthorities().stream()
+                .findFirst()
+                .map(a -> a.getAuthority().replace("ROLE_", ""))
+                .orElse("UNKNOWN");
+        }
+        return "UNKNOWN";
+    }
+}
@@ -0,0 +1,51 @@
+package ng.osun.his.gateway.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Purges cached responses when another writer changes a resource. Each gateway replica consumes
+ * in its own group, named after {@code platform.instance-id}, so every replica sees every event.
+ * A new replica starts at the latest offset, since anything older is already reflected in
+ * responses cached after startup; a restarted one resumes from its committed offset.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheInvalidationListener {
+
+    /** Fields that carry resource ids across the change-event topics. */
+    private static final List<String> ID_FIELDS = List.of("resourceId", "patientId", "orderId", "encounterId", "id");
+
+    private final ResponseCache cache;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = {"entity.changes", "order.events"},
+        groupId = "${gateway.cache.consumer-group:gateway-cache-${platform.instance-id}}",
+        properties = {"auto.offset.reset=latest"})
+    public void onChange(String eventJson) {
+        try {
+            JsonNode event = objectMapper.readTree(eventJson);
+            int purged = 0;
+            for (String field : ID_FIELDS) {
+                JsonNode id = event.get(field);
+                if (id != null && id.isTextual() && !id.asText().isEmpty()) {
+                    purged += cache.purge(id.asText());
+                }
+            }
+            if (purged > 0) {
+                log.debug("Change event purged {} cached responses", purged);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable change event: {}", e.getMessage());
+        }
+    }
+}
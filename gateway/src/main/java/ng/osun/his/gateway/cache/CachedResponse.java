@@ -0,0 +1,98 @@
+package ng.osun.his.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One cached GET response. Immutable apart from the revalidation flag; a successful
+ * revalidation stores a copy with a new freshness window.
+ */
+final class CachedResponse {
+
+    private final HttpStatus status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    private final String backendUri;
+    private final Set<String> resourceIds;
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final long storedAt;
+    private final AtomicBoolean revalidating = new AtomicBoolean();
+
+    CachedResponse(HttpStatus status, HttpHeaders headers, byte[] body, String etag, String backendUri,
+                   Set<String> resourceIds, long ttlNanos, long staleNanos, long storedAt) {
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+        this.body = body;
+        this.etag = etag;
+        this.backendUri = backendUri;
+        this.resourceIds = resourceIds;
+        this.ttlNanos = ttlNanos;
+        this.staleNanos = staleNanos;
+        this.storedAt = storedAt;
+    }
+
+    /**
+     * Same response, confirmed unchanged by a 304 from the backend.
+     */
+    CachedResponse revalidated(long now) {
+        return new CachedResponse(status, headers, body, etag, backendUri, resourceIds, ttlNanos, staleNanos, now);
+    }
+
+    boolean isFresh(long now) {
+        return now - storedAt < ttlNanos;
+    }
+
+    boolean isUsable(long now) {
+        return now - storedAt < ttlNanos + staleNanos;
+    }
+
+    long ageSeconds(long now) {
+        return (now - storedAt) / 1_000_000_000L;
+    }
+
+    /** Approximate heap footprint used for the cache byte budget. */
+    int weight() {
+        return body.length + backendUri.length() * 2 + 512;
+    }
+
+    HttpStatus getStatus() {
+        return status;
+    }
+
+    HttpHeaders getHeaders() {
+        return headers;
+    }
+
+    byte[] getBody() {
+        return body;
+    }
+
+    String getEtag() {
+        return etag;
+    }
+
+    String getBackendUri() {
+        return backendUri;
+    }
+
+    Set<String> getResourceIds() {
+        return resourceIds;
+    }
+
+    long getTtlNanos() {
+        return ttlNanos;
+    }
+
+    long getStaleNanos() {
+        return staleNanos;
+    }
+
+    AtomicBoolean revalidating() {
+        return revalidating;
+    }
+}
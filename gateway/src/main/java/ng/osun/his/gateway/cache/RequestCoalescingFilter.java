@@ -0,0 +1,227 @@
+package ng.osun.his.gateway.cache;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-flight for identical concurrent GETs on routes that set {@link #SCOPE_METADATA}.
+ * <p>
+ * Requests are identical when route, path, query, Accept, If-None-Match and authorization scope
+ * match; the scope is the principal, or the sorted role set when the route's scope is
+ * {@code role} (e.g. a clinic queue every desk sees the same way). The first request goes
+ * upstream; the rest wait up to {@code gateway.coalescing.max-wait-ms} for its response and
+ * replay it. A follower that times out, or whose leader fails or streams an oversized body,
+ * simply makes its own upstream call.
+ * <p>
+ * A follower never reaches the service that would audit its read, so before replaying it is
+ * audited as the caller through {@link CacheAccessAuditor}, like a cache hit; if the audit event
+ * cannot be published the follower goes upstream instead.
+ * <p>
+ * Collapse ratio is {@code gateway.coalescing.requests{result="follower"}} over all requests;
+ * {@code gateway.coalescing.fanout} records the number of waiters served per upstream call.
+ */
+@Component
+@Slf4j
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    public static final String SCOPE_METADATA = "request-coalescing-scope";
+
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final CacheAccessAuditor auditor;
+    private final MeterRegistry meterRegistry;
+    private final Duration maxWait;
+    private final int maxBodyBytes;
+
+    public RequestCoalescingFilter(CacheAccessAuditor auditor,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${gateway.coalescing.max-wait-ms:2000}") long maxWaitMs,
+                                   @Value("${gateway.coalescing.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.auditor = auditor;
+        this.meterRegistry = meterRegistry;
+        this.maxWait = Duration.ofMillis(maxWaitMs);
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    public int getOrder() {
+        // After the response cache: only cache misses need coalescing
+        return -5;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Object scope = route == null ? null : route.getMetadata().get(SCOPE_METADATA);
+        if (scope == null || exchange.getRequest().getMethod() != HttpMethod.GET
+                || exchange.getRequest().getHeaders().getAccept().contains(MediaType.TEXT_EVENT_STREAM)) {
+            return chain.filter(exchange);
+        }
+        boolean byRole = "role".equals(scope);
+        // Anonymous requests are never coalesced
+        return exchange.getPrincipal()
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(principal -> principal.isEmpty() ? chain.filter(exchange)
+                : coalesce(exchange, chain, route, principal.get(),
+                    key(route, exchange.getRequest(), ResponseCacheFilter.varyKey(principal.get(), byRole))));
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain, Route route,
+                                Principal principal, String key) {
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return follow(exchange, chain, route, principal, existing);
+        }
+
+        record(route, "leader");
+        ServerHttpResponse original = exchange.getResponse();
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                long length = getHeaders().getContentLength();
+                if (length > maxBodyBytes) {
+                    flight.fail("response too large to share");
+                    return super.writeWith(body);
+                }
+                return super.writeWith(DataBufferUtils.join(Flux.from(body)).map(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    if (bytes.length <= maxBodyBytes) {
+                        flight.complete(getStatusCode(), getHeaders(), bytes);
+                    } else {
+                        flight.fail("response too large to share");
+                    }
+                    return bufferFactory().wrap(bytes);
+                }));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                flight.fail("streaming response");
+                return super.writeAndFlushWith(body);
+            }
+
+            @Override
+            public Mono<Void> setComplete() {
+                // Bodiless responses such as 304 or 204
+                flight.complete(getStatusCode(), getHeaders(), new byte[0]);
+                return super.setComplete();
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(capturing).build())
+            .doFinally(signal -> {
+                inFlight.remove(key, flight);
+                flight.fail("leader ended with " + signal);
+                DistributionSummary.builder("gateway.coalescing.fanout")
+                    .tag("route", route.getId())
+                    .register(meterRegistry)
+                    .record(flight.followers.get());
+            });
+    }
+
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Route route,
+                              Principal principal, Flight flight) {
+        flight.followers.incrementAndGet();
+        // Failures resolve to empty before the chain is called, so it runs at most once on any branch
+        return flight.result.asMono()
+            .timeout(maxWait)
+            .map(Optional::of)
+            .onErrorResume(e -> {
+                record(route, e instanceof TimeoutException ? "timeout" : "fallback");
+                log.debug("Coalesced request on {} going upstream alone: {}", route.getId(), e.getMessage());
+                return Mono.just(Optional.empty());
+            })
+            .flatMap(shared -> shared.isEmpty() ? chain.filter(exchange)
+                : auditor.recordCoalesced(principal, route, exchange.getRequest()).flatMap(audited -> {
+                    if (!audited) {
+                        record(route, "unaudited");
+                        return chain.filter(exchange);
+                    }
+                    record(route, "follower");
+                    return replay(exchange.getResponse(), shared.get());
+                }));
+    }
+
+    private static Mono<Void> replay(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status);
+        response.getHeaders().putAll(shared.headers);
+        response.getHeaders().set("X-Coalesced", "true");
+        if (shared.body.length == 0) {
+            return response.setComplete();
+        }
+        response.getHeaders().setContentLength(shared.body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body)));
+    }
+
+    private void record(Route route, String result) {
+        meterRegistry.counter("gateway.coalescing.requests", "route", route.getId(), "result", result).increment();
+    }
+
+    private static String key(Route route, ServerHttpRequest request, String vary) {
+        HttpHeaders headers = request.getHeaders();
+        return route.getId() + '|' + vary + '|' + request.getURI().getRawPath()
+            + '?' + (request.getURI().getRawQuery() == null ? "" : request.getURI().getRawQuery())
+            + '|' + String.join(",", headers.getOrEmpty(HttpHeaders.ACCEPT))
+            + '|' + String.join(",", headers.getOrEmpty(HttpHeaders.IF_NONE_MATCH));
+    }
+
+    private static final class Flight {
+        private final Sinks.One<SharedResponse> result = Sinks.one();
+        private final AtomicInteger followers = new AtomicInteger();
+
+        void complete(HttpStatus status, HttpHeaders headers, byte[] body) {
+            result.tryEmitValue(new SharedResponse(status == null ? HttpStatus.OK : status,
+                ResponseCacheFilter.cacheableHeaders(headers), body));
+        }
+
+        void fail(String reason) {
+            // No-op if the response was already shared
+            result.tryEmitError(new IllegalStateException(reason));
+        }
+    }
+
+    private static final class SharedResponse {
+        private final HttpStatus status;
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        private SharedResponse(HttpStatus status, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ng.osun.his.gateway.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory store for the gateway response cache. Entries are spread over lock stripes,
+ * each an access-ordered map with its share of {@code gateway.cache.max-bytes}; the least
+ * recently used entries are evicted once a stripe is over budget.
+ */
+@Component
+@Slf4j
+public class ResponseCache {
+
+    private static final int STRIPES = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public ResponseCache(MeterRegistry meterRegistry,
+                         @Value("${gateway.cache.max-bytes:67108864}") long maxBytes) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxBytes / STRIPES);
+        }
+        Gauge.builder("gateway.cache.entries", this, ResponseCache::size).register(meterRegistry);
+        Gauge.builder("gateway.cache.bytes", this, ResponseCache::bytes).register(meterRegistry);
+    }
+
+    CachedResponse get(String key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    void put(String key, CachedResponse response) {
+        Stripe stripe = stripe(key);
+        if (response.weight() > stripe.budget) {
+            return;
+        }
+        stripe.lock.lock();
+        try {
+            CachedResponse previous = stripe.entries.put(key, response);
+            stripe.bytes += response.weight() - (previous == null ? 0 : previous.weight());
+            Iterator<CachedResponse> eldest = stripe.entries.values().iterator();
+            while (stripe.bytes > stripe.budget && eldest.hasNext()) {
+                stripe.bytes -= eldest.next().weight();
+                eldest.remove();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    void remove(String key) {
+        Stripe stripe = stripe(key);
+        stripe.lock.lock();
+        try {
+            CachedResponse removed = stripe.entries.remove(key);
+            if (removed != null) {
+                stripe.bytes -= removed.weight();
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop every entry whose request path mentions the resource id, for every principal.
+     * @return number of entries removed
+     */
+    public int purge(String resourceId) {
+        int removed = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<CachedResponse> it = stripe.entries.values().iterator();
+                while (it.hasNext()) {
+                    CachedResponse entry = it.next();
+                    if (entry.getResourceIds().contains(resourceId)) {
+                        stripe.bytes -= entry.weight();
+                        it.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (removed > 0) {
+            log.debug("Purged {} cached responses for {}", removed, resourceId);
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private long bytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.bytes;
+        }
+        return bytes;
+    }
+
+    private Stripe stripe(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, CachedResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+        private final long budget;
+        private volatile long bytes;
+
+        private Stripe(long budget) {
+            this.budget = budget;
+        }
+    }
+}
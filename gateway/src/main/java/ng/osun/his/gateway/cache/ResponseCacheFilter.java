@@ -0,0 +1,311 @@
+package ng.osun.his.gateway.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP response cache for GET routes that opt in with the {@link #TTL_METADATA} route metadata.
+ * <p>
+ * Only 200 responses carrying an ETag are stored, keyed by the caller (principal by default,
+ * or sorted roles when the route sets {@link #VARY_METADATA} to {@code role}) plus path and
+ * query. Within the TTL a hit is served from memory, answering the client's If-None-Match with
+ * 304 directly. For {@code gateway.cache.stale-while-revalidate-ms} after that, the stale copy
+ * is served while one background If-None-Match request (with the caller's Authorization)
+ * checks the backend: 304 renews the entry, 200 replaces it, 404/410 evicts it.
+ * <p>
+ * Entries are purged by resource id when a write passes through this gateway and when
+ * {@link CacheInvalidationListener} sees a change event from another writer.
+ * <p>
+ * Cached routes serve PHI, and a hit never reaches the service that would audit the read, so
+ * every response written from memory (including a 304) is first audited through
+ * {@link CacheAccessAuditor}. If the audit event cannot be published, the request is forwarded
+ * as a miss.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final String TTL_METADATA = "response-cache-ttl-ms";
+    public static final String VARY_METADATA = "response-cache-vary";
+
+    private static final Pattern UUID = Pattern.compile(
+        "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_-]*\\d{3,}[A-Za-z0-9_-]*");
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+        HttpHeaders.CONTENT_LENGTH, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.SET_COOKIE,
+        HttpHeaders.CONNECTION, HttpHeaders.DATE, HttpHeaders.AGE, "X-Correlation-ID", "X-Cache");
+
+    private final ResponseCache cache;
+    private final CacheAccessAuditor auditor;
+    private final MeterRegistry meterRegistry;
+    private final WebClient revalidationClient;
+    private final long staleNanos;
+    private final int maxEntryBytes;
+    private final Duration revalidationTimeout;
+
+    public ResponseCacheFilter(ResponseCache cache,
+                               CacheAccessAuditor auditor,
+                               MeterRegistry meterRegistry,
+                               WebClient.Builder webClientBuilder,
+                               ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                               @Value("${gateway.cache.stale-while-revalidate-ms:30000}") long staleMs,
+                               @Value("${gateway.cache.max-entry-bytes:262144}") int maxEntryBytes,
+                               @Value("${gateway.cache.revalidation-timeout-ms:5000}") long revalidationTimeoutMs) {
+        this.cache = cache;
+        this.auditor = auditor;
+        this.meterRegistry = meterRegistry;
+        this.revalidationClient = webClientBuilder.filter(loadBalancerFunction).build();
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(staleMs);
+        this.maxEntryBytes = maxEntryBytes;
+        this.revalidationTimeout = Duration.ofMillis(revalidationTimeoutMs);
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of route filters (circuit breaker) and the load balancer, so hits skip both
+        return -10;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Object ttl = route == null ? null : route.getMetadata().get(TTL_METADATA);
+        if (!(ttl instanceof Number)) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        HttpMethod method = request.getMethod();
+        if (method == HttpMethod.POST || method == HttpMethod.PUT
+                || method == HttpMethod.PATCH || method == HttpMethod.DELETE) {
+            // Purge before (so nobody is served the old copy) and after (to drop any GET cached meanwhile)
+            Set<String> ids = resourceIds(request);
+            ids.forEach(cache::purge);
+            return chain.filter(exchange).doFinally(signal -> ids.forEach(cache::purge));
+        }
+        if (method != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(((Number) ttl).longValue());
+        boolean varyByRole = "role".equals(route.getMetadata().get(VARY_METADATA));
+        // Anonymous requests are never cached. The chain runs exactly once on either branch: a
+        // switchIfEmpty after the Mono<Void> would run it again whenever the exchange completed.
+        return exchange.getPrincipal()
+            .map(Optional::of)
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(principal -> principal.isEmpty() ? chain.filter(exchange)
+                : serve(exchange, chain, route, ttlNanos, principal.get(),
+                    varyKey(principal.get(), varyByRole) + " " + request.getURI().getRawPath()
+                    + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery())));
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, GatewayFilterChain chain, Route route,
+                             long ttlNanos, Principal principal, String key) {
+        ServerHttpRequest request = exchange.getRequest();
+        List<String> cacheControl = request.getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL);
+        boolean bypass = cacheControl.stream().anyMatch(v -> v.contains("no-cache") || v.contains("no-store"));
+
+        long now = System.nanoTime();
+        CachedResponse entry = bypass ? null : cache.get(key);
+        if (entry != null && entry.isUsable(now)) {
+            boolean fresh = entry.isFresh(now);
+            String outcome = fresh ? "HIT" : "STALE";
+            return auditor.record(principal, route, request, entry, outcome).flatMap(audited -> {
+                if (!audited) {
+                    record(route, "unaudited");
+                    return fetch(exchange, chain, route, ttlNanos, key);
+                }
+                if (!fresh) {
+                    revalidate(key, entry, request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+                }
+                record(route, fresh ? "hit" : "stale");
+                return writeCached(exchange, entry, now, outcome);
+            });
+        }
+
+        record(route, bypass ? "bypass" : "miss");
+        return fetch(exchange, chain, route, ttlNanos, key);
+    }
+
+    /**
+     * Forward to the backend, storing a cacheable response on the way back.
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, Route route,
+                             long ttlNanos, String key) {
+        ServerHttpRequest request = exchange.getRequest();
+        String backendUri = route.getUri() + request.getURI().getRawPath()
+            + (request.getURI().getRawQuery() == null ? "" : "?" + request.getURI().getRawQuery());
+        Set<String> ids = resourceIds(request);
+        ServerHttpResponse original = exchange.getResponse();
+        original.getHeaders().set("X-Cache", "MISS");
+
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(original) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpHeaders headers = getHeaders();
+                String etag = headers.getETag();
+                long length = headers.getContentLength();
+                if (getStatusCode() != HttpStatus.OK || etag == null || length > maxEntryBytes
+                        || headers.getCacheControl() != null && headers.getCacheControl().contains("no-store")) {
+                    return super.writeWith(body);
+                }
+                return super.writeWith(DataBufferUtils.join(Flux.from(body)).map(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    if (bytes.length <= maxEntryBytes) {
+                        cache.put(key, new CachedResponse(HttpStatus.OK, cacheableHeaders(headers), bytes, etag,
+                            backendUri, ids, ttlNanos, staleNanos, System.nanoTime()));
+                    }
+                    return bufferFactory().wrap(bytes);
+                }));
+            }
+        };
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse entry, long now, String outcome) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().putAll(entry.getHeaders());
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(entry.ageSeconds(now)));
+        response.getHeaders().set("X-Cache", outcome);
+
+        List<String> ifNoneMatch = exchange.getRequest().getHeaders().getIfNoneMatch();
+        if (ifNoneMatch.contains(entry.getEtag()) || ifNoneMatch.contains("*")) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(entry.getStatus());
+        response.getHeaders().setContentLength(entry.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(entry.getBody())));
+    }
+
+    /**
+     * Conditional GET against the backend, at most one in flight per entry.
+     */
+    private void revalidate(String key, CachedResponse entry, String authorization) {
+        if (authorization == null || !entry.revalidating().compareAndSet(false, true)) {
+            return;
+        }
+        revalidationClient.get()
+            .uri(URI.create(entry.getBackendUri()))
+            .header(HttpHeaders.AUTHORIZATION, authorization)
+            .header(HttpHeaders.IF_NONE_MATCH, entry.getEtag())
+            .exchangeToMono(response -> {
+                HttpStatus status = response.statusCode();
+                if (status == HttpStatus.NOT_MODIFIED) {
+                    cache.put(key, entry.revalidated(System.nanoTime()));
+                    return response.releaseBody().thenReturn("revalidated");
+                }
+                if (status == HttpStatus.OK && response.headers().asHttpHeaders().getETag() != null) {
+                    HttpHeaders headers = response.headers().asHttpHeaders();
+                    return response.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]).map(body -> {
+                        if (body.length <= maxEntryBytes) {
+                            cache.put(key, new CachedResponse(HttpStatus.OK, cacheableHeaders(headers), body,
+                                headers.getETag(), entry.getBackendUri(), entry.getResourceIds(),
+                                entry.getTtlNanos(), entry.getStaleNanos(), System.nanoTime()));
+                        } else {
+                            cache.remove(key);
+                        }
+                        return "replaced";
+                    });
+                }
+                if (status == HttpStatus.NOT_FOUND || status == HttpStatus.GONE
+                        || status == HttpStatus.UNAUTHORIZED || status == HttpStatus.FORBIDDEN) {
+                    cache.remove(key);
+                    return response.releaseBody().thenReturn("evicted");
+                }
+                return response.releaseBody().thenReturn("unchanged");
+            })
+            .timeout(revalidationTimeout)
+            .doFinally(signal -> entry.revalidating().set(false))
+            .subscribe(
+                outcome -> meterRegistry.counter("gateway.cache.revalidations", "outcome", outcome).increment(),
+                e -> {
+                    meterRegistry.counter("gateway.cache.revalidations", "outcome", "error").increment();
+                    log.debug("Revalidation of {} failed: {}", entry.getBackendUri(), e.toString());
+                });
+    }
+
+    private void record(Route route, String result) {
+        meterRegistry.counter("gateway.cache.requests", "route", route.getId(), "result", result).increment();
+    }
+
+    static String varyKey(Principal principal, boolean byRole) {
+        if (byRole && principal instanceof Authentication) {
+            Set<String> roles = new TreeSet<>();
+            for (GrantedAuthority authority : ((Authentication) principal).getAuthorities()) {
+                roles.add(authority.getAuthority());
+            }
+            return "role:" + String.join(",", roles);
+        }
+        return "user:" + principal.getName();
+    }
+
+    static HttpHeaders cacheableHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (UNCACHED_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) {
+                headers.put(name, values);
+            }
+        });
+        return headers;
+    }
+
+    /**
+     * IDs mentioned in the path or query, used to purge entries when a resource changes.
+     */
+    static Set<String> resourceIds(ServerHttpRequest request) {
+        Set<String> ids = new HashSet<>();
+        for (String segment : request.getURI().getRawPath().split("/")) {
+            if (UUID.matcher(segment).matches() || IDENTIFIER.matcher(segment).matches()) {
+                ids.add(segment);
+            }
+        }
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            Matcher matcher = UUID.matcher(query);
+            while (matcher.find()) {
+                ids.add(matcher.group());
+            }
+        }
+        return ids;
+    }
+}
@@ -1,40 +1,95 @@
 package ng.osun.his.gateway.config;
 
+import ng.osun.his.gateway.cache.RequestCoalescingFilter;
+import ng.osun.his.gateway.cache.ResponseCacheFilter;
+import ng.osun.his.gateway.lb.PowerOfTwoChoicesConfiguration;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Gateway routing configuration.
+ * <p>
+ * Every route targets {@code lb://<service>}; instances are listed under
+ * {@code spring.cloud.discovery.client.simple.instances} (optionally from the file named by
+ * {@code GATEWAY_INSTANCES_FILE}) and balanced by {@link PowerOfTwoChoicesConfiguration}.
+ * Each route has its own circuit breaker, named after the route, and its own timeouts.
+ * Routes given a cache TTL have their GET responses cached by {@link ResponseCacheFilter};
+ * routes given a coalescing scope have identical concurrent GETs collapsed by
+ * {@link RequestCoalescingFilter}.
  */
 @Configuration
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesConfiguration.class)
 public class GatewayConfig {
 
+    @Value("${gateway.routes.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${gateway.routes.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    @Value("${gateway.routes.interop.response-timeout-ms:30000}")
+    private long interopResponseTimeoutMs;
+
+    @Value("${gateway.cache.ttl.core-emr-ms:15000}")
+    private long coreEmrCacheTtlMs;
+
+    @Value("${gateway.cache.ttl.interop-ms:30000}")
+    private long interopCacheTtlMs;
+
+    @Value("${gateway.coalescing.scope.core-emr:principal}")
+    private String coreEmrCoalescing;
+
+    @Value("${gateway.coalescing.scope.appointments:role}")
+    private String appointmentsCoalescing;
+
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
-        return builder.routes()
-            .route("core-emr", r -> r
-                .path("/api/emr/**")
-                .uri("http://localhost:8082")
-            )
-            .route("appointments", r -> r
-                .path("/api/appointments/**")
-                .uri("http://localhost:8083")
-            )
-            .route("orders", r -> r
-                .path("/api/orders/**")
-                .uri("http://localhost:8084")
-            )
-            .route("pharmacy", r -> r
-                .path("/api/pharmacy/**")
-                .uri("http://localhost:8085")
-            )
-            .route("billing", r -> r
-                .path("/api/billing/**")
-                .uri("http://localhost:8086")
-            )
-            .build();
+        RouteLocatorBuilder.Builder routes = builder.routes();
+        route(routes, "core-emr", responseTimeoutMs, coreEmrCacheTtlMs, coreEmrCoalescing, "/api/emr/**");
+        route(routes, "appointments", responseTimeoutMs, 0, appointmentsCoalescing, "/api/appointments/**");
+        route(routes, "orders", responseTimeoutMs, 0, "", "/api/orders/**");
+        route(routes, "pharmacy", responseTimeoutMs, 0, "", "/api/pharmacy/**");
+        route(routes, "billing", responseTimeoutMs, 0, "", "/api/billing/**");
+        route(routes, "interop", interopResponseTimeoutMs, interopCacheTtlMs, "", "/fhir/**", "/api/sync/**");
+        route(routes, "staff-rota", responseTimeoutMs, 0, "", "/api/staff-rota/**");
+        route(routes, "notifications", responseTimeoutMs, 0, "", "/api/notifications/**");
+        return routes.build();
     }
-}
 
+    /**
+     * @param cacheTtlMs response cache TTL, 0 for none
+     * @param coalescingScope "principal" or "role" to coalesce identical GETs, empty for none
+     */
+    private void route(RouteLocatorBuilder.Builder routes, String service, long timeoutMs, long cacheTtlMs,
+                       String coalescingScope, String... paths) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, connectTimeoutMs);
+        metadata.put(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, timeoutMs);
+        if (cacheTtlMs > 0) {
+            metadata.put(ResponseCacheFilter.TTL_METADATA, cacheTtlMs);
+        }
+        if (!coalescingScope.isEmpty()) {
+            metadata.put(RequestCoalescingFilter.SCOPE_METADATA, coalescingScope);
+        }
+
+        routes.route(service, r -> r
+            .path(paths)
+            .filters(f -> f.circuitBreaker(c -> c
+                .setName(service)
+                .setFallbackUri("forward:/fallback/" + service)
+                .addStatusCode("BAD_GATEWAY")
+                .addStatusCode("SERVICE_UNAVAILABLE")
+                .addStatusCode("GATEWAY_TIMEOUT")))
+            .metadata(metadata)
+            .uri("lb://" + service)
+        );
+    }
+}
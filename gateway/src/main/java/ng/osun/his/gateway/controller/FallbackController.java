@@ -0,0 +1,38 @@
+package ng.osun.his.gateway.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Circuit-breaker fallback: fail fast with 503/504 instead of holding the client connection.
+ */
+@RestController
+@RequestMapping("/fallback")
+@Slf4j
+public class FallbackController {
+
+    @RequestMapping("/{service}")
+    public Mono<ResponseEntity<Map<String, Object>>> fallback(@PathVariable String service, ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        HttpStatus status = cause instanceof TimeoutException ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.SERVICE_UNAVAILABLE;
+        log.warn("Fallback for {}: {}", service, cause == null ? "circuit open" : cause.toString());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("service", service);
+        body.put("status", status.value());
+        body.put("error", status == HttpStatus.GATEWAY_TIMEOUT
+            ? "Upstream service timed out" : "Upstream service temporarily unavailable");
+        return Mono.just(ResponseEntity.status(status).header("Retry-After", "5").body(body));
+    }
+}
@@ -0,0 +1,89 @@
+package ng.osun.his.gateway.lb;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-instance load and passive health, fed by {@link LoadTrackingLifecycle}.
+ * <p>
+ * Outstanding requests drive {@link PowerOfTwoChoicesLoadBalancer}. An instance that fails
+ * {@code gateway.lb.passive.failure-threshold} requests in a row (connect errors or 5xx) is
+ * ejected for {@code gateway.lb.passive.ejection-ms}, after which it gets traffic again and is
+ * ejected straight back if the next request fails.
+ */
+@Component
+@Slf4j
+public class InstanceLoadTracker {
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+
+    public InstanceLoadTracker(MeterRegistry meterRegistry,
+                               @Value("${gateway.lb.passive.failure-threshold:5}") int failureThreshold,
+                               @Value("${gateway.lb.passive.ejection-ms:30000}") long ejectionMs) {
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.ejectionNanos = TimeUnit.MILLISECONDS.toNanos(ejectionMs);
+    }
+
+    public int outstanding(ServiceInstance instance) {
+        return stats(instance).outstanding.get();
+    }
+
+    public boolean isEjected(ServiceInstance instance) {
+        InstanceStats s = stats.get(key(instance));
+        return s != null && s.ejectedUntil - System.nanoTime() > 0;
+    }
+
+    void started(ServiceInstance instance) {
+        stats(instance).outstanding.incrementAndGet();
+    }
+
+    void completed(ServiceInstance instance, boolean failed) {
+        InstanceStats s = stats(instance);
+        s.outstanding.decrementAndGet();
+        if (!failed) {
+            s.consecutiveFailures.set(0);
+            return;
+        }
+        if (s.consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            s.consecutiveFailures.set(failureThreshold - 1);
+            s.ejectedUntil = System.nanoTime() + ejectionNanos;
+            meterRegistry.counter("gateway.lb.ejections", "service", instance.getServiceId(), "instance", key(instance)).increment();
+            log.warn("Ejecting {} instance {} for {} ms after repeated failures",
+                instance.getServiceId(), key(instance), TimeUnit.NANOSECONDS.toMillis(ejectionNanos));
+        }
+    }
+
+    private InstanceStats stats(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), key -> {
+            InstanceStats s = new InstanceStats();
+            Gauge.builder("gateway.lb.outstanding", s.outstanding, AtomicInteger::get)
+                .tag("service", instance.getServiceId())
+                .tag("instance", key)
+                .register(meterRegistry);
+            return s;
+        });
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private static final class InstanceStats {
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile long ejectedUntil = System.nanoTime();
+    }
+}
@@ -0,0 +1,35 @@
+package ng.osun.his.gateway.lb;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-service load balancer configuration, applied to every client through
+ * {@code @LoadBalancerClients(defaultConfiguration = ...)}. Deliberately not a
+ * {@code @Configuration} so component scanning does not pull it into the parent context.
+ */
+public class PowerOfTwoChoicesConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier serviceInstanceListSupplier(ConfigurableApplicationContext context) {
+        // Instances from spring.cloud.discovery.client.simple, filtered by periodic /actuator/health probes
+        return ServiceInstanceListSupplier.builder()
+            .withDiscoveryClient()
+            .withHealthChecks()
+            .build(context);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> reactorServiceInstanceLoadBalancer(Environment environment,
+                                                                                  LoadBalancerClientFactory clientFactory,
+                                                                                  InstanceLoadTracker tracker) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PowerOfTwoChoicesLoadBalancer(
+            clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, tracker);
+    }
+}
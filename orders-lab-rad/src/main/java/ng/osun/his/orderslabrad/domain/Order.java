@@ -71,28 +71,3 @@ public class Order extends BaseEntity {
     @Column(name = "comments", length = 1000)
     private String comments;
 }
-
-@Embeddable
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
-class OrderItem {
-    @Column(name = "test_code")
-    private String testCode; // LOINC code
-
-    @Column(name = "test_name")
-    private String testName;
-
-    @Column(name = "panel")
-    private String panel; // CBC, LFT, etc.
-
-    @Column(name = "priority")
-    private String priority; // ROUTINE, URGENT, STAT
-
-    @Column(name = "clinician_notes", length = 500)
-    private String clinicianNotes;
-
-    @Column(name = "expected_result_at")
-    private java.time.Instant expectedResultAt;
-}
-
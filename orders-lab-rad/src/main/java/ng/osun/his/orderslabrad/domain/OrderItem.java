@@ -0,0 +1,35 @@
+package ng.osun.his.orderslabrad.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One test or study on an order.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItem {
+    @Column(name = "test_code")
+    private String testCode; // LOINC code
+
+    @Column(name = "test_name")
+    private String testName;
+
+    @Column(name = "panel")
+    private String panel; // CBC, LFT, etc.
+
+    @Column(name = "priority")
+    private String priority; // ROUTINE, URGENT, STAT
+
+    @Column(name = "clinician_notes", length = 500)
+    private String clinicianNotes;
+
+    @Column(name = "expected_result_at")
+    private java.time.Instant expectedResultAt;
+}
+
@@ -3,6 +3,7 @@ package ng.osun.his.orderslabrad.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.orderslabrad.domain.Order;
+import ng.osun.his.orderslabrad.domain.OrderItem;
 import ng.osun.his.orderslabrad.repository.OrderRepository;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.security.core.Authentication;
@@ -10,7 +11,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service for order workflow management with Kafka event publishing.
@@ -108,11 +111,15 @@ public class OrderWorkflowService {
      * Publish order status change event to Kafka.
      */
     private void publishOrderEvent(Order order, String newStatus, String userId) {
+        // encounterId, type and testCodes let billing capture the charge from the event alone
         String eventJson = String.format(
-            "{\"orderId\":\"%s\",\"orderNumber\":\"%s\",\"patientId\":\"%s\",\"oldStatus\":\"%s\",\"newStatus\":\"%s\",\"userId\":\"%s\",\"timestamp\":\"%s\"}",
+            "{\"orderId\":\"%s\",\"orderNumber\":\"%s\",\"patientId\":\"%s\",\"encounterId\":\"%s\",\"type\":\"%s\",\"testCodes\":[%s],\"oldStatus\":\"%s\",\"newStatus\":\"%s\",\"userId\":\"%s\",\"timestamp\":\"%s\"}",
             order.getId(),
             order.getOrderNumber(),
             order.getPatientId(),
+            order.getEncounterId(),
+            order.getType(),
+            testCodes(order),
             order.getStatus(),
             newStatus,
             userId,
@@ -122,5 +129,15 @@ public class OrderWorkflowService {
         kafkaTemplate.send(ORDER_EVENTS_TOPIC, order.getId(), eventJson);
         log.debug("Published order event: {} for order {}", newStatus, order.getId());
     }
-}
 
+    private static String testCodes(Order order) {
+        if (order.getItems() == null) {
+            return "";
+        }
+        return order.getItems().stream()
+            .map(OrderItem::getTestCode)
+            .filter(Objects::nonNull)
+            .map(code -> "\"" + code + "\"")
+            .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,46 @@
+package ng.osun.his.pharmacy.config;
+
+import ng.osun.his.pharmacy.domain.FormularyItem;
+import ng.osun.his.pharmacy.domain.Medication;
+import ng.osun.his.pharmacy.repository.FormularyItemRepository;
+import ng.osun.his.pharmacy.repository.MedicationRepository;
+import ng.osun.his.platform.cache.ReferenceDataCache;
+import ng.osun.his.platform.cache.ReferenceDataCaches;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Near-caches for the medication and formulary rows read per prescription line.
+ * Medications are keyed by code, formulary items by medication id.
+ */
+@Configuration
+public class ReferenceDataConfig {
+
+    @Bean
+    public ReferenceDataCache<String, Medication> medicationCache(ReferenceDataCaches caches,
+                                                                  MedicationRepository medicationRepository) {
+        return caches.<String, Medication>builder("Medication", medicationRepository::findByCode)
+            .preload(() -> medicationRepository.findByActiveTrue().stream()
+                .collect(Collectors.toMap(Medication::getCode, Function.identity(), (a, b) -> a)))
+            .idOf(Medication::getId)
+            .ttl(Duration.ofMinutes(30))
+            .maxEntries(20_000)
+            .build();
+    }
+
+    @Bean
+    public ReferenceDataCache<String, FormularyItem> formularyItemCache(ReferenceDataCaches caches,
+                                                                        FormularyItemRepository formularyItemRepository) {
+        return caches.<String, FormularyItem>builder("FormularyItem", formularyItemRepository::findWithMedicationByMedicationId)
+            .preload(() -> formularyItemRepository.findActiveWithMedication().stream()
+                .collect(Collectors.toMap(item -> item.getMedication().getId(), Function.identity(), (a, b) -> a)))
+            .idOf(FormularyItem::getId)
+            .ttl(Duration.ofMinutes(30))
+            .maxEntries(20_000)
+            .build();
+    }
+}
@@ -2,6 +2,8 @@ package ng.osun.his.pharmacy.repository;
 
 import ng.osun.his.pharmacy.domain.FormularyItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,5 +14,12 @@ public interface FormularyItemRepository extends JpaRepository<FormularyItem, St
     Optional<FormularyItem> findByMedication_Id(String medicationId);
     List<FormularyItem> findByActiveTrue();
     List<FormularyItem> findByRequiresPrescriptionTrue();
+
+    // Medication fetched up front so cached items are usable outside a session
+    @Query("SELECT f FROM FormularyItem f JOIN FETCH f.medication m WHERE m.id = :medicationId")
+    Optional<FormularyItem> findWithMedicationByMedicationId(@Param("medicationId") String medicationId);
+
+    @Query("SELECT f FROM FormularyItem f JOIN FETCH f.medication WHERE f.active = true")
+    List<FormularyItem> findActiveWithMedication();
 }
 
@@ -0,0 +1,42 @@
+package ng.osun.his.platform.audit;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Signed description of one archived audit_events partition.
+ * The signature is an HMAC-SHA256 over the manifest serialized with an empty signature.
+ */
+@Data
+@JsonPropertyOrder(alphabetic = true)
+public class AuditArchiveManifest {
+
+    private String partition;
+    private Instant from;
+    private Instant to;
+    private long rowCount;
+    private String dataFile;
+    private long dataBytes;
+    private String dataSha256;
+    private Instant createdAt;
+
+    /**
+     * Per hash chain: first and last sequence in this partition and the hash of the last one,
+     * so the chain can still be anchored once the rows are gone from the hot table.
+     */
+    private Map<String, ChainRange> chains = new TreeMap<>();
+
+    private String signature;
+
+    @Data
+    @JsonPropertyOrder(alphabetic = true)
+    public static class ChainRange {
+        private long firstSeq;
+        private long lastSeq;
+        private String lastHash;
+    }
+}
@@ -0,0 +1,232 @@
+package ng.osun.his.platform.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archive of detached audit_events partitions on local or mounted object storage.
+ * Each partition becomes a gzip-compressed NDJSON file streamed straight from a server-side
+ * cursor, plus a manifest carrying the row count, SHA-256 of the file, chain ranges and an
+ * HMAC signature. Reads verify the manifest signature and the file digest.
+ */
+@Component
+@Slf4j
+public class AuditArchiveStore {
+
+    private static final String HMAC = "HmacSHA256";
+
+    private static final String EXPORT_SQL =
+        "SELECT " + AuditEventRowMapper.COLUMNS + " FROM %s ORDER BY event_timestamp, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final byte[] signingKey;
+
+    public AuditArchiveStore(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             @Value("${audit.archive.dir:./data/audit-archive}") String directory,
+                             @Value("${audit.archive.signing-key:}") String signingKey) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(2000);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.signingKey = signingKey.isEmpty() ? null : Base64.getDecoder().decode(signingKey);
+    }
+
+    /**
+     * Stream a detached partition table to the archive and write its signed manifest.
+     * Safe to repeat: files are written under temporary names and moved into place.
+     */
+    public AuditArchiveManifest archive(YearMonth month) throws IOException {
+        if (signingKey == null) {
+            throw new IllegalStateException("audit.archive.signing-key is not configured");
+        }
+        Files.createDirectories(directory);
+        String partition = AuditPartitionManager.partitionName(month);
+        Path dataFile = directory.resolve(partition + ".ndjson.gz");
+        Path tmpData = directory.resolve(partition + ".ndjson.gz.tmp");
+
+        AuditArchiveManifest manifest = new AuditArchiveManifest();
+        manifest.setPartition(partition);
+        manifest.setFrom(AuditPartitionManager.monthStart(month));
+        manifest.setTo(AuditPartitionManager.monthStart(month.plusMonths(1)));
+        manifest.setDataFile(dataFile.getFileName().toString());
+
+        MessageDigest digest = AuditHashChain.sha256();
+        ObjectWriter rowWriter = objectMapper.writerFor(AuditEvent.class);
+        try (FileOutputStream file = new FileOutputStream(tmpData.toFile());
+             OutputStream digested = new DigestOutputStream(file, digest);
+             Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(digested, 65536), StandardCharsets.UTF_8))) {
+
+            readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(String.format(EXPORT_SQL, partition), (RowCallbackHandler) rs -> {
+                    AuditEvent event = AuditEventRowMapper.map(rs);
+                    try {
+                        out.write(rowWriter.writeValueAsString(event));
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    manifest.setRowCount(manifest.getRowCount() + 1);
+                    track(manifest, event);
+                }));
+            out.flush();
+            file.getFD().sync();
+        }
+
+        manifest.setDataBytes(Files.size(tmpData));
+        manifest.setDataSha256(AuditHashChain.toHex(digest.digest()));
+        manifest.setCreatedAt(Instant.now());
+        manifest.setSignature(sign(manifest));
+
+        Files.move(tmpData, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Path tmpManifest = directory.resolve(partition + ".manifest.json.tmp");
+        Files.write(tmpManifest, objectMapper.writeValueAsBytes(manifest));
+        Files.move(tmpManifest, manifestPath(partition), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        log.info("Archived {} audit events from {} ({} bytes)", manifest.getRowCount(), partition, manifest.getDataBytes());
+        return manifest;
+    }
+
+    /**
+     * All manifests whose month overlaps [from, to), oldest first, with signatures checked.
+     */
+    public List<AuditArchiveManifest> manifests(Instant from, Instant to) throws IOException {
+        List<AuditArchiveManifest> result = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.manifest.json")) {
+            for (Path file : files) {
+                AuditArchiveManifest manifest = objectMapper.readValue(file.toFile(), AuditArchiveManifest.class);
+                if (manifest.getTo().isAfter(from) && manifest.getFrom().isBefore(to)) {
+                    verifySignature(manifest);
+                    result.add(manifest);
+                }
+            }
+        }
+        result.sort((a, b) -> a.getFrom().compareTo(b.getFrom()));
+        return result;
+    }
+
+    /**
+     * Stream an archived partition, returning the events that match. Fails if the file does
+     * not match the digest in its manifest.
+     */
+    public List<AuditEvent> read(AuditArchiveManifest manifest, Predicate<AuditEvent> filter) throws IOException {
+        List<AuditEvent> matches = new ArrayList<>();
+        MessageDigest digest = AuditHashChain.sha256();
+        try (InputStream file = Files.newInputStream(directory.resolve(manifest.getDataFile()));
+             DigestInputStream digested = new DigestInputStream(file, digest);
+             BufferedReader in = new BufferedReader(new InputStreamReader(new GZIPInputStream(digested, 65536), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                AuditEvent event = objectMapper.readValue(line, AuditEvent.class);
+                if (filter.test(event)) {
+                    matches.add(event);
+                }
+            }
+            // Drain any trailing bytes so the digest covers the whole file
+            byte[] rest = new byte[8192];
+            while (digested.read(rest) != -1) {
+                // digest only
+            }
+        }
+        if (!AuditHashChain.toHex(digest.digest()).equals(manifest.getDataSha256())) {
+            throw new IllegalStateException("Audit archive " + manifest.getDataFile() + " does not match its manifest");
+        }
+        return matches;
+    }
+
+    private void verifySignature(AuditArchiveManifest manifest) throws IOException {
+        if (signingKey == null) {
+            throw new IllegalStateException("audit.archive.signing-key is not configured");
+        }
+        String expected = sign(manifest);
+        if (!MessageDigest.isEqual(expected.getBytes(StandardCharsets.US_ASCII),
+                String.valueOf(manifest.getSignature()).getBytes(StandardCharsets.US_ASCII))) {
+            throw new IllegalStateException("Audit archive manifest " + manifest.getPartition() + " has an invalid signature");
+        }
+    }
+
+    private String sign(AuditArchiveManifest manifest) throws IOException {
+        String signature = manifest.getSignature();
+        manifest.setSignature(null);
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(new SecretKeySpec(signingKey, HMAC));
+            return AuditHashChain.toHex(mac.doFinal(objectMapper.writeValueAsBytes(manifest)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign audit archive manifest", e);
+        } finally {
+            manifest.setSignature(signature);
+        }
+    }
+
+    private Path manifestPath(String partition) {
+        return directory.resolve(partition + ".manifest.json");
+    }
+
+    private static void track(AuditArchiveManifest manifest, AuditEvent event) {
+        if (event.getChainId() == null) {
+            return;
+        }
+        AuditArchiveManifest.ChainRange range = manifest.getChains().computeIfAbsent(event.getChainId(), k -> {
+            AuditArchiveManifest.ChainRange created = new AuditArchiveManifest.ChainRange();
+            created.setFirstSeq(event.getChainSeq());
+            created.setLastSeq(event.getChainSeq());
+            created.setLastHash(event.getSignedHash());
+            return created;
+        });
+        if (event.getChainSeq() < range.getFirstSeq()) {
+            range.setFirstSeq(event.getChainSeq());
+        }
+        if (event.getChainSeq() >= range.getLastSeq()) {
+            range.setLastSeq(event.getChainSeq());
+            range.setLastHash(event.getSignedHash());
+        }
+    }
+}
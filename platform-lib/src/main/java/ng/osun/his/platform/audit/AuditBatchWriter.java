@@ -0,0 +1,479 @@
+package ng.osun.his.platform.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background writer for the audit pipeline.
+ * Request threads only enqueue into a lock-free ring; one writer thread drains it and flushes
+ * every {@code audit.pipeline.flush-size} events or {@code audit.pipeline.flush-interval-ms},
+ * whichever comes first, as one JDBC batch insert plus one burst of Kafka sends. Events that
+ * cannot be delivered (sink down or slow, or ring full) go to a durable spill file that is
+ * replayed once the sinks recover. Delivery is at-least-once; rows are keyed by event id.
+ * <p>
+ * Events are hash-chained as they are inserted (see {@link AuditHashChain}), so the chain always
+ * matches what is in Postgres; every {@code audit.chain.checkpoint-interval} events a Merkle-root
+ * checkpoint is written and published to Kafka for external anchoring.
+ */
+@Component
+@Slf4j
+public class AuditBatchWriter {
+
+    static final String AUDIT_TOPIC = "audit.events";
+    static final String CHECKPOINT_TOPIC = "audit.checkpoints";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO audit_events (id, event_timestamp, user_id, user_role, action_type, resource_type,"
+        + " resource_id, purpose_of_use, ip_address, correlation_id, event_details, signed_hash,"
+        + " chain_id, chain_seq)"
+        + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final AuditCheckpointRepository checkpointRepository;
+    private final AuditRingBuffer ring;
+    private final AuditSpillFile spill;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final long kafkaTimeoutMs;
+    private final long replayIntervalNanos;
+    private final String chainId;
+    private final int checkpointInterval;
+
+    private final Counter dropped;
+    private final Counter spilled;
+    private final Counter writtenDb;
+    private final Counter writtenKafka;
+    private final Timer flushTimer;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    // Owned by the writer thread; loaded from the database on first write
+    private AuditHashChain chain;
+    private long segmentStartSeq;
+    private String segmentPrevHash;
+    private final List<String> segmentHashes = new ArrayList<>();
+    private final List<Instant> segmentTimes = new ArrayList<>();
+
+    public AuditBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            KafkaTemplate<String, String> kafkaTemplate,
+            AuditCheckpointRepository checkpointRepository,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${audit.pipeline.buffer-size:65536}") int bufferSize,
+            @Value("${audit.pipeline.flush-size:500}") int flushSize,
+            @Value("${audit.pipeline.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${audit.pipeline.kafka-timeout-ms:5000}") long kafkaTimeoutMs,
+            @Value("${audit.pipeline.db-timeout-seconds:5}") int dbTimeoutSeconds,
+            @Value("${audit.pipeline.replay-interval-ms:30000}") long replayIntervalMs,
+            @Value("${audit.pipeline.spill-dir:./data/audit-spill}") String spillDir,
+            @Value("${audit.chain.id:}") String chainId,
+            @Value("${spring.application.name:his}") String applicationName,
+            @Value("${audit.chain.checkpoint-interval:10000}") int checkpointInterval) throws IOException {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setQueryTimeout(dbTimeoutSeconds);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.kafkaTemplate = kafkaTemplate;
+        this.checkpointRepository = checkpointRepository;
+        this.ring = new AuditRingBuffer(bufferSize);
+        this.spill = new AuditSpillFile(Paths.get(spillDir), objectMapper);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.kafkaTimeoutMs = kafkaTimeoutMs;
+        this.replayIntervalNanos = TimeUnit.MILLISECONDS.toNanos(replayIntervalMs);
+        // Each writer must own its chain; replicas of one service get distinct ids via the host name
+        this.chainId = chainId.isEmpty() ? applicationName + "@" + hostName() : chainId;
+        this.checkpointInterval = checkpointInterval;
+
+        Gauge.builder("audit.queue.depth", ring, AuditRingBuffer::size).register(meterRegistry);
+        Gauge.builder("audit.spill.bytes", spill, AuditSpillFile::sizeBytes).register(meterRegistry);
+        this.dropped = meterRegistry.counter("audit.events.dropped");
+        this.spilled = meterRegistry.counter("audit.events.spilled");
+        this.writtenDb = meterRegistry.counter("audit.events.written", "sink", "db");
+        this.writtenKafka = meterRegistry.counter("audit.events.written", "sink", "kafka");
+        this.flushTimer = meterRegistry.timer("audit.flush");
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::runLoop, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Hand an event to the pipeline without blocking on Postgres or Kafka.
+     * If the ring is full the event is spilled to local disk; it is only dropped if that fails too.
+     */
+    public void submit(AuditEvent event) {
+        if (ring.offer(event)) {
+            if (ring.size() >= flushSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+        if (spill.append(Collections.singletonList(event), AuditSpillFile.Target.ALL)) {
+            spilled.increment();
+        } else {
+            dropped.increment();
+            log.error("Dropped audit event {} {} {}/{}", event.getId(), event.getActionType(),
+                event.getResourceType(), event.getResourceId());
+        }
+    }
+
+    public int queueDepth() {
+        return ring.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(30));
+        spill.close();
+    }
+
+    private void runLoop() {
+        List<AuditEvent> batch = new ArrayList<>(flushSize);
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        long nextReplay = System.nanoTime();
+
+        while (true) {
+            ring.drainTo(batch, flushSize - batch.size());
+            long now = System.nanoTime();
+
+            if (batch.size() >= flushSize || (!batch.isEmpty() && now - nextFlush >= 0)) {
+                flush(batch);
+                batch.clear();
+                nextFlush = now + flushIntervalNanos;
+                continue;
+            }
+            if (!running) {
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                    continue;
+                }
+                if (ring.size() == 0) {
+                    return;
+                }
+                continue;
+            }
+            if (now - nextReplay >= 0) {
+                replaySpill();
+                nextReplay = System.nanoTime() + replayIntervalNanos;
+            }
+            if (now - nextFlush >= 0) {
+                nextFlush = now + flushIntervalNanos;
+            }
+            LockSupport.parkNanos(this, nextFlush - now);
+        }
+    }
+
+    private void flush(List<AuditEvent> batch) {
+        long started = System.nanoTime();
+        if (!writeDb(batch)) {
+            spillOrDrop(batch, AuditSpillFile.Target.DB);
+        }
+        List<AuditEvent> failed = writeKafka(batch);
+        if (!failed.isEmpty()) {
+            spillOrDrop(failed, AuditSpillFile.Target.KAFKA);
+        }
+        flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Chain and insert the events in one transaction. A duplicate id or chain position fails the
+     * whole batch rather than being skipped, so no event is silently lost. On failure the
+     * database is asked whether the batch committed anyway (acknowledgement lost); if it did
+     * not, or that cannot be told, the events are left unchained to be chained afresh when
+     * replayed from the spill file, and the chain head is re-read from the database before the
+     * next write.
+     */
+    private boolean writeDb(List<AuditEvent> events) {
+        try {
+            loadChain();
+            events.forEach(chain::append);
+
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+                    ps.setString(1, event.getId());
+                    ps.setTimestamp(2, Timestamp.from(event.getEventTimestamp()));
+                    ps.setString(3, event.getUserId());
+                    ps.setString(4, event.getUserRole());
+                    ps.setString(5, event.getActionType() != null ? event.getActionType().name() : null);
+                    ps.setString(6, event.getResourceType());
+                    ps.setString(7, event.getResourceId());
+                    ps.setString(8, event.getPurposeOfUse());
+                    ps.setString(9, event.getIpAddress());
+                    ps.setString(10, event.getCorrelationId());
+                    ps.setString(11, event.getEventDetails());
+                    ps.setString(12, event.getSignedHash());
+                    ps.setString(13, event.getChainId());
+                    ps.setLong(14, event.getChainSeq());
+                }));
+        } catch (RuntimeException e) {
+            log.warn("Audit batch insert of {} events failed: {}", events.size(), e.getMessage());
+            if (chain == null || !isCommitted(events.get(events.size() - 1))) {
+                chain = null;
+                for (AuditEvent event : events) {
+                    event.setChainId(null);
+                    event.setChainSeq(null);
+                    event.setSignedHash(null);
+                }
+                return false;
+            }
+            log.info("Audit batch of {} events was committed despite the error", events.size());
+        }
+        writtenDb.increment(events.size());
+
+        for (AuditEvent event : events) {
+            segmentHashes.add(event.getSignedHash());
+            segmentTimes.add(event.getEventTimestamp());
+        }
+        writeCheckpoints();
+        return true;
+    }
+
+    /**
+     * Whether the last event of a batch is in the database at its chain position; false when
+     * the database cannot be reached either.
+     */
+    private boolean isCommitted(AuditEvent last) {
+        if (last.getChainSeq() == null) {
+            return false;
+        }
+        try {
+            List<String> hashes = jdbcTemplate.queryForList(
+                "SELECT signed_hash FROM audit_events WHERE chain_id = ? AND chain_seq = ?",
+                String.class, last.getChainId(), last.getChainSeq());
+            return hashes.contains(last.getSignedHash());
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void loadChain() {
+        if (chain != null) {
+            return;
+        }
+        List<AuditEvent> last = jdbcTemplate.query(
+            "SELECT chain_seq, signed_hash FROM audit_events WHERE chain_id = ? ORDER BY chain_seq DESC LIMIT 1",
+            (rs, row) -> AuditEvent.builder().chainSeq(rs.getLong(1)).signedHash(rs.getString(2)).build(),
+            chainId);
+
+        AuditCheckpoint checkpoint = checkpointRepository.findFirstByChainIdOrderByEndSeqDesc(chainId).orElse(null);
+        long startSeq = checkpoint != null ? checkpoint.getEndSeq() + 1 : 1;
+        String prevHash = checkpoint != null ? checkpoint.getEndHash() : AuditHashChain.GENESIS;
+
+        List<String> hashes = new ArrayList<>();
+        List<Instant> times = new ArrayList<>();
+        jdbcTemplate.query(
+            "SELECT signed_hash, event_timestamp FROM audit_events WHERE chain_id = ? AND chain_seq >= ? ORDER BY chain_seq",
+            rs -> {
+                hashes.add(rs.getString(1));
+                times.add(rs.getTimestamp(2).toInstant());
+            },
+            chainId, startSeq);
+
+        segmentStartSeq = startSeq;
+        segmentPrevHash = prevHash;
+        segmentHashes.clear();
+        segmentHashes.addAll(hashes);
+        segmentTimes.clear();
+        segmentTimes.addAll(times);
+        chain = last.isEmpty()
+            ? new AuditHashChain(chainId, 0, AuditHashChain.GENESIS)
+            : new AuditHashChain(chainId, last.get(0).getChainSeq(), last.get(0).getSignedHash());
+        log.info("Audit chain {} resumed at seq {}", chainId, chain.getLastSeq());
+    }
+
+    /**
+     * Close every full segment with a Merkle-root checkpoint. A failed write is retried after the next flush.
+     */
+    private void writeCheckpoints() {
+        while (segmentHashes.size() >= checkpointInterval) {
+            List<String> hashes = segmentHashes.subList(0, checkpointInterval);
+            List<Instant> times = segmentTimes.subList(0, checkpointInterval);
+            AuditCheckpoint checkpoint = AuditCheckpoint.builder()
+                .id(TimeOrderedIds.next())
+                .chainId(chainId)
+                .startSeq(segmentStartSeq)
+                .endSeq(segmentStartSeq + checkpointInterval - 1)
+                .startPrevHash(segmentPrevHash)
+                .endHash(hashes.get(hashes.size() - 1))
+                .merkleRoot(AuditMerkle.root(hashes))
+                .firstEventAt(Collections.min(times))
+                .lastEventAt(Collections.max(times))
+                .createdAt(Instant.now())
+                .build();
+            try {
+                checkpointRepository.save(checkpoint);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write audit checkpoint for {} at seq {}: {}",
+                    chainId, checkpoint.getEndSeq(), e.getMessage());
+                return;
+            }
+            try {
+                kafkaTemplate.send(CHECKPOINT_TOPIC, chainId, checkpoint.toString());
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish audit checkpoint {}: {}", checkpoint.getId(), e.getMessage());
+            }
+
+            segmentStartSeq = checkpoint.getEndSeq() + 1;
+            segmentPrevHash = checkpoint.getEndHash();
+            hashes.clear();
+            times.clear();
+        }
+    }
+
+    /**
+     * Drop spilled events that already reached the database (e.g. the commit succeeded but the
+     * acknowledgement was lost), so re-chaining them cannot leave a gap in the chain.
+     */
+    private List<AuditEvent> withoutPersisted(List<AuditEvent> events) {
+        try {
+            StringBuilder sql = new StringBuilder("SELECT id FROM audit_events WHERE id IN (");
+            Object[] ids = new Object[events.size()];
+            for (int i = 0; i < events.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+                ids[i] = events.get(i).getId();
+            }
+            sql.append(')');
+            Set<String> persisted = new HashSet<>(jdbcTemplate.queryForList(sql.toString(), String.class, ids));
+            if (persisted.isEmpty()) {
+                return events;
+            }
+            List<AuditEvent> remaining = new ArrayList<>(events.size());
+            for (AuditEvent event : events) {
+                if (!persisted.contains(event.getId())) {
+                    remaining.add(event);
+                }
+            }
+            return remaining;
+        } catch (RuntimeException e) {
+            return events;
+        }
+    }
+
+    /**
+     * Send the whole batch before waiting on any acknowledgement so the producer can pack it
+     * into as few requests as possible. Returns the events that were not acknowledged in time.
+     */
+    private List<AuditEvent> writeKafka(List<AuditEvent> events) {
+        List<ListenableFuture<SendResult<String, String>>> futures = new ArrayList<>(events.size());
+        List<AuditEvent> failed = new ArrayList<>();
+        for (AuditEvent event : events) {
+            try {
+                futures.add(kafkaTemplate.send(AUDIT_TOPIC, event.getId(), event.toString()));
+            } catch (RuntimeException e) {
+                futures.add(null);
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(kafkaTimeoutMs);
+        for (int i = 0; i < events.size(); i++) {
+            ListenableFuture<SendResult<String, String>> future = futures.get(i);
+            try {
+                if (future == null) {
+                    throw new IllegalStateException("send rejected");
+                }
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.add(events.get(i));
+            } catch (Exception e) {
+                failed.add(events.get(i));
+            }
+        }
+
+        writtenKafka.increment(events.size() - failed.size());
+        if (!failed.isEmpty()) {
+            log.warn("{} of {} audit events not acknowledged by Kafka", failed.size(), events.size());
+        }
+        return failed;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            return "local";
+        }
+    }
+
+    private void spillOrDrop(List<AuditEvent> events, AuditSpillFile.Target target) {
+        if (spill.append(events, target)) {
+            spilled.increment(events.size());
+        } else {
+            dropped.increment(events.size());
+        }
+    }
+
+    private void replaySpill() {
+        if (!spill.hasPending()) {
+            return;
+        }
+        try {
+            spill.replay(flushSize, records -> {
+                List<AuditEvent> forDb = new ArrayList<>();
+                List<AuditEvent> forKafka = new ArrayList<>();
+                for (AuditSpillFile.Record record : records) {
+                    if (record.getTarget() != AuditSpillFile.Target.KAFKA) {
+                        forDb.add(record.getEvent());
+                    }
+                    if (record.getTarget() != AuditSpillFile.Target.DB) {
+                        forKafka.add(record.getEvent());
+                    }
+                }
+                if (!forDb.isEmpty()) {
+                    forDb = withoutPersisted(forDb);
+                    if (!forDb.isEmpty() && !writeDb(forDb)) {
+                        spillOrDrop(forDb, AuditSpillFile.Target.DB);
+                    }
+                }
+                if (!forKafka.isEmpty()) {
+                    List<AuditEvent> failed = writeKafka(forKafka);
+                    if (!failed.isEmpty()) {
+                        spillOrDrop(failed, AuditSpillFile.Target.KAFKA);
+                    }
+                }
+            });
+        } catch (IOException e) {
+            log.error("Failed to replay audit spill file", e);
+        }
+    }
+}
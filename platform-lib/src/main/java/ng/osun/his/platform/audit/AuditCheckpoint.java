@@ -0,0 +1,58 @@
+package ng.osun.his.platform.audit;
+
+import javax.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Merkle-root checkpoint over a closed segment [startSeq, endSeq] of one audit hash chain.
+ */
+@Entity
+@Table(name = "audit_checkpoints")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditCheckpoint {
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "chain_id", length = 100, nullable = false)
+    private String chainId;
+
+    @Column(name = "start_seq", nullable = false)
+    private Long startSeq;
+
+    @Column(name = "end_seq", nullable = false)
+    private Long endSeq;
+
+    /**
+     * signedHash of the event just before startSeq (genesis for the first segment).
+     */
+    @Column(name = "start_prev_hash", length = 64, nullable = false)
+    private String startPrevHash;
+
+    @Column(name = "end_hash", length = 64, nullable = false)
+    private String endHash;
+
+    @Column(name = "merkle_root", length = 64, nullable = false)
+    private String merkleRoot;
+
+    @Column(name = "first_event_at", nullable = false)
+    private Instant firstEventAt;
+
+    @Column(name = "last_event_at", nullable = false)
+    private Instant lastEventAt;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "verified_at")
+    private Instant verifiedAt;
+}
@@ -0,0 +1,38 @@
+package ng.osun.his.platform.audit;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for audit chain checkpoints.
+ */
+@Repository
+public interface AuditCheckpointRepository extends JpaRepository<AuditCheckpoint, String> {
+
+    Optional<AuditCheckpoint> findFirstByChainIdOrderByEndSeqDesc(String chainId);
+
+    List<AuditCheckpoint> findByChainIdOrderByStartSeqAsc(String chainId);
+
+    List<AuditCheckpoint> findByVerifiedAtIsNullOrderByChainIdAscStartSeqAsc();
+
+    @Query("SELECT c FROM AuditCheckpoint c WHERE c.lastEventAt >= :from AND c.firstEventAt < :to "
+        + "ORDER BY c.chainId, c.startSeq")
+    List<AuditCheckpoint> findOverlapping(@Param("from") Instant from, @Param("to") Instant to);
+
+    @Query("SELECT DISTINCT c.chainId FROM AuditCheckpoint c")
+    List<String> findChainIds();
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE AuditCheckpoint c SET c.verifiedAt = :verifiedAt WHERE c.id IN :ids")
+    int markVerified(@Param("ids") Collection<String> ids, @Param("verifiedAt") Instant verifiedAt);
+}
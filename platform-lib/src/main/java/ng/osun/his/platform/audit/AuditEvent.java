@@ -59,6 +59,15 @@ public class AuditEvent {
     @Column(name = "signed_hash", length = 512)
     private String signedHash;
 
+    /**
+     * Hash chain this event belongs to (one per audit writer) and its gap-free position in it.
+     */
+    @Column(name = "chain_id", length = 100)
+    private String chainId;
+
+    @Column(name = "chain_seq")
+    private Long chainSeq;
+
     public enum ActionType {
         CREATE, READ, UPDATE, DELETE, SEARCH, EXPORT, LOGIN, LOGOUT
     }
@@ -0,0 +1,46 @@
+package ng.osun.his.platform.audit;
+
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps audit_events rows read over plain JDBC (archive export, chain verification).
+ */
+final class AuditEventRowMapper implements RowMapper<AuditEvent> {
+
+    static final AuditEventRowMapper INSTANCE = new AuditEventRowMapper();
+
+    static final String COLUMNS =
+        "id, event_timestamp, user_id, user_role, action_type, resource_type, resource_id,"
+        + " purpose_of_use, ip_address, correlation_id, event_details, signed_hash, chain_id, chain_seq";
+
+    private AuditEventRowMapper() {
+    }
+
+    @Override
+    public AuditEvent mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return map(rs);
+    }
+
+    static AuditEvent map(ResultSet rs) throws SQLException {
+        String actionType = rs.getString("action_type");
+        return AuditEvent.builder()
+            .id(rs.getString("id"))
+            .eventTimestamp(rs.getTimestamp("event_timestamp").toInstant())
+            .userId(rs.getString("user_id"))
+            .userRole(rs.getString("user_role"))
+            .actionType(actionType != null ? AuditEvent.ActionType.valueOf(actionType) : null)
+            .resourceType(rs.getString("resource_type"))
+            .resourceId(rs.getString("resource_id"))
+            .purposeOfUse(rs.getString("purpose_of_use"))
+            .ipAddress(rs.getString("ip_address"))
+            .correlationId(rs.getString("correlation_id"))
+            .eventDetails(rs.getString("event_details"))
+            .signedHash(rs.getString("signed_hash"))
+            .chainId(rs.getString("chain_id"))
+            .chainSeq(rs.getObject("chain_seq", Long.class))
+            .build();
+    }
+}
@@ -0,0 +1,114 @@
+package ng.osun.his.platform.audit;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Hash chain over one writer's audit events.
+ * Each event's signedHash is SHA-256(previous signedHash || canonical event), and events carry
+ * a gap-free chain sequence, so deleting, reordering or editing any row breaks every later link.
+ */
+final class AuditHashChain {
+
+    // Previous hash of the first event in a chain
+    static final String GENESIS = "0000000000000000000000000000000000000000000000000000000000000000";
+
+    private final String chainId;
+    private long lastSeq;
+    private String lastHash;
+
+    AuditHashChain(String chainId, long lastSeq, String lastHash) {
+        this.chainId = chainId;
+        this.lastSeq = lastSeq;
+        this.lastHash = lastHash;
+    }
+
+    /**
+     * Assign the next sequence and chained hash to the event.
+     */
+    void append(AuditEvent event) {
+        event.setChainId(chainId);
+        event.setChainSeq(lastSeq + 1);
+        event.setSignedHash(link(lastHash, event));
+        lastSeq = event.getChainSeq();
+        lastHash = event.getSignedHash();
+    }
+
+    String getChainId() {
+        return chainId;
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    String getLastHash() {
+        return lastHash;
+    }
+
+    static String link(String previousHash, AuditEvent event) {
+        MessageDigest digest = sha256();
+        digest.update(previousHash.getBytes(StandardCharsets.US_ASCII));
+        digest.update(canonical(event).getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Length-prefixed encoding of every persisted field, so no two distinct events share an encoding.
+     */
+    static String canonical(AuditEvent event) {
+        StringBuilder sb = new StringBuilder(256);
+        field(sb, event.getId());
+        field(sb, event.getChainId());
+        field(sb, event.getChainSeq() != null ? event.getChainSeq().toString() : null);
+        field(sb, event.getEventTimestamp() != null ? event.getEventTimestamp().toString() : null);
+        field(sb, event.getUserId());
+        field(sb, event.getUserRole());
+        field(sb, event.getActionType() != null ? event.getActionType().name() : null);
+        field(sb, event.getResourceType());
+        field(sb, event.getResourceId());
+        field(sb, event.getPurposeOfUse());
+        field(sb, event.getIpAddress());
+        field(sb, event.getCorrelationId());
+        field(sb, event.getEventDetails());
+        return sb.toString();
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        StringBuilder hexString = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            String hex = Integer.toHexString(0xff & b);
+            if (hex.length() == 1) {
+                hexString.append('0');
+            }
+            hexString.append(hex);
+        }
+        return hexString.toString();
+    }
+
+    static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static void field(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("-1:");
+        } else {
+            sb.append(value.length()).append(':').append(value);
+        }
+        sb.append('|');
+    }
+}
@@ -0,0 +1,46 @@
+package ng.osun.his.platform.audit;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merkle root over a segment of chained audit hashes.
+ * Leaves and interior nodes are domain-separated (0x00 / 0x01 prefix); an odd node at the end
+ * of a level is promoted unchanged.
+ */
+final class AuditMerkle {
+
+    private AuditMerkle() {
+    }
+
+    static String root(List<String> leafHashes) {
+        if (leafHashes.isEmpty()) {
+            return AuditHashChain.GENESIS;
+        }
+        MessageDigest digest = AuditHashChain.sha256();
+
+        List<byte[]> level = new ArrayList<>(leafHashes.size());
+        for (String leaf : leafHashes) {
+            digest.update((byte) 0x00);
+            digest.update(AuditHashChain.fromHex(leaf));
+            level.add(digest.digest());
+        }
+
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                if (i + 1 == level.size()) {
+                    next.add(level.get(i));
+                    continue;
+                }
+                digest.update((byte) 0x01);
+                digest.update(level.get(i));
+                digest.update(level.get(i + 1));
+                next.add(digest.digest());
+            }
+            level = next;
+        }
+        return AuditHashChain.toHex(level.get(0));
+    }
+}
@@ -0,0 +1,135 @@
+package ng.osun.his.platform.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manages the monthly range partitions of audit_events (months in Africa/Lagos time).
+ * Partitions are named audit_events_yYYYYmMM; rows outside every monthly partition land in
+ * audit_events_default, so creating partitions ahead of time keeps that one empty.
+ */
+@Component
+@Slf4j
+public class AuditPartitionManager {
+
+    static final String PARENT = "audit_events";
+
+    private static final Pattern NAME = Pattern.compile("audit_events_y(\\d{4})m(\\d{2})");
+
+    private static final String ATTACHED_SQL =
+        "SELECT c.relname FROM pg_inherits i"
+        + " JOIN pg_class c ON c.oid = i.inhrelid"
+        + " WHERE i.inhparent = 'audit_events'::regclass";
+
+    private static final String DETACHED_SQL =
+        "SELECT c.relname FROM pg_class c"
+        + " WHERE c.relkind = 'r' AND c.relname LIKE 'audit\\_events\\_y%'"
+        + " AND c.relnamespace = current_schema()::regnamespace"
+        + " AND NOT EXISTS (SELECT 1 FROM pg_inherits i WHERE i.inhrelid = c.oid)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+                                 @Value("${audit.partitions.months-ahead:3}") int monthsAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return String.format("audit_events_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    public static Instant monthStart(YearMonth month) {
+        return month.atDay(1).atStartOfDay(NigeriaContext.TIMEZONE).toInstant();
+    }
+
+    /**
+     * Make sure partitions exist from the current month through audit.partitions.months-ahead.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureFuturePartitions() {
+        YearMonth current = YearMonth.now(NigeriaContext.TIMEZONE);
+        for (int i = 0; i <= monthsAhead; i++) {
+            try {
+                createPartition(current.plusMonths(i));
+            } catch (DataAccessException e) {
+                // Typically rows for that month already sit in the default partition
+                log.warn("Could not create audit partition {}: {}", partitionName(current.plusMonths(i)), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Create a month's partition with its own unique (chain_id, chain_seq) index; the parent's
+     * unique key has to include event_timestamp, so only the partition can enforce that alone.
+     */
+    public void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        jdbcTemplate.execute(String.format(
+            "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+            name, PARENT,
+            month.atDay(1).atStartOfDay(NigeriaContext.TIMEZONE).toOffsetDateTime(),
+            month.plusMonths(1).atDay(1).atStartOfDay(NigeriaContext.TIMEZONE).toOffsetDateTime()));
+        jdbcTemplate.execute(String.format(
+            "CREATE UNIQUE INDEX IF NOT EXISTS %s_chain_key ON %s (chain_id, chain_seq)", name, name));
+    }
+
+    /**
+     * Monthly partitions currently attached to audit_events, oldest first.
+     */
+    public List<YearMonth> attachedPartitions() {
+        return parse(jdbcTemplate.queryForList(ATTACHED_SQL, String.class));
+    }
+
+    /**
+     * Monthly partitions detached by an earlier retention run but not yet archived and dropped.
+     */
+    public List<YearMonth> detachedPartitions() {
+        return parse(jdbcTemplate.queryForList(DETACHED_SQL, String.class));
+    }
+
+    /**
+     * Start of the oldest month still held in the hot table, or null if there is none.
+     */
+    public Instant hotFrom() {
+        List<YearMonth> attached = attachedPartitions();
+        return attached.isEmpty() ? null : monthStart(attached.get(0));
+    }
+
+    public void detach(YearMonth month) {
+        jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partitionName(month));
+        log.info("Detached audit partition {}", partitionName(month));
+    }
+
+    public void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+        log.info("Dropped audit partition {}", partitionName(month));
+    }
+
+    private static List<YearMonth> parse(List<String> names) {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : names) {
+            Matcher matcher = NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+}
@@ -0,0 +1,58 @@
+package ng.osun.his.platform.audit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Audit trail queries spanning the hot partitioned table and archived partitions.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditQueryService {
+
+    private final AuditEventRepository auditEventRepository;
+    private final AuditArchiveStore auditArchiveStore;
+    private final AuditPartitionManager partitionManager;
+
+    /**
+     * Events by a user in [start, end), oldest first. Archived months are read back from their
+     * compressed files, so ranges reaching far into the past are slower.
+     */
+    public List<AuditEvent> findByUser(String userId, Instant start, Instant end) {
+        List<AuditEvent> events = new ArrayList<>();
+
+        Instant hotFrom = partitionManager.hotFrom();
+        if (hotFrom == null || start.isBefore(hotFrom)) {
+            Instant archiveEnd = hotFrom == null || end.isBefore(hotFrom) ? end : hotFrom;
+            try {
+                for (AuditArchiveManifest manifest : auditArchiveStore.manifests(start, archiveEnd)) {
+                    events.addAll(auditArchiveStore.read(manifest, e -> userId.equals(e.getUserId())
+                        && !e.getEventTimestamp().isBefore(start) && e.getEventTimestamp().isBefore(end)));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archived audit events", e);
+            }
+        }
+
+        if (hotFrom == null || end.isAfter(hotFrom)) {
+            for (AuditEvent event : auditEventRepository.findByUserIdAndEventTimestampBetween(userId, start, end)) {
+                // Between is inclusive at both ends
+                if (event.getEventTimestamp().isBefore(end)) {
+                    events.add(event);
+                }
+            }
+        }
+
+        events.sort(Comparator.comparing(AuditEvent::getEventTimestamp));
+        return events;
+    }
+}
@@ -2,13 +2,11 @@ package ng.osun.his.platform.audit;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import ng.osun.his.platform.util.TimeOrderedIds;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
-import java.security.MessageDigest;
-import java.nio.charset.StandardCharsets;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Service for immutably logging audit events to DB and Kafka.
@@ -18,56 +16,34 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 public class AuditService {
 
-    private static final String AUDIT_TOPIC = "audit.events";
+    /**
+     * Audit events from components without their own audit store (the gateway's response cache),
+     * appended to the log by core-emr.
+     */
+    public static final String ACCESS_TOPIC = "audit.access";
 
-    private final AuditEventRepository auditEventRepository;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final AuditBatchWriter auditBatchWriter;
 
     /**
      * Log an audit event to both database and Kafka for tamper-evidence.
+     * Returns as soon as the event is queued; it is written outside the caller's transaction.
      */
-    @Transactional
     public void logEvent(AuditEvent event) {
         try {
-            // Generate signed hash for tamper-evidence
-            event.setSignedHash(computeHash(event));
-            event.setEventTimestamp(Instant.now());
+            if (event.getId() == null) {
+                event.setId(TimeOrderedIds.next());
+            }
 
-            // Save to database
-            auditEventRepository.save(event);
+            // Millisecond precision so the chained hash survives the round trip through Postgres;
+            // signedHash is assigned by the writer when the event joins the hash chain
+            event.setEventTimestamp(Instant.now().truncatedTo(ChronoUnit.MILLIS));
 
-            // Publish to Kafka for external audit trail
-            kafkaTemplate.send(AUDIT_TOPIC, event.getId(), event.toString());
+            auditBatchWriter.submit(event);
 
-            log.debug("Audit event logged: {}", event.getId());
+            log.debug("Audit event queued: {}", event.getId());
         } catch (Exception e) {
             log.error("Failed to log audit event", e);
             // Don't throw - audit failure should not block business logic
         }
     }
-
-    private String computeHash(AuditEvent event) {
-        try {
-            String data = event.getUserId() + "|" + event.getActionType() + "|" + event.getResourceType() + "|" + event.getResourceId();
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(data.getBytes(StandardCharsets.UTF_8));
-            return bytesToHex(hash);
-        } catch (Exception e) {
-            log.error("Error computing hash", e);
-            return "ERROR";
-        }
-    }
-
-    private String bytesToHex(byte[] bytes) {
-        StringBuilder hexString = new StringBuilder();
-        for (byte b : bytes) {
-            String hex = Integer.toHexString(0xff & b);
-            if (hex.length() == 1) {
-                hexString.append('0');
-            }
-            hexString.append(hex);
-        }
-        return hexString.toString();
-    }
 }
-
@@ -0,0 +1,154 @@
+package ng.osun.his.platform.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Durable local overflow for audit events that could not reach Postgres or Kafka.
+ * Records are appended as JSON lines and fsync'd before the append returns. The writer
+ * replays the file by first moving it aside, so appends made during a replay land in a
+ * fresh file and a replay interrupted by a crash is resumed on the next start.
+ */
+@Slf4j
+class AuditSpillFile {
+
+    enum Target { DB, KAFKA, ALL }
+
+    private final Path file;
+    private final Path replaying;
+    private final ObjectMapper objectMapper;
+
+    // Guarded by this
+    private FileChannel channel;
+
+    AuditSpillFile(Path directory, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve("audit-spill.jsonl");
+        this.replaying = directory.resolve("audit-spill.replay.jsonl");
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Append events still owed to the given target. Returns false if the disk write failed.
+     */
+    synchronized boolean append(List<AuditEvent> events, Target target) {
+        try {
+            StringBuilder lines = new StringBuilder();
+            for (AuditEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(new Record(target, event))).append('\n');
+            }
+            if (channel == null) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            return true;
+        } catch (IOException e) {
+            log.error("Failed to spill {} audit events to {}", events.size(), file, e);
+            return false;
+        }
+    }
+
+    boolean hasPending() {
+        try {
+            return Files.exists(replaying) || (Files.exists(file) && Files.size(file) > 0);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    long sizeBytes() {
+        try {
+            return (Files.exists(file) ? Files.size(file) : 0) + (Files.exists(replaying) ? Files.size(replaying) : 0);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Hand spilled records to the handler in chunks and then discard them. The handler is
+     * responsible for re-appending anything it still cannot deliver.
+     */
+    void replay(int chunkSize, Consumer<List<Record>> handler) throws IOException {
+        synchronized (this) {
+            if (!Files.exists(replaying)) {
+                if (!Files.exists(file) || Files.size(file) == 0) {
+                    return;
+                }
+                if (channel != null) {
+                    channel.close();
+                    channel = null;
+                }
+                Files.move(file, replaying, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+
+        long replayed = 0;
+        try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+            List<Record> chunk = new ArrayList<>(chunkSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    chunk.add(objectMapper.readValue(line, Record.class));
+                } catch (IOException e) {
+                    // A torn final line from a crash mid-append; everything before it is intact
+                    log.warn("Skipping unreadable audit spill line in {}", replaying);
+                    continue;
+                }
+                if (chunk.size() >= chunkSize) {
+                    handler.accept(chunk);
+                    replayed += chunk.size();
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                handler.accept(chunk);
+                replayed += chunk.size();
+            }
+        }
+        Files.delete(replaying);
+        log.info("Replayed {} spilled audit events", replayed);
+    }
+
+    synchronized void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("Failed to close audit spill file", e);
+            }
+            channel = null;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Record {
+        private Target target;
+        private AuditEvent event;
+    }
+}
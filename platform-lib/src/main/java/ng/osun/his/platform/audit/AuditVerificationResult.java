@@ -0,0 +1,22 @@
+package ng.osun.his.platform.audit;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of an audit chain integrity check.
+ */
+@Data
+public class AuditVerificationResult {
+
+    private int segmentsVerified;
+    private long eventsVerified;
+    private long durationMs;
+    private List<String> failures = new ArrayList<>();
+
+    public boolean isIntact() {
+        return failures.isEmpty();
+    }
+}
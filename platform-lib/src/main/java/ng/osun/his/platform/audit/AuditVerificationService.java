@@ -0,0 +1,308 @@
+package ng.osun.his.platform.audit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Verifies audit hash chains against their Merkle checkpoints.
+ * Every checkpoint pins its segment's starting hash, so segments are independent and are
+ * recomputed in parallel, one per core; checkpoint-to-checkpoint links are then checked in
+ * sequence, which is cheap. The open tail after each chain's last checkpoint is chained from
+ * that checkpoint's end hash. Segments whose rows have been archived out of the hot table are
+ * skipped; their integrity is covered by the signed archive manifest.
+ */
+@Service
+@Slf4j
+public class AuditVerificationService {
+
+    private static final String SEGMENT_SQL =
+        "SELECT " + AuditEventRowMapper.COLUMNS
+        + " FROM audit_events WHERE chain_id = ? AND chain_seq BETWEEN ? AND ? ORDER BY chain_seq";
+
+    // Loose index scan over (chain_id, chain_seq): one probe per chain instead of a full scan
+    private static final String CHAIN_IDS_SQL =
+        "WITH RECURSIVE chains AS ("
+        + " (SELECT chain_id FROM audit_events WHERE chain_id IS NOT NULL ORDER BY chain_id LIMIT 1)"
+        + " UNION ALL"
+        + " SELECT (SELECT chain_id FROM audit_events WHERE chain_id > c.chain_id ORDER BY chain_id LIMIT 1)"
+        + " FROM chains c WHERE c.chain_id IS NOT NULL"
+        + ") SELECT chain_id FROM chains WHERE chain_id IS NOT NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditCheckpointRepository checkpointRepository;
+    private final AuditPartitionManager partitionManager;
+    private final ExecutorService verifier;
+
+    public AuditVerificationService(JdbcTemplate jdbcTemplate,
+                                    AuditCheckpointRepository checkpointRepository,
+                                    AuditPartitionManager partitionManager,
+                                    @Value("${audit.verify.threads:0}") int threads) {
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000);
+        this.checkpointRepository = checkpointRepository;
+        this.partitionManager = partitionManager;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.verifier = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "audit-verify-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Verify every checkpointed segment overlapping [from, to), plus the open tails when the
+     * range reaches past the last checkpoint.
+     */
+    public AuditVerificationResult verifyRange(Instant from, Instant to) {
+        Instant hotFrom = partitionManager.hotFrom();
+        List<AuditCheckpoint> checkpoints = hot(checkpointRepository.findOverlapping(from, to), hotFrom);
+        List<Segment> segments = new ArrayList<>();
+        checkpoints.forEach(c -> segments.add(Segment.of(c)));
+
+        for (String chainId : jdbcTemplate.queryForList(CHAIN_IDS_SQL, String.class)) {
+            AuditCheckpoint last = checkpointRepository.findFirstByChainIdOrderByEndSeqDesc(chainId).orElse(null);
+            if (last == null || last.getLastEventAt().isBefore(to)) {
+                segments.add(tail(chainId, last, hotFrom));
+            }
+        }
+        return verify(segments, checkpoints);
+    }
+
+    /**
+     * Verify only what was added since the last run: checkpoints never verified, plus the open
+     * tails. Checkpoints that pass are marked verified and skipped next time.
+     */
+    public AuditVerificationResult verifyIncremental() {
+        Instant hotFrom = partitionManager.hotFrom();
+        List<AuditCheckpoint> checkpoints = hot(checkpointRepository.findByVerifiedAtIsNullOrderByChainIdAscStartSeqAsc(), hotFrom);
+        List<Segment> segments = new ArrayList<>();
+        checkpoints.forEach(c -> segments.add(Segment.of(c)));
+
+        for (String chainId : jdbcTemplate.queryForList(CHAIN_IDS_SQL, String.class)) {
+            segments.add(tail(chainId,
+                checkpointRepository.findFirstByChainIdOrderByEndSeqDesc(chainId).orElse(null), hotFrom));
+        }
+
+        AuditVerificationResult result = verify(segments, checkpoints);
+
+        List<String> passed = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (segment.checkpointId != null && segment.failure == null) {
+                passed.add(segment.checkpointId);
+            }
+        }
+        if (!passed.isEmpty()) {
+            checkpointRepository.markVerified(passed, Instant.now());
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifier.shutdownNow();
+    }
+
+    private static List<AuditCheckpoint> hot(List<AuditCheckpoint> checkpoints, Instant hotFrom) {
+        if (hotFrom == null) {
+            return checkpoints;
+        }
+        List<AuditCheckpoint> hot = new ArrayList<>(checkpoints.size());
+        for (AuditCheckpoint checkpoint : checkpoints) {
+            if (!checkpoint.getFirstEventAt().isBefore(hotFrom)) {
+                hot.add(checkpoint);
+            }
+        }
+        return hot;
+    }
+
+    /**
+     * Open tail of a chain. If its start has been archived, anchor on the first row still in
+     * the hot table instead.
+     */
+    private Segment tail(String chainId, AuditCheckpoint last, Instant hotFrom) {
+        Segment segment = Segment.tail(chainId, last);
+        if (hotFrom != null && (last == null || last.getLastEventAt().isBefore(hotFrom))) {
+            List<AuditEvent> first = jdbcTemplate.query(
+                "SELECT chain_seq, signed_hash FROM audit_events WHERE chain_id = ? AND chain_seq >= ? ORDER BY chain_seq LIMIT 1",
+                (rs, row) -> AuditEvent.builder().chainSeq(rs.getLong(1)).signedHash(rs.getString(2)).build(),
+                chainId, segment.startSeq);
+            if (!first.isEmpty() && first.get(0).getChainSeq() > segment.startSeq) {
+                segment.startSeq = first.get(0).getChainSeq() + 1;
+                segment.startPrevHash = first.get(0).getSignedHash();
+            }
+        }
+        return segment;
+    }
+
+    private AuditVerificationResult verify(List<Segment> segments, List<AuditCheckpoint> checkpoints) {
+        long started = System.currentTimeMillis();
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(segments.size());
+        for (Segment segment : segments) {
+            futures.add(CompletableFuture.runAsync(() -> verifySegment(segment), verifier));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        AuditVerificationResult result = new AuditVerificationResult();
+        for (Segment segment : segments) {
+            result.setSegmentsVerified(result.getSegmentsVerified() + 1);
+            result.setEventsVerified(result.getEventsVerified() + segment.events);
+            if (segment.failure != null) {
+                result.getFailures().add(segment.failure);
+            }
+        }
+        checkLinks(checkpoints, result);
+
+        result.setDurationMs(System.currentTimeMillis() - started);
+        if (result.isIntact()) {
+            log.info("Audit chain verified: {} segments, {} events in {} ms",
+                result.getSegmentsVerified(), result.getEventsVerified(), result.getDurationMs());
+        } else {
+            log.error("Audit chain verification FAILED: {}", result.getFailures());
+        }
+        return result;
+    }
+
+    /**
+     * Consecutive checkpoints of a chain must abut: no missing or overlapping segments.
+     */
+    private void checkLinks(List<AuditCheckpoint> checkpoints, AuditVerificationResult result) {
+        Map<String, AuditCheckpoint> previousByChain = new HashMap<>();
+        for (AuditCheckpoint checkpoint : checkpoints) {
+            AuditCheckpoint previous = previousByChain.put(checkpoint.getChainId(), checkpoint);
+            if (previous == null) {
+                continue;
+            }
+            if (previous.getEndSeq() + 1 != checkpoint.getStartSeq()
+                    || !previous.getEndHash().equals(checkpoint.getStartPrevHash())) {
+                result.getFailures().add(String.format("%s: checkpoint %d..%d does not follow %d..%d",
+                    checkpoint.getChainId(), checkpoint.getStartSeq(), checkpoint.getEndSeq(),
+                    previous.getStartSeq(), previous.getEndSeq()));
+            }
+        }
+    }
+
+    private void verifySegment(Segment segment) {
+        SegmentChecker checker = new SegmentChecker(segment);
+        try {
+            jdbcTemplate.query(SEGMENT_SQL, checker, segment.chainId, segment.startSeq, segment.endSeq);
+            checker.finish();
+        } catch (RuntimeException e) {
+            segment.failure = segment.describe() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * Recomputes the chain row by row; keeps only the leaf hashes needed for the Merkle root.
+     */
+    private static final class SegmentChecker implements RowCallbackHandler {
+        private final Segment segment;
+        private final List<String> leaves = new ArrayList<>();
+        private String previousHash;
+        private long expectedSeq;
+
+        private SegmentChecker(Segment segment) {
+            this.segment = segment;
+            this.previousHash = segment.startPrevHash;
+            this.expectedSeq = segment.startSeq;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            if (segment.failure != null) {
+                return;
+            }
+            AuditEvent event = AuditEventRowMapper.map(rs);
+            if (event.getChainSeq() != expectedSeq) {
+                segment.failure = String.format("%s: missing seq %d", segment.describe(), expectedSeq);
+                return;
+            }
+            String recomputed = AuditHashChain.link(previousHash, event);
+            if (!recomputed.equals(event.getSignedHash())) {
+                segment.failure = String.format("%s: hash mismatch at seq %d (event %s)",
+                    segment.describe(), expectedSeq, event.getId());
+                return;
+            }
+            if (segment.merkleRoot != null) {
+                leaves.add(recomputed);
+            }
+            previousHash = recomputed;
+            expectedSeq++;
+            segment.events++;
+        }
+
+        private void finish() {
+            if (segment.failure != null || segment.merkleRoot == null) {
+                return;
+            }
+            if (expectedSeq != segment.endSeq + 1) {
+                segment.failure = String.format("%s: missing seq %d", segment.describe(), expectedSeq);
+            } else if (!previousHash.equals(segment.endHash)) {
+                segment.failure = segment.describe() + ": end hash mismatch";
+            } else if (!AuditMerkle.root(leaves).equals(segment.merkleRoot)) {
+                segment.failure = segment.describe() + ": Merkle root mismatch";
+            }
+        }
+    }
+
+    /**
+     * A contiguous run of one chain: either a checkpointed segment or the open tail.
+     */
+    private static final class Segment {
+        private String checkpointId;
+        private String chainId;
+        private long startSeq;
+        private long endSeq;
+        private String startPrevHash;
+        private String endHash;
+        private String merkleRoot;
+
+        // Written by the single worker that verifies this segment, read after join()
+        private long events;
+        private String failure;
+
+        static Segment of(AuditCheckpoint checkpoint) {
+            Segment segment = new Segment();
+            segment.checkpointId = checkpoint.getId();
+            segment.chainId = checkpoint.getChainId();
+            segment.startSeq = checkpoint.getStartSeq();
+            segment.endSeq = checkpoint.getEndSeq();
+            segment.startPrevHash = checkpoint.getStartPrevHash();
+            segment.endHash = checkpoint.getEndHash();
+            segment.merkleRoot = checkpoint.getMerkleRoot();
+            return segment;
+        }
+
+        static Segment tail(String chainId, AuditCheckpoint last) {
+            Segment segment = new Segment();
+            segment.chainId = chainId;
+            segment.startSeq = last != null ? last.getEndSeq() + 1 : 1;
+            segment.endSeq = Long.MAX_VALUE;
+            segment.startPrevHash = last != null ? last.getEndHash() : AuditHashChain.GENESIS;
+            return segment;
+        }
+
+        String describe() {
+            return endSeq == Long.MAX_VALUE
+                ? String.format("%s tail from %d", chainId, startSeq)
+                : String.format("%s %d..%d", chainId, startSeq, endSeq);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package ng.osun.his.platform.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded near-cache for one type of slow-changing reference row, created through
+ * {@link ReferenceDataCaches}.
+ * <p>
+ * Entries are striped by key hash into access-ordered maps, so the least recently read entry is
+ * evicted first once a stripe is full. An entry lives for the cache's TTL; a read after
+ * {@code refreshAhead} of the TTL has passed still returns the cached value but schedules a
+ * background reload, so hot keys never expire on a request thread. Invalidation bumps a
+ * generation counter that in-flight loads check before storing, so a load racing an admin edit
+ * cannot put the old row back.
+ * <p>
+ * Cached values are shared across threads and must be treated as read-only.
+ */
+@Slf4j
+public class ReferenceDataCache<K, V> {
+
+    private static final int STRIPES = 16;
+
+    private final String name;
+    private final Function<K, Optional<V>> loader;
+    private final Supplier<Map<K, V>> preloader;
+    private final Function<V, String> idOf;
+    private final long ttlNanos;
+    private final long refreshAfterNanos;
+    private final Executor refresher;
+    private final Stripe<K, V>[] stripes;
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Counter refreshes;
+    private final Counter invalidations;
+
+    @SuppressWarnings("unchecked")
+    ReferenceDataCache(String name, Function<K, Optional<V>> loader, Supplier<Map<K, V>> preloader,
+                       Function<V, String> idOf, Duration ttl, double refreshAhead, int maxEntries,
+                       Executor refresher, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.loader = loader;
+        this.preloader = preloader;
+        this.idOf = idOf;
+        this.ttlNanos = ttl.toNanos();
+        this.refreshAfterNanos = (long) (ttlNanos * refreshAhead);
+        this.refresher = refresher;
+        this.stripes = new Stripe[STRIPES];
+        int perStripe = Math.max(16, maxEntries / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+
+        FunctionCounter.builder("refdata.cache.requests", hits, LongAdder::sum)
+            .tag("cache", name).tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("refdata.cache.requests", misses, LongAdder::sum)
+            .tag("cache", name).tag("result", "miss").register(meterRegistry);
+        Gauge.builder("refdata.cache.hit_ratio", this, ReferenceDataCache::hitRatio)
+            .tag("cache", name).register(meterRegistry);
+        Gauge.builder("refdata.cache.size", this, ReferenceDataCache::size)
+            .tag("cache", name).register(meterRegistry);
+        this.refreshes = meterRegistry.counter("refdata.cache.refreshes", "cache", name);
+        this.invalidations = meterRegistry.counter("refdata.cache.invalidations", "cache", name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Cached value for the key, loading it on a miss. Absent rows are not cached.
+     */
+    public Optional<V> get(K key) {
+        long now = System.nanoTime();
+        Stripe<K, V> stripe = stripeFor(key);
+        Entry<V> entry;
+        stripe.lock.lock();
+        try {
+            entry = stripe.entries.get(key);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (entry != null && now - entry.loadedAt < ttlNanos) {
+            hits.increment();
+            if (now - entry.loadedAt >= refreshAfterNanos && entry.refreshing.compareAndSet(false, true)) {
+                scheduleRefresh(key);
+            }
+            return Optional.of(entry.value);
+        }
+
+        misses.increment();
+        return load(key);
+    }
+
+    /**
+     * Drop entries for a changed row, matched on the row id as well as the cache key.
+     * Reference tables are small, so this scans the cache rather than keeping a reverse index.
+     */
+    public int invalidate(String id) {
+        generation.incrementAndGet();
+        int removed = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                Iterator<Map.Entry<K, Entry<V>>> it = stripe.entries.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<K, Entry<V>> e = it.next();
+                    if (id.equals(String.valueOf(e.getKey())) || id.equals(idOf.apply(e.getValue().value))) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        invalidations.increment();
+        return removed;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.entries.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * Load the whole table through the preloader, if the cache has one.
+     *
+     * @return number of entries loaded
+     */
+    public int preload() {
+        if (preloader == null) {
+            return 0;
+        }
+        long gen = generation.get();
+        Map<K, V> all = preloader.get();
+        all.forEach((key, value) -> store(key, value, gen));
+        return all.size();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private Optional<V> load(K key) {
+        long gen = generation.get();
+        Optional<V> loaded = loader.apply(key);
+        if (loaded.isPresent()) {
+            store(key, loaded.get(), gen);
+        } else {
+            Stripe<K, V> stripe = stripeFor(key);
+            stripe.lock.lock();
+            try {
+                stripe.entries.remove(key);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return loaded;
+    }
+
+    private void scheduleRefresh(K key) {
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key);
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    // Keep serving the cached value until it expires
+                    log.warn("Refresh of {} {} failed: {}", name, key, e.getMessage());
+                    clearRefreshing(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            clearRefreshing(key);
+        }
+    }
+
+    private void clearRefreshing(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            Entry<V> entry = stripe.entries.get(key);
+            if (entry != null) {
+                entry.refreshing.set(false);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private void store(K key, V value, long gen) {
+        Stripe<K, V> stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            // Only the generation check and the put need to be atomic against invalidate()
+            if (generation.get() == gen) {
+                stripe.entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        return stripes[(Objects.hashCode(key) & 0x7fffffff) % STRIPES];
+    }
+
+    private static final class Stripe<K, V> {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<K, Entry<V>> entries;
+
+        private Stripe(int capacity) {
+            this.entries = new LinkedHashMap<K, Entry<V>>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long loadedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package ng.osun.his.platform.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Registry of {@link ReferenceDataCache}s for a service.
+ * <p>
+ * Each cache is named after the entity type it holds (e.g. {@code Clinic}), which is also the
+ * resourceType of its invalidation events on {@code entity.changes}: whoever edits a row
+ * publishes the change through {@link ng.osun.his.platform.events.EntityChangePublisher} and every
+ * replica drops it (see {@link ReferenceDataInvalidationListener}). Defaults set in code can be
+ * overridden per cache with {@code refdata.cache.<name>.ttl-seconds}, {@code .max-entries} and
+ * {@code .refresh-ahead}. Caches with a preloader are filled once the application is ready.
+ */
+@Component
+@Slf4j
+public class ReferenceDataCaches {
+
+    private final Map<String, ReferenceDataCache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor refresher;
+
+    public ReferenceDataCaches(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threads = new AtomicInteger();
+        this.refresher = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1000), r -> {
+            Thread thread = new Thread(r, "refdata-refresh-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Start defining a cache of rows loaded one key at a time by the loader.
+     */
+    public <K, V> Builder<K, V> builder(String name, Function<K, Optional<V>> loader) {
+        return new Builder<>(name, loader);
+    }
+
+    public Optional<ReferenceDataCache<?, ?>> get(String name) {
+        return Optional.ofNullable(caches.get(name));
+    }
+
+    /**
+     * Drop a changed row from the cache of that type, if this service has one.
+     */
+    public void invalidate(String resourceType, String resourceId) {
+        ReferenceDataCache<?, ?> cache = caches.get(resourceType);
+        if (cache != null) {
+            int removed = cache.invalidate(resourceId);
+            log.debug("Invalidated {} {} ({} entries)", resourceType, resourceId, removed);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preloadAll() {
+        for (ReferenceDataCache<?, ?> cache : caches.values()) {
+            long start = System.nanoTime();
+            try {
+                int loaded = cache.preload();
+                if (loaded > 0) {
+                    log.info("Preloaded {} {} rows in {} ms", loaded, cache.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                }
+            } catch (RuntimeException e) {
+                // Not fatal: the cache fills on demand instead
+                log.warn("Preload of {} failed: {}", cache.getName(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    public final class Builder<K, V> {
+        private final String name;
+        private final Function<K, Optional<V>> loader;
+        private Supplier<Map<K, V>> preloader;
+        private Function<V, String> idOf = value -> null;
+        private Duration ttl = Duration.ofMinutes(10);
+        private int maxEntries = 10_000;
+        private double refreshAhead = 0.8;
+
+        private Builder(String name, Function<K, Optional<V>> loader) {
+            this.name = name;
+            this.loader = loader;
+        }
+
+        /**
+         * Whole-table load run at startup, keyed the same way as the loader.
+         */
+        public Builder<K, V> preload(Supplier<Map<K, V>> preloader) {
+            this.preloader = preloader;
+            return this;
+        }
+
+        /**
+         * Row id of a cached value, for invalidating caches keyed by something else (e.g. a code).
+         */
+        public Builder<K, V> idOf(Function<V, String> idOf) {
+            this.idOf = idOf;
+            return this;
+        }
+
+        public Builder<K, V> ttl(Duration ttl) {
+            this.ttl = ttl;
+            return this;
+        }
+
+        public Builder<K, V> maxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * Fraction of the TTL after which a read triggers a background reload.
+         */
+        public Builder<K, V> refreshAhead(double refreshAhead) {
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        public ReferenceDataCache<K, V> build() {
+            String prefix = "refdata.cache." + name + ".";
+            Duration effectiveTtl = Duration.ofSeconds(
+                environment.getProperty(prefix + "ttl-seconds", Long.class, ttl.getSeconds()));
+            int effectiveMax = environment.getProperty(prefix + "max-entries", Integer.class, maxEntries);
+            double effectiveRefresh = environment.getProperty(prefix + "refresh-ahead", Double.class, refreshAhead);
+
+            ReferenceDataCache<K, V> cache = new ReferenceDataCache<>(name, loader, preloader, idOf,
+                effectiveTtl, effectiveRefresh, effectiveMax, refresher, meterRegistry);
+            if (caches.putIfAbsent(name, cache) != null) {
+                throw new IllegalStateException("Reference data cache " + name + " is already registered");
+            }
+            return cache;
+        }
+    }
+}
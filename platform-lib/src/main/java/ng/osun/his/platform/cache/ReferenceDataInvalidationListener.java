@@ -0,0 +1,42 @@
+package ng.osun.his.platform.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Drops reference rows edited anywhere in the cluster from this replica's caches. Each replica
+ * consumes in its own group, named after {@code platform.instance-id} so restarts rejoin it,
+ * starting from the latest offset the first time since caches start empty or preloaded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReferenceDataInvalidationListener {
+
+    private final ReferenceDataCaches caches;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+        topics = EntityChangePublisher.ENTITY_CHANGES_TOPIC,
+        groupId = "${refdata.cache.consumer-group:refdata-${spring.application.name:his}-${platform.instance-id}}",
+        properties = {"auto.offset.reset=latest"})
+    public void onChange(String eventJson) {
+        try {
+            JsonNode event = objectMapper.readTree(eventJson);
+            String resourceType = event.path("resourceType").asText();
+            String resourceId = event.path("resourceId").asText();
+            if (!resourceType.isEmpty() && !resourceId.isEmpty()) {
+                caches.invalidate(resourceType, resourceId);
+            }
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable change event: {}", e.getMessage());
+        }
+    }
+}
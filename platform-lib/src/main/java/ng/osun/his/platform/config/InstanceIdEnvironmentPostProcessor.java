@@ -0,0 +1,45 @@
+package ng.osun.his.platform.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+/**
+ * Defaults {@code platform.instance-id} to this replica's host name and HTTP port, which stay the
+ * same across restarts of the same replica. Per-replica Kafka consumers (cache invalidation and
+ * similar broadcast listeners) build their group id from it, so a restarted replica rejoins its
+ * own group and resumes from its committed offsets rather than leaving an orphaned group behind.
+ * <p>
+ * Set {@code platform.instance-id} (or {@code PLATFORM_INSTANCE_ID}) explicitly where host names
+ * change on every restart, e.g. to the pod name of a StatefulSet.
+ */
+public class InstanceIdEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    public static final String INSTANCE_ID_PROPERTY = "platform.instance-id";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (environment.containsProperty(INSTANCE_ID_PROPERTY)) {
+            return;
+        }
+        // Placeholder, so the port is resolved after application.yml has been loaded
+        environment.getPropertySources().addLast(new MapPropertySource("platformInstanceId",
+            Map.of(INSTANCE_ID_PROPERTY, hostName(environment.getProperty("HOSTNAME")) + "-${server.port:8080}")));
+    }
+
+    private static String hostName(String fromEnvironment) {
+        if (fromEnvironment != null && !fromEnvironment.isBlank()) {
+            return fromEnvironment;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ng.osun.his.platform.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ng.osun.his.platform.cache.ReferenceDataCaches;
+import ng.osun.his.platform.cache.ReferenceDataInvalidationListener;
+import ng.osun.his.platform.events.EntityChangePublisher;
+import ng.osun.his.platform.events.VitalSignObservationPublisher;
+import ng.osun.his.platform.numbering.BusinessNumberAllocator;
+import ng.osun.his.platform.security.LocalRateLimitStore;
+import ng.osun.his.platform.security.RateLimitFilter;
+import ng.osun.his.platform.security.RedisRateLimitStore;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Shared platform-lib components for the services that inject them.
+ * <p>
+ * Each service component-scans only its own package, so these beans are contributed through
+ * auto-configuration instead. Every group is conditional on the infrastructure it needs, so a
+ * service without a database still starts.
+ */
+@AutoConfiguration(
+    after = {JdbcTemplateAutoConfiguration.class, KafkaAutoConfiguration.class, JacksonAutoConfiguration.class},
+    afterName = {
+        "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration",
+        "org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration"})
+public class PlatformAutoConfiguration {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnBean(JdbcTemplate.class)
+    @Import(BusinessNumberAllocator.class)
+    static class NumberingConfiguration {
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnBean(KafkaTemplate.class)
+    @Import({EntityChangePublisher.class, VitalSignObservationPublisher.class})
+    static class EventsConfiguration {
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnBean({DataSource.class, MeterRegistry.class})
+    @Import(ReferenceDataCaches.class)
+    static class ReferenceDataConfiguration {
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnBean(KafkaTemplate.class)
+        @Import(ReferenceDataInvalidationListener.class)
+        static class InvalidationConfiguration {
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnBean(MeterRegistry.class)
+    @Import({LocalRateLimitStore.class, RateLimitFilter.class})
+    static class RateLimitConfiguration {
+
+        @Configuration(proxyBeanMethods = false)
+        @ConditionalOnClass(name = "org.springframework.data.redis.core.StringRedisTemplate")
+        @ConditionalOnProperty(name = "rate-limit.mode", havingValue = "redis")
+        @Import(RedisRateLimitStore.class)
+        static class RedisConfiguration {
+        }
+    }
+}
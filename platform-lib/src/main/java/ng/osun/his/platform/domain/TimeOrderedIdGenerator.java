@@ -0,0 +1,25 @@
+package ng.osun.his.platform.domain;
+
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate generator for {@link BaseEntity} IDs. Unlike IDENTITY, the ID is known before the
+ * INSERT, so Hibernate can batch inserts ({@code hibernate.jdbc.batch_size}). An ID assigned by
+ * the caller is kept.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "time-ordered";
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        if (object instanceof BaseEntity && ((BaseEntity) object).getId() != null) {
+            return ((BaseEntity) object).getId();
+        }
+        return TimeOrderedIds.next();
+    }
+}
@@ -0,0 +1,48 @@
+package ng.osun.his.platform.events;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+
+/**
+ * Publishes "resource changed" notifications for cache invalidation (gateway response cache,
+ * near-caches). Inside a transaction the event is sent after commit, so a consumer that
+ * re-reads on receipt never sees the pre-change state.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EntityChangePublisher {
+
+    public static final String ENTITY_CHANGES_TOPIC = "entity.changes";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public void publish(String resourceType, String resourceId, String changeType) {
+        String eventJson = String.format(
+            "{\"resourceType\":\"%s\",\"resourceId\":\"%s\",\"changeType\":\"%s\",\"timestamp\":\"%s\"}",
+            resourceType, resourceId, changeType, Instant.now());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(resourceId, eventJson);
+                }
+            });
+        } else {
+            send(resourceId, eventJson);
+        }
+    }
+
+    private void send(String key, String eventJson) {
+        kafkaTemplate.send(ENTITY_CHANGES_TOPIC, key, eventJson).addCallback(
+            result -> log.debug("Published entity change {}", eventJson),
+            e -> log.warn("Failed to publish entity change {}: {}", eventJson, e.getMessage()));
+    }
+}
@@ -0,0 +1,32 @@
+package ng.osun.his.platform.events;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * One set of bedside observations on the {@code vitals.observations} topic, keyed by patient id.
+ * Any parameter may be missing; consumers keep the latest value of each.
+ */
+@Data
+@NoArgsConstructor
+public class VitalSignObservation {
+
+    public static final String SOURCE_VITAL_SIGN = "VITAL_SIGN";
+    public static final String SOURCE_TRIAGE = "TRIAGE";
+
+    private String observationId;
+    private String patientId;
+    private String encounterId;
+    private String source;
+    private Instant takenAt;
+
+    private Integer respiratoryRate;
+    private Integer spo2;
+    private Boolean supplementalOxygen;
+    private Integer systolicBp;
+    private Integer heartRate;
+    private String consciousnessLevel; // ALERT, CONFUSION, VOICE, PAIN, UNRESPONSIVE
+    private Double temperatureCelsius;
+}
@@ -0,0 +1,52 @@
+package ng.osun.his.platform.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Streams recorded observations to the early-warning engine. Keyed by patient id so each
+ * patient's observations stay in order on one partition; sent after commit inside a transaction.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class VitalSignObservationPublisher {
+
+    public static final String VITALS_TOPIC = "vitals.observations";
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void publish(VitalSignObservation observation) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(observation);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize observation {}: {}", observation.getObservationId(), e.getMessage());
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(observation.getPatientId(), json);
+                }
+            });
+        } else {
+            send(observation.getPatientId(), json);
+        }
+    }
+
+    private void send(String patientId, String json) {
+        kafkaTemplate.send(VITALS_TOPIC, patientId, json).addCallback(
+            result -> log.debug("Published observation for patient {}", patientId),
+            e -> log.warn("Failed to publish observation for patient {}: {}", patientId, e.getMessage()));
+    }
+}
@@ -0,0 +1,73 @@
+package ng.osun.his.platform.governance;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.audit.AuditPartitionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Nightly audit upkeep on {@code audit.maintenance.cron} (Africa/Lagos): creates the coming
+ * months' audit partitions, then archives partitions older than
+ * {@code audit.retention.archive-after-days} through {@link DataRetentionService}.
+ * <p>
+ * Every replica schedules the job, but each run first takes a session-level Postgres advisory
+ * lock with pg_try_advisory_lock on a connection it holds for the run; replicas that miss the
+ * lock skip that run, so partitions are never detached or dropped by two nodes at once.
+ */
+@Component
+@Slf4j
+public class DataRetentionJob {
+
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_lock(hashtext('audit_retention'))";
+    private static final String UNLOCK_SQL = "SELECT pg_advisory_unlock(hashtext('audit_retention'))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuditPartitionManager auditPartitionManager;
+    private final DataRetentionService dataRetentionService;
+    private final int archiveAfterDays;
+
+    public DataRetentionJob(JdbcTemplate jdbcTemplate,
+                            AuditPartitionManager auditPartitionManager,
+                            DataRetentionService dataRetentionService,
+                            @Value("${audit.retention.archive-after-days:365}") int archiveAfterDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditPartitionManager = auditPartitionManager;
+        this.dataRetentionService = dataRetentionService;
+        this.archiveAfterDays = archiveAfterDays;
+    }
+
+    @Scheduled(cron = "${audit.maintenance.cron:0 30 2 * * *}", zone = "Africa/Lagos")
+    public void run() {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!query(connection, LOCK_SQL)) {
+                return false;
+            }
+            try {
+                // Partitions first, so a failed archive never leaves next month without one
+                auditPartitionManager.ensureFuturePartitions();
+                dataRetentionService.applyRetentionPolicy(archiveAfterDays);
+            } finally {
+                query(connection, UNLOCK_SQL);
+            }
+            return true;
+        });
+        if (!Boolean.TRUE.equals(ran)) {
+            log.debug("Audit retention already running on another node, skipping");
+        }
+    }
+
+    private static boolean query(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+}
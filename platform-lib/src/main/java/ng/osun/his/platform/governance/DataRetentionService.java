@@ -2,11 +2,16 @@ package ng.osun.his.platform.governance;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import ng.osun.his.platform.audit.AuditEventRepository;
+import ng.osun.his.platform.audit.AuditArchiveManifest;
+import ng.osun.his.platform.audit.AuditArchiveStore;
+import ng.osun.his.platform.audit.AuditPartitionManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
+import java.time.YearMonth;
 import java.time.temporal.ChronoUnit;
 
 /**
@@ -17,25 +22,42 @@ import java.time.temporal.ChronoUnit;
 @Slf4j
 public class DataRetentionService {
 
-    private final AuditEventRepository auditEventRepository;
+    private final AuditPartitionManager auditPartitionManager;
+    private final AuditArchiveStore auditArchiveStore;
 
     /**
      * Apply retention policy (auto-archive old data).
+     * Whole monthly audit partitions older than the cutoff are detached, streamed to the
+     * archive with a signed manifest, and dropped: the cost is per partition, not per row.
+     * A run interrupted after detaching resumes from the detached tables on the next run.
+     * Runs nightly from {@link DataRetentionJob}, which also creates the coming partitions.
+     * @return number of audit records archived
      */
-    @Transactional
-    public void applyRetentionPolicy(int retentionDays) {
+    public long applyRetentionPolicy(int retentionDays) {
         Instant cutoffDate = Instant.now().minus(retentionDays, ChronoUnit.DAYS);
-        
+
         log.info("Applying data retention policy: archiving data older than {} days", retentionDays);
-        
-        // In production, this would:
-        // 1. Export to object storage (S3, etc.)
-        // 2. Generate signed manifest
-        // 3. Mark as archived in database
-        // 4. Schedule for deletion based on policy
-        
-        long archived = 0; // Placeholder
+
+        for (YearMonth month : auditPartitionManager.attachedPartitions()) {
+            if (!AuditPartitionManager.monthStart(month.plusMonths(1)).isAfter(cutoffDate)) {
+                auditPartitionManager.detach(month);
+            }
+        }
+
+        long archived = 0;
+        for (YearMonth month : auditPartitionManager.detachedPartitions()) {
+            AuditArchiveManifest manifest;
+            try {
+                manifest = auditArchiveStore.archive(month);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to archive audit partition " + month, e);
+            }
+            auditPartitionManager.drop(month);
+            archived += manifest.getRowCount();
+        }
+
         log.info("Archived {} audit records older than {}", archived, cutoffDate);
+        return archived;
     }
 
     /**
@@ -0,0 +1,137 @@
+package ng.osun.his.platform.numbering;
+
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.util.NigeriaContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Human-readable business numbers such as {@code INV-FAC001-20241201-000042}, unique per prefix,
+ * facility ({@code his.facility-id}) and day (Africa/Lagos).
+ * <p>
+ * Hi/lo allocation: each node leases a block of {@code business-numbers.block-size} numbers
+ * with one atomic upsert on {@code business_number_blocks}, then hands them out with an
+ * in-memory increment. Blocks never overlap, so numbers are unique across replicas; they are
+ * increasing per node, and numbers left in a block when a node stops are skipped (gaps).
+ * Each service using the allocator creates the table in its own migrations.
+ */
+@Component
+@Slf4j
+public class BusinessNumberAllocator {
+
+    private static final int MIN_DIGITS = 6;
+
+    private static final String LEASE_SQL =
+        "INSERT INTO business_number_blocks (sequence_key, high_value, updated_at) VALUES (?, ?, now())"
+        + " ON CONFLICT (sequence_key) DO UPDATE"
+        + " SET high_value = business_number_blocks.high_value + EXCLUDED.high_value, updated_at = now()"
+        + " RETURNING high_value";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String facilityId;
+    private final int blockSize;
+    private final Map<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public BusinessNumberAllocator(JdbcTemplate jdbcTemplate,
+                                   @Value("${his.facility-id:FAC001}") String facilityId,
+                                   @Value("${business-numbers.block-size:20}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.facilityId = facilityId;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Next number for today.
+     */
+    public String next(String prefix) {
+        return next(prefix, LocalDate.now(NigeriaContext.TIMEZONE));
+    }
+
+    /**
+     * Next number for the given business day, e.g. an appointment's date.
+     */
+    public String next(String prefix, LocalDate day) {
+        String key = prefix + '-' + facilityId + '-' + compactDate(day);
+        Sequence sequence = sequences.get(key);
+        if (sequence == null) {
+            sequence = sequences.computeIfAbsent(key, k -> new Sequence(k, day));
+            evictBefore(LocalDate.now(NigeriaContext.TIMEZONE).minusDays(1));
+        }
+        return format(key, sequence.next());
+    }
+
+    private long[] lease(String key) {
+        Long high = jdbcTemplate.queryForObject(LEASE_SQL, Long.class, key, blockSize);
+        if (high == null) {
+            throw new IllegalStateException("Failed to lease business numbers for " + key);
+        }
+        log.debug("Leased {} numbers {}..{} for {}", blockSize, high - blockSize + 1, high, key);
+        return new long[]{high - blockSize + 1, high};
+    }
+
+    private void evictBefore(LocalDate cutoff) {
+        sequences.values().removeIf(sequence -> sequence.day.isBefore(cutoff));
+    }
+
+    private static String compactDate(LocalDate day) {
+        int yyyymmdd = day.getYear() * 10000 + day.getMonthValue() * 100 + day.getDayOfMonth();
+        return Integer.toString(yyyymmdd);
+    }
+
+    private static String format(String key, long number) {
+        String digits = Long.toString(number);
+        StringBuilder result = new StringBuilder(key.length() + 1 + Math.max(MIN_DIGITS, digits.length()));
+        result.append(key).append('-');
+        for (int i = digits.length(); i < MIN_DIGITS; i++) {
+            result.append('0');
+        }
+        return result.append(digits).toString();
+    }
+
+    /**
+     * Numbers for one key. The fast path is a single getAndIncrement on the current block;
+     * only the thread that finds the block exhausted takes the lock and leases the next one.
+     */
+    private final class Sequence {
+        private final String key;
+        private final LocalDate day;
+        private volatile Block current = new Block(1, 0);
+
+        private Sequence(String key, LocalDate day) {
+            this.key = key;
+            this.day = day;
+        }
+
+        long next() {
+            while (true) {
+                Block block = current;
+                long number = block.next.getAndIncrement();
+                if (number <= block.high) {
+                    return number;
+                }
+                synchronized (this) {
+                    if (current == block) {
+                        long[] range = lease(key);
+                        current = new Block(range[0], range[1]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long high;
+
+        private Block(long low, long high) {
+            this.next = new AtomicLong(low);
+            this.high = high;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ng.osun.his.platform.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * File-backed stand-in for a KMS: the key-encryption key is a base64 AES-256 key read from
+ * {@code phi.kms.master-key} or, failing that, {@code phi.kms.master-key-file}. Every node must
+ * see the same key (mount it as a secret). A missing key fails startup; set
+ * {@code phi.kms.create-if-missing} to generate one for local development.
+ */
+@Component
+@Slf4j
+public class FileKeyManagementClient implements KeyManagementClient {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SecretKey masterKey;
+    private final String keyId;
+    private final SecureRandom random = new SecureRandom();
+
+    public FileKeyManagementClient(
+            @Value("${phi.kms.master-key:}") String masterKey,
+            @Value("${phi.kms.master-key-file:./data/phi-kms/master.key}") String masterKeyFile,
+            @Value("${phi.kms.create-if-missing:false}") boolean createIfMissing) {
+        byte[] keyBytes = masterKey.isEmpty()
+            ? load(Paths.get(masterKeyFile), createIfMissing)
+            : Base64.getDecoder().decode(masterKey);
+        if (keyBytes.length != 32) {
+            throw new IllegalStateException("PHI master key must be 256 bits");
+        }
+        this.masterKey = new SecretKeySpec(keyBytes, "AES");
+        this.keyId = "file:" + PhiKeyRing.fingerprint(keyBytes);
+    }
+
+    @Override
+    public String keyId() {
+        return keyId;
+    }
+
+    @Override
+    public byte[] wrap(byte[] dataKey) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, masterKey, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            byte[] wrapped = cipher.doFinal(dataKey);
+            return ByteBuffer.allocate(IV_LENGTH + wrapped.length).put(iv).put(wrapped).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to wrap PHI data key", e);
+        }
+    }
+
+    @Override
+    public byte[] unwrap(byte[] wrappedKey) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, masterKey, new GCMParameterSpec(TAG_BITS, wrappedKey, 0, IV_LENGTH));
+            cipher.updateAAD(keyId.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(wrappedKey, IV_LENGTH, wrappedKey.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to unwrap PHI data key (wrong master key?)", e);
+        }
+    }
+
+    private static byte[] load(Path file, boolean createIfMissing) {
+        try {
+            if (Files.exists(file)) {
+                return Base64.getDecoder().decode(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim());
+            }
+            if (!createIfMissing) {
+                throw new IllegalStateException("PHI master key not found: set phi.kms.master-key or mount " + file);
+            }
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, new SecureRandom());
+            byte[] key = generator.generateKey().getEncoded();
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.write(file, Base64.getEncoder().encode(key));
+            log.warn("Generated a new PHI master key at {} (phi.kms.create-if-missing); provision phi.kms.master-key for shared deployments", file);
+            return key;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read PHI master key " + file, e);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate PHI master key", e);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ng.osun.his.platform.security;
+
+/**
+ * Key-encryption-key operations for envelope encryption of PHI data keys.
+ * Data keys never leave the process unwrapped; only their wrapped form is stored.
+ */
+public interface KeyManagementClient {
+
+    /**
+     * Identifier of the key-encryption key, recorded alongside wrapped data keys.
+     */
+    String keyId();
+
+    byte[] wrap(byte[] dataKey);
+
+    byte[] unwrap(byte[] wrappedKey);
+}
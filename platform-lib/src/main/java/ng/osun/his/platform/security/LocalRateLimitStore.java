@@ -0,0 +1,137 @@
+package ng.osun.his.platform.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process token buckets, striped by key hash. Each stripe is an access-ordered map capped at
+ * {@code rate-limit.max-keys / stripes}, so memory is bounded: the least recently seen key is
+ * evicted first, and buckets idle longer than {@code rate-limit.idle-evict-seconds} are swept
+ * by whichever request first notices the sweep is due.
+ * An evicted bucket comes back full, which is what it would have refilled to anyway once idle.
+ */
+@Component
+@Slf4j
+public class LocalRateLimitStore implements RateLimitStore {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final long idleEvictNanos;
+    private final long sweepIntervalNanos;
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public LocalRateLimitStore(@Value("${rate-limit.max-keys:100000}") int maxKeys,
+                               @Value("${rate-limit.idle-evict-seconds:600}") long idleEvictSeconds,
+                               @Value("${rate-limit.sweep-interval-seconds:60}") long sweepIntervalSeconds) {
+        int perStripe = Math.max(16, maxKeys / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+        this.idleEvictNanos = TimeUnit.SECONDS.toNanos(idleEvictSeconds);
+        this.sweepIntervalNanos = TimeUnit.SECONDS.toNanos(sweepIntervalSeconds);
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, int perMinute) {
+        long now = System.nanoTime();
+        long last = lastSweep.get();
+        if (now - last > sweepIntervalNanos && lastSweep.compareAndSet(last, now)) {
+            evictIdle();
+        }
+        double refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+
+        Stripe stripe = stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+        stripe.lock.lock();
+        try {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(perMinute, now);
+                stripe.buckets.put(key, bucket);
+            }
+            bucket.tokens = Math.min(perMinute, bucket.tokens + (now - bucket.updatedAt) * refillPerNano);
+            bucket.updatedAt = now;
+
+            if (bucket.tokens >= 1) {
+                bucket.tokens -= 1;
+                return new RateLimitDecision(true, perMinute, (int) bucket.tokens, 0);
+            }
+            long waitNanos = (long) Math.ceil((1 - bucket.tokens) / refillPerNano);
+            return new RateLimitDecision(false, perMinute, 0, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop buckets that have been idle long enough to be full again.
+     */
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - idleEvictNanos;
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                // Access order: the eldest entries come first, so stop at the first recent one
+                Iterator<Bucket> it = stripe.buckets.values().iterator();
+                while (it.hasNext()) {
+                    if (it.next().updatedAt - cutoff >= 0) {
+                        break;
+                    }
+                    it.remove();
+                    evicted++;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate-limit buckets", evicted);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.buckets.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<String, Bucket> buckets;
+
+        private Stripe(int capacity) {
+            this.buckets = new LinkedHashMap<String, Bucket>(capacity, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+    }
+}
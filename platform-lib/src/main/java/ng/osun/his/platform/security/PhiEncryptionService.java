@@ -3,55 +3,65 @@ package ng.osun.his.platform.security;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import javax.crypto.Cipher;
-import javax.crypto.KeyGenerator;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.SecretKeySpec;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 /**
- * Service for PHI field encryption-at-rest using AES-256-GCM.
- * In production, use envelope encryption with a KMS-backed key management service.
+ * Service for PHI field encryption-at-rest using AES-256-GCM with envelope-encrypted data keys.
+ * <p>
+ * Ciphertext is Base64 of: format version (1 byte) | key version (4 bytes) | random 96-bit IV |
+ * ciphertext and 128-bit tag. The header is bound to the ciphertext as AAD, so a value cannot be
+ * relabelled to another key version. Cipher and SecureRandom instances are cached per thread;
+ * only {@code Cipher.init} runs per field.
  */
 @Service
 @Slf4j
 public class PhiEncryptionService {
 
-    private static final String ALGORITHM = "AES";
+    static final byte FORMAT_V1 = 1;
+    static final int HEADER_LENGTH = 5;
+    static final int IV_LENGTH = 12;
+    static final int TAG_BITS = 128;
+
     private static final String TRANSFORMATION = "AES/GCM/NoPadding";
-    private static final int KEY_SIZE = 256;
 
-    private final SecretKey secretKey;
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES/GCM not available", e);
+        }
+    });
+
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
 
-    public PhiEncryptionService() {
-        this.secretKey = generateSecretKey();
+    private final PhiKeyRing keyRing;
+
+    public PhiEncryptionService(PhiKeyRing keyRing) {
+        this.keyRing = keyRing;
     }
 
     /**
-     * Encrypt PHI data.
+     * Encrypt PHI data with the active key version.
      * @param plaintext Sensitive data to encrypt
-     * @return Base64-encoded ciphertext
+     * @return Base64-encoded versioned ciphertext
      */
     public String encrypt(String plaintext) {
         if (plaintext == null || plaintext.isEmpty()) {
             return plaintext;
         }
-
-        try {
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encrypted);
-        } catch (Exception e) {
-            log.error("Error encrypting PHI data", e);
-            throw new RuntimeException("Failed to encrypt PHI data", e);
-        }
+        return encrypt(plaintext, keyRing.activeVersion());
     }
 
     /**
-     * Decrypt PHI data.
-     * @param ciphertext Base64-encoded ciphertext
+     * Decrypt PHI data with whichever key version it was written under.
+     * @param ciphertext Base64-encoded versioned ciphertext
      * @return Decrypted plaintext
      */
     public String decrypt(String ciphertext) {
@@ -60,34 +70,82 @@ public class PhiEncryptionService {
         }
 
         try {
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(ciphertext));
+            byte[] data = Base64.getDecoder().decode(ciphertext);
+            if (data.length < HEADER_LENGTH + IV_LENGTH || data[0] != FORMAT_V1) {
+                throw new IllegalArgumentException("Unrecognised PHI ciphertext format");
+            }
+            int keyVersion = ByteBuffer.wrap(data, 1, 4).getInt();
+
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.DECRYPT_MODE, keyRing.key(keyVersion),
+                new GCMParameterSpec(TAG_BITS, data, HEADER_LENGTH, IV_LENGTH));
+            cipher.updateAAD(data, 0, HEADER_LENGTH);
+            byte[] decrypted = cipher.doFinal(data, HEADER_LENGTH + IV_LENGTH, data.length - HEADER_LENGTH - IV_LENGTH);
             return new String(decrypted, StandardCharsets.UTF_8);
-        } catch (Exception e) {
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
             log.error("Error decrypting PHI data", e);
             throw new RuntimeException("Failed to decrypt PHI data", e);
         }
     }
 
-    private SecretKey generateSecretKey() {
-        try {
-            KeyGenerator keyGenerator = KeyGenerator.getInstance(ALGORITHM);
-            keyGenerator.init(KEY_SIZE, new SecureRandom());
-            return keyGenerator.generateKey();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to generate secret key", e);
+    /**
+     * Encrypt many values for a batch job; nulls and empty strings pass through.
+     */
+    public List<String> encryptAll(List<String> plaintexts) {
+        int keyVersion = keyRing.activeVersion();
+        List<String> result = new ArrayList<>(plaintexts.size());
+        for (String plaintext : plaintexts) {
+            result.add(plaintext == null || plaintext.isEmpty() ? plaintext : encrypt(plaintext, keyVersion));
         }
+        return result;
     }
 
     /**
-     * Load secret key from configuration (in production, use KMS).
+     * Decrypt many values for a batch job; nulls and empty strings pass through.
      */
-    public static SecretKey loadSecretKey() {
-        // TODO: Load from KMS or secure vault
-        byte[] keyBytes = new byte[32];
-        new SecureRandom().nextBytes(keyBytes);
-        return new SecretKeySpec(keyBytes, ALGORITHM);
+    public List<String> decryptAll(List<String> ciphertexts) {
+        List<String> result = new ArrayList<>(ciphertexts.size());
+        for (String ciphertext : ciphertexts) {
+            result.add(decrypt(ciphertext));
+        }
+        return result;
     }
-}
 
+    /**
+     * Key version a ciphertext was written under, or -1 if it is not in a recognised format.
+     */
+    public int keyVersionOf(String ciphertext) {
+        if (ciphertext == null || ciphertext.isEmpty()) {
+            return -1;
+        }
+        try {
+            // Only the first 8 Base64 characters are needed to cover the 5-byte header
+            byte[] head = Base64.getDecoder().decode(ciphertext.substring(0, Math.min(8, ciphertext.length())));
+            return head.length >= HEADER_LENGTH && head[0] == FORMAT_V1 ? ByteBuffer.wrap(head, 1, 4).getInt() : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    String encrypt(String plaintext, int keyVersion) {
+        try {
+            byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
+            byte[] output = new byte[HEADER_LENGTH + IV_LENGTH + input.length + TAG_BITS / 8];
+            output[0] = FORMAT_V1;
+            ByteBuffer.wrap(output, 1, 4).putInt(keyVersion);
+
+            byte[] iv = new byte[IV_LENGTH];
+            RANDOM.get().nextBytes(iv);
+            System.arraycopy(iv, 0, output, HEADER_LENGTH, IV_LENGTH);
+
+            Cipher cipher = CIPHER.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keyRing.key(keyVersion), new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(output, 0, HEADER_LENGTH);
+            cipher.doFinal(input, 0, input.length, output, HEADER_LENGTH + IV_LENGTH);
+            return Base64.getEncoder().encodeToString(output);
+        } catch (GeneralSecurityException e) {
+            log.error("Error encrypting PHI data", e);
+            throw new RuntimeException("Failed to encrypt PHI data", e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package ng.osun.his.platform.security;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Versioned ring of PHI data keys, stored wrapped by the KMS key in the service database's
+ * phi_data_keys table and held unwrapped in memory. Encryption always uses the active version;
+ * any version still in the ring can decrypt. Lookups read an immutable snapshot, so the hot path
+ * takes no lock.
+ * <p>
+ * All replicas share the one ring. Rotation and retirement take a Postgres advisory lock for
+ * their transaction, so rotations started on two nodes at once are applied one after the other.
+ * An empty ring fails startup instead of minting a node-local key; set
+ * {@code phi.keyring.create-if-missing} only for local development. Each service using the ring
+ * creates the table in its own migrations.
+ * <p>
+ * Other nodes see a rotation by re-reading the table: {@link #activeVersion()} refreshes the
+ * snapshot once {@code phi.keyring.refresh-seconds} have passed, so every node encrypts under a
+ * new version within one refresh interval of its activation.
+ */
+@Component
+@Slf4j
+public class PhiKeyRing {
+
+    private static final long RELOAD_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('phi_data_keys'))";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO phi_data_keys (version, kek_id, wrapped_key, active, created_at) VALUES (?, ?, ?, TRUE, ?)";
+
+    private final KeyManagementClient kms;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration refreshInterval;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Map<Integer, SecretKey> keys = Collections.emptyMap();
+    private volatile int activeVersion;
+    private volatile Instant activeSince;
+    private volatile long lastReload;
+
+    @Autowired
+    public PhiKeyRing(KeyManagementClient kms,
+                      JdbcTemplate jdbcTemplate,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${phi.keyring.create-if-missing:false}") boolean createIfMissing,
+                      @Value("${phi.keyring.refresh-seconds:30}") long refreshSeconds) {
+        this.kms = kms;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.refreshInterval = Duration.ofSeconds(refreshSeconds);
+        if (createIfMissing) {
+            createIfEmpty();
+        }
+        reload();
+    }
+
+    /**
+     * Fixed in-memory ring with no backing store, for benchmarks and tools; it cannot rotate.
+     */
+    PhiKeyRing(Map<Integer, SecretKey> keys, int activeVersion) {
+        this.kms = null;
+        this.jdbcTemplate = null;
+        this.transactionTemplate = null;
+        this.refreshInterval = Duration.ZERO;
+        this.keys = Collections.unmodifiableMap(new HashMap<>(keys));
+        this.activeVersion = activeVersion;
+        this.activeSince = Instant.now();
+        this.lastReload = System.nanoTime();
+    }
+
+    /**
+     * Version new data is encrypted under. Re-reads the ring when the snapshot is older than the
+     * refresh interval; one caller reloads while the others keep using the current snapshot, and
+     * a failed reload keeps it too.
+     */
+    public int activeVersion() {
+        if (jdbcTemplate != null && System.nanoTime() - lastReload > refreshInterval.toNanos()
+                && refreshing.compareAndSet(false, true)) {
+            try {
+                reload();
+            } catch (RuntimeException e) {
+                log.warn("Failed to refresh PHI key ring, keeping active version {}", activeVersion, e);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+        return activeVersion;
+    }
+
+    /**
+     * When the active version was created. Every node encrypts under it by one
+     * {@link #refreshInterval()} later.
+     */
+    public Instant activeSince() {
+        return activeSince;
+    }
+
+    public Duration refreshInterval() {
+        return refreshInterval;
+    }
+
+    public SecretKey activeKey() {
+        return key(activeVersion());
+    }
+
+    /**
+     * Data key for a version. An unknown version triggers one reload, at most every few
+     * seconds, to pick up a rotation made by another node.
+     */
+    public SecretKey key(int version) {
+        SecretKey key = keys.get(version);
+        if (key == null && jdbcTemplate != null && System.nanoTime() - lastReload > RELOAD_INTERVAL_NANOS) {
+            reload();
+            key = keys.get(version);
+        }
+        if (key == null) {
+            throw new IllegalStateException("Unknown PHI key version " + version);
+        }
+        return key;
+    }
+
+    public Set<Integer> versions() {
+        return new TreeSet<>(keys.keySet());
+    }
+
+    /**
+     * Re-read the key ring, e.g. after another node rotated. Only versions not already held are
+     * unwrapped through the KMS.
+     */
+    public synchronized void reload() {
+        List<KeyEntry> entries = jdbcTemplate.query(
+            "SELECT version, kek_id, wrapped_key, active, created_at FROM phi_data_keys ORDER BY version",
+            (rs, row) -> {
+                KeyEntry entry = new KeyEntry();
+                entry.setVersion(rs.getInt("version"));
+                entry.setKekId(rs.getString("kek_id"));
+                entry.setWrappedKey(rs.getString("wrapped_key"));
+                entry.setActive(rs.getBoolean("active"));
+                entry.setCreatedAt(rs.getTimestamp("created_at").toInstant());
+                return entry;
+            });
+        if (entries.isEmpty()) {
+            throw new IllegalStateException("PHI key ring is empty: provision phi_data_keys,"
+                + " or set phi.keyring.create-if-missing for local development");
+        }
+
+        Map<Integer, SecretKey> current = keys;
+        Map<Integer, SecretKey> unwrapped = new HashMap<>();
+        KeyEntry active = null;
+        for (KeyEntry entry : entries) {
+            SecretKey key = current.get(entry.getVersion());
+            if (key == null) {
+                key = new SecretKeySpec(kms.unwrap(Base64.getDecoder().decode(entry.getWrappedKey())), "AES");
+            }
+            unwrapped.put(entry.getVersion(), key);
+            if (entry.isActive()) {
+                active = entry;
+            }
+        }
+        if (active == null) {
+            throw new IllegalStateException("PHI key ring has no active version");
+        }
+        boolean changed = !unwrapped.keySet().equals(current.keySet()) || active.getVersion() != activeVersion;
+        keys = Collections.unmodifiableMap(unwrapped);
+        activeVersion = active.getVersion();
+        activeSince = active.getCreatedAt();
+        lastReload = System.nanoTime();
+        if (changed) {
+            log.info("Loaded PHI key ring: versions {}, active {}", versions(), activeVersion);
+        }
+    }
+
+    /**
+     * Generate a new data key, wrap it and make it the active version.
+     * Older versions stay available for decryption.
+     * @return the new active version
+     */
+    public synchronized int rotate() {
+        int version = transactionTemplate.execute(status -> {
+            lock();
+            int next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(version), 0) + 1 FROM phi_data_keys", Integer.class);
+            jdbcTemplate.update("UPDATE phi_data_keys SET active = FALSE WHERE active");
+            insert(next);
+            return next;
+        });
+
+        reload();
+        log.info("Rotated PHI data key: version {} is now active", version);
+        return version;
+    }
+
+    /**
+     * Drop a version that no longer protects any data. The active version cannot be retired.
+     */
+    public synchronized void retire(int version) {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            if (jdbcTemplate.update("DELETE FROM phi_data_keys WHERE version = ? AND NOT active", version) == 0) {
+                throw new IllegalStateException("PHI key version " + version + " is active or not in the key ring");
+            }
+        });
+        reload();
+        log.info("Retired PHI data key version {}", version);
+    }
+
+    static String fingerprint(byte[] key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * First version for a fresh development database. Under the lock, so replicas starting
+     * together still create only one.
+     */
+    private void createIfEmpty() {
+        transactionTemplate.executeWithoutResult(status -> {
+            lock();
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM phi_data_keys", Integer.class);
+            if (count != null && count == 0) {
+                insert(1);
+                log.warn("Created PHI key ring version 1 (phi.keyring.create-if-missing); provision keys for shared deployments");
+            }
+        });
+    }
+
+    private void lock() {
+        jdbcTemplate.queryForObject(LOCK_SQL, (rs, row) -> Boolean.TRUE);
+    }
+
+    private void insert(int version) {
+        jdbcTemplate.update(INSERT_SQL, version, kms.keyId(),
+            Base64.getEncoder().encodeToString(kms.wrap(generateDataKey())), Timestamp.from(Instant.now()));
+    }
+
+    private static byte[] generateDataKey() {
+        try {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256, new SecureRandom());
+            return generator.generateKey().getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to generate PHI data key", e);
+        }
+    }
+
+    @Data
+    static class KeyEntry {
+        private int version;
+        private String kekId;
+        private String wrappedKey;
+        private boolean active;
+        private Instant createdAt;
+    }
+}
@@ -0,0 +1,544 @@
+package ng.osun.his.platform.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import ng.osun.his.platform.domain.BaseEntity;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.Convert;
+import javax.persistence.EntityManagerFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Online re-encryption of PHI columns to the active key version after a rotation.
+ * <p>
+ * Every entity column mapped with {@link PhiAttributeConverter} is found through the Hibernate
+ * metamodel; the patients table goes first. Each table is walked in keyset-paginated chunks by
+ * id; chunks are decrypted/re-encrypted on a worker pool and written back in JDBC batches
+ * guarded by BaseEntity.version, so a concurrent application write wins and is simply counted
+ * as a conflict (it was written under the active key anyway). The highest id below which every
+ * chunk has completed is checkpointed in phi_reencryption_progress, so an interrupted run
+ * resumes where it stopped. {@code phi.reencrypt.max-rows-per-second} throttles the walk.
+ * <p>
+ * The key ring is re-read before every chunk and the run fails if another node rotated again
+ * meanwhile. Nodes that had not yet refreshed their key ring can still write rows under the old
+ * version while the walk runs, so a table is marked complete only after a later full pass,
+ * started once every node has picked up the new version, finds no row under an older key.
+ */
+@Service
+@Slf4j
+public class PhiReencryptionJob {
+
+    private static final String FIRST_TABLE = "patients";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final PhiEncryptionService encryptionService;
+    private final PhiKeyRing keyRing;
+    private final int chunkSize;
+    private final int workers;
+    private final double maxRowsPerSecond;
+    private final int maxVerifyPasses;
+
+    private final Counter reencrypted;
+    private final Counter conflicted;
+    private final Counter skipped;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong rowsReencrypted = new AtomicLong();
+    private final AtomicLong rowsConflicted = new AtomicLong();
+    private final AtomicLong valuesSkipped = new AtomicLong();
+    private volatile int targetVersion;
+    private volatile String currentTable;
+    private volatile int verificationPass;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "phi-reencrypt");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PhiReencryptionJob(EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              PhiEncryptionService encryptionService,
+                              PhiKeyRing keyRing,
+                              MeterRegistry meterRegistry,
+                              @Value("${phi.reencrypt.chunk-size:500}") int chunkSize,
+                              @Value("${phi.reencrypt.workers:0}") int workers,
+                              @Value("${phi.reencrypt.max-rows-per-second:0}") double maxRowsPerSecond,
+                              @Value("${phi.reencrypt.max-verify-passes:5}") int maxVerifyPasses) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptionService = encryptionService;
+        this.keyRing = keyRing;
+        this.chunkSize = chunkSize;
+        this.workers = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxVerifyPasses = maxVerifyPasses;
+
+        this.reencrypted = meterRegistry.counter("phi.reencrypt.rows", "outcome", "reencrypted");
+        this.conflicted = meterRegistry.counter("phi.reencrypt.rows", "outcome", "conflict");
+        this.skipped = meterRegistry.counter("phi.reencrypt.values.skipped");
+        Gauge.builder("phi.reencrypt.rows_per_second", this, PhiReencryptionJob::rowsPerSecond).register(meterRegistry);
+    }
+
+    /**
+     * Start re-encrypting to the currently active key version. Returns false if already running.
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        targetVersion = keyRing.activeVersion();
+        rowsReencrypted.set(0);
+        rowsConflicted.set(0);
+        valuesSkipped.set(0);
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+
+        launcher.execute(() -> {
+            try {
+                for (TableSpec table : discoverTables()) {
+                    currentTable = table.table;
+                    reencryptTable(table, targetVersion);
+                }
+                log.info("PHI re-encryption to key version {} finished: {} rows, {} conflicts, {} values skipped",
+                    targetVersion, rowsReencrypted.get(), rowsConflicted.get(), valuesSkipped.get());
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+                log.error("PHI re-encryption to key version {} failed", targetVersion, e);
+            } finally {
+                currentTable = null;
+                verificationPass = 0;
+                finishedAt = Instant.now();
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public PhiReencryptionStatus status() {
+        PhiReencryptionStatus status = new PhiReencryptionStatus();
+        status.setRunning(running.get());
+        status.setTargetKeyVersion(targetVersion);
+        status.setCurrentTable(currentTable);
+        status.setVerificationPass(verificationPass);
+        status.setRowsReencrypted(rowsReencrypted.get());
+        status.setRowsConflicted(rowsConflicted.get());
+        status.setValuesSkipped(valuesSkipped.get());
+        status.setRowsPerSecond(rowsPerSecond());
+        status.setStartedAt(startedAt);
+        status.setFinishedAt(finishedAt);
+        status.setError(error);
+        return status;
+    }
+
+    private double rowsPerSecond() {
+        Instant start = startedAt;
+        if (start == null) {
+            return 0;
+        }
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        double seconds = Math.max(0.001, (end.toEpochMilli() - start.toEpochMilli()) / 1000.0);
+        return (rowsReencrypted.get() + rowsConflicted.get()) / seconds;
+    }
+
+    private void reencryptTable(TableSpec table, int target) {
+        Checkpoint checkpoint = loadCheckpoint(table.table, target);
+        if (checkpoint.completed) {
+            log.info("PHI re-encryption of {} to key version {} already complete", table.table, target);
+            return;
+        }
+        log.info("Re-encrypting {} columns {} to key version {} from id > '{}'",
+            table.table, table.columns, target, checkpoint.lastId);
+        walk(table, target, checkpoint.lastId, true);
+
+        awaitKeyPropagation(target);
+        for (int pass = 1; ; pass++) {
+            verificationPass = pass;
+            long stale = walk(table, target, "", false);
+            if (stale == 0) {
+                break;
+            }
+            log.info("Verification pass {} of {} found {} rows under older key versions", pass, table.table, stale);
+            if (pass >= maxVerifyPasses) {
+                throw new IllegalStateException(table.table + " still has rows under older PHI key versions after "
+                    + pass + " verification passes");
+            }
+            sleep(keyRing.refreshInterval().toNanos());
+        }
+        verificationPass = 0;
+        markCompleted(table.table, target);
+    }
+
+    /**
+     * One keyset walk over the table from startId, re-encrypting every row not yet under the
+     * target version.
+     * @return number of rows that needed re-encrypting, including rows that changed concurrently
+     */
+    private long walk(TableSpec table, int target, String startId, boolean checkpointed) {
+        String select = "SELECT id, " + (table.versioned ? "version, " : "") + String.join(", ", table.columns)
+            + " FROM " + table.table + " WHERE id > ? ORDER BY id LIMIT ?";
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(workers * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        Watermark watermark = new Watermark(table.table, target, startId, checkpointed);
+
+        String lastId = startId;
+        long chunk = 0;
+        long issued = 0;
+        long throttleStart = System.nanoTime();
+        try {
+            while (true) {
+                requireActive(target);
+                List<Row> rows = jdbcTemplate.query(select, (rs, rowNum) -> {
+                    Row row = new Row();
+                    row.id = rs.getString("id");
+                    row.version = table.versioned ? rs.getObject("version", Integer.class) : null;
+                    row.values = new String[table.columns.size()];
+                    for (int i = 0; i < row.values.length; i++) {
+                        row.values[i] = rs.getString(table.columns.get(i));
+                    }
+                    return row;
+                }, lastId, chunkSize);
+                if (rows.isEmpty()) {
+                    break;
+                }
+
+                issued += rows.size();
+                throttle(throttleStart, issued);
+
+                long chunkNumber = chunk++;
+                lastId = rows.get(rows.size() - 1).id;
+                watermark.submitted(chunkNumber, lastId);
+                pool.execute(() -> {
+                    long done = processChunk(table, rows, target);
+                    watermark.completed(chunkNumber, done);
+                });
+
+                if (rows.size() < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+        return watermark.finish();
+    }
+
+    /**
+     * Fail the run if the key was rotated again since it started; the next run targets the new
+     * version.
+     */
+    private void requireActive(int target) {
+        keyRing.reload();
+        int active = keyRing.activeVersion();
+        if (active != target) {
+            throw new IllegalStateException("PHI key rotated to version " + active
+                + " during re-encryption to version " + target + "; start re-encryption again");
+        }
+    }
+
+    /**
+     * Wait until every node encrypts under the target version: one refresh interval for their key
+     * rings to reload, and another for transactions that encrypted just before to commit.
+     */
+    private void awaitKeyPropagation(int target) {
+        Instant settled = keyRing.activeSince().plus(keyRing.refreshInterval().multipliedBy(2));
+        Duration wait = Duration.between(Instant.now(), settled);
+        if (!wait.isNegative() && !wait.isZero()) {
+            log.info("Waiting {}s for every node to pick up PHI key version {}", wait.getSeconds(), target);
+            sleep(wait.toNanos());
+        }
+    }
+
+    /**
+     * Re-encrypt one chunk and write it back in a single JDBC batch.
+     * @return number of rows written or found to have been updated concurrently
+     */
+    private long processChunk(TableSpec table, List<Row> rows, int target) {
+        List<Object[]> updates = new ArrayList<>();
+        for (Row row : rows) {
+            String[] updated = row.values.clone();
+            boolean changed = false;
+            for (int i = 0; i < updated.length; i++) {
+                String value = updated[i];
+                if (value == null || value.isEmpty()) {
+                    continue;
+                }
+                int version = encryptionService.keyVersionOf(value);
+                if (version == target) {
+                    continue;
+                }
+                if (version < 0) {
+                    valuesSkipped.incrementAndGet();
+                    skipped.increment();
+                    continue;
+                }
+                updated[i] = encryptionService.encrypt(encryptionService.decrypt(value), target);
+                changed = true;
+            }
+            if (!changed) {
+                continue;
+            }
+
+            List<Object> args = new ArrayList<>(updated.length * 2 + 2);
+            for (String value : updated) {
+                args.add(value);
+            }
+            args.add(row.id);
+            if (table.versioned) {
+                args.add(row.version);
+            } else {
+                for (String value : row.values) {
+                    args.add(value);
+                }
+            }
+            updates.add(args.toArray());
+        }
+        if (updates.isEmpty()) {
+            return 0;
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(table.updateSql(), updates);
+        long written = 0;
+        for (int count : counts) {
+            // Statement.SUCCESS_NO_INFO (-2) means the driver did not report a count
+            if (count > 0 || count == java.sql.Statement.SUCCESS_NO_INFO) {
+                written++;
+            }
+        }
+        long conflicts = updates.size() - written;
+        rowsReencrypted.addAndGet(written);
+        rowsConflicted.addAndGet(conflicts);
+        reencrypted.increment(written);
+        conflicted.increment(conflicts);
+        return updates.size();
+    }
+
+    private void throttle(long startNanos, long rowsIssued) {
+        if (maxRowsPerSecond <= 0) {
+            return;
+        }
+        long due = startNanos + (long) (rowsIssued * 1_000_000_000L / maxRowsPerSecond);
+        sleep(due - System.nanoTime());
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("PHI re-encryption interrupted", e);
+        }
+    }
+
+    /**
+     * Tables with PHI columns, patients first.
+     */
+    List<TableSpec> discoverTables() {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, TableSpec> byTable = new HashMap<>();
+
+        for (EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+            Class<?> type = persister.getMappedClass();
+            if (Modifier.isAbstract(type.getModifiers()) || !(persister instanceof AbstractEntityPersister)) {
+                continue;
+            }
+            AbstractEntityPersister entity = (AbstractEntityPersister) persister;
+
+            List<String> columns = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    Convert convert = field.getAnnotation(Convert.class);
+                    if (convert != null && convert.converter() == PhiAttributeConverter.class) {
+                        columns.add(entity.getPropertyColumnNames(field.getName())[0]);
+                    }
+                }
+            }
+            if (!columns.isEmpty()) {
+                byTable.put(entity.getTableName(),
+                    new TableSpec(entity.getTableName(), columns, BaseEntity.class.isAssignableFrom(type)));
+            }
+        }
+
+        List<TableSpec> tables = new ArrayList<>(byTable.values());
+        tables.sort((a, b) -> {
+            if (a.table.equals(FIRST_TABLE) != b.table.equals(FIRST_TABLE)) {
+                return a.table.equals(FIRST_TABLE) ? -1 : 1;
+            }
+            return a.table.compareTo(b.table);
+        });
+        if (tables.isEmpty()) {
+            log.info("No entity columns use PhiAttributeConverter; nothing to re-encrypt");
+        }
+        return tables;
+    }
+
+    private Checkpoint loadCheckpoint(String table, int target) {
+        List<Checkpoint> rows = jdbcTemplate.query(
+            "SELECT last_id, completed FROM phi_reencryption_progress WHERE table_name = ? AND target_version = ?",
+            (rs, rowNum) -> new Checkpoint(rs.getString("last_id"), rs.getBoolean("completed")),
+            table, target);
+        return rows.isEmpty() ? new Checkpoint("", false) : rows.get(0);
+    }
+
+    private void saveCheckpoint(String table, int target, String lastId, long rows, boolean completed) {
+        jdbcTemplate.update(
+            "INSERT INTO phi_reencryption_progress (table_name, target_version, last_id, rows_processed, completed, updated_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?)"
+            + " ON CONFLICT (table_name, target_version) DO UPDATE SET last_id = EXCLUDED.last_id,"
+            + " rows_processed = phi_reencryption_progress.rows_processed + EXCLUDED.rows_processed,"
+            + " completed = EXCLUDED.completed, updated_at = EXCLUDED.updated_at",
+            table, target, lastId, rows, completed, Timestamp.from(Instant.now()));
+    }
+
+    private void markCompleted(String table, int target) {
+        jdbcTemplate.update(
+            "UPDATE phi_reencryption_progress SET completed = TRUE, updated_at = ? WHERE table_name = ? AND target_version = ?",
+            Timestamp.from(Instant.now()), table, target);
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.info("PHI re-encryption still writing chunks...");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tracks out-of-order chunk completion and, for a checkpointed walk, checkpoints the
+     * contiguous prefix.
+     */
+    private final class Watermark {
+        private final String table;
+        private final int target;
+        private final boolean checkpointed;
+        private final Map<Long, String> endIds = new HashMap<>();
+        private final Set<Long> done = new HashSet<>();
+        private String lastId;
+        private long nextToCommit;
+        private long pendingRows;
+        private long totalRows;
+
+        private Watermark(String table, int target, String startId, boolean checkpointed) {
+            this.table = table;
+            this.target = target;
+            this.lastId = startId;
+            this.checkpointed = checkpointed;
+        }
+
+        synchronized void submitted(long chunk, String endId) {
+            endIds.put(chunk, endId);
+        }
+
+        synchronized void completed(long chunk, long rows) {
+            done.add(chunk);
+            pendingRows += rows;
+            totalRows += rows;
+            String advancedTo = null;
+            while (done.remove(nextToCommit)) {
+                advancedTo = endIds.remove(nextToCommit);
+                nextToCommit++;
+            }
+            if (advancedTo != null && checkpointed) {
+                lastId = advancedTo;
+                saveCheckpoint(table, target, lastId, pendingRows, false);
+                pendingRows = 0;
+            }
+        }
+
+        synchronized long finish() {
+            if (!endIds.isEmpty()) {
+                // A chunk failed; the checkpoint stays at the last contiguous chunk so a rerun retries from there
+                throw new IllegalStateException("PHI re-encryption of " + table + " did not complete all chunks");
+            }
+            if (checkpointed) {
+                // Walked to the end; the table is marked completed once a verification pass is clean
+                saveCheckpoint(table, target, lastId, pendingRows, false);
+            }
+            return totalRows;
+        }
+    }
+
+    static final class TableSpec {
+        private final String table;
+        private final List<String> columns;
+        private final boolean versioned;
+
+        TableSpec(String table, List<String> columns, boolean versioned) {
+            this.table = table;
+            this.columns = columns;
+            this.versioned = versioned;
+        }
+
+        String updateSql() {
+            StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(" = ?");
+            }
+            if (versioned) {
+                // Optimistic lock on BaseEntity.version; bumping it makes stale JPA copies fail too
+                sql.append(", version = COALESCE(version, 0) + 1 WHERE id = ? AND version IS NOT DISTINCT FROM ?");
+            } else {
+                sql.append(" WHERE id = ?");
+                for (String column : columns) {
+                    sql.append(" AND ").append(column).append(" IS NOT DISTINCT FROM ?");
+                }
+            }
+            return sql.toString();
+        }
+    }
+
+    private static final class Row {
+        private String id;
+        private Integer version;
+        private String[] values;
+    }
+
+    private static final class Checkpoint {
+        private final String lastId;
+        private final boolean completed;
+
+        private Checkpoint(String lastId, boolean completed) {
+            this.lastId = lastId;
+            this.completed = completed;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package ng.osun.his.platform.security;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Progress of the PHI re-encryption job.
+ */
+@Data
+public class PhiReencryptionStatus {
+
+    private boolean running;
+    private int targetKeyVersion;
+    private String currentTable;
+    private int verificationPass;
+    private long rowsReencrypted;
+    private long rowsConflicted;
+    private long valuesSkipped;
+    private double rowsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
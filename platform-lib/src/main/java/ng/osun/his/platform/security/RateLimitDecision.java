@@ -0,0 +1,16 @@
+package ng.osun.his.platform.security;
+
+import lombok.Value;
+
+/**
+ * Outcome of one rate-limit check.
+ */
+@Value
+public class RateLimitDecision {
+
+    boolean allowed;
+    int limit;
+    int remaining;
+    /** Seconds until a token is available; zero when allowed. */
+    long retryAfterSeconds;
+}
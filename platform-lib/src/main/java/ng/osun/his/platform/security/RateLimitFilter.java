@@ -1,6 +1,11 @@
 package ng.osun.his.platform.security;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -9,39 +14,62 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.security.Principal;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Rate limiting filter per role and route.
+ * <p>
+ * Each caller gets a token bucket per route template: authenticated callers are keyed by
+ * principal and limited by their most generous role in {@link #RATE_LIMITS}, anonymous callers
+ * by remote address. Buckets live in {@link LocalRateLimitStore} unless
+ * {@code rate-limit.mode=redis}, in which case they are shared across replicas through
+ * {@link RedisRateLimitStore}, falling back to the local buckets if Redis is unreachable.
  */
 @Component
 @Slf4j
 public class RateLimitFilter extends OncePerRequestFilter {
 
-    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
-    
-    // Rate limits per role (requests per minute)
-    private static final Map<String, Integer> RATE_LIMITS = Map.of(
-        "ADMIN", 100,
-        "DOCTOR", 50,
-        "NURSE", 30,
-        "CASHIER", 40,
-        "PHARMACIST", 30,
-        "LAB_SCIENTIST", 20,
-        "RADIOLOGIST", 20,
-        "HMO_OFFICER", 50
-    );
+    // Rate limits per role (requests per minute), most generous first
+    private static final Map<String, Integer> RATE_LIMITS = orderedLimits();
+
+    private static final String ANONYMOUS = "ANONYMOUS";
+    private static final String AUTHENTICATED = "AUTHENTICATED";
+    private static final long FALLBACK_LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LocalRateLimitStore localStore;
+    private final RateLimitStore sharedStore;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int anonymousPerMinute;
+    private final int authenticatedPerMinute;
+    private volatile long lastFallbackLog;
+
+    public RateLimitFilter(LocalRateLimitStore localStore,
+                           ObjectProvider<RedisRateLimitStore> redisStore,
+                           MeterRegistry meterRegistry,
+                           @Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.anonymous-per-minute:20}") int anonymousPerMinute,
+                           @Value("${rate-limit.authenticated-per-minute:30}") int authenticatedPerMinute) {
+        this.localStore = localStore;
+        this.sharedStore = redisStore.getIfAvailable();
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.anonymousPerMinute = anonymousPerMinute;
+        this.authenticatedPerMinute = authenticatedPerMinute;
+        Gauge.builder("ratelimit.local.keys", localStore, LocalRateLimitStore::size).register(meterRegistry);
+    }
 
     @Override
-    protected void doFilterInternal(HttpServletRequest request, 
-                                   HttpServletResponse response, 
+    protected void doFilterInternal(HttpServletRequest request,
+                                   HttpServletResponse response,
                                    FilterChain filterChain) throws ServletException, IOException {
-        
+
         String path = request.getRequestURI();
         String remoteAddr = request.getRemoteAddr();
-        
+
         // Check IP allowlist for admin routes
         if (path.startsWith("/admin") || path.startsWith("/actuator")) {
             if (!isAllowedIp(remoteAddr)) {
@@ -50,24 +78,89 @@ public class RateLimitFilter extends OncePerRequestFilter {
                 return;
             }
         }
-        
-        // Basic rate limiting (simplified - use Redis in production)
-        String key = remoteAddr + ":" + path;
-        AtomicInteger count = requestCounts.computeIfAbsent(key, k -> new AtomicInteger(0));
-        
-        if (count.incrementAndGet() > 100) { // Generic limit
-            log.warn("Rate limit exceeded for {}", key);
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Principal principal = request.getUserPrincipal();
+        String role = principal == null ? ANONYMOUS : roleOf(request);
+        int perMinute = limitFor(role);
+        String route = RouteTemplates.normalize(path);
+        String caller = principal == null ? "ip:" + remoteAddr : "user:" + principal.getName();
+        String key = caller + "|" + request.getMethod() + " " + route;
+
+        long start = System.nanoTime();
+        String store = sharedStore == null ? "local" : "redis";
+        RateLimitDecision decision;
+        try {
+            decision = (sharedStore == null ? localStore : sharedStore).tryAcquire(key, perMinute);
+        } catch (RuntimeException e) {
+            store = "local-fallback";
+            logFallback(e);
+            decision = localStore.tryAcquire(key, perMinute);
+        }
+        Timer.builder("ratelimit.decision")
+            .tag("store", store)
+            .tag("role", role)
+            .tag("outcome", decision.isAllowed() ? "allowed" : "rejected")
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        response.setHeader("X-RateLimit-Limit", String.valueOf(decision.getLimit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(decision.getRemaining()));
+
+        if (!decision.isAllowed()) {
+            meterRegistry.counter("ratelimit.rejected", "role", role, "route", route).increment();
+            log.warn("Rate limit exceeded for {} ({} per minute)", key, perMinute);
             response.setStatus(429);
-            response.setHeader("Retry-After", "60");
+            response.setHeader("Retry-After", String.valueOf(decision.getRetryAfterSeconds()));
             return;
         }
-        
+
         filterChain.doFilter(request, response);
     }
 
+    private String roleOf(HttpServletRequest request) {
+        for (String role : RATE_LIMITS.keySet()) {
+            if (request.isUserInRole(role)) {
+                return role;
+            }
+        }
+        return AUTHENTICATED;
+    }
+
+    private int limitFor(String role) {
+        if (ANONYMOUS.equals(role)) {
+            return anonymousPerMinute;
+        }
+        return RATE_LIMITS.getOrDefault(role, authenticatedPerMinute);
+    }
+
+    private void logFallback(RuntimeException e) {
+        long now = System.nanoTime();
+        if (now - lastFallbackLog > FALLBACK_LOG_INTERVAL_NANOS) {
+            lastFallbackLog = now;
+            log.warn("Shared rate-limit store unavailable, using local buckets: {}", e.getMessage());
+        }
+    }
+
     private boolean isAllowedIp(String ip) {
         // In production, load from config or database
         return ip.startsWith("10.") || ip.startsWith("192.168.") || ip.equals("127.0.0.1");
     }
-}
 
+    private static Map<String, Integer> orderedLimits() {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        limits.put("ADMIN", 100);
+        limits.put("DOCTOR", 50);
+        limits.put("HMO_OFFICER", 50);
+        limits.put("CASHIER", 40);
+        limits.put("NURSE", 30);
+        limits.put("PHARMACIST", 30);
+        limits.put("LAB_SCIENTIST", 20);
+        limits.put("RADIOLOGIST", 20);
+        return limits;
+    }
+}
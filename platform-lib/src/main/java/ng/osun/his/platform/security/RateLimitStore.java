@@ -0,0 +1,10 @@
+package ng.osun.his.platform.security;
+
+/**
+ * Token-bucket state for rate limiting. A bucket holds up to {@code perMinute} tokens and
+ * refills continuously at {@code perMinute} per minute; each request takes one token.
+ */
+public interface RateLimitStore {
+
+    RateLimitDecision tryAcquire(String key, int perMinute);
+}
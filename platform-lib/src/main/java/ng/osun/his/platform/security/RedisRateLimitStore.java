@@ -0,0 +1,58 @@
+package ng.osun.his.platform.security;
+
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cluster-wide token buckets in Redis, enabled with {@code rate-limit.mode=redis}. The refill
+ * and take happen in one Lua script, so concurrent gateway/service replicas share each bucket
+ * exactly; keys expire once a bucket would be full again.
+ */
+@Component
+public class RedisRateLimitStore implements RateLimitStore {
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    private static final String TOKEN_BUCKET =
+        "local capacity = tonumber(ARGV[1])\n"
+        + "local per_ms = tonumber(ARGV[2])\n"
+        + "local now = tonumber(ARGV[3])\n"
+        + "local state = redis.call('HMGET', KEYS[1], 't', 'ts')\n"
+        + "local tokens = tonumber(state[1]) or capacity\n"
+        + "local ts = tonumber(state[2]) or now\n"
+        + "tokens = math.min(capacity, tokens + math.max(0, now - ts) * per_ms)\n"
+        + "local allowed = 0\n"
+        + "if tokens >= 1 then tokens = tokens - 1 allowed = 1 end\n"
+        + "redis.call('HMSET', KEYS[1], 't', tokens, 'ts', now)\n"
+        + "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / per_ms))\n"
+        + "local wait = 0\n"
+        + "if allowed == 0 then wait = math.ceil((1 - tokens) / per_ms) end\n"
+        + "return {allowed, math.floor(tokens), wait}";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SCRIPT = new DefaultRedisScript<>(TOKEN_BUCKET, List.class);
+
+    private final StringRedisTemplate redis;
+
+    public RedisRateLimitStore(StringRedisTemplate redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(String key, int perMinute) {
+        double perMillis = perMinute / 60_000.0;
+        List<?> result = redis.execute(SCRIPT, Collections.singletonList(KEY_PREFIX + key),
+            String.valueOf(perMinute), String.valueOf(perMillis), String.valueOf(System.currentTimeMillis()));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Unexpected rate-limit script result " + result);
+        }
+        boolean allowed = ((Number) result.get(0)).longValue() == 1;
+        int remaining = ((Number) result.get(1)).intValue();
+        long waitMillis = ((Number) result.get(2)).longValue();
+        return new RateLimitDecision(allowed, perMinute, remaining, allowed ? 0 : Math.max(1, (waitMillis + 999) / 1000));
+    }
+}
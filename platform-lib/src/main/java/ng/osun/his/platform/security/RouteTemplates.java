@@ -0,0 +1,47 @@
+package ng.osun.his.platform.security;
+
+import java.util.regex.Pattern;
+
+/**
+ * Collapses concrete request paths to route templates so rate-limit keys and metric tags do
+ * not grow with the number of distinct IDs, e.g. {@code /api/emr/patients/7f3c.../vitals}
+ * becomes {@code /api/emr/patients/{id}/vitals}.
+ */
+final class RouteTemplates {
+
+    private static final Pattern UUID = Pattern.compile(
+        "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final Pattern NUMERIC = Pattern.compile("\\d+");
+    /** Business numbers and MRNs such as OSN-2024-000123 or INV202400017: any segment with a digit run. */
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z0-9_-]*\\d{3,}[A-Za-z0-9_-]*");
+
+    private static final int MAX_SEGMENTS = 8;
+
+    private RouteTemplates() {
+    }
+
+    static String normalize(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder template = new StringBuilder(path.length());
+        int segments = 0;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (++segments > MAX_SEGMENTS) {
+                template.append("/**");
+                break;
+            }
+            template.append('/');
+            if (UUID.matcher(segment).matches() || NUMERIC.matcher(segment).matches()
+                    || IDENTIFIER.matcher(segment).matches()) {
+                template.append("{id}");
+            } else {
+                template.append(segment);
+            }
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+}
@@ -0,0 +1,61 @@
+package ng.osun.his.platform.util;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+
+/**
+ * Time-ordered 128-bit identifiers in UUIDv7 layout (RFC 9562): 48-bit Unix milliseconds,
+ * a 12-bit per-thread sequence, then 62 random bits. IDs sort by creation time, so primary-key
+ * inserts append to the right of the B-tree instead of splitting pages at random, and they are
+ * generated in-process without a database round trip or any shared lock.
+ */
+public final class TimeOrderedIds {
+
+    private static final ThreadLocal<State> STATE = ThreadLocal.withInitial(State::new);
+
+    private TimeOrderedIds() {
+    }
+
+    /**
+     * Next ID as a 36-character UUID string. Within one thread IDs are strictly increasing.
+     */
+    public static String next() {
+        return nextUuid().toString();
+    }
+
+    public static UUID nextUuid() {
+        State state = STATE.get();
+        long millis = System.currentTimeMillis();
+        if (millis > state.lastMillis) {
+            state.lastMillis = millis;
+            // Random start within the lower half leaves room for 2048+ IDs in the same millisecond
+            state.sequence = state.random.nextInt(0x800);
+        } else if (++state.sequence > 0xFFF) {
+            // Sequence exhausted (or clock went backwards): borrow the next millisecond
+            state.lastMillis++;
+            state.sequence = 0;
+        }
+
+        long msb = (state.lastMillis << 16) | 0x7000L | state.sequence;
+        long lsb = (state.random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Creation time in epoch milliseconds encoded in a time-ordered ID, or -1 if it is not one.
+     */
+    public static long timestampOf(String id) {
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.version() == 7 ? uuid.getMostSignificantBits() >>> 16 : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static final class State {
+        private final SecureRandom random = new SecureRandom();
+        private long lastMillis;
+        private int sequence;
+    }
+}
@@ -0,0 +1,76 @@
+package ng.osun.his.platform.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ng.osun.his.platform.config.PlatformAutoConfiguration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final WebApplicationContextRunner servletContext = new WebApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(PlatformAutoConfiguration.class))
+        .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+        .withPropertyValues("rate-limit.anonymous-per-minute=2");
+
+    @Test
+    void rejectsRequestsOverBudgetWith429() {
+        servletContext.run(context -> {
+            RateLimitFilter filter = context.getBean(RateLimitFilter.class);
+
+            assertThat(get(filter, "/api/patients/123").getStatus()).isEqualTo(200);
+            assertThat(get(filter, "/api/patients/456").getStatus()).isEqualTo(200);
+
+            MockHttpServletResponse rejected = get(filter, "/api/patients/789");
+            assertThat(rejected.getStatus()).isEqualTo(429);
+            assertThat(rejected.getHeader("Retry-After")).isNotNull();
+            assertThat(context.getBean(MeterRegistry.class).get("ratelimit.rejected").counter().count())
+                .isEqualTo(1.0);
+        });
+    }
+
+    @Test
+    void keepsSeparateBudgetsPerCaller() {
+        servletContext.run(context -> {
+            RateLimitFilter filter = context.getBean(RateLimitFilter.class);
+            get(filter, "/api/patients/1");
+            get(filter, "/api/patients/2");
+
+            MockHttpServletRequest other = new MockHttpServletRequest("GET", "/api/patients/3");
+            other.setRemoteAddr("10.0.0.7");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(other, response, new MockFilterChain());
+            assertThat(response.getStatus()).isEqualTo(200);
+        });
+    }
+
+    @Test
+    void usesLocalBucketsUnlessRedisModeIsSet() {
+        servletContext.run(context -> {
+            assertThat(context).hasSingleBean(LocalRateLimitStore.class);
+            assertThat(context).doesNotHaveBean(RedisRateLimitStore.class);
+        });
+    }
+
+    @Test
+    void notRegisteredOnReactiveServices() {
+        new ReactiveWebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PlatformAutoConfiguration.class))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .run(context -> assertThat(context).doesNotHaveBean(RateLimitFilter.class));
+    }
+
+    private static MockHttpServletResponse get(RateLimitFilter filter, String path) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
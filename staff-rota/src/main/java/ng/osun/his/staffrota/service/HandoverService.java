@@ -5,11 +5,11 @@ import lombok.extern.slf4j.Slf4j;
 import ng.osun.his.staffrota.domain.HandoverChecklist;
 import ng.osun.his.staffrota.domain.HandoverItem;
 import ng.osun.his.staffrota.repository.HandoverChecklistRepository;
+import ng.osun.his.platform.util.TimeOrderedIds;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
-import java.util.UUID;
 
 /**
  * Service for safe patient handover.
@@ -29,7 +29,7 @@ public class HandoverService {
         log.info("Creating discharge handover for patient {}", patientId);
 
         HandoverChecklist checklist = new HandoverChecklist();
-        checklist.setId(UUID.randomUUID().toString());
+        checklist.setId(TimeOrderedIds.next());
         checklist.setPatientId(patientId);
         checklist.setEncounterId(encounterId);
         checklist.setHandoverType("DISCHARGE");
@@ -0,0 +1,112 @@
+package ng.osun.his.platform.domain;
+
+import ng.osun.his.platform.util.TimeOrderedIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of inserting {@link BaseEntity}-shaped rows (VARCHAR(36) primary key) into
+ * Postgres, crossing the id kind with the JDBC batch size:
+ * <ul>
+ *   <li>{@code random} / 1: the previous behaviour, one round trip per row and random keys;</li>
+ *   <li>{@code time-ordered} / 50: the current one, {@code hibernate.jdbc.batch_size=50} with
+ *       reWriteBatchedInserts and keys that append to the right of the index.</li>
+ * </ul>
+ * The table keeps growing across iterations, so the random-key runs also pay for index page
+ * splits once it outgrows shared buffers.
+ * <p>
+ * Needs a scratch database: {@code java -Djdbc.url=jdbc:postgresql://localhost:5432/bench
+ * -Djdbc.user=... -Djdbc.password=... -jar target/benchmarks.jar PrimaryKeyInsertBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimaryKeyInsertBenchmark {
+
+    private static final int ROWS = 500;
+    private static final String TABLE = "bench_pk_insert";
+
+    @Param({"random", "time-ordered"})
+    private String ids;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("jdbc.url", "jdbc:postgresql://localhost:5432/bench");
+        connection = DriverManager.getConnection(url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true",
+            System.getProperty("jdbc.user", "osun_his"), System.getProperty("jdbc.password", "osun_his_password"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " (id VARCHAR(36) PRIMARY KEY, payload VARCHAR(200) NOT NULL,"
+                + " created_at TIMESTAMP NOT NULL, version INTEGER DEFAULT 0)");
+        }
+        connection.setAutoCommit(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+        connection.close();
+    }
+
+    /**
+     * One transaction of {@value #ROWS} rows, as a bulk save would write them.
+     */
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void insert() throws SQLException {
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (id, payload, created_at, version) VALUES (?, ?, ?, 0)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                insert.setString(1, "random".equals(ids) ? UUID.randomUUID().toString() : TimeOrderedIds.next());
+                insert.setString(2, "payload-" + i);
+                insert.setTimestamp(3, now);
+                if (batchSize == 1) {
+                    insert.executeUpdate();
+                } else {
+                    insert.addBatch();
+                    if (i % batchSize == 0) {
+                        insert.executeBatch();
+                    }
+                }
+            }
+            if (batchSize > 1) {
+                insert.executeBatch();
+            }
+        }
+        connection.commit();
+    }
+}
@@ -0,0 +1,104 @@
+package ng.osun.his.platform.security;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-field cost of PHI encryption with the thread-cached Cipher and SecureRandom, against the
+ * previous implementation that created both for every call. Field sizes cover a phone number and
+ * a free-text address.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar PhiEncryptionBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PhiEncryptionBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"16", "256"})
+    private int fieldLength;
+
+    private SecretKey key;
+    private PhiEncryptionService service;
+    private String plaintext;
+    private String ciphertext;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() {
+        byte[] raw = new byte[32];
+        new SecureRandom().nextBytes(raw);
+        key = new SecretKeySpec(raw, "AES");
+        service = new PhiEncryptionService(new PhiKeyRing(Collections.singletonMap(1, key), 1));
+
+        StringBuilder value = new StringBuilder(fieldLength);
+        for (int i = 0; i < fieldLength; i++) {
+            value.append((char) ('a' + i % 26));
+        }
+        plaintext = value.toString();
+        ciphertext = service.encrypt(plaintext);
+        batch = new ArrayList<>(Collections.nCopies(BATCH, plaintext));
+    }
+
+    @Benchmark
+    public String encrypt() {
+        return service.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() {
+        return service.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<String> encryptAll() {
+        return service.encryptAll(batch);
+    }
+
+    /**
+     * Baseline: new Cipher and SecureRandom per field, as before the thread-local caches.
+     */
+    @Benchmark
+    public String encryptUncached() throws GeneralSecurityException {
+        byte[] iv = new byte[PhiEncryptionService.IV_LENGTH];
+        new SecureRandom().nextBytes(iv);
+
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(PhiEncryptionService.TAG_BITS, iv));
+        byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+
+        byte[] output = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, output, 0, iv.length);
+        System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(output);
+    }
+}
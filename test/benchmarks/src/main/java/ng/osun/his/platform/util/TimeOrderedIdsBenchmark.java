@@ -0,0 +1,49 @@
+package ng.osun.his.platform.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of generating an entity id: {@link TimeOrderedIds} against the random UUIDs it replaced,
+ * on one thread and under contention from eight.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar TimeOrderedIdsBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TimeOrderedIdsBenchmark {
+
+    @Benchmark
+    public String timeOrdered() {
+        return TimeOrderedIds.next();
+    }
+
+    @Benchmark
+    public String randomUuid() {
+        return UUID.randomUUID().toString();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String timeOrderedContended() {
+        return TimeOrderedIds.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String randomUuidContended() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,88 @@
+package ng.osun.his.loadtest
+
+import io.gatling.core.Predef._
+import io.gatling.http.Predef._
+
+import java.time.LocalDate
+import java.util.UUID
+import scala.util.Random
+
+/**
+ * Many front desks booking the same few provider slots at once.
+ *
+ * Every booking must either succeed (201) or be rejected as a conflict (400); once the burst
+ * is over, the clinic-day is read back and must hold at most one active appointment per
+ * provider slot. Run against an empty day, e.g.
+ * -Dday=2025-01-06 -DclinicId=clinic-1 -DproviderIds=provider-1,provider-2 -Dusers=2000
+ */
+class BookingContentionTest extends Simulation {
+
+  val clinicId = System.getProperty("clinicId", "clinic-1")
+  val providerIds = System.getProperty("providerIds", "provider-1,provider-2,provider-3,provider-4").split(",").toIndexedSeq
+  val day = System.getProperty("day", LocalDate.now.plusDays(7).toString)
+  val slotsPerProvider = Integer.getInteger("slots", 8).intValue
+  val users = Integer.getInteger("users", 2000).intValue
+
+  val httpProtocol = http
+    .baseUrl(System.getProperty("baseUrl", "http://localhost:8081"))
+    .header("Authorization", "Bearer ${token}")
+    .contentTypeHeader("application/json")
+
+  // Authentication
+  val auth = exec(http("Get Token")
+    .post("/auth/realms/osun-his-realm/protocol/openid-connect/token")
+    .formParam("grant_type", "client_credentials")
+    .formParam("client_id", "osun-his-client")
+    .formParam("client_secret", "secret")
+    .check(jsonPath("$.access_token").saveAs("token")))
+
+  // Every booking lands on one of providers x slots, all starting from 08:00 every 30 minutes
+  val bookings = Iterator.continually {
+    val slot = Random.nextInt(slotsPerProvider)
+    Map(
+      "patientId" -> UUID.randomUUID.toString,
+      "providerId" -> providerIds(Random.nextInt(providerIds.size)),
+      "appointmentDate" -> f"${day}T${8 + slot / 2}%02d:${(slot % 2) * 30}%02d:00")
+  }
+
+  val contention = scenario("Contended Booking")
+    .exec(auth)
+    .feed(bookings)
+    .exec(http("Book Contended Slot")
+      .post("/api/appointments")
+      .body(StringBody(s"""{
+        "patientId": "$${patientId}",
+        "clinicId": "$clinicId",
+        "providerId": "$${providerId}",
+        "appointmentDate": "$${appointmentDate}",
+        "durationMinutes": 30
+      }"""))
+      .check(status.in(201, 400)))
+
+  // Active appointments sharing a provider and start time on the contended day
+  def doubleBookings(appointments: Seq[Map[String, Any]]): Int =
+    appointments
+      .filter(a => a.get("providerId").exists(_ != null) && !a.get("status").contains("CANCELLED"))
+      .groupBy(a => (a("providerId"), a("appointmentDate")))
+      .count(_._2.size > 1)
+
+  val verify = scenario("Verify No Double Bookings")
+    .exec(auth)
+    .exec(http("Read Back Clinic Day")
+      .get(s"/api/appointments/clinic/$clinicId")
+      .queryParam("start", s"${day}T00:00:00")
+      .queryParam("end", s"${day}T23:59:59")
+      .check(jsonPath("$[*]").ofType[Map[String, Any]].findAll.transform(doubleBookings).is(0))
+      .check(jsonPath("$[*]").count.lte(providerIds.size * slotsPerProvider)))
+
+  // Load Profile: the whole burst at once, then a single read-back
+  setUp(
+    contention.inject(atOnceUsers(users))
+      .andThen(verify.inject(atOnceUsers(1)))
+  ).protocols(httpProtocol)
+    .assertions(
+      details("Book Contended Slot").failedRequests.count.is(0),  // only 201 or 400
+      details("Read Back Clinic Day").failedRequests.count.is(0),  // zero double-bookings
+      details("Book Contended Slot").responseTime.percentile3.lt(1000)
+    )
+}